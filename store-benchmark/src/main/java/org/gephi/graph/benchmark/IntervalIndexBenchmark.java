@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.benchmark;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.Random;
+import org.gephi.graph.api.Interval;
+import org.gephi.graph.impl.Interval2IntTreeMap;
+
+/**
+ * Overlap queries of the interval tree compared with the ones of its array
+ * index.
+ */
+public class IntervalIndexBenchmark {
+
+    private long count;
+
+    public Runnable queryTree(int intervals, int queries) {
+        final Interval2IntTreeMap map = newMap(intervals);
+        final double[] points = newQueries(intervals, queries);
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                for (double point : points) {
+                    for (Integer value : map.values(new Interval(point, point + 10))) {
+                        count += value;
+                    }
+                }
+            }
+        };
+        return runnable;
+    }
+
+    public Runnable queryArray(int intervals, int queries) {
+        final Interval2IntTreeMap map = newMap(intervals);
+        final double[] points = newQueries(intervals, queries);
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                IntArrayList values = new IntArrayList();
+                for (double point : points) {
+                    values.clear();
+                    map.values(point, point + 10, values);
+                    for (int i = 0; i < values.size(); i++) {
+                        count += values.getInt(i);
+                    }
+                }
+            }
+        };
+        return runnable;
+    }
+
+    private Interval2IntTreeMap newMap(int intervals) {
+        Random random = new Random(42l);
+        Interval2IntTreeMap map = new Interval2IntTreeMap();
+        for (int i = 0; i < intervals; i++) {
+            double low = random.nextInt(intervals * 10);
+            map.put(new Interval(low, low + random.nextInt(100)), i);
+        }
+        return map;
+    }
+
+    private double[] newQueries(int intervals, int queries) {
+        Random random = new Random(43l);
+        double[] points = new double[queries];
+        for (int i = 0; i < queries; i++) {
+            points[i] = random.nextInt(intervals * 10);
+        }
+        return points;
+    }
+}
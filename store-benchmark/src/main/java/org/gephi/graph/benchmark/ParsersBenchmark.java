@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.benchmark;
+
+import org.gephi.graph.impl.ArraysParser;
+import org.gephi.graph.impl.IntervalsParser;
+import org.gephi.graph.impl.TimestampsParser;
+
+/**
+ * Throughput of the timestamps, intervals and arrays parsers.
+ */
+public class ParsersBenchmark {
+
+    private Object object;
+
+    public Runnable parseTimestampSets(int cells) {
+        final String[] inputs = new String[cells];
+        for (int i = 0; i < cells; i++) {
+            inputs[i] = "<[" + i + ", " + (i + 0.5) + ", " + (i + 1) + "]>";
+        }
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                for (String input : inputs) {
+                    object = TimestampsParser.parseTimestampSet(input);
+                }
+            }
+        };
+        return runnable;
+    }
+
+    public Runnable parseDateSets(int cells) {
+        final String[] inputs = new String[cells];
+        for (int i = 0; i < cells; i++) {
+            inputs[i] = "<[2015-01-0" + (1 + i % 9) + "T10:30:15.123Z, 2016-02-29]>";
+        }
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                for (String input : inputs) {
+                    object = TimestampsParser.parseTimestampSet(input);
+                }
+            }
+        };
+        return runnable;
+    }
+
+    public Runnable parseIntervalSets(int cells) {
+        final String[] inputs = new String[cells];
+        for (int i = 0; i < cells; i++) {
+            inputs[i] = "<[" + i + ", " + (i + 1) + "]; [" + (i + 2) + ", " + (i + 3) + "]>";
+        }
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                for (String input : inputs) {
+                    object = IntervalsParser.parseIntervalSet(input);
+                }
+            }
+        };
+        return runnable;
+    }
+
+    public Runnable parseTimestampMaps(int cells) {
+        final String[] inputs = new String[cells];
+        for (int i = 0; i < cells; i++) {
+            inputs[i] = "<[" + i + ", " + (i * 0.1) + "]; [" + (i + 1) + ", " + (i * 0.2) + "]>";
+        }
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                for (String input : inputs) {
+                    object = TimestampsParser.parseTimestampMap(Double.class, input);
+                }
+            }
+        };
+        return runnable;
+    }
+
+    public Runnable parseDoubleArrays(int cells) {
+        final String[] inputs = new String[cells];
+        for (int i = 0; i < cells; i++) {
+            inputs[i] = "[" + i + ", " + (i * 0.1) + ", -" + i + ".25, 1e3]";
+        }
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                for (String input : inputs) {
+                    object = ArraysParser.parseArrayAsPrimitiveArray(Double[].class, input);
+                }
+            }
+        };
+        return runnable;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.benchmark;
+
+import org.gephi.nanobench.NanoBench;
+import org.testng.annotations.Test;
+
+public class IntervalIndexBenchmarkTest {
+
+    private static final int QUERIES = 200000;
+
+    @Test
+    public void testQueryTree() {
+        int[] n = {10000, 100000, 1000000};
+        for (int intervals : n) {
+            NanoBench.create().cpuOnly().measurements(5).measure("query interval tree " + intervals, new IntervalIndexBenchmark().queryTree(intervals, QUERIES));
+        }
+    }
+
+    @Test
+    public void testQueryArray() {
+        int[] n = {10000, 100000, 1000000};
+        for (int intervals : n) {
+            NanoBench.create().cpuOnly().measurements(5).measure("query interval array " + intervals, new IntervalIndexBenchmark().queryArray(intervals, QUERIES));
+        }
+    }
+}
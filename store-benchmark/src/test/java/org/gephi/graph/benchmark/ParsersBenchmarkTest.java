@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.benchmark;
+
+import org.gephi.nanobench.NanoBench;
+import org.testng.annotations.Test;
+
+public class ParsersBenchmarkTest {
+
+    private static final int CELLS = 200000;
+
+    @Test
+    public void testParseTimestampSets() {
+        NanoBench.create().cpuOnly().measurements(5).measure("parse timestamp sets " + CELLS, new ParsersBenchmark().parseTimestampSets(CELLS));
+    }
+
+    @Test
+    public void testParseDateSets() {
+        NanoBench.create().cpuOnly().measurements(5).measure("parse date sets " + CELLS, new ParsersBenchmark().parseDateSets(CELLS));
+    }
+
+    @Test
+    public void testParseIntervalSets() {
+        NanoBench.create().cpuOnly().measurements(5).measure("parse interval sets " + CELLS, new ParsersBenchmark().parseIntervalSets(CELLS));
+    }
+
+    @Test
+    public void testParseTimestampMaps() {
+        NanoBench.create().cpuOnly().measurements(5).measure("parse timestamp maps " + CELLS, new ParsersBenchmark().parseTimestampMaps(CELLS));
+    }
+
+    @Test
+    public void testParseDoubleArrays() {
+        NanoBench.create().cpuOnly().measurements(5).measure("parse double arrays " + CELLS, new ParsersBenchmark().parseDoubleArrays(CELLS));
+    }
+}
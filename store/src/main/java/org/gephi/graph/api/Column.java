@@ -103,6 +103,19 @@ public interface Column {
      */
     public boolean isNumber();
 
+    /**
+     * Returns true if this column is dictionary encoded.
+     * <p>
+     * The distinct values of a dictionary encoded column are stored once and
+     * shared by elements, which saves memory for string columns with few
+     * distinct values. For timestamp set and map columns, the timestamp arrays
+     * of the values set as a whole are shared, timestamps added one at a time
+     * aren't.
+     *
+     * @return true if dictionary encoded, false otherwise
+     */
+    public boolean isDictionaryEncoded();
+
     /**
      * Returns true if this column is a property.
      * <p>
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Reusable cursor over the edges adjacent to a node.
+ * <p>
+ * Unlike the iterables returned by {@link Graph#getEdges(Node)} and similar
+ * methods, a cursor is allocated once and then repositioned on any number of
+ * nodes with the <code>reset</code> methods. The current edge is exposed as
+ * primitive values, which makes it suited for traversal-heavy algorithms.
+ * <p>
+ * A cursor returned by a graph view only visits the edges in that view and a
+ * cursor returned by an undirected graph skips the mutual edge duplicates, as
+ * the iterables do.
+ * <p>
+ * The read lock (if any) is acquired when the cursor is reset and released when
+ * {@link #nextEdgeStoreId() } returns <code>-1</code>. Call {@link #doBreak() }
+ * to release it when leaving the loop early. A typical loop looks like this:
+ *
+ * <pre>
+ * EdgeCursor cursor = graph.edgeCursor();
+ * for (Node node : graph.getNodes().toArray()) {
+ *     cursor.resetOut(node);
+ *     while (cursor.nextEdgeStoreId() != -1) {
+ *         int target = cursor.targetStoreId();
+ *         double weight = cursor.weight();
+ *     }
+ * }
+ * </pre>
+ *
+ * @see Graph#edgeCursor()
+ */
+public interface EdgeCursor {
+
+    /**
+     * Positions the cursor before the first outgoing edge of the given node.
+     *
+     * @param node the node
+     */
+    public void resetOut(Node node);
+
+    /**
+     * Positions the cursor before the first outgoing edge of the given node and
+     * the given edge type.
+     *
+     * @param node the node
+     * @param type the edge type
+     */
+    public void resetOut(Node node, int type);
+
+    /**
+     * Positions the cursor before the first incoming edge of the given node.
+     *
+     * @param node the node
+     */
+    public void resetIn(Node node);
+
+    /**
+     * Positions the cursor before the first incoming edge of the given node and
+     * the given edge type.
+     *
+     * @param node the node
+     * @param type the edge type
+     */
+    public void resetIn(Node node, int type);
+
+    /**
+     * Positions the cursor before the first edge, incoming or outgoing, of the
+     * given node. Self-loops are visited once.
+     *
+     * @param node the node
+     */
+    public void reset(Node node);
+
+    /**
+     * Positions the cursor before the first edge, incoming or outgoing, of the
+     * given node and the given edge type. Self-loops are visited once.
+     *
+     * @param node the node
+     * @param type the edge type
+     */
+    public void reset(Node node, int type);
+
+    /**
+     * Advances the cursor and returns the store id of the next edge.
+     *
+     * @return the edge store id, or <code>-1</code> if there is no more edges
+     */
+    public int nextEdgeStoreId();
+
+    /**
+     * Returns the store id of the current edge's source node.
+     *
+     * @return source node store id
+     */
+    public int sourceStoreId();
+
+    /**
+     * Returns the store id of the current edge's target node.
+     *
+     * @return target node store id
+     */
+    public int targetStoreId();
+
+    /**
+     * Returns the store id of the current edge's node opposite to the node the
+     * cursor has been reset on.
+     *
+     * @return opposite node store id
+     */
+    public int oppositeStoreId();
+
+    /**
+     * Returns the current edge's type.
+     *
+     * @return edge type
+     */
+    public int type();
+
+    /**
+     * Returns the current edge's weight.
+     *
+     * @return edge weight
+     */
+    public double weight();
+
+    /**
+     * Returns the current edge.
+     *
+     * @return current edge
+     */
+    public Edge edge();
+
+    /**
+     * Stops the traversal and releases the read lock (if any).
+     */
+    public void doBreak();
+}
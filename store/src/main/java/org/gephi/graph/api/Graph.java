@@ -204,6 +204,14 @@ public interface Graph {
      */
     public EdgeIterable getSelfLoops();
 
+    /**
+     * Gets all the edges in the graph with the given type.
+     *
+     * @param type the edge type
+     * @return an edge iterable over all edges of the given type
+     */
+    public EdgeIterable getEdges(int type);
+
     /**
      * Gets all neighbors of a given node.
      *
@@ -238,6 +246,17 @@ public interface Graph {
      */
     public EdgeIterable getEdges(Node node, int type);
 
+    /**
+     * Creates a new reusable edge cursor on this graph.
+     * <p>
+     * The cursor can be repositioned on any node and doesn't allocate while
+     * traversing edges.
+     *
+     * @return a new edge cursor
+     * @see EdgeCursor
+     */
+    public EdgeCursor edgeCursor();
+
     /**
      * Gets the number of nodes in the graph.
      *
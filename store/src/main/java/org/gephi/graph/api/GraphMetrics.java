@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Snapshot of the metrics recorded by the graph store.
+ * <p>
+ * Times are in nanoseconds. Latencies are counted in fixed buckets, bucket
+ * <code>i</code> counting the events which took less than
+ * <code>getHistogramBounds()[i]</code> and at least the previous bound.
+ *
+ * @see GraphModel#getMetrics()
+ */
+public interface GraphMetrics {
+
+    /**
+     * Returns whether metrics were being recorded when the snapshot was taken.
+     *
+     * @return true if metrics are enabled, false otherwise
+     */
+    public boolean isEnabled();
+
+    /**
+     * Returns the number of events, or the amount for amount metrics.
+     *
+     * @param metric metric
+     * @return count
+     */
+    public long getCount(Metric metric);
+
+    /**
+     * Returns the total time of the events, in nanoseconds.
+     *
+     * @param metric metric
+     * @return total time
+     */
+    public long getTotalTime(Metric metric);
+
+    /**
+     * Returns the longest time of an event, in nanoseconds.
+     *
+     * @param metric metric
+     * @return maximum time
+     */
+    public long getMaxTime(Metric metric);
+
+    /**
+     * Returns the number of events per latency bucket.
+     *
+     * @param metric metric
+     * @return counts, one per bucket
+     */
+    public long[] getHistogram(Metric metric);
+
+    /**
+     * Returns the exclusive upper bounds of the latency buckets, in
+     * nanoseconds. The last bound is <code>Long.MAX_VALUE</code>.
+     *
+     * @return bucket bounds
+     */
+    public long[] getHistogramBounds();
+}
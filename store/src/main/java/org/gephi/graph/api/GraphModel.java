@@ -18,7 +18,12 @@ package org.gephi.graph.api;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import org.gephi.graph.impl.GraphModelImpl;
+import org.gephi.graph.impl.WriteAheadLog;
 import org.joda.time.DateTimeZone;
 
 /**
@@ -138,6 +143,92 @@ public interface GraphModel {
             }
         }
 
+        /**
+         * Read the <code>input</code> and return the read graph model.
+         * <p>
+         * The graph store is made of independently compressed chunks, which are
+         * decompressed and decoded in parallel with the given executor.
+         *
+         * @param input data input to read from
+         * @param executor executor to decode chunks with
+         * @return new graph model
+         * @throws IOException if an io error occurs
+         */
+        public static GraphModel read(DataInput input, ExecutorService executor) throws IOException {
+            try {
+                org.gephi.graph.impl.Serialization s = new org.gephi.graph.impl.Serialization(null, executor);
+                return s.deserializeGraphModel(input);
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+
+        /**
+         * Read the <code>input</code> and return a graph model with only the
+         * nodes and edges of the given view.
+         * <p>
+         * The view is read first and the node and edge blocks without any of
+         * its elements are skipped. The view itself and the other views aren't
+         * part of the returned graph model.
+         *
+         * @param input data input to read from
+         * @param viewId store id of the view to read, as returned by
+         *        {@link GraphView#getStoreId()} before writing
+         * @return new graph model
+         * @throws IOException if an io error occurs or the view can't be found
+         */
+        public static GraphModel readView(DataInput input, int viewId) throws IOException {
+            return readView(input, viewId, null, null);
+        }
+
+        /**
+         * Read the <code>input</code> and return a graph model with only the
+         * nodes and edges of the given view and the given columns.
+         * <p>
+         * Property columns, such as the id or the label, are always read. A
+         * <code>null</code> collection means all the columns of the table.
+         *
+         * @param input data input to read from
+         * @param viewId store id of the view to read, as returned by
+         *        {@link GraphView#getStoreId()} before writing
+         * @param nodeColumns ids of the node columns to read, or null
+         * @param edgeColumns ids of the edge columns to read, or null
+         * @return new graph model
+         * @throws IOException if an io error occurs or the view can't be found
+         */
+        public static GraphModel readView(DataInput input, int viewId, Collection<String> nodeColumns, Collection<String> edgeColumns) throws IOException {
+            if (viewId < 0) {
+                throw new IllegalArgumentException("The view id should be positive");
+            }
+            return readSelection(input, viewId, nodeColumns, edgeColumns);
+        }
+
+        /**
+         * Read the <code>input</code> and return a graph model with only the
+         * given columns.
+         * <p>
+         * Property columns, such as the id or the label, are always read. A
+         * <code>null</code> collection means all the columns of the table.
+         *
+         * @param input data input to read from
+         * @param nodeColumns ids of the node columns to read, or null
+         * @param edgeColumns ids of the edge columns to read, or null
+         * @return new graph model
+         * @throws IOException if an io error occurs
+         */
+        public static GraphModel readColumns(DataInput input, Collection<String> nodeColumns, Collection<String> edgeColumns) throws IOException {
+            return readSelection(input, -1, nodeColumns, edgeColumns);
+        }
+
+        private static GraphModel readSelection(DataInput input, int viewId, Collection<String> nodeColumns, Collection<String> edgeColumns) throws IOException {
+            try {
+                org.gephi.graph.impl.Serialization s = new org.gephi.graph.impl.Serialization();
+                return s.deserializeGraphModel(input, viewId, nodeColumns, edgeColumns);
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+
         /**
          * Read the <code>input</code> and return the read graph model without
          * an explicit version header in the input. To be used with old
@@ -169,6 +260,216 @@ public interface GraphModel {
             org.gephi.graph.impl.Serialization s = new org.gephi.graph.impl.Serialization();
             s.serializeGraphModel(output, (GraphModelImpl) graphModel);
         }
+
+        /**
+         * Write <code>graphModel</code> to <code>output</code>.
+         * <p>
+         * The node and edge blocks, columns, time indices and views are encoded
+         * and compressed as independent chunks in parallel with the given
+         * executor.
+         *
+         * @param output data output to write to
+         * @param graphModel graph model to write
+         * @param executor executor to encode chunks with
+         * @throws IOException if an io error occurs
+         */
+        public static void write(DataOutput output, GraphModel graphModel, ExecutorService executor) throws IOException {
+            org.gephi.graph.impl.Serialization s = new org.gephi.graph.impl.Serialization(null, executor);
+            s.serializeGraphModel(output, (GraphModelImpl) graphModel);
+        }
+
+        /**
+         * Write <code>graphModel</code> to <code>output</code> in the
+         * background, while the graph can still be modified.
+         * <p>
+         * The graph is written as it is when this method is called. Node and
+         * edge blocks are encoded by the executor, unless an element is
+         * modified or removed first, in which case its block is encoded right
+         * before. Node and edge properties (e.g. position, color or size)
+         * aren't preserved that way and are written as they are when their
+         * block is encoded. The output shouldn't be used until the returned
+         * future completes.
+         * <p>
+         * Cancelling the returned future ends the save. If the executor drops
+         * the save without running it, e.g. when shut down, the future should
+         * be cancelled so another save can start.
+         *
+         * @param output data output to write to
+         * @param graphModel graph model to write
+         * @param executor executor to run the save with
+         * @return future completing once the graph model is written
+         * @throws IOException if an io error occurs
+         * @throws IllegalStateException if a background save is already running
+         */
+        public static Future<Void> writeInBackground(DataOutput output, GraphModel graphModel, ExecutorService executor) throws IOException {
+            org.gephi.graph.impl.Serialization s = new org.gephi.graph.impl.Serialization();
+            return s.serializeGraphModelInBackground(output, (GraphModelImpl) graphModel, executor);
+        }
+
+        /**
+         * Write <code>graphModel</code> to <code>output</code> and start
+         * tracking its changes from this checkpoint.
+         * <p>
+         * The changes made afterwards can then be written with
+         * {@link #writeDelta(java.io.DataOutput, org.gephi.graph.api.GraphModel)}
+         * . Observers should be enabled.
+         *
+         * @param output data output to write to
+         * @param graphModel graph model to write
+         * @throws IOException if an io error occurs
+         */
+        public static void writeCheckpoint(DataOutput output, GraphModel graphModel) throws IOException {
+            org.gephi.graph.impl.Serialization s = new org.gephi.graph.impl.Serialization();
+            s.serializeGraphModelCheckpoint(output, (GraphModelImpl) graphModel);
+        }
+
+        /**
+         * Write the changes made to <code>graphModel</code> since the
+         * checkpoint or the previous delta to <code>output</code>.
+         * <p>
+         * Only the added and removed nodes, edges and columns, and the touched
+         * attribute values are written. Node and edge properties (e.g. position
+         * or color) are only written for added elements and views aren't
+         * written.
+         *
+         * @param output data output to write to
+         * @param graphModel graph model to write the changes of
+         * @throws IOException if an io error occurs
+         * @throws IllegalStateException if no checkpoint has been written
+         */
+        public static void writeDelta(DataOutput output, GraphModel graphModel) throws IOException {
+            org.gephi.graph.impl.Serialization s = new org.gephi.graph.impl.Serialization();
+            s.serializeGraphModelDelta(output, (GraphModelImpl) graphModel);
+        }
+
+        /**
+         * Read the checkpoint <code>input</code>, apply the <code>deltas</code>
+         * in order and return the read graph model.
+         *
+         * @param input data input to read the checkpoint from
+         * @param deltas data inputs to read the deltas from
+         * @return new graph model
+         * @throws IOException if an io error occurs
+         */
+        public static GraphModel readWithDeltas(DataInput input, DataInput... deltas) throws IOException {
+            try {
+                org.gephi.graph.impl.Serialization s = new org.gephi.graph.impl.Serialization();
+                return s.deserializeGraphModelWithDeltas(input, deltas);
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+
+        /**
+         * Merge the checkpoint <code>input</code> and its <code>deltas</code>
+         * into a single full graph model written to <code>output</code>.
+         *
+         * @param output data output to write the merged graph model to
+         * @param input data input to read the checkpoint from
+         * @param deltas data inputs to read the deltas from
+         * @throws IOException if an io error occurs
+         */
+        public static void merge(DataOutput output, DataInput input, DataInput... deltas) throws IOException {
+            write(output, readWithDeltas(input, deltas));
+        }
+
+        /**
+         * Start logging the mutations made to <code>graphModel</code> to
+         * <code>output</code>.
+         * <p>
+         * Node and edge additions and removals, column additions and removals
+         * and attribute changes are appended to the log, which is written in
+         * batches of 64 KB by a background thread or when
+         * {@link #commitWriteAheadLog(org.gephi.graph.api.GraphModel)} is
+         * called. Batches are synced when <code>output</code> is a file.
+         * <p>
+         * If a batch can't be written, the log stops recording so it remains
+         * consistent, and the error is thrown by the next commit or by
+         * {@link #stopWriteAheadLog(org.gephi.graph.api.GraphModel)}. Mutations
+         * aren't affected by the failure.
+         * <p>
+         * The log should be started right after writing the graph model, so it
+         * can be replayed on top of it with
+         * {@link #replayWriteAheadLog(java.io.DataInput, org.gephi.graph.api.GraphModel)}
+         * .
+         *
+         * @param output output stream to write the log to
+         * @param graphModel graph model to log the mutations of
+         * @throws IllegalStateException if a log is already started
+         */
+        public static void startWriteAheadLog(OutputStream output, GraphModel graphModel) {
+            startWriteAheadLog(output, graphModel, WriteAheadLog.DEFAULT_GROUP_COMMIT_SIZE);
+        }
+
+        /**
+         * Start logging the mutations made to <code>graphModel</code> to
+         * <code>output</code>, in batches of <code>groupCommitSize</code>
+         * bytes.
+         *
+         * @param output output stream to write the log to
+         * @param graphModel graph model to log the mutations of
+         * @param groupCommitSize number of bytes after which pending records
+         *        are written
+         * @throws IllegalStateException if a log is already started
+         */
+        public static void startWriteAheadLog(OutputStream output, GraphModel graphModel, int groupCommitSize) {
+            org.gephi.graph.impl.Serialization s = new org.gephi.graph.impl.Serialization();
+            s.startWriteAheadLog((GraphModelImpl) graphModel, output, groupCommitSize);
+        }
+
+        /**
+         * Write the pending records of the write-ahead log of
+         * <code>graphModel</code>.
+         *
+         * @param graphModel graph model to commit the log of
+         * @throws IOException if an io error occurs or the log failed before
+         * @throws IllegalStateException if no log is started
+         */
+        public static void commitWriteAheadLog(GraphModel graphModel) throws IOException {
+            org.gephi.graph.impl.Serialization s = new org.gephi.graph.impl.Serialization();
+            s.commitWriteAheadLog((GraphModelImpl) graphModel);
+        }
+
+        /**
+         * Write the pending records and stop logging the mutations made to
+         * <code>graphModel</code>.
+         *
+         * @param graphModel graph model to stop logging the mutations of
+         * @throws IOException if an io error occurs or the log failed before
+         * @throws IllegalStateException if no log is started
+         */
+        public static void stopWriteAheadLog(GraphModel graphModel) throws IOException {
+            org.gephi.graph.impl.Serialization s = new org.gephi.graph.impl.Serialization();
+            s.stopWriteAheadLog((GraphModelImpl) graphModel);
+        }
+
+        /**
+         * Replay the write-ahead log <code>input</code> on
+         * <code>graphModel</code>.
+         * <p>
+         * Replay stops at the first truncated or corrupted batch, which is the
+         * one that was being written if the log was interrupted.
+         *
+         * @param input data input to read the log from
+         * @param graphModel graph model to apply the mutations on
+         * @return number of replayed records
+         * @throws IOException if an io error occurs
+         */
+        public static int replayWriteAheadLog(DataInput input, GraphModel graphModel) throws IOException {
+            org.gephi.graph.impl.Serialization s = new org.gephi.graph.impl.Serialization();
+            return s.replayWriteAheadLog(input, (GraphModelImpl) graphModel);
+        }
+
+        /**
+         * Stop tracking the changes made to <code>graphModel</code> since the
+         * last checkpoint.
+         *
+         * @param graphModel graph model to clear the checkpoint of
+         */
+        public static void clearCheckpoint(GraphModel graphModel) {
+            org.gephi.graph.impl.Serialization s = new org.gephi.graph.impl.Serialization();
+            s.clearCheckpoint((GraphModelImpl) graphModel);
+        }
     }
 
     /**
@@ -253,6 +554,53 @@ public interface GraphModel {
      */
     public UndirectedSubgraph getUndirectedGraph(GraphView view);
 
+    /**
+     * Returns a read-only snapshot of the full graph with the directed
+     * interface.
+     * <p>
+     * The snapshot is a frozen copy of the graph structure taken under a read
+     * lock. It's not affected by later modifications and reading it doesn't
+     * require any locking, so it can be traversed from other threads while the
+     * graph is being modified. The nodes and edges it returns are read-only
+     * copies, so their attributes, weights and properties are frozen too, as
+     * well as the graph attributes.
+     * <p>
+     * All write methods, including the ones of its nodes and edges, throw an
+     * <code>UnsupportedOperationException</code>.
+     *
+     * @return directed graph snapshot
+     */
+    public DirectedGraph snapshot();
+
+    /**
+     * Returns a read-only snapshot of the graph for the given view with the
+     * directed interface.
+     *
+     * @param view graph view
+     * @return directed graph snapshot for this view
+     * @see #snapshot()
+     */
+    public DirectedGraph snapshot(GraphView view);
+
+    /**
+     * Returns a read-only snapshot of the full graph with the undirected
+     * interface.
+     *
+     * @return undirected graph snapshot
+     * @see #snapshot()
+     */
+    public UndirectedGraph undirectedSnapshot();
+
+    /**
+     * Returns a read-only snapshot of the graph for the given view with the
+     * undirected interface.
+     *
+     * @param view graph view
+     * @return undirected graph snapshot for this view
+     * @see #snapshot()
+     */
+    public UndirectedGraph undirectedSnapshot(GraphView view);
+
     /**
      * Gets the visible view.
      *
@@ -602,4 +950,118 @@ public interface GraphModel {
      * @return maximum edge store id
      */
     public int getMaxEdgeStoreId();
+
+    /**
+     * Compacts the node and edge stores.
+     * <p>
+     * Removing elements leaves empty slots behind, which makes store ids sparse
+     * and keeps store-id-sized structures at their largest size. This method
+     * renumbers nodes and edges so that store ids are consecutive again, while
+     * preserving their relative order. Views, indices and observers are updated
+     * accordingly.
+     * <p>
+     * Store ids obtained before calling this method shouldn't be reused after.
+     */
+    public void compact();
+
+    /**
+     * Returns true if the stores are compacted automatically.
+     *
+     * @return true if auto compaction is enabled, false otherwise
+     * @see #setAutoCompaction(boolean)
+     */
+    public boolean isAutoCompaction();
+
+    /**
+     * Sets whether the stores should be compacted automatically.
+     * <p>
+     * When enabled, the stores are compacted when a write operation completes
+     * and the number of empty slots is large compared to the number of
+     * elements. Compaction never happens while the current thread holds a read
+     * lock, for instance while iterating.
+     *
+     * @param autoCompaction true to enable auto compaction
+     * @see #compact()
+     */
+    public void setAutoCompaction(boolean autoCompaction);
+
+    /**
+     * Returns true if attribute writes use striped locking.
+     *
+     * @return true if striped locking is enabled, false otherwise
+     * @see #setStripedLocking(boolean)
+     */
+    public boolean isStripedLocking();
+
+    /**
+     * Sets whether attribute writes should use striped locking.
+     * <p>
+     * When enabled, setting attributes, labels or edge weights takes the shared
+     * read lock instead of no lock at all, so attribute writes on different
+     * elements run concurrently with each other and with readers but never
+     * while nodes or edges are added or removed. Indexed columns are updated
+     * under a per-column lock instead of a table-wide one. Writes to dynamic
+     * attributes also update the time index, under the time index's own lock.
+     * Attributes can still be written while the current thread holds a read
+     * lock, for instance while iterating.
+     *
+     * @param stripedLocking true to enable striped locking
+     */
+    public void setStripedLocking(boolean stripedLocking);
+
+    /**
+     * Returns a snapshot of the metrics recorded so far.
+     * <p>
+     * Metrics are only recorded while enabled. Disabling metrics keeps the
+     * recorded values.
+     *
+     * @return metrics snapshot
+     * @see #setMetricsEnabled(boolean)
+     */
+    public GraphMetrics getMetrics();
+
+    /**
+     * Returns true if metrics are recorded.
+     *
+     * @return true if metrics are enabled, false otherwise
+     */
+    public boolean isMetricsEnabled();
+
+    /**
+     * Sets whether metrics should be recorded.
+     * <p>
+     * When enabled, lock waits and holds, node and edge additions and removals,
+     * index updates, observer diffs and serializations are counted and timed,
+     * and the metrics are also registered as a platform MXBean under the
+     * <code>org.gephi.graph</code> domain. When disabled, recording has close
+     * to no cost and the MXBean is unregistered.
+     *
+     * @param metricsEnabled true to enable metrics
+     */
+    public void setMetricsEnabled(boolean metricsEnabled);
+
+    /**
+     * Estimates the heap memory used by this graph model, broken down by store,
+     * column, index and view.
+     * <p>
+     * Attribute values are sampled on large graphs, see
+     * {@link #estimateMemory(int)}. The estimate takes time linear in the
+     * number of elements but doesn't allocate per element.
+     *
+     * @return memory estimate
+     */
+    public MemoryEstimate estimateMemory();
+
+    /**
+     * Estimates the heap memory used by this graph model, sampling at most
+     * <code>sampleSize</code> nodes and edges to estimate attribute values.
+     * <p>
+     * Use <code>Integer.MAX_VALUE</code> to measure every attribute value.
+     *
+     * @param sampleSize maximum number of sampled nodes and edges
+     * @return memory estimate
+     * @throws IllegalArgumentException if <code>sampleSize</code> isn't
+     *         positive
+     */
+    public MemoryEstimate estimateMemory(int sampleSize);
 }
@@ -88,4 +88,12 @@ public interface GraphView {
      * @return true if destroyed, false otherwise
      */
     public boolean isDestroyed();
+
+    /**
+     * Returns the location of this view in the store. It is kept when the graph
+     * model is serialized, so it can be used to only read this view back.
+     *
+     * @return store id, or -1 for the main view or if destroyed
+     */
+    public int getStoreId();
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Estimate of the heap memory used by a graph model, broken down by store.
+ * <p>
+ * Sizes are in bytes and computed from the internal structures, assuming a
+ * 64-bit JVM with compressed references. They're estimates: objects shared
+ * between elements, such as dictionary encoded values, may be counted more than
+ * once and objects outside the stores (e.g. layout data) aren't counted.
+ * <p>
+ * Attribute values may be sampled, in which case column sizes are extrapolated
+ * from the sampled elements.
+ *
+ * @see GraphModel#estimateMemory()
+ */
+public interface MemoryEstimate {
+
+    /**
+     * Returns the estimated total size.
+     *
+     * @return total size in bytes
+     */
+    public long getTotal();
+
+    /**
+     * Returns the size of the node store: blocks, nodes, their properties,
+     * adjacency heads and the node id dictionary.
+     *
+     * @return node store size in bytes
+     */
+    public long getNodeStore();
+
+    /**
+     * Returns the size of the edge store: blocks, edges, their properties and
+     * the edge id dictionary.
+     *
+     * @return edge store size in bytes
+     */
+    public long getEdgeStore();
+
+    /**
+     * Returns the size of the edge store's source and target dictionaries and
+     * self-loop index.
+     *
+     * @return edge dictionaries size in bytes
+     */
+    public long getEdgeDictionaries();
+
+    /**
+     * Returns the size of the nodes and edges' attribute arrays, excluding the
+     * attribute values.
+     *
+     * @return attribute arrays size in bytes
+     */
+    public long getAttributeArrays();
+
+    /**
+     * Returns the size of <code>column</code>'s attribute values.
+     *
+     * @param column column
+     * @return column values size in bytes, or zero if the column is unknown
+     */
+    public long getColumn(Column column);
+
+    /**
+     * Returns the size of the index of <code>column</code>, in the main view
+     * and all the view indices.
+     *
+     * @param column column
+     * @return index size in bytes, or zero if the column isn't indexed
+     */
+    public long getIndex(Column column);
+
+    /**
+     * Returns the size of <code>view</code>. Pages shared with other views are
+     * split between the views sharing them.
+     *
+     * @param view view
+     * @return view size in bytes, or zero if the view is unknown
+     */
+    public long getView(GraphView view);
+
+    /**
+     * Returns the size of the node and edge time indices.
+     *
+     * @return time indices size in bytes
+     */
+    public long getTimeIndex();
+
+    /**
+     * Returns true if attribute values were sampled.
+     *
+     * @return true if sampled, false otherwise
+     */
+    public boolean isSampled();
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Metrics recorded by the graph store when metrics are enabled.
+ * <p>
+ * Timed metrics count events and record how long they took. Amount metrics only
+ * count, their count is the total amount and they have no time.
+ *
+ * @see GraphModel#setMetricsEnabled(boolean)
+ */
+public enum Metric {
+
+    /**
+     * Graph read lock acquisitions, timed while waiting for the lock.
+     */
+    READ_LOCK,
+    /**
+     * Graph write lock acquisitions, timed while waiting for the lock.
+     */
+    WRITE_LOCK,
+    /**
+     * Graph write lock holds, timed from the outermost acquisition to the
+     * release.
+     */
+    WRITE_LOCK_HOLD,
+    /**
+     * Table lock acquisitions, timed while waiting for the lock.
+     */
+    TABLE_LOCK,
+    /**
+     * Exclusive table lock holds, timed from the outermost acquisition to the
+     * release.
+     */
+    TABLE_LOCK_HOLD,
+    /**
+     * Nodes added to the store.
+     */
+    NODE_ADD,
+    /**
+     * Nodes removed from the store.
+     */
+    NODE_REMOVE,
+    /**
+     * Edges added to the store.
+     */
+    EDGE_ADD,
+    /**
+     * Edges removed from the store.
+     */
+    EDGE_REMOVE,
+    /**
+     * Attribute index updates.
+     */
+    INDEX_UPDATE,
+    /**
+     * Graph observer diff computations.
+     */
+    OBSERVER_DIFF,
+    /**
+     * Graph store serializations.
+     */
+    SERIALIZATION,
+    /**
+     * Bytes written by graph store serializations, an amount metric.
+     */
+    SERIALIZED_BYTES
+}
@@ -64,6 +64,25 @@ public interface Table extends ColumnIterable {
      */
     public Column addColumn(String id, String title, Class type, Origin origin, Object defaultValue, boolean indexed);
 
+    /**
+     * Adds a new column to this table.
+     * <p>
+     * Dictionary encoding is only supported for string and timestamp set or map
+     * columns. It's meant for string columns with few distinct values (e.g.
+     * categories) and for timestamp columns whose elements share the same
+     * timestamps.
+     *
+     * @param id the unique column identifier
+     * @param title the column title
+     * @param type the column type
+     * @param origin the column's origin
+     * @param defaultValue the default value
+     * @param indexed whether the column should be indexed
+     * @param dictionaryEncoded whether the column should be dictionary encoded
+     * @return the newly created column
+     */
+    public Column addColumn(String id, String title, Class type, Origin origin, Object defaultValue, boolean indexed, boolean dictionaryEncoded);
+
     /**
      * Returns the column at the given index.
      *
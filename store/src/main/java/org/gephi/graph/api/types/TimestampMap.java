@@ -39,6 +39,7 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
 
     protected double[] array;
     protected int size = 0;
+    protected boolean shared;
 
     /**
      * Default constructor.
@@ -204,6 +205,7 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
                 System.arraycopy(array, insertIndex, newArray, insertIndex + 1, array.length - insertIndex);
                 newArray[insertIndex] = timestamp;
                 array = newArray;
+                shared = false;
             }
 
             size++;
@@ -215,6 +217,10 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
         int index = Arrays.binarySearch(array, 0, size, timestamp);
         if (index >= 0) {
             int removeIndex = index;
+            if (shared) {
+                array = Arrays.copyOf(array, size);
+                shared = false;
+            }
 
             if (removeIndex == size - 1) {
                 size--;
@@ -291,10 +297,35 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
         return res;
     }
 
+    /**
+     * Replaces the timestamps of this map by <code>timestamps</code>, which
+     * must contain the same timestamps.
+     * <p>
+     * The array is then shared with other maps or sets and is copied before
+     * this map's timestamps are modified. This is used by the graph store to
+     * share the timestamps of dictionary encoded columns.
+     *
+     * @param timestamps timestamps, equal to this map's timestamps
+     * @throws IllegalArgumentException if the timestamps differ
+     */
+    public void shareTimestamps(double[] timestamps) {
+        if (timestamps.length != size) {
+            throw new IllegalArgumentException("The timestamps differ");
+        }
+        for (int i = 0; i < size; i++) {
+            if (timestamps[i] != array[i]) {
+                throw new IllegalArgumentException("The timestamps differ");
+            }
+        }
+        array = timestamps;
+        shared = true;
+    }
+
     @Override
     public void clear() {
         size = 0;
         array = new double[0];
+        shared = false;
         setValuesArray(Array.newInstance(getValuesArray().getClass().getComponentType(), 0));
     }
 
@@ -28,6 +28,7 @@ public final class TimestampSet implements TimeSet<Double> {
 
     private double[] array;
     private int size = 0;
+    private boolean shared;
 
     /**
      * Default constructor.
@@ -114,6 +115,31 @@ public final class TimestampSet implements TimeSet<Double> {
     public void clear() {
         size = 0;
         array = new double[0];
+        shared = false;
+    }
+
+    /**
+     * Replaces the timestamps of this set by <code>timestamps</code>, which
+     * must contain the same timestamps.
+     * <p>
+     * The array is then shared with other sets or maps and is copied before
+     * this set is modified. This is used by the graph store to share the
+     * timestamps of dictionary encoded columns.
+     *
+     * @param timestamps timestamps, equal to this set's timestamps
+     * @throws IllegalArgumentException if the timestamps differ
+     */
+    public void shareTimestamps(double[] timestamps) {
+        if (timestamps.length != size) {
+            throw new IllegalArgumentException("The timestamps differ");
+        }
+        for (int i = 0; i < size; i++) {
+            if (timestamps[i] != array[i]) {
+                throw new IllegalArgumentException("The timestamps differ");
+            }
+        }
+        array = timestamps;
+        shared = true;
     }
 
     private int addInner(double timestamp) {
@@ -132,6 +158,7 @@ public final class TimestampSet implements TimeSet<Double> {
                 System.arraycopy(array, insertIndex, newArray, insertIndex + 1, array.length - insertIndex);
                 newArray[insertIndex] = timestamp;
                 array = newArray;
+                shared = false;
             }
 
             size++;
@@ -144,6 +171,10 @@ public final class TimestampSet implements TimeSet<Double> {
         int index = Arrays.binarySearch(array, 0, size, timestamp);
         if (index >= 0) {
             int removeIndex = index;
+            if (shared) {
+                array = Arrays.copyOf(array, size);
+                shared = false;
+            }
 
             if (removeIndex == size - 1) {
                 size--;
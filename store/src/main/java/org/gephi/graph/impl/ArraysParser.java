@@ -15,8 +15,7 @@
  */
 package org.gephi.graph.impl;
 
-import java.io.IOException;
-import java.io.StringReader;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import org.gephi.graph.api.AttributeUtils;
@@ -26,6 +25,7 @@ import static org.gephi.graph.impl.FormattingAndParsingUtils.LEFT_BOUND_SQUARE_B
 import static org.gephi.graph.impl.FormattingAndParsingUtils.RIGHT_BOUND_BRACKET;
 import static org.gephi.graph.impl.FormattingAndParsingUtils.RIGHT_BOUND_SQUARE_BRACKET;
 import static org.gephi.graph.impl.FormattingAndParsingUtils.EMPTY_VALUE;
+import org.gephi.graph.impl.FormattingAndParsingUtils.Cursor;
 
 /**
  * <p>
@@ -65,51 +65,39 @@ public final class ArraysParser {
         }
 
         ArrayList<String> values = new ArrayList<String>();
-        try {
-            StringReader reader = new StringReader(input + ' ');// Add 1 space
-                                                                // so
-                                                                // reader.skip
-                                                                // function
-                                                                // always works
-                                                                // when
-                                                                // necessary
-                                                                // (end of
-                                                                // string not
-                                                                // reached).
-            int r;
-            char c;
-            while ((r = reader.read()) != -1) {
-                c = (char) r;
-                switch (c) {
-                    case RIGHT_BOUND_SQUARE_BRACKET:
-                    case RIGHT_BOUND_BRACKET:
-                    case LEFT_BOUND_BRACKET:
-                    case LEFT_BOUND_SQUARE_BRACKET:
-                    case ' ':
-                    case '\t':
-                    case '\r':
-                    case '\n':
-                    case COMMA:
-                        // Ignore special characters and leading whitespace or
-                        // similar until a value or literal starts:
-                        break;
-                    case '"':
-                    case '\'':
-                        values.add(FormattingAndParsingUtils.parseLiteral(reader, c));
-                        break;
-                    default:
-                        reader.skip(-1);// Go backwards 1 position, for reading
-                                        // start of value
-                        String value = FormattingAndParsingUtils.parseValue(reader);
-                        if (value.equals("null")) {
-                            value = null;// Special null value only when not in
+        Cursor cursor = new Cursor(input);
+        int r;
+        char c;
+        while ((r = cursor.read()) != -1) {
+            c = (char) r;
+            switch (c) {
+                case RIGHT_BOUND_SQUARE_BRACKET:
+                case RIGHT_BOUND_BRACKET:
+                case LEFT_BOUND_BRACKET:
+                case LEFT_BOUND_SQUARE_BRACKET:
+                case ' ':
+                case '\t':
+                case '\r':
+                case '\n':
+                case COMMA:
+                    // Ignore special characters and leading whitespace or
+                    // similar until a value or literal starts:
+                    break;
+                case '"':
+                case '\'':
+                    values.add(FormattingAndParsingUtils.parseLiteral(cursor, c));
+                    break;
+                default:
+                    cursor.unread();// Go backwards 1 position, for reading
+                                    // start of value
+                    FormattingAndParsingUtils.parseValue(cursor);
+                    if (cursor.valueEquals("null")) {
+                        values.add(null);// Special null value only when not in
                                          // literal parsing mode
-                        }
-                        values.add(value);
-                }
+                    } else {
+                        values.add(cursor.value());
+                    }
             }
-        } catch (IOException ex) {
-            throw new RuntimeException("Unexpected expection while parsing array value", ex);
         }
 
         @SuppressWarnings("unchecked")
@@ -137,7 +125,63 @@ public final class ArraysParser {
      *         parsed array values is null
      */
     public static <T> Object parseArrayAsPrimitiveArray(Class<T[]> arrayTypeClass, String input) throws IllegalArgumentException {
+        if (arrayTypeClass.equals(Double[].class) && input != null && !input.equalsIgnoreCase(EMPTY_VALUE)) {
+            double[] array = parseDoubleArray(input);
+            if (array != null) {
+                return array;
+            }
+        }
         T[] array = parseArray(arrayTypeClass, input);
         return AttributeUtils.getPrimitiveArray(array);
     }
+
+    /**
+     * Parses an array of doubles directly into a primitive array, without
+     * boxing the values.
+     *
+     * @param input Input string to parse
+     * @return Parsed array, or null if one of the values is null
+     */
+    private static double[] parseDoubleArray(String input) {
+        DoubleArrayList values = new DoubleArrayList();
+        Cursor cursor = new Cursor(input);
+        int r;
+        char c;
+        while ((r = cursor.read()) != -1) {
+            c = (char) r;
+            switch (c) {
+                case RIGHT_BOUND_SQUARE_BRACKET:
+                case RIGHT_BOUND_BRACKET:
+                case LEFT_BOUND_BRACKET:
+                case LEFT_BOUND_SQUARE_BRACKET:
+                case ' ':
+                case '\t':
+                case '\r':
+                case '\n':
+                case COMMA:
+                    break;
+                case '"':
+                case '\'':
+                    String literal = FormattingAndParsingUtils.parseLiteral(cursor, c);
+                    values.add(parseDouble(literal, 0, literal.length()));
+                    break;
+                default:
+                    cursor.unread();
+                    FormattingAndParsingUtils.parseValue(cursor);
+                    if (cursor.valueEquals("null")) {
+                        return null;
+                    }
+                    values.add(parseDouble(cursor.input, cursor.valueStart, cursor.valueEnd));
+            }
+        }
+        return values.toDoubleArray();
+    }
+
+    private static double parseDouble(CharSequence input, int start, int end) {
+        double value = FormattingAndParsingUtils.parseDouble(input, start, end);
+        if (Double.isNaN(value)) {
+            value = FormattingAndParsingUtils.convertValue(Double.class, input.subSequence(start, end).toString());
+        }
+        return value;
+    }
 }
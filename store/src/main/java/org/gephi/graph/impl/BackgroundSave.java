@@ -0,0 +1,226 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.FutureTask;
+import org.gephi.graph.impl.Serialization.Chunk;
+import org.gephi.graph.impl.utils.DataInputOutput;
+import org.gephi.graph.impl.utils.LongPacker;
+
+/**
+ * Save of a graph store running in the background while writers continue.
+ * <p>
+ * The save is created under the write lock, which is the cut point. The
+ * configuration, columns, time store and views are encoded right away and the
+ * node and edge blocks are frozen by copying their arrays of element
+ * references. Blocks are then encoded by the background thread, unless a writer
+ * is about to modify one of their elements first, in which case the writer
+ * encodes the block itself before proceeding. Node and edge properties (e.g.
+ * position or color) are read when their block is encoded.
+ * <p>
+ * The save should be run through {@link #newTask()}, so it also ends when the
+ * task is cancelled before or while running.
+ */
+public class BackgroundSave implements Callable<Void> {
+
+    protected final Serialization serialization;
+    protected final GraphStore graphStore;
+    protected final DataOutput output;
+    // Encoded at the cut
+    protected final byte[] head;
+    protected final List<Chunk> headChunks;
+    protected final Chunk viewsChunk;
+    // Frozen blocks
+    protected final int nodeMaxStoreId;
+    protected final int edgeMaxStoreId;
+    protected NodeImpl[][] nodeBlocks;
+    protected EdgeImpl[][] edgeBlocks;
+    protected final Chunk[] nodeChunks;
+    protected final Chunk[] edgeChunks;
+    protected boolean finished;
+
+    public BackgroundSave(Serialization serialization, GraphModelImpl model, DataOutput output) throws IOException {
+        this.serialization = serialization;
+        this.graphStore = model.store;
+        this.output = output;
+
+        DataInputOutput headOut = new DataInputOutput();
+        serialization.serialize(headOut, Serialization.VERSION);
+        serialization.serialize(headOut, model.configuration);
+        headOut.write(Serialization.GRAPH_STORE);
+        this.head = headOut.toByteArray();
+        this.headChunks = serialization.runAll(serialization.newHeadChunkWriters(graphStore));
+        this.viewsChunk = encode(serialization.newViewsChunkWriter(graphStore));
+
+        NodeStore nodeStore = graphStore.nodeStore;
+        nodeMaxStoreId = nodeStore.maxStoreId();
+        nodeBlocks = new NodeImpl[nodeStore.blocksCount][];
+        for (int i = 0; i < nodeBlocks.length; i++) {
+            NodeStore.NodeBlock block = nodeStore.blocks[i];
+            nodeBlocks[i] = Arrays.copyOf(block.backingArray, block.nodeLength);
+        }
+        nodeChunks = new Chunk[nodeBlocks.length];
+
+        EdgeStore edgeStore = graphStore.edgeStore;
+        edgeMaxStoreId = edgeStore.maxStoreId();
+        edgeBlocks = new EdgeImpl[edgeStore.blocksCount][];
+        for (int i = 0; i < edgeBlocks.length; i++) {
+            EdgeStore.EdgeBlock block = edgeStore.blocks[i];
+            edgeBlocks[i] = Arrays.copyOf(block.backingArray, block.nodeLength);
+        }
+        edgeChunks = new Chunk[edgeBlocks.length];
+    }
+
+    @Override
+    public Void call() throws IOException {
+        try {
+            for (int i = 0; i < nodeChunks.length; i++) {
+                encodeNodeBlock(i);
+            }
+            for (int i = 0; i < edgeChunks.length; i++) {
+                encodeEdgeBlock(i);
+            }
+            if (!finish()) {
+                throw new CancellationException("The background save was cancelled");
+            }
+
+            output.write(head);
+            LongPacker.packInt(output, nodeMaxStoreId);
+            LongPacker.packInt(output, nodeChunks.length);
+            LongPacker.packInt(output, edgeMaxStoreId);
+            LongPacker.packInt(output, edgeChunks.length);
+            for (Chunk chunk : headChunks) {
+                chunk.write(output);
+            }
+            for (Chunk chunk : nodeChunks) {
+                chunk.write(output);
+            }
+            for (Chunk chunk : edgeChunks) {
+                chunk.write(output);
+            }
+            viewsChunk.write(output);
+        } finally {
+            finish();
+        }
+        return null;
+    }
+
+    /**
+     * Returns a task running this save, which ends the save when it completes
+     * or is cancelled, even if it never ran.
+     *
+     * @return task
+     */
+    public FutureTask<Void> newTask() {
+        return new FutureTask<Void>(this) {
+            @Override
+            protected void done() {
+                finish();
+            }
+        };
+    }
+
+    /**
+     * Encodes the block of <code>element</code> if it hasn't been yet, so that
+     * it can be modified.
+     *
+     * @param element element about to be modified
+     */
+    protected void beforeWrite(ElementImpl element) {
+        int storeId = element.getStoreId();
+        if (storeId == NodeStore.NULL_ID) {
+            return;
+        }
+        try {
+            if (element instanceof NodeImpl) {
+                encodeNodeBlock(storeId / GraphStoreConfiguration.NODESTORE_BLOCK_SIZE);
+            } else {
+                encodeEdgeBlock(storeId / GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Encodes all the blocks that haven't been yet, before an operation that
+     * modifies all the elements.
+     */
+    protected void beforeWriteAll() {
+        try {
+            for (int i = 0; i < nodeChunks.length; i++) {
+                encodeNodeBlock(i);
+            }
+            for (int i = 0; i < edgeChunks.length; i++) {
+                encodeEdgeBlock(i);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private synchronized void encodeNodeBlock(int index) throws IOException {
+        if (!finished && index < nodeChunks.length && nodeChunks[index] == null) {
+            NodeImpl[] nodes = nodeBlocks[index];
+            nodeChunks[index] = encode(serialization.newNodeBlockWriter(nodes, nodes.length));
+            nodeBlocks[index] = null;
+        }
+    }
+
+    private synchronized void encodeEdgeBlock(int index) throws IOException {
+        if (!finished && index < edgeChunks.length && edgeChunks[index] == null) {
+            EdgeImpl[] edges = edgeBlocks[index];
+            edgeChunks[index] = encode(serialization.newEdgeBlockWriter(edges, edges.length));
+            edgeBlocks[index] = null;
+        }
+    }
+
+    /**
+     * Ends the save, writers don't encode blocks anymore.
+     *
+     * @return true if the save was running
+     */
+    protected synchronized boolean finish() {
+        if (!finished) {
+            finished = true;
+            nodeBlocks = null;
+            edgeBlocks = null;
+            if (graphStore.backgroundSave == this) {
+                graphStore.backgroundSave = null;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private Chunk encode(Callable<Chunk> writer) throws IOException {
+        try {
+            return writer.call();
+        } catch (IOException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.util.Arrays;
+
+/**
+ * Dictionary of the distinct values of a string column.
+ * <p>
+ * Each distinct value gets an int code, in insertion order, and elements share
+ * the dictionary's instance of the value. Codes are never reused, values stay
+ * in the dictionary even when no element has them anymore. Once the dictionary
+ * is full, new values are stored as they are.
+ */
+public class ColumnDictionary {
+
+    protected static final int NULL_CODE = -1;
+    protected final Object2IntOpenHashMap<String> codes;
+    protected final int maxSize;
+    protected String[] values;
+    protected int size;
+
+    public ColumnDictionary() {
+        this(GraphStoreConfiguration.COLUMN_DICTIONARY_MAX_SIZE);
+    }
+
+    public ColumnDictionary(int maxSize) {
+        this.maxSize = maxSize;
+        this.codes = new Object2IntOpenHashMap<String>();
+        this.codes.defaultReturnValue(NULL_CODE);
+        this.values = new String[0];
+    }
+
+    /**
+     * Returns the dictionary's instance of <code>value</code>, adding it if it
+     * doesn't exist yet and the dictionary isn't full.
+     *
+     * @param value value
+     * @return shared instance of the value, or the value itself
+     */
+    public synchronized String get(String value) {
+        int code = codes.getInt(value);
+        if (code != NULL_CODE) {
+            return values[code];
+        }
+        if (size < maxSize) {
+            add(value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the code of <code>value</code>, or <code>-1</code> if not in the
+     * dictionary.
+     *
+     * @param value value
+     * @return code or <code>-1</code>
+     */
+    public synchronized int getCode(String value) {
+        return codes.getInt(value);
+    }
+
+    /**
+     * Returns the value of <code>code</code>.
+     *
+     * @param code code
+     * @return value
+     * @throws IllegalArgumentException if the code isn't in the dictionary
+     */
+    public synchronized String getValue(int code) {
+        if (code < 0 || code >= size) {
+            throw new IllegalArgumentException("The code " + code + " isn't in the dictionary");
+        }
+        return values[code];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the values of the dictionary, indexed by code.
+     *
+     * @return values
+     */
+    public synchronized String[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Returns a copy of this dictionary, which can be read without holding its
+     * lock while this dictionary is modified.
+     *
+     * @return copy
+     */
+    public synchronized ColumnDictionary copy() {
+        ColumnDictionary copy = new ColumnDictionary(maxSize);
+        copy.addAll(toArray());
+        return copy;
+    }
+
+    protected synchronized void addAll(String[] newValues) {
+        for (String value : newValues) {
+            if (codes.getInt(value) == NULL_CODE) {
+                add(value);
+            }
+        }
+    }
+
+    private void add(String value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(8, size * 2));
+        }
+        codes.put(value, size);
+        values[size++] = value;
+    }
+}
@@ -24,6 +24,8 @@ import org.gephi.graph.api.Table;
 import org.gephi.graph.api.Estimator;
 import org.gephi.graph.api.types.TimeMap;
 import org.gephi.graph.api.types.TimeSet;
+import org.gephi.graph.api.types.TimestampMap;
+import org.gephi.graph.api.types.TimestampSet;
 
 public class ColumnImpl implements Column {
 
@@ -38,6 +40,8 @@ public class ColumnImpl implements Column {
     protected final boolean indexed;
     protected final boolean dynamic;
     protected final boolean readOnly;
+    protected final boolean dictionaryEncoded;
+    protected final ColumnDictionary dictionary;
     protected Estimator estimator;
     // Observers
     protected final List<ColumnObserverImpl> observers;
@@ -45,6 +49,10 @@ public class ColumnImpl implements Column {
     protected int storeId = ColumnStore.NULL_ID;
 
     public ColumnImpl(TableImpl table, String id, Class typeClass, String title, Object defaultValue, Origin origin, boolean indexed, boolean readOnly) {
+        this(table, id, typeClass, title, defaultValue, origin, indexed, readOnly, false);
+    }
+
+    public ColumnImpl(TableImpl table, String id, Class typeClass, String title, Object defaultValue, Origin origin, boolean indexed, boolean readOnly, boolean dictionaryEncoded) {
         if (id == null || id.isEmpty()) {
             throw new IllegalArgumentException("The column ID can't be null or empty");
         }
@@ -56,6 +64,10 @@ public class ColumnImpl implements Column {
         }
 
         typeClass = AttributeUtils.getStandardizedType(typeClass);
+        if (dictionaryEncoded && !typeClass.equals(String.class) && !typeClass.equals(TimestampSet.class) && !TimestampMap.class
+                .isAssignableFrom(typeClass)) {
+            throw new IllegalArgumentException("Only string and timestamp columns can be dictionary encoded");
+        }
         this.table = table;
         this.id = id.toLowerCase();// Make sure column has lowercase id from
                                    // wherever it's created
@@ -66,6 +78,8 @@ public class ColumnImpl implements Column {
         this.origin = origin;
         this.indexed = indexed;
         this.readOnly = readOnly;
+        this.dictionaryEncoded = dictionaryEncoded;
+        this.dictionary = dictionaryEncoded && typeClass.equals(String.class) ? new ColumnDictionary() : null;
         this.dynamic = TimeMap.class.isAssignableFrom(typeClass) || TimeSet.class.isAssignableFrom(typeClass);
         this.observers = GraphStoreConfiguration.ENABLE_OBSERVERS ? new ArrayList<ColumnObserverImpl>() : null;
         this.estimator = this.dynamic ? Estimator.FIRST : null;
@@ -130,6 +144,30 @@ public class ColumnImpl implements Column {
         return readOnly;
     }
 
+    @Override
+    public boolean isDictionaryEncoded() {
+        return dictionaryEncoded;
+    }
+
+    /**
+     * Returns the dictionary's instance of <code>value</code> if this column is
+     * dictionary encoded, or <code>value</code> otherwise.
+     * <p>
+     * Timestamp sets and maps are returned as they are, but share their
+     * timestamps through the store's timestamp dictionary.
+     *
+     * @param value value
+     * @return value to store
+     */
+    protected Object encode(Object value) {
+        if (dictionary != null && value instanceof String) {
+            return dictionary.get((String) value);
+        } else if (dictionaryEncoded && value != null && table != null && table.store.graphStore != null) {
+            table.store.graphStore.timeStore.timestampDictionary.share(value);
+        }
+        return value;
+    }
+
     @Override
     public boolean isNumber() {
         return AttributeUtils.isNumberType(typeClass);
@@ -201,6 +239,16 @@ public class ColumnImpl implements Column {
         }
     }
 
+    protected void compactObservers(int[] map) {
+        if (observers != null && !observers.isEmpty()) {
+            synchronized (observers) {
+                for (ColumnObserverImpl observer : observers) {
+                    observer.compact(map);
+                }
+            }
+        }
+    }
+
     protected void incrementVersion(ElementImpl element) {
         version.incrementAndGetVersion();
         if (observers != null && !observers.isEmpty()) {
@@ -266,6 +314,9 @@ public class ColumnImpl implements Column {
         if (this.estimator != col.estimator) {
             return false;
         }
+        if (this.dictionaryEncoded != col.dictionaryEncoded) {
+            return false;
+        }
         return true;
     }
 
@@ -131,6 +131,19 @@ public class ColumnObserverImpl implements ColumnObserver {
         bitVector.clear();
     }
 
+    protected void compact(int[] map) {
+        if (bitVector != null) {
+            BitVector newBitVector = new BitVector(bitVector.size());
+            int length = Math.min(bitVector.size(), map.length);
+            for (int i = 0; i < length; i++) {
+                if (bitVector.getQuick(i) && map[i] != NodeStore.NULL_ID) {
+                    newBitVector.putQuick(map[i], true);
+                }
+            }
+            bitVector = newBitVector;
+        }
+    }
+
     protected void setElement(ElementImpl element) {
         int storeId = element.getStoreId();
         ensureVectorSize(element);
@@ -68,7 +68,8 @@ public class ColumnStore<T extends Element> implements ColumnIterable {
         }
         this.graphStore = graphStore;
         this.configuration = graphStore != null ? graphStore.configuration : new Configuration();
-        this.lock = GraphStoreConfiguration.ENABLE_AUTO_LOCKING ? new TableLock() : null;
+        this.lock = GraphStoreConfiguration.ENABLE_AUTO_LOCKING ? new TableLock(graphStore != null ? graphStore.metrics
+                : null) : null;
         this.garbageQueue = new ShortRBTreeSet();
         this.idMap = new Object2ShortOpenHashMap<String>(MAX_SIZE);
         this.columns = new ColumnImpl[MAX_SIZE];
@@ -144,6 +145,7 @@ public class ColumnStore<T extends Element> implements ColumnIterable {
 
             // Clean attributes
             if (graphStore != null && columnImpl.table != null) {
+                graphStore.beforeWriteAll();
                 if (AttributeUtils.isNodeColumn(columnImpl)) {
                     for (Node n : graphStore.nodeStore) {
                         Object[] attributes = ((NodeImpl) n).attributes;
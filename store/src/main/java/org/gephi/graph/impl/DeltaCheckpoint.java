@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.gephi.graph.api.Column;
+
+/**
+ * Tracks the changes made to a graph store since the last checkpoint, so that
+ * only these are written when serializing a delta.
+ * <p>
+ * Structural changes are tracked with a graph observer, which compares the
+ * graph's node and edge versions, and attribute changes with one column
+ * observer per column, which compares the column's version. Node and edge
+ * properties (e.g. position or color) aren't versioned so they are only written
+ * for added elements.
+ */
+public class DeltaCheckpoint {
+
+    protected final GraphStore graphStore;
+    protected final GraphObserverImpl graphObserver;
+    protected final Reference2ObjectMap<ColumnImpl, ColumnObserverImpl> nodeColumnObservers;
+    protected final Reference2ObjectMap<ColumnImpl, ColumnObserverImpl> edgeColumnObservers;
+
+    public DeltaCheckpoint(GraphStore graphStore) {
+        if (!GraphStoreConfiguration.ENABLE_OBSERVERS) {
+            throw new IllegalStateException("Checkpoints require observers to be enabled");
+        }
+        this.graphStore = graphStore;
+        this.graphObserver = graphStore.createGraphObserver(graphStore, true);
+        this.nodeColumnObservers = new Reference2ObjectLinkedOpenHashMap<ColumnImpl, ColumnObserverImpl>();
+        this.edgeColumnObservers = new Reference2ObjectLinkedOpenHashMap<ColumnImpl, ColumnObserverImpl>();
+        for (Column column : graphStore.nodeTable) {
+            observe(nodeColumnObservers, (ColumnImpl) column);
+        }
+        for (Column column : graphStore.edgeTable) {
+            observe(edgeColumnObservers, (ColumnImpl) column);
+        }
+    }
+
+    protected Reference2ObjectMap<ColumnImpl, ColumnObserverImpl> getColumnObservers(TableImpl table) {
+        return table == graphStore.nodeTable ? nodeColumnObservers : edgeColumnObservers;
+    }
+
+    /**
+     * Stops observing the columns that have been removed from the table and
+     * starts observing the ones that have been added.
+     *
+     * @param table the table to refresh the column observers of
+     */
+    protected void refreshColumns(TableImpl table) {
+        Reference2ObjectMap<ColumnImpl, ColumnObserverImpl> observers = getColumnObservers(table);
+        for (Iterator<Map.Entry<ColumnImpl, ColumnObserverImpl>> itr = observers.entrySet().iterator(); itr.hasNext();) {
+            Map.Entry<ColumnImpl, ColumnObserverImpl> entry = itr.next();
+            if (!isInTable(table, entry.getKey())) {
+                entry.getValue().destroy();
+                itr.remove();
+            }
+        }
+        for (Column column : table.toArray()) {
+            if (!observers.containsKey(column)) {
+                observe(observers, (ColumnImpl) column);
+            }
+        }
+    }
+
+    protected boolean isInTable(TableImpl table, ColumnImpl column) {
+        return column.getIndex() != ColumnStore.NULL_ID && table.store.getColumnByIndex(column.getIndex()) == column;
+    }
+
+    protected void destroy() {
+        graphObserver.destroy();
+        for (ColumnObserverImpl observer : nodeColumnObservers.values()) {
+            observer.destroy();
+        }
+        for (ColumnObserverImpl observer : edgeColumnObservers.values()) {
+            observer.destroy();
+        }
+        nodeColumnObservers.clear();
+        edgeColumnObservers.clear();
+    }
+
+    private void observe(Reference2ObjectMap<ColumnImpl, ColumnObserverImpl> observers, ColumnImpl column) {
+        observers.put(column, column.createColumnObserver(true));
+    }
+}
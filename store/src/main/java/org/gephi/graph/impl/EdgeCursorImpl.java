@@ -0,0 +1,212 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import org.gephi.graph.api.EdgeCursor;
+import org.gephi.graph.api.Node;
+
+public class EdgeCursorImpl implements EdgeCursor {
+
+    // Const
+    protected static final int ALL_TYPES = -1;
+    // Data
+    protected final EdgeStore edgeStore;
+    protected final GraphViewDecorator decorator;
+    protected final boolean undirected;
+    // State
+    protected NodeImpl node;
+    protected int type;
+    protected boolean inOut;
+    protected boolean out;
+    protected EdgeImpl[] heads;
+    protected int typeIndex;
+    protected int typeEnd;
+    protected EdgeImpl pointer;
+    protected EdgeImpl current;
+    protected boolean locked;
+
+    public EdgeCursorImpl(EdgeStore edgeStore, GraphViewDecorator decorator, boolean undirected) {
+        this.edgeStore = edgeStore;
+        this.decorator = decorator;
+        this.undirected = undirected;
+    }
+
+    @Override
+    public void resetOut(Node node) {
+        reset(node, ALL_TYPES, false, true);
+    }
+
+    @Override
+    public void resetOut(Node node, int type) {
+        checkType(type);
+        reset(node, type, false, true);
+    }
+
+    @Override
+    public void resetIn(Node node) {
+        reset(node, ALL_TYPES, false, false);
+    }
+
+    @Override
+    public void resetIn(Node node, int type) {
+        checkType(type);
+        reset(node, type, false, false);
+    }
+
+    @Override
+    public void reset(Node node) {
+        reset(node, ALL_TYPES, true, true);
+    }
+
+    @Override
+    public void reset(Node node, int type) {
+        checkType(type);
+        reset(node, type, true, true);
+    }
+
+    @Override
+    public int nextEdgeStoreId() {
+        EdgeImpl edge;
+        while ((edge = nextEdge()) != null) {
+            if (accept(edge)) {
+                current = edge;
+                return edge.storeId;
+            }
+        }
+        current = null;
+        unlock();
+        return EdgeStore.NULL_ID;
+    }
+
+    @Override
+    public int sourceStoreId() {
+        return current.source.storeId;
+    }
+
+    @Override
+    public int targetStoreId() {
+        return current.target.storeId;
+    }
+
+    @Override
+    public int oppositeStoreId() {
+        return current.source == node ? current.target.storeId : current.source.storeId;
+    }
+
+    @Override
+    public int type() {
+        return current.type;
+    }
+
+    @Override
+    public double weight() {
+        return current.getWeight();
+    }
+
+    @Override
+    public EdgeImpl edge() {
+        return current;
+    }
+
+    @Override
+    public void doBreak() {
+        pointer = null;
+        current = null;
+        typeIndex = typeEnd;
+        inOut = false;
+        unlock();
+    }
+
+    private void reset(Node n, int t, boolean both, boolean outFirst) {
+        edgeStore.checkValidNodeObject(n);
+        if (decorator != null) {
+            decorator.checkValidInViewNodeObject(n);
+        }
+        lock();
+
+        node = (NodeImpl) n;
+        type = t;
+        inOut = both;
+        out = outFirst;
+        pointer = null;
+        current = null;
+        initHeads();
+    }
+
+    private void initHeads() {
+        if (type == ALL_TYPES) {
+            heads = out ? node.headOut : node.headIn;
+            typeIndex = 0;
+            typeEnd = heads.length;
+        } else {
+            heads = null;
+            typeIndex = 0;
+            typeEnd = 0;
+            pointer = out ? node.getHeadOut(type) : node.getHeadIn(type);
+        }
+    }
+
+    private EdgeImpl nextEdge() {
+        while (pointer == null) {
+            if (typeIndex < typeEnd) {
+                pointer = heads[typeIndex++];
+            } else if (inOut && out) {
+                out = false;
+                initHeads();
+            } else {
+                return null;
+            }
+        }
+        EdgeImpl edge = pointer;
+        int nextId = out ? edge.nextOutEdge : edge.nextInEdge;
+        pointer = nextId != EdgeStore.NULL_ID ? edgeStore.get(nextId) : null;
+        return edge;
+    }
+
+    private boolean accept(EdgeImpl edge) {
+        if (inOut && !out && edge.isSelfLoop()) {
+            // Already visited as an out edge
+            return false;
+        }
+        if (decorator != null) {
+            if (!decorator.view.containsEdge(edge)) {
+                return false;
+            }
+            return !(inOut && undirected && decorator.isUndirectedToIgnore(edge));
+        }
+        return !(inOut && undirected && edgeStore.isUndirectedToIgnore(edge));
+    }
+
+    private void lock() {
+        if (!locked) {
+            edgeStore.readLock();
+            locked = true;
+        }
+    }
+
+    private void unlock() {
+        if (locked) {
+            locked = false;
+            edgeStore.readUnlock();
+        }
+    }
+
+    private void checkType(int type) {
+        if (type < 0) {
+            throw new IllegalArgumentException("Incorrect type=" + type);
+        }
+    }
+}
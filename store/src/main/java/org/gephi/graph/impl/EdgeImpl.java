@@ -44,6 +44,10 @@ public class EdgeImpl extends ElementImpl implements Edge {
     protected int nextInEdge = EdgeStore.NULL_ID;
     protected int previousOutEdge = EdgeStore.NULL_ID;
     protected int previousInEdge = EdgeStore.NULL_ID;
+    protected int nextTypeEdge = EdgeStore.NULL_ID;
+    protected int previousTypeEdge = EdgeStore.NULL_ID;
+    protected int nextSelfLoop = EdgeStore.NULL_ID;
+    protected int previousSelfLoop = EdgeStore.NULL_ID;
     // Flags
     protected byte flags;
     // Props
@@ -111,31 +115,42 @@ public class EdgeImpl extends ElementImpl implements Edge {
         checkWeightDynamicType();
 
         boolean res;
-        synchronized (this) {
-            Object oldValue = attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
-            TimeMap dynamicValue = null;
-            if (oldValue == null) {
-                try {
-                    attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX] = dynamicValue = (TimeMap) graphStore.configuration
-                            .getEdgeWeightType().newInstance();
-                } catch (InstantiationException ex) {
-                    throw new RuntimeException(ex);
-                } catch (IllegalAccessException ex) {
-                    throw new RuntimeException(ex);
+        final boolean attributeLocked = attributeWriteLock(true);
+        try {
+            beforeWrite();
+            synchronized (this) {
+                Object oldValue = attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
+                TimeMap dynamicValue = null;
+                if (oldValue == null) {
+                    try {
+                        attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX] = dynamicValue = (TimeMap) graphStore.configuration
+                                .getEdgeWeightType().newInstance();
+                    } catch (InstantiationException ex) {
+                        throw new RuntimeException(ex);
+                    } catch (IllegalAccessException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                } else {
+                    dynamicValue = (TimeMap) oldValue;
+                }
+                res = dynamicValue.put(timeObject, weight);
+
+                WriteAheadLog writeAheadLog = getWriteAheadLog();
+                if (writeAheadLog != null) {
+                    writeAheadLog.logSetWeight(this, weight, timeObject);
                 }
-            } else {
-                dynamicValue = (TimeMap) oldValue;
             }
-            res = dynamicValue.put(timeObject, weight);
-        }
-        TimeIndexStore timeIndexStore = getTimeIndexStore();
-        if (res && timeIndexStore != null && isValid()) {
-            timeIndexStore.add(timeObject);
-        }
-        ColumnStore columnStore = getColumnStore();
-        if (res && columnStore != null && isValid()) {
-            Column column = columnStore.getColumnByIndex(GraphStoreConfiguration.EDGE_WEIGHT_INDEX);
-            ((ColumnImpl) column).incrementVersion(this);
+            TimeIndexStore timeIndexStore = getTimeIndexStore();
+            if (res && timeIndexStore != null && isValid()) {
+                timeIndexStore.add(timeObject);
+            }
+            ColumnStore columnStore = getColumnStore();
+            if (res && columnStore != null && isValid()) {
+                Column column = columnStore.getColumnByIndex(GraphStoreConfiguration.EDGE_WEIGHT_INDEX);
+                ((ColumnImpl) column).incrementVersion(this);
+            }
+        } finally {
+            attributeWriteUnlock(attributeLocked, true);
         }
     }
 
@@ -246,13 +261,24 @@ public class EdgeImpl extends ElementImpl implements Edge {
     public void setWeight(double weight) {
         checkWeightStaticType();
 
-        synchronized (this) {
-            attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX] = weight;
-        }
-        ColumnStore columnStore = getColumnStore();
-        if (columnStore != null && isValid()) {
-            Column column = columnStore.getColumnByIndex(GraphStoreConfiguration.EDGE_WEIGHT_INDEX);
-            ((ColumnImpl) column).incrementVersion(this);
+        final boolean attributeLocked = attributeWriteLock(false);
+        try {
+            beforeWrite();
+            synchronized (this) {
+                attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX] = weight;
+
+                WriteAheadLog writeAheadLog = getWriteAheadLog();
+                if (writeAheadLog != null) {
+                    writeAheadLog.logSetWeight(this, weight);
+                }
+            }
+            ColumnStore columnStore = getColumnStore();
+            if (columnStore != null && isValid()) {
+                Column column = columnStore.getColumnByIndex(GraphStoreConfiguration.EDGE_WEIGHT_INDEX);
+                ((ColumnImpl) column).incrementVersion(this);
+            }
+        } finally {
+            attributeWriteUnlock(attributeLocked, false);
         }
     }
 
@@ -272,6 +298,14 @@ public class EdgeImpl extends ElementImpl implements Edge {
         return previousInEdge;
     }
 
+    public int getNextTypeEdge() {
+        return nextTypeEdge;
+    }
+
+    public int getPreviousTypeEdge() {
+        return previousTypeEdge;
+    }
+
     @Override
     public int getStoreId() {
         return storeId;
@@ -0,0 +1,647 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.gephi.graph.api.GraphModel;
+
+/**
+ * Imports delimited node and edge list files into a graph model.
+ * <p>
+ * The file is memory-mapped and split into chunks which are parsed in parallel
+ * by the executor into batches. A batch holds the distinct ids of its lines
+ * once, and the lines as indices in these ids and weights. Batches are consumed
+ * by a single writer, the thread calling the import method, which resolves each
+ * distinct id once through the node store dictionary and adds each batch with a
+ * single write lock. The queue between the parsers and the writer is bounded so
+ * parsers wait when the writer falls behind.
+ * <p>
+ * Edge lines are formatted as <code>source target [weight]</code> and node
+ * lines as <code>id [label]</code>, separated by the delimiter. Empty lines and
+ * lines starting with <code>#</code> are ignored. Ids are read as UTF-8
+ * strings, and nodes that don't exist yet are created when importing edges.
+ * Batches are added in no particular order, so edge ids don't follow the order
+ * of the file.
+ * <p>
+ * The executor must run the parsers on other threads than the writer.
+ */
+public class EdgeListImporter {
+
+    // Default values
+    public static final char DEFAULT_DELIMITER = '\t';
+    public static final int DEFAULT_BATCH_SIZE = 1 << 16;
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+    public static final long DEFAULT_CHUNK_SIZE = 1L << 26;
+    public static final int MAX_LINE_LENGTH = 1 << 16;
+    // Charset
+    private static final String CHARSET = "UTF-8";
+
+    protected final GraphStore graphStore;
+    // Settings
+    protected char delimiter = DEFAULT_DELIMITER;
+    protected boolean directed = true;
+    protected int edgeType = EdgeTypeStore.NULL_LABEL;
+    protected int batchSize = DEFAULT_BATCH_SIZE;
+    protected int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    protected long chunkSize = DEFAULT_CHUNK_SIZE;
+    // Progress
+    protected final AtomicLong bytesRead = new AtomicLong();
+    protected final AtomicLong linesRead = new AtomicLong();
+    protected final AtomicLong nodesAdded = new AtomicLong();
+    protected final AtomicLong edgesAdded = new AtomicLong();
+    protected volatile long totalBytes;
+    protected volatile BlockingQueue<Batch> queue;
+    // Set when the parsers or the writer failed
+    protected volatile boolean aborted;
+
+    public EdgeListImporter(GraphModel graphModel) {
+        this.graphStore = ((GraphModelImpl) graphModel).store;
+    }
+
+    /**
+     * Imports the edges of <code>file</code>.
+     *
+     * @param file edge list file
+     * @param executor executor to run the parsers with
+     * @throws IOException if an io error occurs or a line is invalid
+     */
+    public void importEdges(File file, ExecutorService executor) throws IOException {
+        int type = edgeType;
+        graphStore.autoWriteLock();
+        try {
+            EdgeTypeStore edgeTypeStore = graphStore.edgeTypeStore;
+            if (edgeTypeStore != null && !edgeTypeStore.contains(type)) {
+                if (GraphStoreConfiguration.ENABLE_AUTO_TYPE_REGISTRATION) {
+                    edgeTypeStore.addType(String.valueOf(type), type);
+                } else {
+                    throw new RuntimeException("The type doesn't exist");
+                }
+            }
+        } finally {
+            graphStore.autoWriteUnlock();
+        }
+        run(file, executor, false);
+    }
+
+    /**
+     * Imports the nodes of <code>file</code>. Nodes that already exist are
+     * skipped.
+     *
+     * @param file node list file
+     * @param executor executor to run the parsers with
+     * @throws IOException if an io error occurs or a line is invalid
+     */
+    public void importNodes(File file, ExecutorService executor) throws IOException {
+        run(file, executor, true);
+    }
+
+    public void setDelimiter(char delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    public void setDirected(boolean directed) {
+        this.directed = directed;
+    }
+
+    public void setEdgeType(int edgeType) {
+        this.edgeType = edgeType;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size should be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("The queue capacity should be positive");
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    public void setChunkSize(long chunkSize) {
+        if (chunkSize <= 0 || chunkSize > Integer.MAX_VALUE - MAX_LINE_LENGTH - 1) {
+            throw new IllegalArgumentException("The chunk size should be positive and fit in a mapped buffer");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the number of bytes parsed so far.
+     *
+     * @return number of bytes parsed
+     */
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * Returns the total number of bytes of the files imported so far.
+     *
+     * @return total number of bytes
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Returns the number of node or edge lines parsed so far.
+     *
+     * @return number of lines parsed
+     */
+    public long getLinesRead() {
+        return linesRead.get();
+    }
+
+    public long getNodesAdded() {
+        return nodesAdded.get();
+    }
+
+    public long getEdgesAdded() {
+        return edgesAdded.get();
+    }
+
+    /**
+     * Returns the number of parsed batches waiting for the writer.
+     *
+     * @return number of queued batches
+     */
+    public int getQueuedBatches() {
+        BlockingQueue<Batch> q = queue;
+        return q != null ? q.size() : 0;
+    }
+
+    protected void run(File file, ExecutorService executor, boolean nodes) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+            totalBytes += size;
+            aborted = false;
+            queue = new ArrayBlockingQueue<Batch>(queueCapacity);
+
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            RuntimeException rejected = null;
+            for (long start = 0; start < size; start += chunkSize) {
+                try {
+                    futures.add(executor.submit(new ChunkParser(channel, size, start,
+                            Math.min(size, start + chunkSize), nodes)));
+                } catch (RuntimeException e) {
+                    aborted = true;
+                    rejected = e;
+                    break;
+                }
+            }
+
+            Throwable failure = rejected;
+            int remaining = futures.size();
+            while (remaining > 0) {
+                Batch batch;
+                try {
+                    batch = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    aborted = true;
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+                if (batch == null) {
+                    // Parsers give up queuing, even the end marker, once
+                    // aborted
+                    if (aborted && isDone(futures)) {
+                        break;
+                    }
+                } else if (batch == Batch.END) {
+                    remaining--;
+                } else if (!aborted) {
+                    try {
+                        if (nodes) {
+                            addNodes(batch);
+                        } else {
+                            addEdges(batch);
+                        }
+                    } catch (RuntimeException e) {
+                        // Keep draining so the parsers aren't blocked
+                        aborted = true;
+                        failure = e;
+                    }
+                }
+            }
+
+            if (failure == null) {
+                for (Future<Void> future : futures) {
+                    try {
+                        future.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException(e);
+                    } catch (ExecutionException e) {
+                        failure = e.getCause();
+                        break;
+                    }
+                }
+            }
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure != null) {
+                throw new IOException(failure);
+            }
+        } finally {
+            // Stops the parsers if the writer failed
+            aborted = true;
+            queue = null;
+            randomAccessFile.close();
+        }
+    }
+
+    private static boolean isDone(List<Future<Void>> futures) {
+        for (Future<Void> future : futures) {
+            if (!future.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected void addNodes(Batch batch) {
+        GraphFactoryImpl factory = graphStore.factory;
+        graphStore.autoWriteLock();
+        try {
+            NodeStore nodeStore = graphStore.nodeStore;
+            NodeImpl[] resolved = new NodeImpl[batch.idCount];
+            List<NodeImpl> added = new ArrayList<NodeImpl>(batch.size);
+            for (int i = 0; i < batch.size; i++) {
+                NodeImpl node = resolve(nodeStore, factory, batch, resolved, added, batch.first[i]);
+                // Only the nodes created by this batch are labelled
+                if (batch.second[i] != Batch.NULL_INDEX && node.storeId == NodeStore.NULL_ID) {
+                    node.setLabel(batch.ids[batch.second[i]]);
+                }
+            }
+            if (!added.isEmpty()) {
+                graphStore.addAllNodes(added);
+            }
+            nodesAdded.addAndGet(added.size());
+        } finally {
+            graphStore.autoWriteUnlock();
+        }
+    }
+
+    protected void addEdges(Batch batch) {
+        GraphFactoryImpl factory = graphStore.factory;
+        graphStore.autoWriteLock();
+        try {
+            NodeStore nodeStore = graphStore.nodeStore;
+            List<NodeImpl> addedNodes = new ArrayList<NodeImpl>();
+            NodeImpl[] sources = new NodeImpl[batch.size];
+            NodeImpl[] targets = new NodeImpl[batch.size];
+
+            // Resolve all the ids first so new nodes are added at once
+            NodeImpl[] resolved = new NodeImpl[batch.idCount];
+            for (int i = 0; i < batch.size; i++) {
+                sources[i] = resolve(nodeStore, factory, batch, resolved, addedNodes, batch.first[i]);
+                targets[i] = resolve(nodeStore, factory, batch, resolved, addedNodes, batch.second[i]);
+            }
+            if (!addedNodes.isEmpty()) {
+                graphStore.addAllNodes(addedNodes);
+                nodesAdded.addAndGet(addedNodes.size());
+            }
+
+            List<EdgeImpl> edges = new ArrayList<EdgeImpl>(batch.size);
+            for (int i = 0; i < batch.size; i++) {
+                edges.add((EdgeImpl) factory.newEdge(sources[i], targets[i], edgeType, batch.weights[i], directed));
+            }
+            int edgeCount = graphStore.edgeStore.size();
+            graphStore.addAllEdges(edges);
+            edgesAdded.addAndGet(graphStore.edgeStore.size() - edgeCount);
+        } finally {
+            graphStore.autoWriteUnlock();
+        }
+    }
+
+    private NodeImpl resolve(NodeStore nodeStore, GraphFactoryImpl factory, Batch batch, NodeImpl[] resolved, List<NodeImpl> addedNodes, int index) {
+        NodeImpl node = resolved[index];
+        if (node == null) {
+            String id = batch.ids[index];
+            node = nodeStore.get(id);
+            if (node == null) {
+                node = (NodeImpl) factory.newNode(id);
+                addedNodes.add(node);
+            }
+            resolved[index] = node;
+        }
+        return node;
+    }
+
+    /**
+     * Batch of parsed lines, as parallel arrays of indices in the distinct ids
+     * and labels of the batch.
+     */
+    protected static class Batch {
+
+        protected static final Batch END = new Batch(0);
+        protected static final int NULL_INDEX = -1;
+
+        protected final String[] ids;
+        protected final int[] first;
+        protected final int[] second;
+        protected final double[] weights;
+        protected int idCount;
+        protected int size;
+
+        public Batch(int capacity) {
+            ids = new String[capacity * 2];
+            first = new int[capacity];
+            second = new int[capacity];
+            weights = new double[capacity];
+        }
+
+        public boolean isFull() {
+            return size == first.length;
+        }
+    }
+
+    /**
+     * Parses the lines starting within <code>[start, end)</code>.
+     */
+    protected class ChunkParser implements Callable<Void> {
+
+        private final FileChannel channel;
+        private final long fileSize;
+        private final long start;
+        private final long end;
+        private final boolean nodes;
+        private final BlockingQueue<Batch> queue;
+        private final byte[] line = new byte[MAX_LINE_LENGTH];
+        private final int[] tokenStarts = new int[3];
+        private final int[] tokenEnds = new int[3];
+        private final LineSequence weightSequence = new LineSequence();
+        // Distinct ids of the batch, as bytes, and open addressing table of
+        // their indices plus one
+        private final int[] idOffsets;
+        private final int[] idTable;
+        private byte[] idBytes = new byte[1024];
+        private Batch batch;
+        private long batchBytes;
+
+        public ChunkParser(FileChannel channel, long fileSize, long start, long end, boolean nodes) {
+            this.channel = channel;
+            this.fileSize = fileSize;
+            this.start = start;
+            this.end = end;
+            this.nodes = nodes;
+            this.queue = EdgeListImporter.this.queue;
+            this.idOffsets = new int[batchSize * 2 + 1];
+            this.idTable = new int[HashCommon.arraySize(batchSize * 2, 0.5f)];
+        }
+
+        @Override
+        public Void call() throws IOException, InterruptedException {
+            try {
+                // Start one byte before to know whether a line starts at start
+                long mapStart = start > 0 ? start - 1 : 0;
+                long mapEnd = Math.min(fileSize, end + MAX_LINE_LENGTH);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+                int limit = (int) (end - mapStart);
+                int pos = 0;
+                if (start > 0) {
+                    while (pos < buffer.limit() && buffer.get(pos) != '\n') {
+                        pos++;
+                    }
+                    pos++;
+                }
+
+                newBatch();
+                while (pos < limit && !aborted) {
+                    int length = 0;
+                    int lineStart = pos;
+                    byte b;
+                    while (pos < buffer.limit() && (b = buffer.get(pos)) != '\n') {
+                        if (length == MAX_LINE_LENGTH) {
+                            throw new IOException("Line at offset " + (mapStart + lineStart) + " is too long");
+                        }
+                        line[length++] = b;
+                        pos++;
+                    }
+                    if (pos == buffer.limit() && mapEnd < fileSize) {
+                        throw new IOException("Line at offset " + (mapStart + lineStart) + " is too long");
+                    }
+                    pos++;
+                    batchBytes += pos - lineStart;
+                    parseLine(length, mapStart + lineStart);
+                }
+                if (batch.size > 0) {
+                    flush();
+                }
+                bytesRead.addAndGet(batchBytes);
+                return null;
+            } catch (IOException e) {
+                aborted = true;
+                throw e;
+            } catch (RuntimeException e) {
+                aborted = true;
+                throw e;
+            } finally {
+                offer(Batch.END);
+            }
+        }
+
+        private void parseLine(int length, long offset) throws IOException, InterruptedException {
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            if (length == 0 || line[0] == '#') {
+                return;
+            }
+
+            int tokens = 0;
+            int tokenStart = 0;
+            for (int i = 0; i <= length && tokens < 3; i++) {
+                if (i == length || line[i] == delimiter) {
+                    if (i > tokenStart) {
+                        tokenStarts[tokens] = tokenStart;
+                        tokenEnds[tokens] = i;
+                        tokens++;
+                    }
+                    tokenStart = i + 1;
+                }
+            }
+
+            int index = batch.size;
+            if (nodes) {
+                if (tokens < 1) {
+                    throw new IOException("Invalid node at offset " + offset);
+                }
+                batch.first[index] = idIndex(0);
+                batch.second[index] = tokens > 1 ? idIndex(1) : Batch.NULL_INDEX;
+            } else {
+                if (tokens < 2) {
+                    throw new IOException("Invalid edge at offset " + offset);
+                }
+                batch.first[index] = idIndex(0);
+                batch.second[index] = idIndex(1);
+                double weight = 1.0;
+                if (tokens > 2) {
+                    weightSequence.reset(tokenStarts[2], tokenEnds[2]);
+                    weight = FormattingAndParsingUtils.parseDouble(weightSequence, 0, weightSequence.length());
+                    if (Double.isNaN(weight)) {
+                        try {
+                            weight = Double.parseDouble(token(2));
+                        } catch (NumberFormatException e) {
+                            throw new IOException("Invalid weight at offset " + offset, e);
+                        }
+                    }
+                }
+                batch.weights[index] = weight;
+            }
+            batch.size++;
+            linesRead.incrementAndGet();
+
+            if (batch.isFull()) {
+                flush();
+                newBatch();
+            }
+        }
+
+        private String token(int index) throws UnsupportedEncodingException {
+            return new String(line, tokenStarts[index], tokenEnds[index] - tokenStarts[index], CHARSET);
+        }
+
+        /**
+         * Returns the index of the token in the distinct ids of the batch,
+         * decoding it only the first time it's seen in the batch.
+         */
+        private int idIndex(int token) throws UnsupportedEncodingException {
+            int tokenStart = tokenStarts[token];
+            int length = tokenEnds[token] - tokenStart;
+            int hash = 1;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + line[tokenStart + i];
+            }
+            int mask = idTable.length - 1;
+            int slot = HashCommon.mix(hash) & mask;
+            int index;
+            while ((index = idTable[slot] - 1) != Batch.NULL_INDEX) {
+                if (idEquals(index, tokenStart, length)) {
+                    return index;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            index = batch.idCount++;
+            int offset = idOffsets[index];
+            if (offset + length > idBytes.length) {
+                idBytes = Arrays.copyOf(idBytes, Math.max(idBytes.length * 2, offset + length));
+            }
+            System.arraycopy(line, tokenStart, idBytes, offset, length);
+            idOffsets[index + 1] = offset + length;
+            idTable[slot] = index + 1;
+            batch.ids[index] = token(token);
+            return index;
+        }
+
+        private boolean idEquals(int index, int tokenStart, int length) {
+            int offset = idOffsets[index];
+            if (idOffsets[index + 1] - offset != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (idBytes[offset + i] != line[tokenStart + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void newBatch() {
+            batch = new Batch(batchSize);
+            Arrays.fill(idTable, 0);
+        }
+
+        private void flush() throws InterruptedException {
+            offer(batch);
+            bytesRead.addAndGet(batchBytes);
+            batchBytes = 0;
+        }
+
+        private void offer(Batch b) throws InterruptedException {
+            // Gives up once aborted, the writer may not be consuming anymore
+            while (!aborted) {
+                if (queue.offer(b, 100, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * View of a token of the line as characters, to parse numbers without
+         * decoding the line.
+         */
+        private final class LineSequence implements CharSequence {
+
+            private int start;
+            private int end;
+
+            void reset(int start, int end) {
+                this.start = start;
+                this.end = end;
+            }
+
+            @Override
+            public int length() {
+                return end - start;
+            }
+
+            @Override
+            public char charAt(int index) {
+                return (char) (line[start + index] & 0xFF);
+            }
+
+            @Override
+            public CharSequence subSequence(int from, int to) {
+                StringBuilder sb = new StringBuilder(to - from);
+                for (int i = from; i < to; i++) {
+                    sb.append(charAt(i));
+                }
+                return sb.toString();
+            }
+
+            @Override
+            public String toString() {
+                return subSequence(0, length()).toString();
+            }
+        }
+    }
+}
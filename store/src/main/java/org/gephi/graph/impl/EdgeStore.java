@@ -28,6 +28,7 @@ import java.util.Iterator;
 import java.util.List;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
+import org.gephi.graph.api.Metric;
 import org.gephi.graph.api.Node;
 
 public class EdgeStore implements Collection<Edge>, EdgeIterable {
@@ -45,6 +46,9 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
     protected EdgeBlock currentBlock;
     protected Object2IntOpenHashMap dictionary;
     protected Long2ObjectOpenCustomHashMap<int[]>[] longDictionary;
+    // Type lists and self-loops
+    protected int[] typeHeads;
+    protected int selfLoopHead;
     // Stats
     protected int undirectedSize;
     protected int mutualEdgesSize;
@@ -57,6 +61,8 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
     protected final EdgeTypeStore edgeTypeStore;
     // View store
     protected final GraphViewStore viewStore;
+    // Metrics (optional)
+    protected final MetricsStore metrics;
 
     public EdgeStore() {
         initStore();
@@ -64,24 +70,21 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         this.edgeTypeStore = null;
         this.viewStore = null;
         this.version = null;
+        this.metrics = null;
     }
 
-    public EdgeStore(final EdgeTypeStore edgeTypeStore, final GraphLock lock, final GraphViewStore viewStore, final GraphVersion graphVersion) {
+    public EdgeStore(final EdgeTypeStore edgeTypeStore, final GraphLock lock, final GraphViewStore viewStore, final GraphVersion graphVersion, final MetricsStore metrics) {
         initStore();
         this.lock = lock;
         this.edgeTypeStore = edgeTypeStore;
         this.viewStore = viewStore;
         this.version = graphVersion;
+        this.metrics = metrics;
     }
 
     private void initStore() {
         this.size = 0;
-        this.garbageSize = 0;
-        this.blocksCount = 1;
-        this.currentBlockIndex = 0;
-        this.blocks = new EdgeBlock[GraphStoreConfiguration.EDGESTORE_DEFAULT_BLOCKS];
-        this.blocks[0] = new EdgeBlock(0);
-        this.currentBlock = blocks[currentBlockIndex];
+        initBlocks();
         this.dictionary = new Object2IntOpenHashMap(GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE);
         this.dictionary.defaultReturnValue(NULL_ID);
         this.longDictionary = new Long2ObjectOpenCustomHashMap[GraphStoreConfiguration.EDGESTORE_DEFAULT_TYPE_COUNT];
@@ -89,6 +92,18 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
                 GraphStoreConfiguration.EDGESTORE_DEFAULT_DICTIONARY_SIZE,
                 GraphStoreConfiguration.EDGESTORE_DICTIONARY_LOAD_FACTOR, new DictionaryHashStrategy());
         this.mutualEdgesTypeSize = new int[GraphStoreConfiguration.EDGESTORE_DEFAULT_TYPE_COUNT];
+        this.typeHeads = new int[GraphStoreConfiguration.EDGESTORE_DEFAULT_TYPE_COUNT];
+        Arrays.fill(typeHeads, NULL_ID);
+        this.selfLoopHead = NULL_ID;
+    }
+
+    private void initBlocks() {
+        this.garbageSize = 0;
+        this.blocksCount = 1;
+        this.currentBlockIndex = 0;
+        this.blocks = new EdgeBlock[GraphStoreConfiguration.EDGESTORE_DEFAULT_BLOCKS];
+        this.blocks[0] = new EdgeBlock(0);
+        this.currentBlock = blocks[currentBlockIndex];
     }
 
     private void ensureCapacity(final int capacity) {
@@ -129,44 +144,111 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         dictionary.trim(Math.max(GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE, size * 2));
     }
 
-    private void ensureHeadOutCapacity(final NodeImpl node, final int type) {
-        EdgeImpl[] out = node.headOut;
-        int outLength = out.length;
-        if (type >= outLength) {
-            EdgeImpl[] newArray = new EdgeImpl[type + 1];
-            System.arraycopy(out, 0, newArray, 0, outLength);
-            node.headOut = newArray;
-        }
-    }
+    private void setHead(NodeImpl node, int type, EdgeImpl edge, boolean out) {
+        EdgeImpl[] heads = out ? node.headOut : node.headIn;
+        int[] types = out ? node.headOutTypes : node.headInTypes;
 
-    private void ensureHeadInCapacity(NodeImpl node, final int type) {
-        EdgeImpl[] in = node.headIn;
-        int inLength = in.length;
-        if (type >= inLength) {
-            EdgeImpl[] newArray = new EdgeImpl[type + 1];
-            System.arraycopy(in, 0, newArray, 0, inLength);
-            node.headIn = newArray;
+        if (types == null) {
+            if (type < heads.length) {
+                heads[type] = edge;
+                if (edge == null && type == heads.length - 1) {
+                    heads = trimDenseHeads(heads);
+                }
+            } else if (edge == null) {
+                return;
+            } else if (type < GraphStoreConfiguration.EDGESTORE_MAX_DENSE_TYPE_COUNT) {
+                EdgeImpl[] newArray = new EdgeImpl[type + 1];
+                System.arraycopy(heads, 0, newArray, 0, heads.length);
+                newArray[type] = edge;
+                heads = newArray;
+            } else {
+                // Switch to sparse, type is greater than all existing types
+                int count = 0;
+                for (EdgeImpl head : heads) {
+                    if (head != null) {
+                        count++;
+                    }
+                }
+                EdgeImpl[] newArray = new EdgeImpl[count + 1];
+                types = new int[count + 1];
+                int index = 0;
+                for (int i = 0; i < heads.length; i++) {
+                    if (heads[i] != null) {
+                        newArray[index] = heads[i];
+                        types[index++] = i;
+                    }
+                }
+                newArray[index] = edge;
+                types[index] = type;
+                heads = newArray;
+            }
+        } else {
+            int index = Arrays.binarySearch(types, type);
+            if (index >= 0) {
+                if (edge != null) {
+                    heads[index] = edge;
+                } else {
+                    int length = types.length;
+                    int maxType = index < length - 1 ? types[length - 1] : (length > 1 ? types[length - 2] : -1);
+                    if (maxType < GraphStoreConfiguration.EDGESTORE_MAX_DENSE_TYPE_COUNT) {
+                        // Back to dense, all remaining types fit
+                        EdgeImpl[] newArray = new EdgeImpl[Math
+                                .max(GraphStoreConfiguration.EDGESTORE_DEFAULT_TYPE_COUNT, maxType + 1)];
+                        for (int i = 0; i < length; i++) {
+                            if (i != index) {
+                                newArray[types[i]] = heads[i];
+                            }
+                        }
+                        heads = newArray;
+                        types = null;
+                    }
+                    if (types != null) {
+                        EdgeImpl[] newArray = new EdgeImpl[length - 1];
+                        int[] newTypes = new int[length - 1];
+                        System.arraycopy(heads, 0, newArray, 0, index);
+                        System.arraycopy(heads, index + 1, newArray, index, length - index - 1);
+                        System.arraycopy(types, 0, newTypes, 0, index);
+                        System.arraycopy(types, index + 1, newTypes, index, length - index - 1);
+                        heads = newArray;
+                        types = newTypes;
+                    }
+                }
+            } else if (edge != null) {
+                int insertIndex = -(index + 1);
+                int length = types.length;
+                EdgeImpl[] newArray = new EdgeImpl[length + 1];
+                int[] newTypes = new int[length + 1];
+                System.arraycopy(heads, 0, newArray, 0, insertIndex);
+                System.arraycopy(heads, insertIndex, newArray, insertIndex + 1, length - insertIndex);
+                System.arraycopy(types, 0, newTypes, 0, insertIndex);
+                System.arraycopy(types, insertIndex, newTypes, insertIndex + 1, length - insertIndex);
+                newArray[insertIndex] = edge;
+                newTypes[insertIndex] = type;
+                heads = newArray;
+                types = newTypes;
+            }
         }
-    }
 
-    private void trimHeadOutCapacity(NodeImpl node, int length) {
-        EdgeImpl[] out = node.headOut;
-        int outLength = out.length;
-        if (length < outLength) {
-            EdgeImpl[] newArray = new EdgeImpl[length];
-            System.arraycopy(out, 0, newArray, 0, length);
-            node.headOut = newArray;
+        if (out) {
+            node.headOut = heads;
+            node.headOutTypes = types;
+        } else {
+            node.headIn = heads;
+            node.headInTypes = types;
         }
     }
 
-    private void trimHeadInCapacity(NodeImpl node, int length) {
-        EdgeImpl[] in = node.headIn;
-        int inLength = in.length;
-        if (length < inLength) {
+    private EdgeImpl[] trimDenseHeads(EdgeImpl[] heads) {
+        int length = heads.length;
+        while (length > GraphStoreConfiguration.EDGESTORE_DEFAULT_TYPE_COUNT && heads[length - 1] == null) {
+            length--;
+        }
+        if (length < heads.length) {
             EdgeImpl[] newArray = new EdgeImpl[length];
-            System.arraycopy(in, 0, newArray, 0, length);
-            node.headIn = newArray;
+            System.arraycopy(heads, 0, newArray, 0, length);
+            return newArray;
         }
+        return heads;
     }
 
     private void ensureLongDictionaryCapacity(int type) {
@@ -184,6 +266,10 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
             int[] newSizeArray = new int[type + 1];
             System.arraycopy(mutualEdgesTypeSize, 0, newSizeArray, 0, length);
             mutualEdgesTypeSize = newSizeArray;
+            int[] newHeadsArray = new int[type + 1];
+            System.arraycopy(typeHeads, 0, newHeadsArray, 0, length);
+            Arrays.fill(newHeadsArray, length, type + 1, NULL_ID);
+            typeHeads = newHeadsArray;
         }
     }
 
@@ -191,32 +277,82 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         NodeImpl source = edge.source;
         int type = edge.type;
 
-        ensureHeadOutCapacity(source, type);
-
         int edgeId = edge.getStoreId();
-        EdgeImpl[] headOutArray = source.headOut;
-        EdgeImpl headOutEdge = headOutArray[type];
+        EdgeImpl headOutEdge = source.getHeadOut(type);
         if (headOutEdge != null) {
             headOutEdge.previousOutEdge = edgeId;
             edge.nextOutEdge = headOutEdge.storeId;
         }
-        headOutArray[type] = edge;
+        setHead(source, type, edge, true);
     }
 
     private void insertInEdge(EdgeImpl edge) {
         NodeImpl target = edge.target;
         int type = edge.type;
 
-        ensureHeadInCapacity(target, type);
-
         int edgeId = edge.getStoreId();
-        EdgeImpl[] headInArray = target.headIn;
-        EdgeImpl headInEdge = headInArray[type];
+        EdgeImpl headInEdge = target.getHeadIn(type);
         if (headInEdge != null) {
             headInEdge.previousInEdge = edgeId;
             edge.nextInEdge = headInEdge.storeId;
         }
-        headInArray[type] = edge;
+        setHead(target, type, edge, false);
+    }
+
+    private void insertTypeEdge(EdgeImpl edge) {
+        int type = edge.type;
+        int edgeId = edge.storeId;
+        int headId = typeHeads[type];
+        if (headId != EdgeStore.NULL_ID) {
+            get(headId).previousTypeEdge = edgeId;
+        }
+        edge.nextTypeEdge = headId;
+        edge.previousTypeEdge = EdgeStore.NULL_ID;
+        typeHeads[type] = edgeId;
+    }
+
+    private void removeTypeEdge(EdgeImpl edge) {
+        int previousTypeEdgeId = edge.previousTypeEdge;
+        int nextTypeEdgeId = edge.nextTypeEdge;
+
+        if (nextTypeEdgeId != EdgeStore.NULL_ID) {
+            get(nextTypeEdgeId).previousTypeEdge = previousTypeEdgeId;
+        }
+        if (previousTypeEdgeId == EdgeStore.NULL_ID) {
+            typeHeads[edge.type] = nextTypeEdgeId;
+        } else {
+            get(previousTypeEdgeId).nextTypeEdge = nextTypeEdgeId;
+        }
+
+        edge.nextTypeEdge = EdgeStore.NULL_ID;
+        edge.previousTypeEdge = EdgeStore.NULL_ID;
+    }
+
+    private void insertSelfLoop(EdgeImpl edge) {
+        int edgeId = edge.storeId;
+        if (selfLoopHead != EdgeStore.NULL_ID) {
+            get(selfLoopHead).previousSelfLoop = edgeId;
+        }
+        edge.nextSelfLoop = selfLoopHead;
+        edge.previousSelfLoop = EdgeStore.NULL_ID;
+        selfLoopHead = edgeId;
+    }
+
+    private void removeSelfLoop(EdgeImpl edge) {
+        int previousSelfLoopId = edge.previousSelfLoop;
+        int nextSelfLoopId = edge.nextSelfLoop;
+
+        if (nextSelfLoopId != EdgeStore.NULL_ID) {
+            get(nextSelfLoopId).previousSelfLoop = previousSelfLoopId;
+        }
+        if (previousSelfLoopId == EdgeStore.NULL_ID) {
+            selfLoopHead = nextSelfLoopId;
+        } else {
+            get(previousSelfLoopId).nextSelfLoop = nextSelfLoopId;
+        }
+
+        edge.nextSelfLoop = EdgeStore.NULL_ID;
+        edge.previousSelfLoop = EdgeStore.NULL_ID;
     }
 
     private void removeOutEdge(EdgeImpl edge) {
@@ -231,12 +367,7 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         }
 
         if (previousOutEdgeId == EdgeStore.NULL_ID) {
-            NodeImpl source = edge.source;
-            EdgeImpl[] headOutArray = source.headOut;
-            headOutArray[type] = nextOutEdge;
-            if (nextOutEdge == null && type > GraphStoreConfiguration.EDGESTORE_DEFAULT_TYPE_COUNT - 1 && type == headOutArray.length - 1) {
-                trimHeadOutCapacity(source, type - 1);
-            }
+            setHead(edge.source, type, nextOutEdge, true);
         } else {
             EdgeImpl previousOutEdge = get(previousOutEdgeId);
             previousOutEdge.nextOutEdge = nextOutEdgeId;
@@ -258,12 +389,7 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         }
 
         if (previousInEdgeId == EdgeStore.NULL_ID) {
-            NodeImpl target = edge.target;
-            EdgeImpl[] headInArray = target.headIn;
-            headInArray[type] = nextInEdge;
-            if (nextInEdge == null && type > GraphStoreConfiguration.EDGESTORE_DEFAULT_TYPE_COUNT - 1 && type == headInArray.length - 1) {
-                trimHeadInCapacity(target, type - 1);
-            }
+            setHead(edge.target, type, nextInEdge, false);
         } else {
             EdgeImpl previousInEdge = get(previousInEdgeId);
             previousInEdge.nextInEdge = nextInEdgeId;
@@ -327,6 +453,14 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         return new SelfLoopIterator();
     }
 
+    public EdgeTypeIterator iteratorType(int type) {
+        return new EdgeTypeIterator(type);
+    }
+
+    public Iterator<Edge> iteratorUndirected(int type) {
+        return undirectedIterator(new EdgeTypeIterator(type));
+    }
+
     public EdgeOutIterator edgeOutIterator(final Node node) {
         checkValidNodeObject(node);
         return new EdgeOutIterator((NodeImpl) node);
@@ -541,6 +675,7 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
 
         EdgeImpl edge = (EdgeImpl) e;
         if (edge.storeId == EdgeStore.NULL_ID) {
+            long start = startMetric();
             checkIdDoesntExist(e.getId());
             checkSourceTargets(edge);
             checkUndirectedNotExist(edge);
@@ -576,48 +711,21 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
                 dictionary.put(edge.getId(), edge.storeId);
             }
 
-            insertOutEdge(edge);
-            insertInEdge(edge);
-
-            source.outDegree++;
-            target.inDegree++;
-
-            if (dicoValue == null) {
-                dicoValue = new int[] { edge.storeId };
-            } else {
-                dicoValue = Arrays.copyOf(dicoValue, dicoValue.length + 1);
-                dicoValue[dicoValue.length - 1] = edge.storeId;
-            }
-            dico.put(longId, dicoValue);
+            insertEdge(edge, dico, longId, dicoValue);
 
             if (viewStore != null) {
                 viewStore.addEdge(edge);
             }
             edge.indexAttributes();
 
-            if (directed && !edge.isSelfLoop()) {
-                int[] index = longDictionary[type].get(getLongId(edge.target, edge.source, true));
-                if (index != null) {
-                    for (int i = 0; i < index.length; i++) {
-                        EdgeImpl mutual = get(index[i]);
-                        if (!mutual.isMutual()) {
-                            mutual.setMutual(true);
-                            edge.setMutual(true);
-                            source.mutualDegree++;
-                            target.mutualDegree++;
-                            mutualEdgesSize++;
-                            mutualEdgesTypeSize[type]++;
-                            break;
-                        }
-                    }
-                }
-            }
+            insertMutualEdge(edge);
 
             if (!directed) {
                 undirectedSize++;
             }
 
             size++;
+            stopMetric(Metric.EDGE_ADD, start);
             return true;
         } else if (isValidIndex(edge.storeId) && get(edge.storeId) == edge) {
             return false;
@@ -626,6 +734,47 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         }
     }
 
+    private void insertEdge(EdgeImpl edge, Long2ObjectOpenCustomHashMap<int[]> dico, long longId, int[] dicoValue) {
+        insertOutEdge(edge);
+        insertInEdge(edge);
+        insertTypeEdge(edge);
+        if (edge.isSelfLoop()) {
+            insertSelfLoop(edge);
+        }
+
+        edge.source.outDegree++;
+        edge.target.inDegree++;
+
+        if (dicoValue == null) {
+            dicoValue = new int[] { edge.storeId };
+        } else {
+            dicoValue = Arrays.copyOf(dicoValue, dicoValue.length + 1);
+            dicoValue[dicoValue.length - 1] = edge.storeId;
+        }
+        dico.put(longId, dicoValue);
+    }
+
+    private void insertMutualEdge(EdgeImpl edge) {
+        if (edge.isDirected() && !edge.isSelfLoop()) {
+            int type = edge.type;
+            int[] index = longDictionary[type].get(getLongId(edge.target, edge.source, true));
+            if (index != null) {
+                for (int i = 0; i < index.length; i++) {
+                    EdgeImpl mutual = get(index[i]);
+                    if (!mutual.isMutual()) {
+                        mutual.setMutual(true);
+                        edge.setMutual(true);
+                        edge.source.mutualDegree++;
+                        edge.target.mutualDegree++;
+                        mutualEdgesSize++;
+                        mutualEdgesTypeSize[type]++;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public boolean remove(final Object o) {
         checkNonNullEdgeObject(o);
@@ -633,6 +782,7 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         EdgeImpl edge = (EdgeImpl) o;
         int id = edge.storeId;
         if (id != EdgeStore.NULL_ID) {
+            long start = startMetric();
             checkEdgeExists(edge);
 
             incrementVersion();
@@ -649,6 +799,10 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
 
             removeOutEdge(edge);
             removeInEdge(edge);
+            removeTypeEdge(edge);
+            if (edge.isSelfLoop()) {
+                removeSelfLoop(edge);
+            }
 
             boolean directed = edge.isDirected();
             NodeImpl source = edge.source;
@@ -723,6 +877,7 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
                 // TODO - if type count is zero, do smthing
             }
 
+            stopMetric(Metric.EDGE_REMOVE, start);
             return true;
         }
         return false;
@@ -1109,10 +1264,158 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         }
     }
 
+    private long startMetric() {
+        return metrics != null ? metrics.start() : 0L;
+    }
+
+    private void stopMetric(Metric metric, long start) {
+        if (metrics != null) {
+            metrics.stop(metric, start);
+        }
+    }
+
     boolean isUndirectedToIgnore(EdgeImpl edge) {
         return edge.isMutual() && edge.source.storeId < edge.target.storeId;
     }
 
+    boolean needsCompaction() {
+        return garbageSize >= GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE && garbageSize > size * GraphStoreConfiguration.COMPACTION_GARBAGE_RATIO;
+    }
+
+    /**
+     * Renumbers the edges so store ids are consecutive, preserving their order.
+     * <p>
+     * Adjacency and type links are remapped in place, and the dictionary is
+     * rebuilt with the current node store ids.
+     *
+     * @return array mapping old store ids to new ones, or <code>NULL_ID</code>
+     *         for empty slots
+     */
+    protected int[] compact() {
+        int[] map = new int[maxStoreId()];
+        Arrays.fill(map, NULL_ID);
+
+        EdgeImpl[] edges = toArray();
+        initBlocks();
+        for (EdgeImpl edge : edges) {
+            int oldId = edge.storeId;
+            ensureCapacity(1);
+            currentBlock.add(edge);
+            map[oldId] = edge.storeId;
+            dictionary.put(edge.getId(), edge.storeId);
+        }
+        trimDictionary();
+
+        for (EdgeImpl edge : edges) {
+            edge.nextOutEdge = remapId(map, edge.nextOutEdge);
+            edge.previousOutEdge = remapId(map, edge.previousOutEdge);
+            edge.nextInEdge = remapId(map, edge.nextInEdge);
+            edge.previousInEdge = remapId(map, edge.previousInEdge);
+            edge.nextTypeEdge = remapId(map, edge.nextTypeEdge);
+            edge.previousTypeEdge = remapId(map, edge.previousTypeEdge);
+            edge.nextSelfLoop = remapId(map, edge.nextSelfLoop);
+            edge.previousSelfLoop = remapId(map, edge.previousSelfLoop);
+        }
+        for (int i = 0; i < typeHeads.length; i++) {
+            typeHeads[i] = remapId(map, typeHeads[i]);
+        }
+        selfLoopHead = remapId(map, selfLoopHead);
+
+        for (int i = 0; i < longDictionary.length; i++) {
+            Long2ObjectOpenCustomHashMap<int[]> dico = longDictionary[i];
+            Long2ObjectOpenCustomHashMap<int[]> newDico = new Long2ObjectOpenCustomHashMap<int[]>(
+                    Math.max(GraphStoreConfiguration.EDGESTORE_DEFAULT_DICTIONARY_SIZE, dico.size()),
+                    GraphStoreConfiguration.EDGESTORE_DICTIONARY_LOAD_FACTOR, new DictionaryHashStrategy());
+            for (int[] value : dico.values()) {
+                for (int j = 0; j < value.length; j++) {
+                    value[j] = map[value[j]];
+                }
+                EdgeImpl edge = get(value[0]);
+                newDico.put(getLongId(edge.source, edge.target, edge.isDirected()), value);
+            }
+            longDictionary[i] = newDico;
+        }
+        return map;
+    }
+
+    /**
+     * Adds the edges at their index in the given array, which becomes their
+     * store id.
+     * <p>
+     * Null entries are left as empty slots. The adjacency lists and
+     * dictionaries are built in a single pass in store id order, which yields
+     * the same mutual edges as adding them one by one. This is used to restore
+     * a store with its original store ids and requires the store to be empty.
+     *
+     * @param edges edges indexed by store id
+     * @param length number of store ids to consider in the array
+     */
+    protected void bulkAdd(EdgeImpl[] edges, int length) {
+        if (!isEmpty()) {
+            throw new IllegalStateException("The store is not empty");
+        }
+        if (length == 0) {
+            return;
+        }
+        incrementVersion();
+
+        initBlocks();
+        ensureCapacity(length);
+        dictionary = new Object2IntOpenHashMap(Math.max(GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE, length));
+        dictionary.defaultReturnValue(NULL_ID);
+
+        for (int i = 0; i < length; i++) {
+            EdgeImpl edge = edges[i];
+            EdgeBlock block = blocks[i / GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE];
+            if (edge == null) {
+                block.addGarbage();
+                garbageSize++;
+            } else {
+                checkNonNullEdgeObject(edge);
+                if (edge.storeId != EdgeStore.NULL_ID) {
+                    throw new IllegalArgumentException("The edge already belongs to another store");
+                }
+                checkIdDoesntExist(edge.getId());
+                checkSourceTargets(edge);
+                block.add(edge);
+                dictionary.put(edge.getId(), edge.storeId);
+            }
+        }
+        currentBlockIndex = blocksCount - 1;
+        currentBlock = blocks[currentBlockIndex];
+
+        for (int i = 0; i < length; i++) {
+            EdgeImpl edge = edges[i];
+            if (edge != null) {
+                int type = edge.type;
+                ensureLongDictionaryCapacity(type);
+                Long2ObjectOpenCustomHashMap<int[]> dico = longDictionary[type];
+                long longId = getLongId(edge.source, edge.target, edge.isDirected());
+                insertEdge(edge, dico, longId, dico.get(longId));
+                insertMutualEdge(edge);
+
+                if (!edge.isDirected()) {
+                    undirectedSize++;
+                }
+                size++;
+            }
+        }
+
+        for (int i = 0; i < length; i++) {
+            EdgeImpl edge = edges[i];
+            if (edge != null) {
+                if (viewStore != null) {
+                    viewStore.addEdge(edge);
+                }
+                edge.indexAttributes();
+            }
+        }
+    }
+
+    private static int remapId(int[] map, int id) {
+        return id == NULL_ID ? NULL_ID : map[id];
+    }
+
     int maxStoreId() {
         return currentBlock.offset + currentBlock.nodeLength;
     }
@@ -1160,6 +1463,11 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
             k.setStoreId(i + offset);
         }
 
+        public void addGarbage() {
+            int i = nodeLength++;
+            garbageArray[garbageLength++] = (short) (i + Short.MIN_VALUE);
+        }
+
         public void set(EdgeImpl k) {
             int i = garbageArray[--garbageLength] - Short.MIN_VALUE;
             backingArray[i] = k;
@@ -1260,25 +1568,84 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         }
     }
 
-    protected final class SelfLoopIterator extends EdgeStoreIterator {
+    protected final class SelfLoopIterator implements Iterator<Edge> {
+
+        protected EdgeImpl lastEdge;
+        protected EdgeImpl pointer;
 
         public SelfLoopIterator() {
-            super();
+            readLock();
+            if (selfLoopHead != EdgeStore.NULL_ID) {
+                pointer = get(selfLoopHead);
+            }
         }
 
         @Override
         public boolean hasNext() {
-            pointer = null;
-            while (pointer == null) {
-                if (!super.hasNext()) {
-                    return false;
-                }
-                if (!pointer.isSelfLoop()) {
-                    pointer = null;
-                }
+            if (pointer == null) {
+                readUnlock();
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public EdgeImpl next() {
+            lastEdge = pointer;
+            int id = lastEdge.nextSelfLoop;
+            if (id != EdgeStore.NULL_ID) {
+                pointer = get(id);
+            } else {
+                pointer = null;
+            }
+            return lastEdge;
+        }
+
+        @Override
+        public void remove() {
+            checkWriteLock();
+            EdgeStore.this.remove(lastEdge);
+        }
+    }
+
+    protected final class EdgeTypeIterator implements Iterator<Edge> {
+
+        protected EdgeImpl lastEdge;
+        protected EdgeImpl pointer;
+
+        public EdgeTypeIterator(int type) {
+            readLock();
+            if (type >= 0 && type < typeHeads.length && typeHeads[type] != EdgeStore.NULL_ID) {
+                pointer = get(typeHeads[type]);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (pointer == null) {
+                readUnlock();
+                return false;
             }
             return true;
         }
+
+        @Override
+        public EdgeImpl next() {
+            lastEdge = pointer;
+            int id = lastEdge.nextTypeEdge;
+            if (id != EdgeStore.NULL_ID) {
+                pointer = get(id);
+            } else {
+                pointer = null;
+            }
+            return lastEdge;
+        }
+
+        @Override
+        public void remove() {
+            checkWriteLock();
+            EdgeStore.this.remove(lastEdge);
+        }
     }
 
     protected final class EdgeInOutIterator implements Iterator<Edge> {
@@ -1474,10 +1841,8 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         public EdgeTypeInOutIterator(NodeImpl node, int type) {
             this.type = type;
             readLock();
-            EdgeImpl[] outArray = node.headOut;
-            EdgeImpl[] inArray = node.headIn;
-            outPointer = type < outArray.length ? outArray[type] : null;
-            inPointer = type < inArray.length ? inArray[type] : null;
+            outPointer = node.getHeadOut(type);
+            inPointer = node.getHeadIn(type);
         }
 
         @Override
@@ -1533,10 +1898,8 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         }
 
         public void reset(NodeImpl node) {
-            EdgeImpl[] outArray = node.headOut;
-            EdgeImpl[] inArray = node.headIn;
-            outPointer = type < outArray.length ? outArray[type] : null;
-            inPointer = type < inArray.length ? inArray[type] : null;
+            outPointer = node.getHeadOut(type);
+            inPointer = node.getHeadIn(type);
         }
 
         @Override
@@ -1555,8 +1918,7 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         public EdgeTypeOutIterator(NodeImpl node, int type) {
             this.type = type;
             readLock();
-            EdgeImpl[] outArray = node.headOut;
-            pointer = type < outArray.length ? outArray[type] : null;
+            pointer = node.getHeadOut(type);
         }
 
         @Override
@@ -1581,8 +1943,7 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         }
 
         public void reset(NodeImpl node) {
-            EdgeImpl[] outArray = node.headOut;
-            pointer = type < outArray.length ? outArray[type] : null;
+            pointer = node.getHeadOut(type);
         }
 
         @Override
@@ -1668,8 +2029,7 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         public EdgeTypeInIterator(NodeImpl node, int type) {
             this.type = type;
             readLock();
-            EdgeImpl[] inArray = node.headIn;
-            pointer = type < inArray.length ? inArray[type] : null;
+            pointer = node.getHeadIn(type);
         }
 
         @Override
@@ -1694,8 +2054,7 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         }
 
         public void reset(NodeImpl node) {
-            EdgeImpl[] inArray = node.headIn;
-            pointer = type < inArray.length ? inArray[type] : null;
+            pointer = node.getHeadIn(type);
         }
 
         @Override
@@ -186,6 +186,105 @@ public abstract class ElementImpl implements Element {
         return attributes;
     }
 
+    /**
+     * Returns a copy of the attribute values, including the dynamic ones, which
+     * later changes to this element don't affect.
+     *
+     * @return copy of the attribute values
+     */
+    protected synchronized Object[] copyAttributes() {
+        Object[] copy = new Object[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            Object value = attributes[i];
+            if (value instanceof TimeMap) {
+                copy[i] = copyTimeMap((TimeMap) value);
+            } else if (value instanceof TimeSet) {
+                copy[i] = copyTimeSet((TimeSet) value);
+            } else {
+                copy[i] = value;
+            }
+        }
+        return copy;
+    }
+
+    private static TimeMap copyTimeMap(TimeMap map) {
+        if (map instanceof TimestampMap) {
+            TimestampMap timestampMap = (TimestampMap) map;
+            double[] timestamps = timestampMap.getTimestamps();
+            TimestampMap copy = copyTimestampMap(timestampMap, timestamps);
+            if (!timestampMap.isEmpty()) {
+                // Both maps copy the timestamps before modifying them
+                timestampMap.shareTimestamps(timestamps);
+                copy.shareTimestamps(timestamps);
+            }
+            return copy;
+        }
+        return copyIntervalMap((IntervalMap) map, ((IntervalMap) map).getIntervals());
+    }
+
+    private static TimestampMap copyTimestampMap(TimestampMap map, double[] timestamps) {
+        Class mapClass = map.getClass();
+        if (mapClass.equals(TimestampBooleanMap.class)) {
+            return new TimestampBooleanMap(timestamps, ((TimestampBooleanMap) map).toBooleanArray());
+        } else if (mapClass.equals(TimestampByteMap.class)) {
+            return new TimestampByteMap(timestamps, ((TimestampByteMap) map).toByteArray());
+        } else if (mapClass.equals(TimestampCharMap.class)) {
+            return new TimestampCharMap(timestamps, ((TimestampCharMap) map).toCharacterArray());
+        } else if (mapClass.equals(TimestampDoubleMap.class)) {
+            return new TimestampDoubleMap(timestamps, ((TimestampDoubleMap) map).toDoubleArray());
+        } else if (mapClass.equals(TimestampFloatMap.class)) {
+            return new TimestampFloatMap(timestamps, ((TimestampFloatMap) map).toFloatArray());
+        } else if (mapClass.equals(TimestampIntegerMap.class)) {
+            return new TimestampIntegerMap(timestamps, ((TimestampIntegerMap) map).toIntegerArray());
+        } else if (mapClass.equals(TimestampLongMap.class)) {
+            return new TimestampLongMap(timestamps, ((TimestampLongMap) map).toLongArray());
+        } else if (mapClass.equals(TimestampShortMap.class)) {
+            return new TimestampShortMap(timestamps, ((TimestampShortMap) map).toShortArray());
+        } else if (mapClass.equals(TimestampStringMap.class)) {
+            return new TimestampStringMap(timestamps, ((TimestampStringMap) map).toValuesArray());
+        }
+        throw new RuntimeException("Unrecognized timestamp map class");
+    }
+
+    private static IntervalMap copyIntervalMap(IntervalMap map, double[] intervals) {
+        Class mapClass = map.getClass();
+        if (mapClass.equals(IntervalBooleanMap.class)) {
+            return new IntervalBooleanMap(intervals, ((IntervalBooleanMap) map).toBooleanArray());
+        } else if (mapClass.equals(IntervalByteMap.class)) {
+            return new IntervalByteMap(intervals, ((IntervalByteMap) map).toByteArray());
+        } else if (mapClass.equals(IntervalCharMap.class)) {
+            return new IntervalCharMap(intervals, ((IntervalCharMap) map).toCharacterArray());
+        } else if (mapClass.equals(IntervalDoubleMap.class)) {
+            return new IntervalDoubleMap(intervals, ((IntervalDoubleMap) map).toDoubleArray());
+        } else if (mapClass.equals(IntervalFloatMap.class)) {
+            return new IntervalFloatMap(intervals, ((IntervalFloatMap) map).toFloatArray());
+        } else if (mapClass.equals(IntervalIntegerMap.class)) {
+            return new IntervalIntegerMap(intervals, ((IntervalIntegerMap) map).toIntegerArray());
+        } else if (mapClass.equals(IntervalLongMap.class)) {
+            return new IntervalLongMap(intervals, ((IntervalLongMap) map).toLongArray());
+        } else if (mapClass.equals(IntervalShortMap.class)) {
+            return new IntervalShortMap(intervals, ((IntervalShortMap) map).toShortArray());
+        } else if (mapClass.equals(IntervalStringMap.class)) {
+            return new IntervalStringMap(intervals, ((IntervalStringMap) map).toValuesArray());
+        }
+        throw new RuntimeException("Unrecognized interval map class");
+    }
+
+    private static TimeSet copyTimeSet(TimeSet set) {
+        if (set instanceof TimestampSet) {
+            TimestampSet timestampSet = (TimestampSet) set;
+            double[] timestamps = timestampSet.toPrimitiveArray();
+            TimestampSet copy = new TimestampSet(timestamps);
+            if (!timestampSet.isEmpty()) {
+                // Both sets copy the timestamps before modifying them
+                timestampSet.shareTimestamps(timestamps);
+                copy.shareTimestamps(timestamps);
+            }
+            return copy;
+        }
+        return new IntervalSet(((IntervalSet) set).getIntervals());
+    }
+
     @Override
     public Set<String> getAttributeKeys() {
         return getColumnStore().getColumnKeys();
@@ -208,34 +307,45 @@ public abstract class ElementImpl implements Element {
 
         int index = column.getIndex();
         Object oldValue = null;
-        synchronized (this) {
-            if (index >= attributes.length) {
-                Object[] newArray = new Object[index + 1];
-                System.arraycopy(attributes, 0, newArray, 0, attributes.length);
-                attributes = newArray;
-            } else {
-                oldValue = attributes[index];
-            }
+        final boolean attributeLocked = attributeWriteLock(column.isDynamic());
+        try {
+            beforeWrite();
+            synchronized (this) {
+                if (index >= attributes.length) {
+                    Object[] newArray = new Object[index + 1];
+                    System.arraycopy(attributes, 0, newArray, 0, attributes.length);
+                    attributes = newArray;
+                } else {
+                    oldValue = attributes[index];
+                }
 
-            attributes[index] = null;
-        }
+                attributes[index] = null;
 
-        if (isValid()) {
-            ColumnStore columnStore = getColumnStore();
-            ColumnImpl columnImpl = (ColumnImpl) column;
-            if (columnImpl.isDynamic() && oldValue != null) {
-                TimeIndexStore timeIndexStore = getTimeIndexStore();
-                if (timeIndexStore != null) {
-                    if (TimeMap.class.isAssignableFrom(columnImpl.getTypeClass())) {
-                        timeIndexStore.remove((TimeMap) oldValue);
-                    } else if (TimeSet.class.isAssignableFrom(columnImpl.getTypeClass())) {
-                        timeIndexStore.remove((TimeSet) oldValue);
+                WriteAheadLog writeAheadLog = getWriteAheadLog();
+                if (writeAheadLog != null) {
+                    writeAheadLog.logRemoveAttribute(this, column);
+                }
+            }
+
+            if (isValid()) {
+                ColumnStore columnStore = getColumnStore();
+                ColumnImpl columnImpl = (ColumnImpl) column;
+                if (columnImpl.isDynamic() && oldValue != null) {
+                    TimeIndexStore timeIndexStore = getTimeIndexStore();
+                    if (timeIndexStore != null) {
+                        if (TimeMap.class.isAssignableFrom(columnImpl.getTypeClass())) {
+                            timeIndexStore.remove((TimeMap) oldValue);
+                        } else if (TimeSet.class.isAssignableFrom(columnImpl.getTypeClass())) {
+                            timeIndexStore.remove((TimeSet) oldValue);
+                        }
                     }
+                } else if (column.isIndexed() && columnStore != null && isValid()) {
+                    columnStore.indexStore.set(column, oldValue, column.getDefaultValue(), this);
                 }
-            } else if (column.isIndexed() && columnStore != null && isValid()) {
-                columnStore.indexStore.set(column, oldValue, column.getDefaultValue(), this);
+                columnImpl.incrementVersion(this);
             }
-            columnImpl.incrementVersion(this);
+        } finally {
+            attributeWriteUnlock(attributeLocked, column.isDynamic());
         }
         return oldValue;
     }
@@ -271,21 +381,32 @@ public abstract class ElementImpl implements Element {
         int index = column.getIndex();
         Object oldValue = null;
         boolean res = false;
-        synchronized (this) {
-            TimeMap dynamicValue = (TimeMap) attributes[index];
-            if (dynamicValue != null) {
-                oldValue = dynamicValue.get(timeObject, null);
+        final boolean attributeLocked = attributeWriteLock(true);
+        try {
+            beforeWrite();
+            synchronized (this) {
+                TimeMap dynamicValue = (TimeMap) attributes[index];
+                if (dynamicValue != null) {
+                    oldValue = dynamicValue.get(timeObject, null);
 
-                res = dynamicValue.remove(timeObject);
+                    res = dynamicValue.remove(timeObject);
+                }
+
+                WriteAheadLog writeAheadLog = getWriteAheadLog();
+                if (res && writeAheadLog != null) {
+                    writeAheadLog.logRemoveAttribute(this, column, timeObject);
+                }
             }
-        }
 
-        if (res && isValid()) {
-            TimeIndexStore timeIndexStore = getTimeIndexStore();
-            if (timeIndexStore != null) {
-                timeIndexStore.remove(timeObject);
+            if (res && isValid()) {
+                TimeIndexStore timeIndexStore = getTimeIndexStore();
+                if (timeIndexStore != null) {
+                    timeIndexStore.remove(timeObject);
+                }
+                ((ColumnImpl) column).incrementVersion(this);
             }
-            ((ColumnImpl) column).incrementVersion(this);
+        } finally {
+            attributeWriteUnlock(attributeLocked, true);
         }
         return oldValue;
     }
@@ -294,18 +415,29 @@ public abstract class ElementImpl implements Element {
     public void setLabel(String label) {
         if (GraphStoreConfiguration.ENABLE_ELEMENT_LABEL) {
             int index = GraphStoreConfiguration.ELEMENT_LABEL_INDEX;
-            synchronized (this) {
-                if (index >= attributes.length) {
-                    Object[] newArray = new Object[index + 1];
-                    System.arraycopy(attributes, 0, newArray, 0, attributes.length);
-                    attributes = newArray;
+            final boolean attributeLocked = attributeWriteLock(false);
+            try {
+                beforeWrite();
+                synchronized (this) {
+                    if (index >= attributes.length) {
+                        Object[] newArray = new Object[index + 1];
+                        System.arraycopy(attributes, 0, newArray, 0, attributes.length);
+                        attributes = newArray;
+                    }
+                    attributes[index] = label;
+
+                    WriteAheadLog writeAheadLog = getWriteAheadLog();
+                    if (writeAheadLog != null) {
+                        writeAheadLog.logSetAttribute(this, getColumnStore().getColumnByIndex(index), label);
+                    }
                 }
-                attributes[index] = label;
-            }
-            ColumnStore columnStore = getColumnStore();
-            if (columnStore != null && isValid()) {
-                Column col = columnStore.getColumnByIndex(index);
-                ((ColumnImpl) col).incrementVersion(this);
+                ColumnStore columnStore = getColumnStore();
+                if (columnStore != null && isValid()) {
+                    Column col = columnStore.getColumnByIndex(index);
+                    ((ColumnImpl) col).incrementVersion(this);
+                }
+            } finally {
+                attributeWriteUnlock(attributeLocked, false);
             }
         }
     }
@@ -322,46 +454,58 @@ public abstract class ElementImpl implements Element {
 
         value = AttributeUtils.standardizeValue(value);
         checkType(column, value);
+        value = ((ColumnImpl) column).encode(value);
 
         int index = column.getIndex();
         ColumnStore columnStore = getColumnStore();
         Object oldValue = null;
 
-        synchronized (this) {
-            if (index >= attributes.length) {
-                Object[] newArray = new Object[index + 1];
-                System.arraycopy(attributes, 0, newArray, 0, attributes.length);
-                attributes = newArray;
-            } else {
-                oldValue = attributes[index];
-            }
+        final boolean attributeLocked = attributeWriteLock(column.isDynamic());
+        try {
+            beforeWrite();
+            synchronized (this) {
+                if (index >= attributes.length) {
+                    Object[] newArray = new Object[index + 1];
+                    System.arraycopy(attributes, 0, newArray, 0, attributes.length);
+                    attributes = newArray;
+                } else {
+                    oldValue = attributes[index];
+                }
 
-            if (column.isDynamic() && isValid()) {
-                TimeIndexStore timeIndexStore = getTimeIndexStore();
-                if (timeIndexStore != null) {
-                    if (TimeMap.class.isAssignableFrom(column.getTypeClass())) {
-                        if (oldValue != null && oldValue instanceof TimeMap) {
-                            timeIndexStore.remove((TimeMap) oldValue);
-                        }
-                        if (value != null) {
-                            timeIndexStore.add((TimeMap) value);
-                        }
-                    } else if (TimeSet.class.isAssignableFrom(column.getTypeClass()) && column.getIndex() == GraphStoreConfiguration.ELEMENT_TIMESET_INDEX) {
-                        if (oldValue != null) {
-                            timeIndexStore.remove((TimeSet) oldValue);
-                        }
-                        if (value != null) {
-                            timeIndexStore.add((TimeSet) value);
+                if (column.isDynamic() && isValid()) {
+                    TimeIndexStore timeIndexStore = getTimeIndexStore();
+                    if (timeIndexStore != null) {
+                        if (TimeMap.class.isAssignableFrom(column.getTypeClass())) {
+                            if (oldValue != null && oldValue instanceof TimeMap) {
+                                timeIndexStore.remove((TimeMap) oldValue);
+                            }
+                            if (value != null) {
+                                timeIndexStore.add((TimeMap) value);
+                            }
+                        } else if (TimeSet.class.isAssignableFrom(column.getTypeClass()) && column.getIndex() == GraphStoreConfiguration.ELEMENT_TIMESET_INDEX) {
+                            if (oldValue != null) {
+                                timeIndexStore.remove((TimeSet) oldValue);
+                            }
+                            if (value != null) {
+                                timeIndexStore.add((TimeSet) value);
+                            }
                         }
                     }
+                } else if (column.isIndexed() && columnStore != null && isValid()) {
+                    value = columnStore.indexStore.set(column, oldValue, value, this);
+                }
+                attributes[index] = value;
+
+                WriteAheadLog writeAheadLog = getWriteAheadLog();
+                if (writeAheadLog != null) {
+                    writeAheadLog.logSetAttribute(this, column, value);
                 }
-            } else if (column.isIndexed() && columnStore != null && isValid()) {
-                value = columnStore.indexStore.set(column, oldValue, value, this);
             }
-            attributes[index] = value;
-        }
-        if (isValid()) {
-            ((ColumnImpl) column).incrementVersion(this);
+            if (isValid()) {
+                ((ColumnImpl) column).incrementVersion(this);
+            }
+        } finally {
+            attributeWriteUnlock(attributeLocked, column.isDynamic());
         }
     }
 
@@ -397,39 +541,50 @@ public abstract class ElementImpl implements Element {
         int index = column.getIndex();
         Object oldValue = null;
         boolean res;
-        synchronized (this) {
-            if (index >= attributes.length) {
-                Object[] newArray = new Object[index + 1];
-                System.arraycopy(attributes, 0, newArray, 0, attributes.length);
-                attributes = newArray;
-            } else {
-                oldValue = attributes[index];
-            }
+        final boolean attributeLocked = attributeWriteLock(true);
+        try {
+            beforeWrite();
+            synchronized (this) {
+                if (index >= attributes.length) {
+                    Object[] newArray = new Object[index + 1];
+                    System.arraycopy(attributes, 0, newArray, 0, attributes.length);
+                    attributes = newArray;
+                } else {
+                    oldValue = attributes[index];
+                }
 
-            TimeMap dynamicValue = null;
-            if (oldValue == null) {
-                try {
-                    attributes[index] = dynamicValue = (TimeMap) column.getTypeClass().newInstance();
-                } catch (InstantiationException ex) {
-                    throw new RuntimeException(ex);
-                } catch (IllegalAccessException ex) {
-                    throw new RuntimeException(ex);
+                TimeMap dynamicValue = null;
+                if (oldValue == null) {
+                    try {
+                        attributes[index] = dynamicValue = (TimeMap) column.getTypeClass().newInstance();
+                    } catch (InstantiationException ex) {
+                        throw new RuntimeException(ex);
+                    } catch (IllegalAccessException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                } else {
+                    dynamicValue = (TimeMap) oldValue;
                 }
-            } else {
-                dynamicValue = (TimeMap) oldValue;
-            }
 
-            res = dynamicValue.put(timeObject, value);
-        }
+                res = dynamicValue.put(timeObject, value);
 
-        if (res && isValid()) {
-            TimeIndexStore timeIndexStore = getTimeIndexStore();
-            if (timeIndexStore != null) {
-                timeIndexStore.add(timeObject);
+                WriteAheadLog writeAheadLog = getWriteAheadLog();
+                if (writeAheadLog != null) {
+                    writeAheadLog.logSetAttribute(this, column, value, timeObject);
+                }
             }
-        }
-        if (isValid()) {
-            ((ColumnImpl) column).incrementVersion(this);
+
+            if (res && isValid()) {
+                TimeIndexStore timeIndexStore = getTimeIndexStore();
+                if (timeIndexStore != null) {
+                    timeIndexStore.add(timeObject);
+                }
+            }
+            if (isValid()) {
+                ((ColumnImpl) column).incrementVersion(this);
+            }
+        } finally {
+            attributeWriteUnlock(attributeLocked, true);
         }
     }
 
@@ -450,6 +605,7 @@ public abstract class ElementImpl implements Element {
         checkEnabledTimeSet();
 
         boolean res;
+        beforeWrite();
         synchronized (this) {
             TimeSet timeSet = getTimeSet();
             if (timeSet == null) {
@@ -473,6 +629,11 @@ public abstract class ElementImpl implements Element {
                 attributes[index] = timeSet;
             }
             res = timeSet.add(timeObject);
+
+            WriteAheadLog writeAheadLog = getWriteAheadLog();
+            if (res && writeAheadLog != null) {
+                writeAheadLog.logAddTime(this, timeObject);
+            }
         }
 
         if (res && isValid()) {
@@ -507,11 +668,17 @@ public abstract class ElementImpl implements Element {
         checkEnabledTimeSet();
 
         boolean res = false;
+        beforeWrite();
         synchronized (this) {
             TimeSet timeSet = getTimeSet();
             if (timeSet != null) {
                 res = timeSet.remove(timeObject);
             }
+
+            WriteAheadLog writeAheadLog = getWriteAheadLog();
+            if (res && writeAheadLog != null) {
+                writeAheadLog.logRemoveTime(this, timeObject);
+            }
         }
 
         if (res && isValid()) {
@@ -632,6 +799,7 @@ public abstract class ElementImpl implements Element {
 
     @Override
     public void clearAttributes() {
+        beforeWrite();
         synchronized (this) {
             if (isValid()) {
                 ColumnStore columnStore = getColumnStore();
@@ -680,6 +848,58 @@ public abstract class ElementImpl implements Element {
         return graphStore;
     }
 
+    protected WriteAheadLog getWriteAheadLog() {
+        return graphStore != null && isValid() ? graphStore.writeAheadLog : null;
+    }
+
+    protected void beforeWrite() {
+        BackgroundSave backgroundSave = graphStore != null ? graphStore.backgroundSave : null;
+        if (backgroundSave != null && isValid()) {
+            backgroundSave.beforeWrite(this);
+        }
+    }
+
+    /**
+     * Locks the store before an attribute write if striped locking is enabled.
+     * Attribute writes are isolated from each other by the element's monitor
+     * and only exclude structural changes. Writes updating the time index also
+     * lock the time index store. The graph lock is never upgraded, so
+     * attributes can be written while holding the read lock.
+     *
+     * @param timeIndex true if the write updates the time index
+     * @return true if the store was locked
+     */
+    protected boolean attributeWriteLock(boolean timeIndex) {
+        GraphStore store = graphStore;
+        if (store != null && store.stripedLocking) {
+            if (GraphStoreConfiguration.ENABLE_AUTO_LOCKING) {
+                store.lock.readLock();
+            }
+            if (timeIndex) {
+                TimeIndexStore timeIndexStore = getTimeIndexStore();
+                if (timeIndexStore != null) {
+                    timeIndexStore.lock();
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    protected void attributeWriteUnlock(boolean locked, boolean timeIndex) {
+        if (locked) {
+            if (timeIndex) {
+                TimeIndexStore timeIndexStore = getTimeIndexStore();
+                if (timeIndexStore != null) {
+                    timeIndexStore.unlock();
+                }
+            }
+            if (GraphStoreConfiguration.ENABLE_AUTO_LOCKING) {
+                graphStore.lock.readUnlock();
+            }
+        }
+    }
+
     protected void checkTimeRepresentationTimestamp() {
         if (!getTimeRepresentation().equals(TimeRepresentation.TIMESTAMP)) {
             throw new RuntimeException("Can't use timestamps as the configuration is set to " + getTimeRepresentation());
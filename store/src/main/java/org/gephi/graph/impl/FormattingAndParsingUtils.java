@@ -15,8 +15,6 @@
  */
 package org.gephi.graph.impl;
 
-import java.io.IOException;
-import java.io.StringReader;
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -43,6 +41,11 @@ public final class FormattingAndParsingUtils {
     public static final String EMPTY_VALUE = "<empty>";
     public static final String INFINITY = "Infinity";
 
+    // Exact powers of ten, for the fast path of number parsing
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final long MILLIS_PER_DAY = 86400000L;
+
     /**
      * Parses an ISO date with or without time or a timestamp (in milliseconds).
      * Returns the date or timestamp converted to a timestamp in milliseconds.
@@ -52,7 +55,13 @@ public final class FormattingAndParsingUtils {
      * @return Timestamp
      */
     public static double parseDateTimeOrTimestamp(String timeStr, DateTimeZone timeZone) {
-        double value;
+        double value = parseDouble(timeStr, 0, timeStr.length());
+        if (Double.isNaN(value)) {
+            value = parseIsoDateTime(timeStr, 0, timeStr.length(), timeZone);
+        }
+        if (!Double.isNaN(value)) {
+            return value;
+        }
         try {
             // Try first to parse as a single double:
             value = Double.parseDouble(infinityIgnoreCase(timeStr));
@@ -78,21 +87,259 @@ public final class FormattingAndParsingUtils {
         return parseDateTimeOrTimestamp(timeStr, null);
     }
 
+    /**
+     * Parses the <code>[start, end)</code> window of <code>input</code> as a
+     * timestamp (in milliseconds) or an ISO date with or without time, without
+     * creating intermediate strings for plain numbers and common ISO formats.
+     *
+     * @param input Input to parse
+     * @param start Start of the window, inclusive
+     * @param end End of the window, exclusive
+     * @param timeZone Time zone to use or null to use default time zone (UTC)
+     * @return Timestamp
+     */
+    public static double parseDateTimeOrTimestamp(CharSequence input, int start, int end, DateTimeZone timeZone) {
+        double value = parseDouble(input, start, end);
+        if (Double.isNaN(value)) {
+            value = parseIsoDateTime(input, start, end, timeZone);
+        }
+        if (Double.isNaN(value)) {
+            value = parseDateTimeOrTimestamp(input.subSequence(start, end).toString(), timeZone);
+        }
+        return value;
+    }
+
+    /**
+     * Parses a decimal number without creating intermediate objects.
+     * <p>
+     * Only numbers whose value can be computed exactly, with at most 15
+     * significant digits and a small exponent, and infinity values are
+     * supported. <code>NaN</code> is returned for any other input, which then
+     * has to be parsed with {@link Double#parseDouble(java.lang.String)}.
+     *
+     * @param input Input to parse
+     * @param start Start of the number, inclusive
+     * @param end End of the number, exclusive
+     * @return Parsed number, or <code>NaN</code> if not supported
+     */
+    protected static double parseDouble(CharSequence input, int start, int end) {
+        int pos = start;
+        boolean negative = false;
+        if (pos < end && (input.charAt(pos) == '-' || input.charAt(pos) == '+')) {
+            negative = input.charAt(pos) == '-';
+            pos++;
+        }
+        if (regionMatchesIgnoreCase(input, pos, end, INFINITY)) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean dot = false;
+        for (; pos < end; pos++) {
+            char c = input.charAt(pos);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (dot) {
+                        exponent--;
+                    }
+                } else if (c != '0' || !dot) {
+                    return Double.NaN;
+                }
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        if (pos < end) {
+            char c = input.charAt(pos++);
+            if (c != 'e' && c != 'E') {
+                return Double.NaN;
+            }
+            boolean negativeExponent = false;
+            if (pos < end && (input.charAt(pos) == '-' || input.charAt(pos) == '+')) {
+                negativeExponent = input.charAt(pos) == '-';
+                pos++;
+            }
+            if (pos == end || end - pos > 3) {
+                return Double.NaN;
+            }
+            int exp = 0;
+            for (; pos < end; pos++) {
+                c = input.charAt(pos);
+                if (c < '0' || c > '9') {
+                    return Double.NaN;
+                }
+                exp = exp * 10 + (c - '0');
+            }
+            exponent += negativeExponent ? -exp : exp;
+        }
+
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return Double.NaN;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses an ISO date (yyyy-MM-dd) with an optional time (HH:mm, HH:mm:ss or
+     * HH:mm:ss.SSS) and offset (Z or +HH:mm) without going through a date time
+     * formatter.
+     * <p>
+     * <code>NaN</code> is returned for any other input, or if the time zone
+     * doesn't have a fixed offset, which then has to be parsed with
+     * {@link AttributeUtils#parseDateTime(java.lang.String, org.joda.time.DateTimeZone)}
+     * .
+     *
+     * @param input Input to parse
+     * @param start Start of the date, inclusive
+     * @param end End of the date, exclusive
+     * @param timeZone Time zone to use or null to use default time zone (UTC)
+     * @return Timestamp, or <code>NaN</code> if not supported
+     */
+    protected static double parseIsoDateTime(CharSequence input, int start, int end, DateTimeZone timeZone) {
+        if (end - start < 10 || input.charAt(start + 4) != '-' || input.charAt(start + 7) != '-') {
+            return Double.NaN;
+        }
+        int year = parseDigits(input, start, 4);
+        int month = parseDigits(input, start + 5, 2);
+        int day = parseDigits(input, start + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            return Double.NaN;
+        }
+        long millis = daysFromEpoch(year, month, day) * MILLIS_PER_DAY;
+
+        int pos = start + 10;
+        if (pos < end && input.charAt(pos) == 'T') {
+            if (end - pos < 6 || input.charAt(pos + 3) != ':') {
+                return Double.NaN;
+            }
+            int hour = parseDigits(input, pos + 1, 2);
+            int minute = parseDigits(input, pos + 4, 2);
+            if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+                return Double.NaN;
+            }
+            millis += (hour * 60L + minute) * 60000L;
+            pos += 6;
+            if (pos < end && input.charAt(pos) == ':') {
+                int second = end - pos >= 3 ? parseDigits(input, pos + 1, 2) : -1;
+                if (second < 0 || second > 59) {
+                    return Double.NaN;
+                }
+                millis += second * 1000L;
+                pos += 3;
+                if (pos < end && input.charAt(pos) == '.') {
+                    int fractionStart = ++pos;
+                    int fraction = 0;
+                    for (; pos < end && pos - fractionStart < 4; pos++) {
+                        char c = input.charAt(pos);
+                        if (c < '0' || c > '9') {
+                            break;
+                        }
+                        fraction = fraction * 10 + (c - '0');
+                    }
+                    int fractionDigits = pos - fractionStart;
+                    if (fractionDigits == 0 || fractionDigits > 3) {
+                        return Double.NaN;
+                    }
+                    for (int i = fractionDigits; i < 3; i++) {
+                        fraction *= 10;
+                    }
+                    millis += fraction;
+                }
+            }
+        }
+
+        if (pos == end) {
+            DateTimeZone zone = timeZone != null ? timeZone : GraphStoreConfiguration.DEFAULT_TIME_ZONE;
+            if (!zone.isFixed()) {
+                return Double.NaN;
+            }
+            return millis - zone.getOffset(0L);
+        } else if (pos == end - 1 && input.charAt(pos) == 'Z' && pos > start + 10) {
+            return millis;
+        } else if (end - pos == 6 && pos > start + 10 && input.charAt(pos + 3) == ':' && (input.charAt(pos) == '+' || input
+                .charAt(pos) == '-')) {
+            int offsetHours = parseDigits(input, pos + 1, 2);
+            int offsetMinutes = parseDigits(input, pos + 4, 2);
+            if (offsetHours < 0 || offsetHours > 23 || offsetMinutes < 0 || offsetMinutes > 59) {
+                return Double.NaN;
+            }
+            long offset = (offsetHours * 60L + offsetMinutes) * 60000L;
+            return input.charAt(pos) == '+' ? millis - offset : millis + offset;
+        }
+        return Double.NaN;
+    }
+
+    private static int parseDigits(CharSequence input, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            char c = input.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        }
+        return (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+    }
+
+    private static long daysFromEpoch(int year, int month, int day) {
+        // Days from civil algorithm, proleptic Gregorian calendar
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468L;
+    }
+
+    private static boolean regionMatchesIgnoreCase(CharSequence input, int start, int end, String str) {
+        if (end - start != str.length()) {
+            return false;
+        }
+        for (int i = 0; i < str.length(); i++) {
+            if (Character.toLowerCase(input.charAt(start + i)) != Character.toLowerCase(str.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Parse literal value until detecting the end of it (quote can be ' or ")
      *
-     * @param reader Input reader
+     * @param cursor Input cursor
      * @param quote Quote mode that started this literal (' or ")
      * @return Parsed value
-     * @throws IOException Unexpected read error
      */
-    protected static String parseLiteral(StringReader reader, char quote) throws IOException {
+    protected static String parseLiteral(Cursor cursor, char quote) {
         StringBuilder sb = new StringBuilder();
         boolean escapeEnabled = false;
 
         int r;
         char c;
-        while ((r = reader.read()) != -1) {
+        while ((r = cursor.read()) != -1) {
             c = (char) r;
             if (c == quote) {
                 if (escapeEnabled) {
@@ -126,37 +373,46 @@ public final class FormattingAndParsingUtils {
 
     /**
      * Parses a value until end is detected either by a comma or a bounds
-     * closing character.
+     * closing character. The value isn't copied, its trimmed window is set as
+     * the cursor's value.
      *
-     * @param reader Input reader
-     * @return Parsed value
-     * @throws IOException Unexpected read error
+     * @param cursor Input cursor
      */
-    protected static String parseValue(StringReader reader) throws IOException {
-        StringBuilder sb = new StringBuilder();
+    protected static void parseValue(Cursor cursor) {
+        int start = cursor.pos;
+        int end;
         int r;
-        char c;
-        while ((r = reader.read()) != -1) {
-            c = (char) r;
-            switch (c) {
-                case RIGHT_BOUND_BRACKET:
-                case RIGHT_BOUND_SQUARE_BRACKET:
-                    reader.skip(-1);// Go backwards 1 position, for detecting
-                                    // end of bounds
-                case COMMA:
-                    return sb.toString().trim();
-                default:
-                    sb.append(c);
+        while (true) {
+            r = cursor.read();
+            if (r == -1) {
+                end = cursor.pos;
+                break;
+            } else if (r == RIGHT_BOUND_BRACKET || r == RIGHT_BOUND_SQUARE_BRACKET) {
+                cursor.unread();// Go backwards 1 position, for detecting end
+                                // of bounds
+                end = cursor.pos;
+                break;
+            } else if (r == COMMA) {
+                end = cursor.pos - 1;
+                break;
             }
         }
 
-        return sb.toString().trim();
+        CharSequence input = cursor.input;
+        while (start < end && input.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && input.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        cursor.valueStart = start;
+        cursor.valueEnd = end;
     }
 
     /**
-     * Converts a string parsed with {@link #parseValue(java.io.StringReader)}
-     * to the target type, taking into account dynamic parsing quirks such as
-     * numbers with/without decimals and infinity values.
+     * Converts a string parsed with {@link #parseValue(Cursor)} to the target
+     * type, taking into account dynamic parsing quirks such as numbers
+     * with/without decimals and infinity values.
      *
      * @param <T> Target type
      * @param typeClass Target type class
@@ -299,4 +555,47 @@ public final class FormattingAndParsingUtils {
         }
         return false;
     }
+
+    /**
+     * Cursor over the characters of an input, used instead of a reader to avoid
+     * copying the input and synchronizing on each read.
+     */
+    protected static final class Cursor {
+
+        protected final CharSequence input;
+        protected final int end;
+        protected int pos;
+        // Window of the last parsed value
+        protected int valueStart;
+        protected int valueEnd;
+
+        public Cursor(CharSequence input) {
+            this.input = input;
+            this.end = input.length();
+        }
+
+        public int read() {
+            return pos < end ? input.charAt(pos++) : -1;
+        }
+
+        public void unread() {
+            pos--;
+        }
+
+        public boolean valueEquals(String str) {
+            if (valueEnd - valueStart != str.length()) {
+                return false;
+            }
+            for (int i = 0; i < str.length(); i++) {
+                if (input.charAt(valueStart + i) != str.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public String value() {
+            return input.subSequence(valueStart, valueEnd).toString();
+        }
+    }
 }
@@ -0,0 +1,664 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+
+/**
+ * Graph algorithms running directly on the node and edge stores.
+ * <p>
+ * Each algorithm first copies the adjacency of the graph's nodes and edges into
+ * primitive arrays, walking the edge chains of the stores under the read lock.
+ * Edges and nodes not in the graph's view are left out. The algorithm then runs
+ * on the arrays without holding any lock, split in ranges of nodes executed in
+ * parallel by the given executor. Results are written back into a node column
+ * with a single write lock.
+ * <p>
+ * Undirected graphs follow edges in both directions and count mutual edges
+ * once, like {@link Graph#getNeighbors(Node)}.
+ */
+public class GraphAnalytics {
+
+    protected final GraphStore graphStore;
+    protected final Graph graph;
+    protected final GraphViewImpl view;
+    protected final boolean undirected;
+    protected final ExecutorService executor;
+    protected final int parallelism;
+
+    /**
+     * Creates analytics running sequentially on <code>graph</code>.
+     *
+     * @param graph graph
+     */
+    public GraphAnalytics(Graph graph) {
+        this(graph, null);
+    }
+
+    /**
+     * Creates analytics running on <code>graph</code>, with node ranges
+     * executed in parallel by <code>executor</code>.
+     *
+     * @param graph graph
+     * @param executor executor, or null to run sequentially
+     */
+    public GraphAnalytics(Graph graph, ExecutorService executor) {
+        this.graph = graph;
+        this.graphStore = ((GraphModelImpl) graph.getModel()).store;
+        GraphView graphView = graph.getView();
+        this.view = graphView.isMainView() ? null : (GraphViewImpl) graphView;
+        this.undirected = graph.isUndirected();
+        this.executor = executor;
+        this.parallelism = executor != null ? Runtime.getRuntime().availableProcessors() : 1;
+    }
+
+    /**
+     * Computes the PageRank of the nodes and writes it into <code>column</code>
+     * .
+     * <p>
+     * Iterates until the sum of the rank changes falls below
+     * <code>tolerance</code>, or at most
+     * {@link GraphStoreConfiguration#ANALYTICS_PAGERANK_MAX_ITERATIONS} times.
+     * Nodes without outgoing edges distribute their rank to all nodes.
+     *
+     * @param column node column of type <code>Double</code>
+     * @param damping damping factor, between 0 and 1
+     * @param tolerance convergence tolerance
+     * @param weighted true to distribute ranks proportionally to edge weights
+     * @return number of iterations
+     */
+    public int pageRank(Column column, final double damping, double tolerance, boolean weighted) {
+        checkColumn(column, Double.class);
+        if (damping < 0.0 || damping > 1.0) {
+            throw new IllegalArgumentException("The damping factor must be between 0 and 1");
+        }
+        final Adjacency adjacency = adjacency();
+        final int n = adjacency.nodes.length;
+        if (n == 0) {
+            return 0;
+        }
+
+        // Sum of outgoing weights
+        final double[] outWeights = new double[n];
+        final boolean useWeights = weighted;
+        forEach(n, new RangeTask<Void>() {
+            @Override
+            public Void run(int from, int to) {
+                for (int u = from; u < to; u++) {
+                    if (useWeights) {
+                        double sum = 0.0;
+                        for (int i = adjacency.outOffsets[u]; i < adjacency.outOffsets[u + 1]; i++) {
+                            sum += adjacency.outWeights[i];
+                        }
+                        outWeights[u] = sum;
+                    } else {
+                        outWeights[u] = adjacency.outOffsets[u + 1] - adjacency.outOffsets[u];
+                    }
+                }
+                return null;
+            }
+        });
+
+        double[] ranks = new double[n];
+        Arrays.fill(ranks, 1.0 / n);
+        final double[] contributions = new double[n];
+        int iteration = 0;
+        while (iteration < GraphStoreConfiguration.ANALYTICS_PAGERANK_MAX_ITERATIONS) {
+            iteration++;
+            final double[] oldRanks = ranks;
+            final double[] newRanks = new double[n];
+
+            double dangling = 0.0;
+            for (Double sum : forEach(n, new RangeTask<Double>() {
+                @Override
+                public Double run(int from, int to) {
+                    double sum = 0.0;
+                    for (int u = from; u < to; u++) {
+                        if (outWeights[u] > 0.0) {
+                            contributions[u] = oldRanks[u] / outWeights[u];
+                        } else {
+                            contributions[u] = 0.0;
+                            sum += oldRanks[u];
+                        }
+                    }
+                    return sum;
+                }
+            })) {
+                dangling += sum;
+            }
+
+            final double base = (1.0 - damping) / n + damping * dangling / n;
+            double delta = 0.0;
+            for (Double sum : forEach(n, new RangeTask<Double>() {
+                @Override
+                public Double run(int from, int to) {
+                    double sum = 0.0;
+                    for (int v = from; v < to; v++) {
+                        double rank = 0.0;
+                        for (int i = adjacency.inOffsets[v]; i < adjacency.inOffsets[v + 1]; i++) {
+                            int u = adjacency.inNodes[i];
+                            rank += useWeights ? contributions[u] * adjacency.inWeights[i] : contributions[u];
+                        }
+                        newRanks[v] = base + damping * rank;
+                        sum += Math.abs(newRanks[v] - oldRanks[v]);
+                    }
+                    return sum;
+                }
+            })) {
+                delta += sum;
+            }
+            ranks = newRanks;
+            if (delta < tolerance) {
+                break;
+            }
+        }
+
+        Object[] values = new Object[n];
+        for (int u = 0; u < n; u++) {
+            values[u] = ranks[u];
+        }
+        write(column, adjacency.nodes, values);
+        return iteration;
+    }
+
+    /**
+     * Computes the weakly connected components and writes the component of each
+     * node into <code>column</code>.
+     * <p>
+     * Components are numbered from 0, in the order of the nodes in the store.
+     *
+     * @param column node column of type <code>Integer</code>
+     * @return number of components
+     */
+    public int connectedComponents(Column column) {
+        checkColumn(column, Integer.class);
+        final Adjacency adjacency = adjacency();
+        final int n = adjacency.nodes.length;
+
+        // Concurrent union-find, roots are linked to the smaller root so the
+        // root of a component is its smallest node
+        final AtomicIntegerArray parents = new AtomicIntegerArray(n);
+        for (int u = 0; u < n; u++) {
+            parents.set(u, u);
+        }
+        forEach(n, new RangeTask<Void>() {
+            @Override
+            public Void run(int from, int to) {
+                for (int u = from; u < to; u++) {
+                    for (int i = adjacency.outOffsets[u]; i < adjacency.outOffsets[u + 1]; i++) {
+                        union(parents, u, adjacency.outNodes[i]);
+                    }
+                }
+                return null;
+            }
+        });
+
+        int[] components = new int[n];
+        int count = 0;
+        Object[] values = new Object[n];
+        for (int u = 0; u < n; u++) {
+            int root = find(parents, u);
+            components[u] = root == u ? count++ : components[root];
+            values[u] = components[u];
+        }
+        write(column, adjacency.nodes, values);
+        return count;
+    }
+
+    /**
+     * Computes the distance from <code>source</code> to each node with a
+     * breadth-first search and writes it into <code>column</code>.
+     * <p>
+     * Unreachable nodes get a <code>null</code> value.
+     *
+     * @param source source node
+     * @param column node column of type <code>Integer</code>
+     * @return number of reached nodes, including the source
+     * @throws IllegalArgumentException if the source isn't in the graph
+     */
+    public int breadthFirstSearch(Node source, Column column) {
+        checkColumn(column, Integer.class);
+        final Adjacency adjacency = adjacency();
+        final int n = adjacency.nodes.length;
+        int sourceIndex = adjacency.indexOf((NodeImpl) source);
+        if (sourceIndex == -1) {
+            throw new IllegalArgumentException("The source node isn't in the graph");
+        }
+
+        final AtomicIntegerArray distances = new AtomicIntegerArray(n);
+        for (int u = 0; u < n; u++) {
+            distances.set(u, -1);
+        }
+        distances.set(sourceIndex, 0);
+        int reached = 1;
+        int[] frontier = new int[] { sourceIndex };
+        int level = 0;
+        while (frontier.length > 0) {
+            final int[] current = frontier;
+            final int nextLevel = ++level;
+            List<IntArrayList> discovered = forEach(current.length, new RangeTask<IntArrayList>() {
+                @Override
+                public IntArrayList run(int from, int to) {
+                    IntArrayList next = new IntArrayList();
+                    for (int f = from; f < to; f++) {
+                        int u = current[f];
+                        for (int i = adjacency.outOffsets[u]; i < adjacency.outOffsets[u + 1]; i++) {
+                            int v = adjacency.outNodes[i];
+                            if (distances.get(v) == -1 && distances.compareAndSet(v, -1, nextLevel)) {
+                                next.add(v);
+                            }
+                        }
+                    }
+                    return next;
+                }
+            });
+            int size = 0;
+            for (IntArrayList next : discovered) {
+                size += next.size();
+            }
+            frontier = new int[size];
+            int position = 0;
+            for (IntArrayList next : discovered) {
+                next.getElements(0, frontier, position, next.size());
+                position += next.size();
+            }
+            reached += size;
+        }
+
+        Object[] values = new Object[n];
+        for (int u = 0; u < n; u++) {
+            int distance = distances.get(u);
+            values[u] = distance != -1 ? distance : null;
+        }
+        write(column, adjacency.nodes, values);
+        return reached;
+    }
+
+    /**
+     * Returns the degree distribution of the graph's nodes.
+     * <p>
+     * Degrees are counted like {@link Graph#getDegree(Node)}, self-loops count
+     * twice.
+     *
+     * @return array where the value at index <code>i</code> is the number of
+     *         nodes of degree <code>i</code>
+     */
+    public long[] degreeDistribution() {
+        final Adjacency adjacency = adjacency();
+        int maxDegree = 0;
+        for (int degree : adjacency.degrees) {
+            maxDegree = Math.max(maxDegree, degree);
+        }
+        final int length = maxDegree + 1;
+        long[] distribution = new long[adjacency.nodes.length > 0 ? length : 0];
+        for (long[] counts : forEach(adjacency.nodes.length, new RangeTask<long[]>() {
+            @Override
+            public long[] run(int from, int to) {
+                long[] counts = new long[length];
+                for (int u = from; u < to; u++) {
+                    counts[adjacency.degrees[u]]++;
+                }
+                return counts;
+            }
+        })) {
+            for (int i = 0; i < distribution.length; i++) {
+                distribution[i] += counts[i];
+            }
+        }
+        return distribution;
+    }
+
+    /**
+     * Copies the adjacency of the graph into arrays. Edge chains are walked
+     * twice by ranges of nodes in parallel, first to count and then to fill.
+     *
+     * @return adjacency
+     */
+    protected Adjacency adjacency() {
+        graphStore.autoReadLock();
+        try {
+            if (view != null) {
+                view.applyRemovals();
+            }
+            final NodeStore nodeStore = graphStore.nodeStore;
+            final int[] index = new int[nodeStore.maxStoreId()];
+            Arrays.fill(index, -1);
+            NodeImpl[] nodes = new NodeImpl[nodeStore.size()];
+            int n = 0;
+            for (int i = 0; i < nodeStore.blocksCount; i++) {
+                NodeStore.NodeBlock block = nodeStore.blocks[i];
+                for (int j = 0; j < block.nodeLength; j++) {
+                    NodeImpl node = block.backingArray[j];
+                    if (node != null && (view == null || view.containsNode(node))) {
+                        index[node.storeId] = n;
+                        nodes[n++] = node;
+                    }
+                }
+            }
+            if (n < nodes.length) {
+                nodes = Arrays.copyOf(nodes, n);
+            }
+
+            final Adjacency adjacency = new Adjacency(nodes, index);
+            final int[] outCounts = new int[n + 1];
+            final int[] inCounts = undirected ? null : new int[n + 1];
+            forEach(n, new RangeTask<Void>() {
+                @Override
+                public Void run(int from, int to) {
+                    for (int u = from; u < to; u++) {
+                        NodeImpl node = adjacency.nodes[u];
+                        int selfLoops = countSelfLoops(adjacency, node);
+                        outCounts[u + 1] = walkOut(adjacency, node, false, 0);
+                        if (undirected) {
+                            outCounts[u + 1] += walkIn(adjacency, node, false, 0);
+                            adjacency.degrees[u] = outCounts[u + 1] + selfLoops;
+                        } else {
+                            inCounts[u + 1] = walkIn(adjacency, node, false, 0);
+                            adjacency.degrees[u] = outCounts[u + 1] + inCounts[u + 1];
+                        }
+                    }
+                    return null;
+                }
+            });
+            prefixSum(outCounts);
+            adjacency.outOffsets = outCounts;
+            adjacency.outNodes = new int[outCounts[n]];
+            adjacency.outWeights = new double[outCounts[n]];
+            if (undirected) {
+                adjacency.inOffsets = adjacency.outOffsets;
+                adjacency.inNodes = adjacency.outNodes;
+                adjacency.inWeights = adjacency.outWeights;
+            } else {
+                prefixSum(inCounts);
+                adjacency.inOffsets = inCounts;
+                adjacency.inNodes = new int[inCounts[n]];
+                adjacency.inWeights = new double[inCounts[n]];
+            }
+            forEach(n, new RangeTask<Void>() {
+                @Override
+                public Void run(int from, int to) {
+                    for (int u = from; u < to; u++) {
+                        NodeImpl node = adjacency.nodes[u];
+                        int position = walkOut(adjacency, node, true, adjacency.outOffsets[u]);
+                        if (undirected) {
+                            walkIn(adjacency, node, true, position);
+                        } else {
+                            walkIn(adjacency, node, true, adjacency.inOffsets[u]);
+                        }
+                    }
+                    return null;
+                }
+            });
+            return adjacency;
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    /**
+     * Walks the outgoing edges of <code>node</code>. Counts them, or if
+     * <code>fill</code> is true stores their targets into the outgoing arrays
+     * from <code>position</code>.
+     *
+     * @return count of edges if counting, next position otherwise
+     */
+    private int walkOut(Adjacency adjacency, NodeImpl node, boolean fill, int position) {
+        int count = 0;
+        EdgeStore edgeStore = graphStore.edgeStore;
+        for (EdgeImpl head : node.headOut) {
+            for (EdgeImpl edge = head; edge != null; edge = nextEdge(edgeStore, edge.nextOutEdge)) {
+                int v = target(adjacency, edge, edge.target);
+                if (v != -1) {
+                    if (!fill) {
+                        count++;
+                    } else {
+                        adjacency.outNodes[position] = v;
+                        adjacency.outWeights[position++] = weight(edge);
+                    }
+                }
+            }
+        }
+        return fill ? position : count;
+    }
+
+    /**
+     * Walks the incoming edges of <code>node</code>. Undirected graphs store
+     * them after the outgoing edges and skip self-loops, already walked as
+     * outgoing edges.
+     *
+     * @return count of edges if counting, next position otherwise
+     */
+    private int walkIn(Adjacency adjacency, NodeImpl node, boolean fill, int position) {
+        int count = 0;
+        EdgeStore edgeStore = graphStore.edgeStore;
+        for (EdgeImpl head : node.headIn) {
+            for (EdgeImpl edge = head; edge != null; edge = nextEdge(edgeStore, edge.nextInEdge)) {
+                if (undirected && edge.isSelfLoop()) {
+                    continue;
+                }
+                int v = target(adjacency, edge, edge.source);
+                if (v != -1) {
+                    if (!fill) {
+                        count++;
+                    } else if (undirected) {
+                        adjacency.outNodes[position] = v;
+                        adjacency.outWeights[position++] = weight(edge);
+                    } else {
+                        adjacency.inNodes[position] = v;
+                        adjacency.inWeights[position++] = weight(edge);
+                    }
+                }
+            }
+        }
+        return fill ? position : count;
+    }
+
+    private int countSelfLoops(Adjacency adjacency, NodeImpl node) {
+        if (!undirected) {
+            return 0;
+        }
+        int count = 0;
+        EdgeStore edgeStore = graphStore.edgeStore;
+        for (EdgeImpl head : node.headOut) {
+            for (EdgeImpl edge = head; edge != null; edge = nextEdge(edgeStore, edge.nextOutEdge)) {
+                if (edge.isSelfLoop() && target(adjacency, edge, edge.target) != -1) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private int target(Adjacency adjacency, EdgeImpl edge, NodeImpl opposite) {
+        if (view != null && !view.containsEdge(edge)) {
+            return -1;
+        }
+        if (undirected && graphStore.edgeStore.isUndirectedToIgnore(edge)) {
+            return -1;
+        }
+        return adjacency.indexOf(opposite);
+    }
+
+    private double weight(EdgeImpl edge) {
+        Object weight = edge.attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
+        if (weight instanceof Double) {
+            return (Double) weight;
+        }
+        return edge.getWeight(graph.getView());
+    }
+
+    private static EdgeImpl nextEdge(EdgeStore edgeStore, int id) {
+        if (id == EdgeStore.NULL_ID) {
+            return null;
+        }
+        return edgeStore.blocks[id / GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE].get(id);
+    }
+
+    private static void prefixSum(int[] counts) {
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+    }
+
+    private static int find(AtomicIntegerArray parents, int u) {
+        int parent = parents.get(u);
+        while (parent != u) {
+            // Path halving
+            int grandParent = parents.get(parent);
+            parents.compareAndSet(u, parent, grandParent);
+            u = grandParent;
+            parent = parents.get(u);
+        }
+        return u;
+    }
+
+    private static void union(AtomicIntegerArray parents, int u, int v) {
+        while (true) {
+            int rootU = find(parents, u);
+            int rootV = find(parents, v);
+            if (rootU == rootV) {
+                return;
+            }
+            if (rootU < rootV) {
+                int tmp = rootU;
+                rootU = rootV;
+                rootV = tmp;
+            }
+            if (parents.compareAndSet(rootU, rootU, rootV)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sets the values of <code>column</code> on <code>nodes</code> with a
+     * single write lock. Nodes removed in the meantime are skipped.
+     */
+    private void write(Column column, NodeImpl[] nodes, Object[] values) {
+        graphStore.autoWriteLock();
+        try {
+            for (int i = 0; i < nodes.length; i++) {
+                NodeImpl node = nodes[i];
+                if (node.storeId != NodeStore.NULL_ID) {
+                    node.setAttribute(column, values[i]);
+                }
+            }
+        } finally {
+            graphStore.autoWriteUnlock();
+        }
+    }
+
+    private void checkColumn(Column column, Class typeClass) {
+        if (column == null) {
+            throw new NullPointerException("The column can't be null");
+        }
+        if (column.getTable() != graphStore.nodeTable) {
+            throw new IllegalArgumentException("The column must be a node column of this graph");
+        }
+        if (column.getTypeClass() != typeClass) {
+            throw new IllegalArgumentException("The column type must be " + typeClass.getSimpleName());
+        }
+    }
+
+    /**
+     * Runs <code>task</code> on ranges covering <code>[0, size)</code>, in
+     * parallel if an executor is set, and returns the results in range order.
+     */
+    protected <T> List<T> forEach(int size, final RangeTask<T> task) {
+        int chunkCount = Math
+                .min(parallelism * 4, (size + GraphStoreConfiguration.ANALYTICS_MIN_CHUNK_SIZE - 1) / GraphStoreConfiguration.ANALYTICS_MIN_CHUNK_SIZE);
+        List<T> results = new ArrayList<T>();
+        if (executor == null || chunkCount < 2) {
+            results.add(task.run(0, size));
+            return results;
+        }
+        int chunkSize = (size + chunkCount - 1) / chunkCount;
+        List<Callable<T>> tasks = new ArrayList<Callable<T>>(chunkCount);
+        for (int start = 0; start < size; start += chunkSize) {
+            final int from = start;
+            final int to = Math.min(size, start + chunkSize);
+            tasks.add(new Callable<T>() {
+                @Override
+                public T call() {
+                    return task.run(from, to);
+                }
+            });
+        }
+        try {
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+        return results;
+    }
+
+    protected interface RangeTask<T> {
+
+        public T run(int from, int to);
+    }
+
+    /**
+     * Adjacency of the graph in compressed sparse row format, nodes are
+     * identified by their index in <code>nodes</code>. Undirected graphs share
+     * the incoming and outgoing arrays.
+     */
+    protected static class Adjacency {
+
+        protected final NodeImpl[] nodes;
+        protected final int[] index;
+        protected final int[] degrees;
+        protected int[] outOffsets;
+        protected int[] outNodes;
+        protected double[] outWeights;
+        protected int[] inOffsets;
+        protected int[] inNodes;
+        protected double[] inWeights;
+
+        public Adjacency(NodeImpl[] nodes, int[] index) {
+            this.nodes = nodes;
+            this.index = index;
+            this.degrees = new int[nodes.length];
+        }
+
+        public int indexOf(NodeImpl node) {
+            int storeId = node.storeId;
+            return storeId >= 0 && storeId < index.length ? index[storeId] : -1;
+        }
+    }
+}
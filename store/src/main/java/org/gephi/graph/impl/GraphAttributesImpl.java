@@ -28,6 +28,12 @@ public class GraphAttributesImpl {
 
     protected final Map<String, Object> attributes = new HashMap<String, Object>();
 
+    public synchronized GraphAttributesImpl copy() {
+        GraphAttributesImpl copy = new GraphAttributesImpl();
+        copy.attributes.putAll(attributes);
+        return copy;
+    }
+
     public synchronized Set<String> getKeys() {
         return attributes.keySet();
     }
@@ -72,17 +72,13 @@ public class GraphFactoryImpl implements GraphFactory {
         switch (edgeAssignConfiguration) {
             case INTEGER:
                 Integer idInt = (Integer) id;
-                if (idInt >= EDGE_IDS.get()) {
-                    EDGE_IDS.set(idInt + 1);
-                }
+                ensureIdAbove(EDGE_IDS, idInt);
                 break;
             case STRING:
                 String idStr = (String) id;
                 if (isNumeric(idStr)) {
                     Integer idStrParsed = Integer.parseInt(idStr);
-                    if (idStrParsed >= EDGE_IDS.get()) {
-                        EDGE_IDS.set(idStrParsed + 1);
-                    }
+                    ensureIdAbove(EDGE_IDS, idStrParsed);
                 }
                 break;
         }
@@ -100,23 +96,26 @@ public class GraphFactoryImpl implements GraphFactory {
         switch (nodeAssignConfiguration) {
             case INTEGER:
                 Integer idInt = (Integer) id;
-                if (idInt >= NODE_IDS.get()) {
-                    NODE_IDS.set(idInt + 1);
-                }
+                ensureIdAbove(NODE_IDS, idInt);
                 break;
             case STRING:
                 String idStr = (String) id;
                 if (isNumeric(idStr)) {
                     Integer idStrParsed = Integer.parseInt(idStr);
-                    if (idStrParsed >= NODE_IDS.get()) {
-                        NODE_IDS.set(idStrParsed + 1);
-                    }
+                    ensureIdAbove(NODE_IDS, idStrParsed);
                 }
                 break;
         }
         return res;
     }
 
+    private static void ensureIdAbove(AtomicInteger ids, int id) {
+        // Elements may be created concurrently, e.g. when loading in parallel
+        int current;
+        while (id >= (current = ids.get()) && !ids.compareAndSet(current, id + 1)) {
+        }
+    }
+
     private Object nextNodeId() {
         switch (nodeAssignConfiguration) {
             case INTEGER:
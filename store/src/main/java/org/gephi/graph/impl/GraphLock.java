@@ -18,21 +18,37 @@ package org.gephi.graph.impl;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import org.gephi.graph.api.Metric;
 
 public class GraphLock {
 
     protected final ReentrantReadWriteLock readWriteLock;
     protected final ReadLock readLock;
     protected final WriteLock writeLock;
+    // Metrics (optional)
+    protected final MetricsStore metrics;
+    // Outermost write lock acquisition time, if metrics are enabled
+    protected long writeLockTime;
 
     public GraphLock() {
+        this(null);
+    }
+
+    public GraphLock(MetricsStore metrics) {
         readWriteLock = new ReentrantReadWriteLock();
         readLock = readWriteLock.readLock();
         writeLock = readWriteLock.writeLock();
+        this.metrics = metrics;
     }
 
     public void readLock() {
-        readLock.lock();
+        if (metrics != null) {
+            long start = metrics.start();
+            readLock.lock();
+            metrics.stop(Metric.READ_LOCK, start);
+        } else {
+            readLock.lock();
+        }
     }
 
     public void readUnlock() {
@@ -51,13 +67,33 @@ public class GraphLock {
             throw new IllegalMonitorStateException(
                     "Impossible to acquire a write lock when currently holding a read lock. Use toArray() methods on NodeIterable and EdgeIterable to avoid holding a readLock or wrap your loop with a write lock.");
         }
-        writeLock.lock();
+        if (metrics != null) {
+            long start = metrics.start();
+            writeLock.lock();
+            if (start != 0L) {
+                long now = System.nanoTime();
+                metrics.record(Metric.WRITE_LOCK, now - start);
+                if (readWriteLock.getWriteHoldCount() == 1) {
+                    writeLockTime = now;
+                }
+            }
+        } else {
+            writeLock.lock();
+        }
     }
 
     public void writeUnlock() {
+        if (writeLockTime != 0L && readWriteLock.getWriteHoldCount() == 1) {
+            metrics.record(Metric.WRITE_LOCK_HOLD, System.nanoTime() - writeLockTime);
+            writeLockTime = 0L;
+        }
         writeLock.unlock();
     }
 
+    public boolean isHeldByCurrentThread() {
+        return readWriteLock.getReadHoldCount() > 0 || readWriteLock.isWriteLockedByCurrentThread();
+    }
+
     public void checkHoldWriteLock() {
         if (!readWriteLock.isWriteLockedByCurrentThread()) {
             throw new IllegalMonitorStateException(
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Arrays;
+import org.gephi.graph.api.GraphMetrics;
+import org.gephi.graph.api.Metric;
+
+public class GraphMetricsImpl implements GraphMetrics {
+
+    protected final boolean enabled;
+    protected final long[] counts;
+    protected final long[] totalTimes;
+    protected final long[] maxTimes;
+    protected final long[][] histograms;
+
+    public GraphMetricsImpl(boolean enabled, long[] counts, long[] totalTimes, long[] maxTimes, long[][] histograms) {
+        this.enabled = enabled;
+        this.counts = counts;
+        this.totalTimes = totalTimes;
+        this.maxTimes = maxTimes;
+        this.histograms = histograms;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public long getCount(Metric metric) {
+        return counts[metric.ordinal()];
+    }
+
+    @Override
+    public long getTotalTime(Metric metric) {
+        return totalTimes[metric.ordinal()];
+    }
+
+    @Override
+    public long getMaxTime(Metric metric) {
+        return maxTimes[metric.ordinal()];
+    }
+
+    @Override
+    public long[] getHistogram(Metric metric) {
+        long[] histogram = histograms[metric.ordinal()];
+        return Arrays.copyOf(histogram, histogram.length);
+    }
+
+    @Override
+    public long[] getHistogramBounds() {
+        return MetricsStore.histogramBounds();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("GraphMetrics{");
+        for (Metric metric : Metric.values()) {
+            if (metric.ordinal() > 0) {
+                builder.append(", ");
+            }
+            builder.append(metric).append('=').append(counts[metric.ordinal()]);
+        }
+        return builder.append('}').toString();
+    }
+}
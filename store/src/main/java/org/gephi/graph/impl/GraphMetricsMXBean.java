@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Map;
+
+/**
+ * Management interface of the graph store metrics.
+ * <p>
+ * Maps are keyed by metric name and times are in nanoseconds.
+ */
+public interface GraphMetricsMXBean {
+
+    public boolean isEnabled();
+
+    public Map<String, Long> getCounts();
+
+    public Map<String, Long> getTotalTimes();
+
+    public Map<String, Long> getMaxTimes();
+
+    public long[] getHistogramBounds();
+
+    public long[] getHistogram(String metric);
+
+    public void reset();
+}
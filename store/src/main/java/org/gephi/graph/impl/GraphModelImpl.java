@@ -20,12 +20,14 @@ import org.gephi.graph.api.Index;
 import org.gephi.graph.api.Table;
 import org.gephi.graph.api.TimeFormat;
 import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.MemoryEstimate;
 import org.gephi.graph.api.DirectedGraph;
 import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphBridge;
 import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphMetrics;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.GraphObserver;
 import org.gephi.graph.api.GraphView;
@@ -47,6 +49,8 @@ public class GraphModelImpl implements GraphModel {
     protected final Configuration configuration;
     protected final GraphStore store;
     protected final GraphBridgeImpl graphBridge;
+    // Last checkpoint (optional)
+    protected DeltaCheckpoint checkpoint;
 
     public GraphModelImpl() {
         this(new Configuration());
@@ -118,6 +122,26 @@ public class GraphModelImpl implements GraphModel {
         return store.viewStore.getUndirectedGraph(view);
     }
 
+    @Override
+    public DirectedGraph snapshot() {
+        return store.viewStore.getSnapshot(store.getView(), false);
+    }
+
+    @Override
+    public DirectedGraph snapshot(GraphView view) {
+        return store.viewStore.getSnapshot(view, false);
+    }
+
+    @Override
+    public UndirectedGraph undirectedSnapshot() {
+        return store.viewStore.getSnapshot(store.getView(), true);
+    }
+
+    @Override
+    public UndirectedGraph undirectedSnapshot(GraphView view) {
+        return store.viewStore.getSnapshot(view, true);
+    }
+
     @Override
     public GraphView getVisibleView() {
         return store.viewStore.getVisibleView();
@@ -501,6 +525,72 @@ public class GraphModelImpl implements GraphModel {
         return store.nodeStore.maxStoreId();
     }
 
+    @Override
+    public void compact() {
+        store.compact();
+    }
+
+    @Override
+    public boolean isAutoCompaction() {
+        return store.autoCompaction;
+    }
+
+    @Override
+    public void setAutoCompaction(boolean autoCompaction) {
+        store.autoWriteLock();
+        try {
+            store.autoCompaction = autoCompaction;
+        } finally {
+            store.autoWriteUnlock();
+        }
+    }
+
+    @Override
+    public boolean isStripedLocking() {
+        return store.stripedLocking;
+    }
+
+    @Override
+    public void setStripedLocking(boolean stripedLocking) {
+        store.autoWriteLock();
+        try {
+            store.stripedLocking = stripedLocking;
+        } finally {
+            store.autoWriteUnlock();
+        }
+    }
+
+    @Override
+    public GraphMetrics getMetrics() {
+        return store.metrics.snapshot();
+    }
+
+    @Override
+    public boolean isMetricsEnabled() {
+        return store.metrics.isEnabled();
+    }
+
+    @Override
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        MetricsStore metrics = store.metrics;
+        metrics.setEnabled(metricsEnabled);
+        if (metricsEnabled) {
+            metrics.registerMXBean(Integer.toHexString(System.identityHashCode(this)));
+        } else {
+            metrics.unregisterMXBean();
+        }
+    }
+
+    @Override
+    public MemoryEstimate estimateMemory() {
+        return estimateMemory(GraphStoreConfiguration.MEMORY_ESTIMATE_SAMPLE_SIZE);
+    }
+
+    @Override
+    public MemoryEstimate estimateMemory(int sampleSize) {
+        return new MemoryEstimator(store, sampleSize).estimate();
+    }
+
     public void destroyGraphObserver(GraphObserver observer) {
         checkGraphObserver(observer);
 
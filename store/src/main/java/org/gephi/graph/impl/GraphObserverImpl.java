@@ -17,12 +17,14 @@ package org.gephi.graph.impl;
 
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectList;
+import java.util.Arrays;
 import java.util.Collections;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphDiff;
 import org.gephi.graph.api.GraphObserver;
+import org.gephi.graph.api.Metric;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.api.NodeIterable;
 
@@ -63,9 +65,15 @@ public class GraphObserverImpl implements GraphObserver {
         if (!destroyed) {
             readLock();
             try {
+                if (graph.getView() instanceof GraphViewImpl) {
+                    ((GraphViewImpl) graph.getView()).applyRemovals();
+                }
                 if (nodeVersion < graphVersion.nodeVersion || edgeVersion < graphVersion.edgeVersion) {
                     if (withDiff) {
+                        MetricsStore metrics = graphStore.metrics;
+                        long start = metrics.start();
                         refreshDiff();
+                        metrics.stop(Metric.OBSERVER_DIFF, start);
                     }
                     nodeVersion = graphVersion.nodeVersion;
                     edgeVersion = graphVersion.edgeVersion;
@@ -119,10 +127,12 @@ public class GraphObserverImpl implements GraphObserver {
         if (nodeVersion < graphVersion.nodeVersion) {
             int maxStoreId = graphStore.nodeStore.maxStoreId();
 
-            for (Node n : nodeCache) {
-                NodeImpl nImpl = (NodeImpl) n;
+            for (int i = 0; i < nodeCache.length; i++) {
+                NodeImpl nImpl = nodeCache[i];
                 if (nImpl != null && !graph.contains(nImpl)) {
                     graphDiff.removedNodes.add(nImpl);
+                    // Removed elements are only reported once
+                    nodeCache[i] = null;
                 }
             }
             if (maxStoreId > nodeCache.length || maxStoreId < nodeCache.length) {
@@ -145,10 +155,12 @@ public class GraphObserverImpl implements GraphObserver {
         if (edgeVersion < graphVersion.edgeVersion) {
             int maxStoreId = graphStore.edgeStore.maxStoreId();
 
-            for (Edge e : edgeCache) {
-                EdgeImpl eImpl = (EdgeImpl) e;
+            for (int i = 0; i < edgeCache.length; i++) {
+                EdgeImpl eImpl = edgeCache[i];
                 if (eImpl != null && !graph.contains(eImpl)) {
                     graphDiff.removedEdges.add(eImpl);
+                    // Removed elements are only reported once
+                    edgeCache[i] = null;
                 }
             }
             if (maxStoreId > edgeCache.length || maxStoreId < edgeCache.length) {
@@ -171,6 +183,41 @@ public class GraphObserverImpl implements GraphObserver {
 
     }
 
+    protected void compact(int[] nodeMap, int[] edgeMap) {
+        if (nodeCache != null) {
+            nodeCache = compactCache(nodeCache, nodeMap, graphStore.nodeStore.maxStoreId());
+        }
+        if (edgeCache != null) {
+            edgeCache = compactCache(edgeCache, edgeMap, graphStore.edgeStore.maxStoreId());
+        }
+    }
+
+    private static <T extends ElementImpl> T[] compactCache(T[] cache, int[] map, int size) {
+        ObjectList<T> removed = new ObjectArrayList<T>();
+        T[] newCache = Arrays.copyOf(cache, size);
+        Arrays.fill(newCache, null);
+        for (int i = 0; i < cache.length; i++) {
+            T element = cache[i];
+            if (element != null) {
+                int newId = i < map.length ? map[i] : NodeStore.NULL_ID;
+                if (newId != NodeStore.NULL_ID && element.getStoreId() == newId) {
+                    newCache[newId] = element;
+                } else {
+                    removed.add(element);
+                }
+            }
+        }
+        if (!removed.isEmpty()) {
+            // Removed elements are kept past the end so the next diff reports
+            // them
+            newCache = Arrays.copyOf(newCache, size + removed.size());
+            for (int i = 0; i < removed.size(); i++) {
+                newCache[size + i] = removed.get(i);
+            }
+        }
+        return newCache;
+    }
+
     protected void resetNodeVersion() {
         nodeVersion = Integer.MIN_VALUE;
     }
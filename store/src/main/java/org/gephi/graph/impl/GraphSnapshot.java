@@ -0,0 +1,1161 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterators;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeCursor;
+import org.gephi.graph.api.EdgeIterable;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.NodeIterable;
+import org.gephi.graph.api.UndirectedGraph;
+import org.gephi.graph.spi.LayoutData;
+
+/**
+ * Immutable copy of the graph structure, which can be read without locking.
+ * <p>
+ * Nodes and edges are frozen into dense arrays, indexed by their position in
+ * the snapshot, and the adjacency is stored in compressed rows. The nodes and
+ * edges returned are read-only copies of the elements, with their attributes,
+ * weights and properties frozen, and graph attributes are copied as well. The
+ * live elements are still accepted as parameters.
+ */
+public class GraphSnapshot implements DirectedGraph, UndirectedGraph {
+
+    // Const
+    protected static final int NULL_INDEX = -1;
+    protected static final int ALL_TYPES = -1;
+    // Store
+    protected final GraphStore graphStore;
+    protected final GraphView view;
+    protected final boolean undirected;
+    protected final GraphAttributesImpl attributes;
+    // Nodes
+    protected final NodeImpl[] nodes;
+    protected final int[] nodeStoreIds;
+    protected final Reference2IntOpenHashMap<NodeImpl> nodeIndices;
+    protected final Object2IntOpenHashMap<Object> nodeIds;
+    // Edges
+    protected final EdgeImpl[] edges;
+    protected final int[] edgeStoreIds;
+    protected final int[] sources;
+    protected final int[] targets;
+    protected final int[] types;
+    protected final double[] weights;
+    protected final int[] mutuals;
+    protected final Reference2IntOpenHashMap<EdgeImpl> edgeIndices;
+    protected final Object2IntOpenHashMap<Object> edgeIds;
+    // Adjacency
+    protected final int[] outOffsets;
+    protected final int[] outEdges;
+    protected final int[] inOffsets;
+    protected final int[] inEdges;
+    protected final int[] selfLoops;
+    // Counts
+    protected final int[] typeCounts;
+    protected final int[] mutualTypeCounts;
+    protected final int mutualCount;
+    protected final int undirectedCount;
+
+    public GraphSnapshot(GraphStore graphStore, GraphViewImpl view, boolean undirected) {
+        this.graphStore = graphStore;
+        this.view = view != null ? view : graphStore.getView();
+        this.undirected = undirected;
+
+        graphStore.autoReadLock();
+        try {
+            this.attributes = view != null ? view.attributes.copy() : graphStore.attributes.copy();
+
+            // Nodes
+            List<NodeImpl> nodeList = new ArrayList<NodeImpl>(graphStore.nodeStore.size());
+            for (Node n : graphStore.nodeStore) {
+                NodeImpl node = (NodeImpl) n;
+                if (view == null || view.containsNode(node)) {
+                    nodeList.add(node);
+                }
+            }
+            int nodeCount = nodeList.size();
+            this.nodes = new NodeImpl[nodeCount];
+            this.nodeStoreIds = new int[nodeCount];
+            // Both the live and the frozen elements are indexed
+            this.nodeIndices = new Reference2IntOpenHashMap<NodeImpl>(nodeCount * 2);
+            this.nodeIndices.defaultReturnValue(NULL_INDEX);
+            this.nodeIds = new Object2IntOpenHashMap<Object>(nodeCount);
+            this.nodeIds.defaultReturnValue(NULL_INDEX);
+            for (int i = 0; i < nodeCount; i++) {
+                NodeImpl node = nodeList.get(i);
+                nodes[i] = new SnapshotNode(node);
+                nodeStoreIds[i] = node.storeId;
+                nodeIndices.put(node, i);
+                nodeIndices.put(nodes[i], i);
+                nodeIds.put(node.getId(), i);
+            }
+
+            // Edges
+            List<EdgeImpl> edgeList = new ArrayList<EdgeImpl>(graphStore.edgeStore.size());
+            for (Edge e : graphStore.edgeStore) {
+                EdgeImpl edge = (EdgeImpl) e;
+                if (view == null || view.containsEdge(edge)) {
+                    edgeList.add(edge);
+                }
+            }
+            int edgeCount = edgeList.size();
+            this.edges = new EdgeImpl[edgeCount];
+            this.edgeStoreIds = new int[edgeCount];
+            this.sources = new int[edgeCount];
+            this.targets = new int[edgeCount];
+            this.types = new int[edgeCount];
+            this.weights = new double[edgeCount];
+            this.mutuals = new int[edgeCount];
+            this.edgeIndices = new Reference2IntOpenHashMap<EdgeImpl>(edgeCount * 2);
+            this.edgeIndices.defaultReturnValue(NULL_INDEX);
+            this.edgeIds = new Object2IntOpenHashMap<Object>(edgeCount);
+            this.edgeIds.defaultReturnValue(NULL_INDEX);
+
+            int maxType = 0;
+            int undirectedEdges = 0;
+            int selfLoopCount = 0;
+            for (int i = 0; i < edgeCount; i++) {
+                EdgeImpl edge = edgeList.get(i);
+                edgeStoreIds[i] = edge.storeId;
+                sources[i] = nodeIndices.getInt(edge.source);
+                targets[i] = nodeIndices.getInt(edge.target);
+                types[i] = edge.type;
+                edges[i] = new SnapshotEdge(edge, nodes[sources[i]], nodes[targets[i]]);
+                weights[i] = edges[i].getWeight();
+                edgeIndices.put(edge, i);
+                edgeIndices.put(edges[i], i);
+                edgeIds.put(edge.getId(), i);
+                maxType = Math.max(maxType, edge.type);
+                if (!edge.isDirected()) {
+                    undirectedEdges++;
+                }
+                if (edge.isSelfLoop()) {
+                    selfLoopCount++;
+                }
+            }
+            this.undirectedCount = undirectedEdges;
+
+            // Mutual edges and counts
+            this.typeCounts = new int[maxType + 1];
+            this.mutualTypeCounts = new int[maxType + 1];
+            this.selfLoops = new int[selfLoopCount];
+            int mutualEdges = 0;
+            selfLoopCount = 0;
+            for (int i = 0; i < edgeCount; i++) {
+                EdgeImpl edge = edges[i];
+                mutuals[i] = NULL_INDEX;
+                if (edge.isMutual()) {
+                    EdgeImpl mutual = graphStore.edgeStore.get(edge.target, edge.source, edge.type, false);
+                    if (mutual != null) {
+                        mutuals[i] = edgeIndices.getInt(mutual);
+                    }
+                }
+                typeCounts[types[i]]++;
+                if (isUndirectedToIgnore(i)) {
+                    mutualTypeCounts[types[i]]++;
+                    mutualEdges++;
+                }
+                if (edge.isSelfLoop()) {
+                    selfLoops[selfLoopCount++] = i;
+                }
+            }
+            this.mutualCount = mutualEdges;
+
+            // Adjacency
+            this.outOffsets = new int[nodeCount + 1];
+            this.inOffsets = new int[nodeCount + 1];
+            this.outEdges = new int[edgeCount];
+            this.inEdges = new int[edgeCount];
+            for (int i = 0; i < edgeCount; i++) {
+                outOffsets[sources[i] + 1]++;
+                inOffsets[targets[i] + 1]++;
+            }
+            for (int i = 0; i < nodeCount; i++) {
+                outOffsets[i + 1] += outOffsets[i];
+                inOffsets[i + 1] += inOffsets[i];
+            }
+            int[] outPositions = new int[nodeCount];
+            int[] inPositions = new int[nodeCount];
+            System.arraycopy(outOffsets, 0, outPositions, 0, nodeCount);
+            System.arraycopy(inOffsets, 0, inPositions, 0, nodeCount);
+            for (int i = 0; i < edgeCount; i++) {
+                outEdges[outPositions[sources[i]]++] = i;
+                inEdges[inPositions[targets[i]]++] = i;
+            }
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public Edge getEdge(Node node1, Node node2) {
+        return getEdge(node1, node2, EdgeTypeStore.NULL_LABEL);
+    }
+
+    @Override
+    public EdgeIterable getEdges(Node node1, Node node2) {
+        return getEdges(node1, node2, EdgeTypeStore.NULL_LABEL);
+    }
+
+    @Override
+    public Edge getEdge(Node node1, Node node2, int type) {
+        int index = findEdge(checkValidNodeObject(node1), checkValidNodeObject(node2), type);
+        return index != NULL_INDEX ? edges[index] : null;
+    }
+
+    @Override
+    public EdgeIterable getEdges(Node node1, Node node2, int type) {
+        int source = checkValidNodeObject(node1);
+        int target = checkValidNodeObject(node2);
+        IntArrayList list = new IntArrayList();
+        for (int i = outOffsets[source]; i < outOffsets[source + 1]; i++) {
+            int edge = outEdges[i];
+            if (targets[edge] == target && types[edge] == type && !isIgnored(edge)) {
+                list.add(edge);
+            }
+        }
+        if (source != target) {
+            for (int i = inOffsets[source]; i < inOffsets[source + 1]; i++) {
+                int edge = inEdges[i];
+                if (sources[edge] == target && types[edge] == type && isReverseMatch(edge) && !isIgnored(edge)) {
+                    list.add(edge);
+                }
+            }
+        }
+        return getEdgeIterable(new EdgeIndexIterator(list.toIntArray(), 0, list.size(), ALL_TYPES, false));
+    }
+
+    @Override
+    public Edge getMutualEdge(Edge edge) {
+        int index = checkValidEdgeObject(edge);
+        int source = sources[index];
+        int target = targets[index];
+        for (int i = outOffsets[target]; i < outOffsets[target + 1]; i++) {
+            int mutual = outEdges[i];
+            if (targets[mutual] == source && types[mutual] == types[index] && edges[mutual].isDirected()) {
+                return edges[mutual];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public NodeIterable getPredecessors(Node node) {
+        int index = checkValidNodeObject(node);
+        return getNodeIterable(new NeighborsIterator(index, newInIterator(index, ALL_TYPES)));
+    }
+
+    @Override
+    public NodeIterable getPredecessors(Node node, int type) {
+        int index = checkValidNodeObject(node);
+        return getNodeIterable(new NeighborsIterator(index, newInIterator(index, type)));
+    }
+
+    @Override
+    public NodeIterable getSuccessors(Node node) {
+        int index = checkValidNodeObject(node);
+        return getNodeIterable(new NeighborsIterator(index, newOutIterator(index, ALL_TYPES)));
+    }
+
+    @Override
+    public NodeIterable getSuccessors(Node node, int type) {
+        int index = checkValidNodeObject(node);
+        return getNodeIterable(new NeighborsIterator(index, newOutIterator(index, type)));
+    }
+
+    @Override
+    public EdgeIterable getInEdges(Node node) {
+        return getEdgeIterable(newInIterator(checkValidNodeObject(node), ALL_TYPES));
+    }
+
+    @Override
+    public EdgeIterable getInEdges(Node node, int type) {
+        return getEdgeIterable(newInIterator(checkValidNodeObject(node), type));
+    }
+
+    @Override
+    public EdgeIterable getOutEdges(Node node) {
+        return getEdgeIterable(newOutIterator(checkValidNodeObject(node), ALL_TYPES));
+    }
+
+    @Override
+    public EdgeIterable getOutEdges(Node node, int type) {
+        return getEdgeIterable(newOutIterator(checkValidNodeObject(node), type));
+    }
+
+    @Override
+    public boolean isAdjacent(Node source, Node target) {
+        return findEdge(checkValidNodeObject(source), checkValidNodeObject(target), ALL_TYPES) != NULL_INDEX;
+    }
+
+    @Override
+    public boolean isAdjacent(Node source, Node target, int type) {
+        return findEdge(checkValidNodeObject(source), checkValidNodeObject(target), type) != NULL_INDEX;
+    }
+
+    @Override
+    public boolean contains(Node node) {
+        checkNonNullNodeObject(node);
+        return nodeIndices.containsKey(node);
+    }
+
+    @Override
+    public boolean contains(Edge edge) {
+        checkNonNullEdgeObject(edge);
+        return edgeIndices.containsKey(edge);
+    }
+
+    @Override
+    public Node getNode(Object id) {
+        int index = nodeIds.getInt(id);
+        return index != NULL_INDEX ? nodes[index] : null;
+    }
+
+    @Override
+    public boolean hasNode(Object id) {
+        return nodeIds.containsKey(id);
+    }
+
+    @Override
+    public Edge getEdge(Object id) {
+        int index = edgeIds.getInt(id);
+        return index != NULL_INDEX ? edges[index] : null;
+    }
+
+    @Override
+    public boolean hasEdge(Object id) {
+        return edgeIds.containsKey(id);
+    }
+
+    @Override
+    public NodeIterable getNodes() {
+        return getNodeIterable(ObjectIterators.wrap((Node[]) nodes));
+    }
+
+    @Override
+    public EdgeIterable getEdges() {
+        return getEdgeIterable(new EdgeIndexIterator(null, 0, edges.length, ALL_TYPES, undirected));
+    }
+
+    @Override
+    public EdgeIterable getSelfLoops() {
+        return getEdgeIterable(new EdgeIndexIterator(selfLoops, 0, selfLoops.length, ALL_TYPES, false));
+    }
+
+    @Override
+    public EdgeIterable getEdges(int type) {
+        return getEdgeIterable(new EdgeIndexIterator(null, 0, edges.length, type, undirected));
+    }
+
+    @Override
+    public NodeIterable getNeighbors(Node node) {
+        int index = checkValidNodeObject(node);
+        return getNodeIterable(new NeighborsIterator(index, newInOutIterator(index, ALL_TYPES, true)));
+    }
+
+    @Override
+    public NodeIterable getNeighbors(Node node, int type) {
+        int index = checkValidNodeObject(node);
+        return getNodeIterable(new NeighborsIterator(index, newInOutIterator(index, type, true)));
+    }
+
+    @Override
+    public EdgeIterable getEdges(Node node) {
+        return getEdgeIterable(newInOutIterator(checkValidNodeObject(node), ALL_TYPES, undirected));
+    }
+
+    @Override
+    public EdgeIterable getEdges(Node node, int type) {
+        return getEdgeIterable(newInOutIterator(checkValidNodeObject(node), type, undirected));
+    }
+
+    @Override
+    public EdgeCursor edgeCursor() {
+        return new SnapshotEdgeCursor();
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        if (undirected) {
+            return edges.length - mutualCount;
+        }
+        return edges.length;
+    }
+
+    @Override
+    public int getEdgeCount(int type) {
+        if (type < 0 || type >= typeCounts.length) {
+            return 0;
+        }
+        if (undirected) {
+            return typeCounts[type] - mutualTypeCounts[type];
+        }
+        return typeCounts[type];
+    }
+
+    @Override
+    public Node getOpposite(Node node, Edge edge) {
+        int nodeIndex = checkValidNodeObject(node);
+        int edgeIndex = checkValidEdgeObject(edge);
+        return nodes[sources[edgeIndex] == nodeIndex ? targets[edgeIndex] : sources[edgeIndex]];
+    }
+
+    @Override
+    public int getDegree(Node node) {
+        int index = checkValidNodeObject(node);
+        if (undirected) {
+            int count = 0;
+            for (int i = outOffsets[index]; i < outOffsets[index + 1]; i++) {
+                if (!isUndirectedToIgnore(outEdges[i])) {
+                    count++;
+                }
+            }
+            for (int i = inOffsets[index]; i < inOffsets[index + 1]; i++) {
+                if (!isUndirectedToIgnore(inEdges[i])) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        return outOffsets[index + 1] - outOffsets[index] + inOffsets[index + 1] - inOffsets[index];
+    }
+
+    @Override
+    public int getInDegree(Node node) {
+        int index = checkValidNodeObject(node);
+        return inOffsets[index + 1] - inOffsets[index];
+    }
+
+    @Override
+    public int getOutDegree(Node node) {
+        int index = checkValidNodeObject(node);
+        return outOffsets[index + 1] - outOffsets[index];
+    }
+
+    @Override
+    public boolean isSelfLoop(Edge edge) {
+        return edge.isSelfLoop();
+    }
+
+    @Override
+    public boolean isDirected(Edge edge) {
+        return edge.isDirected();
+    }
+
+    @Override
+    public boolean isIncident(Edge edge1, Edge edge2) {
+        int index1 = checkValidEdgeObject(edge1);
+        int index2 = checkValidEdgeObject(edge2);
+        return sources[index1] == sources[index2] || targets[index1] == targets[index2] || sources[index1] == targets[index2] || targets[index1] == sources[index2];
+    }
+
+    @Override
+    public boolean isIncident(Node node, Edge edge) {
+        int nodeIndex = checkValidNodeObject(node);
+        int edgeIndex = checkValidEdgeObject(edge);
+        return sources[edgeIndex] == nodeIndex || targets[edgeIndex] == nodeIndex;
+    }
+
+    @Override
+    public GraphView getView() {
+        return view;
+    }
+
+    @Override
+    public Object getAttribute(String key) {
+        return attributes.getValue(key);
+    }
+
+    @Override
+    public Object getAttribute(String key, double timestamp) {
+        return attributes.getValue(key, timestamp);
+    }
+
+    @Override
+    public Object getAttribute(String key, Interval interval) {
+        return attributes.getValue(key, interval);
+    }
+
+    @Override
+    public Set<String> getAttributeKeys() {
+        return attributes.getKeys();
+    }
+
+    @Override
+    public GraphModel getModel() {
+        return graphStore.graphModel;
+    }
+
+    @Override
+    public boolean isDirected() {
+        if (undirected) {
+            return false;
+        }
+        return undirectedCount == 0;
+    }
+
+    @Override
+    public boolean isUndirected() {
+        if (undirected) {
+            return true;
+        }
+        return edges.length > 0 && undirectedCount == edges.length;
+    }
+
+    @Override
+    public boolean isMixed() {
+        if (undirected) {
+            return false;
+        }
+        return undirectedCount > 0 && undirectedCount != edges.length;
+    }
+
+    @Override
+    public void readLock() {
+    }
+
+    @Override
+    public void readUnlock() {
+    }
+
+    @Override
+    public void readUnlockAll() {
+    }
+
+    @Override
+    public void writeLock() {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public void writeUnlock() {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public boolean addEdge(Edge edge) {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public boolean addNode(Node node) {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public boolean addAllEdges(Collection<? extends Edge> edges) {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public boolean addAllNodes(Collection<? extends Node> nodes) {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public boolean removeEdge(Edge edge) {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public boolean removeNode(Node node) {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public boolean removeAllEdges(Collection<? extends Edge> edges) {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public boolean removeAllNodes(Collection<? extends Node> nodes) {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public void clearEdges(Node node) {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public void clearEdges(Node node, int type) {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public void clearEdges() {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public void setAttribute(String key, Object value) {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public void setAttribute(String key, Object value, double timestamp) {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public void setAttribute(String key, Object value, Interval interval) {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public void removeAttribute(String key) {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public void removeAttribute(String key, double timestamp) {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    @Override
+    public void removeAttribute(String key, Interval interval) {
+        throw new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    private int findEdge(int source, int target, int type) {
+        for (int i = outOffsets[source]; i < outOffsets[source + 1]; i++) {
+            int edge = outEdges[i];
+            if (targets[edge] == target && (type == ALL_TYPES || types[edge] == type) && !isIgnored(edge)) {
+                return edge;
+            }
+        }
+        if (source != target) {
+            for (int i = inOffsets[source]; i < inOffsets[source + 1]; i++) {
+                int edge = inEdges[i];
+                if (sources[edge] == target && (type == ALL_TYPES || types[edge] == type) && isReverseMatch(edge) && !isIgnored(edge)) {
+                    return edge;
+                }
+            }
+        }
+        return NULL_INDEX;
+    }
+
+    private boolean isReverseMatch(int edge) {
+        return undirected || !edges[edge].isDirected();
+    }
+
+    private boolean isIgnored(int edge) {
+        return undirected && isUndirectedToIgnore(edge);
+    }
+
+    boolean isUndirectedToIgnore(int edge) {
+        return mutuals[edge] != NULL_INDEX && nodeStoreIds[sources[edge]] < nodeStoreIds[targets[edge]];
+    }
+
+    private EdgeIndexIterator newOutIterator(int node, int type) {
+        return new EdgeIndexIterator(outEdges, outOffsets[node], outOffsets[node + 1], type, false);
+    }
+
+    private EdgeIndexIterator newInIterator(int node, int type) {
+        return new EdgeIndexIterator(inEdges, inOffsets[node], inOffsets[node + 1], type, false);
+    }
+
+    private EdgeIndexIterator newInOutIterator(int node, int type, boolean skipMutual) {
+        EdgeIndexIterator itr = new EdgeIndexIterator(outEdges, outOffsets[node], outOffsets[node + 1], type,
+                skipMutual);
+        itr.then(inEdges, inOffsets[node], inOffsets[node + 1]);
+        return itr;
+    }
+
+    private NodeIterable getNodeIterable(Iterator<Node> iterator) {
+        return graphStore.getNodeIterableWrapper(iterator, false);
+    }
+
+    private EdgeIterable getEdgeIterable(Iterator<Edge> iterator) {
+        return graphStore.getEdgeIterableWrapper(iterator, false);
+    }
+
+    void checkNonNullNodeObject(final Node n) {
+        if (n == null) {
+            throw new NullPointerException();
+        }
+        if (!(n instanceof NodeImpl)) {
+            throw new ClassCastException("Object must be a NodeImpl object");
+        }
+    }
+
+    void checkNonNullEdgeObject(final Edge e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        if (!(e instanceof EdgeImpl)) {
+            throw new ClassCastException("Object must be a EdgeImpl object");
+        }
+    }
+
+    int checkValidNodeObject(final Node n) {
+        checkNonNullNodeObject(n);
+
+        int index = nodeIndices.getInt(n);
+        if (index == NULL_INDEX) {
+            throw new RuntimeException("Node doesn't belong to this snapshot");
+        }
+        return index;
+    }
+
+    int checkValidEdgeObject(final Edge e) {
+        checkNonNullEdgeObject(e);
+
+        int index = edgeIndices.getInt(e);
+        if (index == NULL_INDEX) {
+            throw new RuntimeException("Edge doesn't belong to this snapshot");
+        }
+        return index;
+    }
+
+    private void checkType(int type) {
+        if (type < 0) {
+            throw new IllegalArgumentException("Incorrect type=" + type);
+        }
+    }
+
+    protected final class EdgeIndexIterator implements Iterator<Edge> {
+
+        protected int type;
+        protected boolean skipMutual;
+        protected int[] indices;
+        protected int position;
+        protected int end;
+        protected int[] nextIndices;
+        protected int nextPosition;
+        protected int nextEnd;
+        protected boolean second;
+        protected int pointer;
+
+        public EdgeIndexIterator(int[] indices, int position, int end, int type, boolean skipMutual) {
+            reset(indices, position, end, type, skipMutual);
+        }
+
+        void reset(int[] indices, int position, int end, int type, boolean skipMutual) {
+            this.indices = indices;
+            this.position = position;
+            this.end = end;
+            this.type = type;
+            this.skipMutual = skipMutual;
+            this.nextIndices = null;
+            this.second = false;
+            this.pointer = NULL_INDEX;
+        }
+
+        void then(int[] indices, int position, int end) {
+            this.nextIndices = indices;
+            this.nextPosition = position;
+            this.nextEnd = end;
+        }
+
+        int nextIndex() {
+            while (true) {
+                while (position < end) {
+                    int edge = indices != null ? indices[position++] : position++;
+                    if (accept(edge)) {
+                        pointer = edge;
+                        return edge;
+                    }
+                }
+                if (nextIndices == null) {
+                    pointer = NULL_INDEX;
+                    return NULL_INDEX;
+                }
+                indices = nextIndices;
+                position = nextPosition;
+                end = nextEnd;
+                nextIndices = null;
+                second = true;
+            }
+        }
+
+        private boolean accept(int edge) {
+            if (type != ALL_TYPES && types[edge] != type) {
+                return false;
+            }
+            if (second && sources[edge] == targets[edge]) {
+                // Already visited as an out edge
+                return false;
+            }
+            return !(skipMutual && isUndirectedToIgnore(edge));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextIndex() != NULL_INDEX;
+        }
+
+        @Override
+        public EdgeImpl next() {
+            return edges[pointer];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+    }
+
+    protected final class NeighborsIterator implements Iterator<Node> {
+
+        protected final int node;
+        protected final EdgeIndexIterator itr;
+
+        public NeighborsIterator(int node, EdgeIndexIterator itr) {
+            this.node = node;
+            this.itr = itr;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return itr.hasNext();
+        }
+
+        @Override
+        public Node next() {
+            int edge = itr.pointer;
+            return nodes[sources[edge] == node ? targets[edge] : sources[edge]];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Remove not supported for this iterator");
+        }
+    }
+
+    protected final class SnapshotEdgeCursor implements EdgeCursor {
+
+        protected final EdgeIndexIterator itr = new EdgeIndexIterator(null, 0, 0, ALL_TYPES, false);
+        protected int node = NULL_INDEX;
+        protected int current = NULL_INDEX;
+
+        @Override
+        public void resetOut(Node node) {
+            reset(node, ALL_TYPES, false, true);
+        }
+
+        @Override
+        public void resetOut(Node node, int type) {
+            checkType(type);
+            reset(node, type, false, true);
+        }
+
+        @Override
+        public void resetIn(Node node) {
+            reset(node, ALL_TYPES, false, false);
+        }
+
+        @Override
+        public void resetIn(Node node, int type) {
+            checkType(type);
+            reset(node, type, false, false);
+        }
+
+        @Override
+        public void reset(Node node) {
+            reset(node, ALL_TYPES, true, true);
+        }
+
+        @Override
+        public void reset(Node node, int type) {
+            checkType(type);
+            reset(node, type, true, true);
+        }
+
+        private void reset(Node n, int type, boolean both, boolean out) {
+            node = checkValidNodeObject(n);
+            current = NULL_INDEX;
+            if (out) {
+                itr.reset(outEdges, outOffsets[node], outOffsets[node + 1], type, both && undirected);
+                if (both) {
+                    itr.then(inEdges, inOffsets[node], inOffsets[node + 1]);
+                }
+            } else {
+                itr.reset(inEdges, inOffsets[node], inOffsets[node + 1], type, false);
+            }
+        }
+
+        @Override
+        public int nextEdgeStoreId() {
+            current = itr.nextIndex();
+            return current != NULL_INDEX ? edgeStoreIds[current] : EdgeStore.NULL_ID;
+        }
+
+        @Override
+        public int sourceStoreId() {
+            return nodeStoreIds[sources[current]];
+        }
+
+        @Override
+        public int targetStoreId() {
+            return nodeStoreIds[targets[current]];
+        }
+
+        @Override
+        public int oppositeStoreId() {
+            return nodeStoreIds[sources[current] == node ? targets[current] : sources[current]];
+        }
+
+        @Override
+        public int type() {
+            return types[current];
+        }
+
+        @Override
+        public double weight() {
+            return weights[current];
+        }
+
+        @Override
+        public EdgeImpl edge() {
+            return current != NULL_INDEX ? edges[current] : null;
+        }
+
+        @Override
+        public void doBreak() {
+            current = NULL_INDEX;
+            itr.reset(null, 0, 0, ALL_TYPES, false);
+        }
+    }
+
+    protected static final class SnapshotNode extends NodeImpl {
+
+        protected final TextPropertiesImpl textProperties;
+
+        public SnapshotNode(NodeImpl node) {
+            super(node.getId(), node.graphStore);
+            this.storeId = node.storeId;
+            this.inDegree = node.inDegree;
+            this.outDegree = node.outDegree;
+            this.mutualDegree = node.mutualDegree;
+            this.attributes = node.copyAttributes();
+            if (properties != null) {
+                setNodeProperties(node.properties);
+                properties.layoutData = node.properties.layoutData;
+            }
+            TextPropertiesImpl text = node.properties != null ? node.getTextProperties() : null;
+            this.textProperties = text != null ? new SnapshotTextProperties(text) : null;
+        }
+
+        @Override
+        public TextPropertiesImpl getTextProperties() {
+            return textProperties;
+        }
+
+        @Override
+        protected void beforeWrite() {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+
+        @Override
+        public void setX(float x) {
+            beforeWrite();
+        }
+
+        @Override
+        public void setY(float y) {
+            beforeWrite();
+        }
+
+        @Override
+        public void setZ(float z) {
+            beforeWrite();
+        }
+
+        @Override
+        public void setPosition(float x, float y) {
+            beforeWrite();
+        }
+
+        @Override
+        public void setPosition(float x, float y, float z) {
+            beforeWrite();
+        }
+
+        @Override
+        public void setR(float r) {
+            beforeWrite();
+        }
+
+        @Override
+        public void setG(float g) {
+            beforeWrite();
+        }
+
+        @Override
+        public void setB(float b) {
+            beforeWrite();
+        }
+
+        @Override
+        public void setAlpha(float a) {
+            beforeWrite();
+        }
+
+        @Override
+        public void setColor(Color color) {
+            beforeWrite();
+        }
+
+        @Override
+        public void setSize(float size) {
+            beforeWrite();
+        }
+
+        @Override
+        public void setFixed(boolean fixed) {
+            beforeWrite();
+        }
+
+        @Override
+        public void setLayoutData(LayoutData layoutData) {
+            beforeWrite();
+        }
+    }
+
+    protected static final class SnapshotEdge extends EdgeImpl {
+
+        protected final TextPropertiesImpl textProperties;
+
+        public SnapshotEdge(EdgeImpl edge, NodeImpl source, NodeImpl target) {
+            super(edge.getId(), edge.graphStore, source, target, edge.type, 0.0, edge.isDirected());
+            this.storeId = edge.storeId;
+            this.flags = edge.flags;
+            this.attributes = edge.copyAttributes();
+            if (properties != null) {
+                setEdgeProperties(edge.properties);
+            }
+            TextPropertiesImpl text = edge.properties != null ? edge.getTextProperties() : null;
+            this.textProperties = text != null ? new SnapshotTextProperties(text) : null;
+        }
+
+        @Override
+        public TextPropertiesImpl getTextProperties() {
+            return textProperties;
+        }
+
+        @Override
+        protected void beforeWrite() {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+
+        @Override
+        public void setR(float r) {
+            beforeWrite();
+        }
+
+        @Override
+        public void setG(float g) {
+            beforeWrite();
+        }
+
+        @Override
+        public void setB(float b) {
+            beforeWrite();
+        }
+
+        @Override
+        public void setAlpha(float a) {
+            beforeWrite();
+        }
+
+        @Override
+        public void setColor(Color color) {
+            beforeWrite();
+        }
+    }
+
+    protected static final class SnapshotTextProperties extends TextPropertiesImpl {
+
+        public SnapshotTextProperties(TextPropertiesImpl textProperties) {
+            this.visible = textProperties.visible;
+            this.rgba = textProperties.rgba;
+            this.size = textProperties.size;
+            this.text = textProperties.text;
+            this.width = textProperties.width;
+            this.height = textProperties.height;
+        }
+
+        @Override
+        public void setR(float r) {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+
+        @Override
+        public void setG(float g) {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+
+        @Override
+        public void setB(float b) {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+
+        @Override
+        public void setAlpha(float a) {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+
+        @Override
+        public void setColor(Color color) {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+
+        @Override
+        public void setSize(float size) {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+
+        @Override
+        public void setVisible(boolean visible) {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+
+        @Override
+        public void setText(String text) {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+
+        @Override
+        public void setDimensions(float width, float height) {
+            throw new UnsupportedOperationException("Snapshots are read-only");
+        }
+    }
+}
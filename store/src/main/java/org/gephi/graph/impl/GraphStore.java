@@ -28,6 +28,7 @@ import org.gephi.graph.api.types.TimestampSet;
 import org.gephi.graph.api.DirectedGraph;
 import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeCursor;
 import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphModel;
@@ -56,6 +57,8 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     protected final GraphFactoryImpl factory;
     // Lock
     protected final GraphLock lock;
+    // Metrics
+    protected final MetricsStore metrics;
     // Version
     protected final GraphVersion version;
     protected final List<GraphObserverImpl> observers;
@@ -63,10 +66,18 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     protected final UndirectedDecorator undirectedDecorator;
     // Main Graph view
     protected final GraphView mainGraphView;
+    // Compaction
+    protected boolean autoCompaction;
+    // Striped locking
+    protected volatile boolean stripedLocking;
     // TimeFormat
     protected TimeFormat timeFormat;
     // Time zone
     protected DateTimeZone timeZone;
+    // Write-ahead log (optional)
+    protected volatile WriteAheadLog writeAheadLog;
+    // Background save in progress (optional)
+    protected volatile BackgroundSave backgroundSave;
 
     public GraphStore() {
         this(null);
@@ -75,16 +86,17 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     public GraphStore(GraphModelImpl model) {
         configuration = model != null ? model.configuration : new Configuration();
         graphModel = model;
-        lock = new GraphLock();
+        metrics = new MetricsStore();
+        lock = new GraphLock(metrics);
         edgeTypeStore = new EdgeTypeStore();
         mainGraphView = new MainGraphView();
         viewStore = new GraphViewStore(this);
         version = GraphStoreConfiguration.ENABLE_OBSERVERS ? new GraphVersion(this) : null;
         observers = GraphStoreConfiguration.ENABLE_OBSERVERS ? new ArrayList<GraphObserverImpl>() : null;
         edgeStore = new EdgeStore(edgeTypeStore, GraphStoreConfiguration.ENABLE_AUTO_LOCKING ? lock : null, viewStore,
-                GraphStoreConfiguration.ENABLE_OBSERVERS ? version : null);
+                GraphStoreConfiguration.ENABLE_OBSERVERS ? version : null, metrics);
         nodeStore = new NodeStore(edgeStore, GraphStoreConfiguration.ENABLE_AUTO_LOCKING ? lock : null, viewStore,
-                GraphStoreConfiguration.ENABLE_OBSERVERS ? version : null);
+                GraphStoreConfiguration.ENABLE_OBSERVERS ? version : null, metrics);
         nodeTable = new TableImpl<Node>(this, Node.class, GraphStoreConfiguration.ENABLE_INDEX_NODES);
         edgeTable = new TableImpl<Edge>(this, Edge.class, GraphStoreConfiguration.ENABLE_INDEX_EDGES);
         timeStore = new TimeStore(this, GraphStoreConfiguration.ENABLE_AUTO_LOCKING ? lock : null,
@@ -132,7 +144,11 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     public boolean addNode(final Node node) {
         autoWriteLock();
         try {
-            return nodeStore.add(node);
+            boolean added = nodeStore.add(node);
+            if (added && writeAheadLog != null) {
+                writeAheadLog.logAddNode((NodeImpl) node);
+            }
+            return added;
         } finally {
             autoWriteUnlock();
         }
@@ -142,6 +158,13 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     public boolean addAllNodes(final Collection<? extends Node> nodes) {
         autoWriteLock();
         try {
+            if (writeAheadLog != null) {
+                boolean added = false;
+                for (Node node : nodes) {
+                    added |= addNode(node);
+                }
+                return added;
+            }
             return nodeStore.addAll(nodes);
         } finally {
             autoWriteUnlock();
@@ -160,7 +183,11 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
                     throw new RuntimeException("The type doesn't exist");
                 }
             }
-            return edgeStore.add(edge);
+            boolean added = edgeStore.add(edge);
+            if (added && writeAheadLog != null) {
+                writeAheadLog.logAddEdge((EdgeImpl) edge);
+            }
+            return added;
         } finally {
             autoWriteUnlock();
         }
@@ -170,6 +197,13 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     public boolean addAllEdges(Collection<? extends Edge> edges) {
         autoWriteLock();
         try {
+            if (writeAheadLog != null) {
+                boolean added = false;
+                for (Edge edge : edges) {
+                    added |= addEdge(edge);
+                }
+                return added;
+            }
             return edgeStore.addAll(edges);
         } finally {
             autoWriteUnlock();
@@ -231,17 +265,27 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
         return new EdgeIterableWrapper(edgeStore.iteratorSelfLoop());
     }
 
+    @Override
+    public EdgeIterable getEdges(int type) {
+        return new EdgeIterableWrapper(edgeStore.iteratorType(type));
+    }
+
     @Override
     public boolean removeNode(final Node node) {
         autoWriteLock();
         try {
             nodeStore.checkNonNullNodeObject(node);
+            beforeRemove((NodeImpl) node);
             for (EdgeStore.EdgeInOutIterator edgeIterator = edgeStore.edgeIterator((NodeImpl) node); edgeIterator
                     .hasNext();) {
                 edgeIterator.next();
                 edgeIterator.remove();
             }
-            return nodeStore.remove(node);
+            boolean removed = nodeStore.remove(node);
+            if (removed && writeAheadLog != null) {
+                writeAheadLog.logRemoveNode((NodeImpl) node);
+            }
+            return removed;
         } finally {
             autoWriteUnlock();
         }
@@ -251,7 +295,13 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     public boolean removeEdge(final Edge edge) {
         autoWriteLock();
         try {
-            return edgeStore.remove(edge);
+            edgeStore.checkNonNullEdgeObject(edge);
+            beforeRemove((EdgeImpl) edge);
+            boolean removed = edgeStore.remove(edge);
+            if (removed && writeAheadLog != null) {
+                writeAheadLog.logRemoveEdge((EdgeImpl) edge);
+            }
+            return removed;
         } finally {
             autoWriteUnlock();
         }
@@ -261,8 +311,16 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     public boolean removeAllNodes(Collection<? extends Node> nodes) {
         autoWriteLock();
         try {
+            if (writeAheadLog != null) {
+                boolean removed = false;
+                for (Node node : nodes) {
+                    removed |= removeNode(node);
+                }
+                return removed;
+            }
             for (Node node : nodes) {
                 nodeStore.checkNonNullNodeObject(node);
+                beforeRemove((NodeImpl) node);
                 for (EdgeStore.EdgeInOutIterator edgeIterator = edgeStore.edgeIterator((NodeImpl) node); edgeIterator
                         .hasNext();) {
                     edgeIterator.next();
@@ -279,6 +337,19 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     public boolean removeAllEdges(Collection<? extends Edge> edges) {
         autoWriteLock();
         try {
+            if (writeAheadLog != null) {
+                boolean removed = false;
+                for (Edge edge : edges) {
+                    removed |= removeEdge(edge);
+                }
+                return removed;
+            }
+            if (backgroundSave != null) {
+                for (Edge edge : edges) {
+                    edgeStore.checkNonNullEdgeObject(edge);
+                    beforeRemove((EdgeImpl) edge);
+                }
+            }
             return edgeStore.removeAll(edges);
         } finally {
             autoWriteUnlock();
@@ -391,6 +462,11 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
         return new EdgeIterableWrapper(edgeStore.edgeIterator(node, type));
     }
 
+    @Override
+    public EdgeCursor edgeCursor() {
+        return new EdgeCursorImpl(edgeStore, null, false);
+    }
+
     @Override
     public EdgeIterable getInEdges(final Node node) {
         return new EdgeIterableWrapper(edgeStore.edgeInIterator(node));
@@ -524,11 +600,15 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     public void clearEdges(final Node node) {
         autoWriteLock();
         try {
+            beforeRemove((NodeImpl) node);
             EdgeStore.EdgeInOutIterator itr = edgeStore.edgeIterator(node);
             for (; itr.hasNext();) {
                 itr.next();
                 itr.remove();
             }
+            if (writeAheadLog != null) {
+                writeAheadLog.logClearEdges((NodeImpl) node);
+            }
         } finally {
             autoWriteUnlock();
         }
@@ -538,11 +618,15 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     public void clearEdges(final Node node, final int type) {
         autoWriteLock();
         try {
+            beforeRemove((NodeImpl) node);
             EdgeStore.EdgeTypeInOutIterator itr = edgeStore.edgeIterator(node, type);
             for (; itr.hasNext();) {
                 itr.next();
                 itr.remove();
             }
+            if (writeAheadLog != null) {
+                writeAheadLog.logClearEdges((NodeImpl) node, type);
+            }
         } finally {
             autoWriteUnlock();
         }
@@ -552,12 +636,18 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     public void clear() {
         autoWriteLock();
         try {
+            beforeWriteAll();
+            viewStore.applyRemovals();
+            viewStore.resetNodeIndex();
             edgeStore.clear();
             nodeStore.clear();
             edgeTypeStore.clear();
             edgeTable.store.indexStore.clear();
             nodeTable.store.indexStore.clear();
             timeStore.clear();
+            if (writeAheadLog != null) {
+                writeAheadLog.logClear();
+            }
         } finally {
             autoWriteUnlock();
         }
@@ -567,10 +657,15 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     public void clearEdges() {
         autoWriteLock();
         try {
+            beforeWriteAll();
+            viewStore.applyRemovals();
             edgeStore.clear();
             edgeTypeStore.clear();
             edgeTable.store.indexStore.clear();
             timeStore.clearEdges();
+            if (writeAheadLog != null) {
+                writeAheadLog.logClearEdges();
+            }
         } finally {
             autoWriteUnlock();
         }
@@ -682,6 +777,11 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
 
     protected void autoWriteUnlock() {
         if (GraphStoreConfiguration.ENABLE_AUTO_LOCKING) {
+            if (autoCompaction && backgroundSave == null && lock.readWriteLock.getWriteHoldCount() == 1 && lock.readWriteLock
+                    .getReadHoldCount() == 0 && (nodeStore.needsCompaction() || edgeStore.needsCompaction())) {
+                // Outermost write lock and no iteration in progress
+                compactStore();
+            }
             writeUnlock();
         }
     }
@@ -770,6 +870,61 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
         }
     }
 
+    public void compact() {
+        autoWriteLock();
+        try {
+            compactStore();
+        } finally {
+            autoWriteUnlock();
+        }
+    }
+
+    protected void compactStore() {
+        if (nodeStore.garbageSize == 0 && edgeStore.garbageSize == 0) {
+            return;
+        }
+        beforeWriteAll();
+        int[] nodeMap = nodeStore.compact();
+        int[] edgeMap = edgeStore.compact();
+
+        viewStore.compact(nodeMap, edgeMap);
+        if (observers != null) {
+            for (GraphObserverImpl observer : observers) {
+                observer.compact(nodeMap, edgeMap);
+            }
+        }
+        for (ColumnImpl column : nodeTable.store.toArray()) {
+            column.compactObservers(nodeMap);
+        }
+        for (ColumnImpl column : edgeTable.store.toArray()) {
+            column.compactObservers(edgeMap);
+        }
+    }
+
+    protected void beforeWriteAll() {
+        BackgroundSave save = backgroundSave;
+        if (save != null) {
+            save.beforeWriteAll();
+        }
+    }
+
+    private void beforeRemove(final NodeImpl node) {
+        BackgroundSave save = backgroundSave;
+        if (save != null && node != null && node.storeId != NodeStore.NULL_ID) {
+            save.beforeWrite(node);
+            for (EdgeStore.EdgeInOutIterator itr = edgeStore.edgeIterator(node); itr.hasNext();) {
+                save.beforeWrite(itr.next());
+            }
+        }
+    }
+
+    private void beforeRemove(final EdgeImpl edge) {
+        BackgroundSave save = backgroundSave;
+        if (save != null) {
+            save.beforeWrite(edge);
+        }
+    }
+
     protected EdgeIterableWrapper getEdgeIterableWrapper(Iterator<Edge> edgeIterator) {
         return new EdgeIterableWrapper(edgeIterator);
     }
@@ -936,6 +1091,11 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
             return false;
         }
 
+        @Override
+        public int getStoreId() {
+            return GraphViewStore.NULL_VIEW;
+        }
+
         @Override
         public Interval getTimeInterval() {
             return Interval.INFINITY_INTERVAL;
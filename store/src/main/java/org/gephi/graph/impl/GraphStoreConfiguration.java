@@ -41,11 +41,31 @@ public final class GraphStoreConfiguration {
     public static final int EDGESTORE_BLOCK_SIZE = 8192;
     public static final int EDGESTORE_DEFAULT_BLOCKS = 10;
     public static final int EDGESTORE_DEFAULT_TYPE_COUNT = 1;
+    public static final int EDGESTORE_MAX_DENSE_TYPE_COUNT = 16;
     public static final int EDGESTORE_DEFAULT_DICTIONARY_SIZE = 1000;
     public static final float EDGESTORE_DICTIONARY_LOAD_FACTOR = .7f;
+    // Locking
+    public static final int TABLE_LOCK_STRIPES = 64;
+    // Metrics
+    public static final int METRICS_STRIPES = 16;
+    public static final int METRICS_HISTOGRAM_BUCKETS = 12;
+    // Memory estimate
+    public static final int MEMORY_ESTIMATE_SAMPLE_SIZE = 1000;
+    // Analytics
+    public static final int ANALYTICS_MIN_CHUNK_SIZE = 1 << 10;
+    public static final int ANALYTICS_PAGERANK_MAX_ITERATIONS = 100;
+    // Compaction
+    public static final double COMPACTION_GARBAGE_RATIO = 0.5;
     // GraphView
     public static final int VIEW_DEFAULT_TYPE_COUNT = 1;
     public static final double VIEW_GROWING_FACTOR = 1.1;
+    public static final int VIEW_PAGE_SIZE = 1 << 16;
+    public static final int VIEW_MAX_PENDING_REMOVALS = 1 << 16;
+    // Column dictionary
+    public static final int COLUMN_DICTIONARY_MAX_SIZE = 1 << 16;
+    public static final int TIMESTAMP_DICTIONARY_MAX_SIZE = 1 << 16;
+    // Interval index
+    public static final int INTERVAL_INDEX_REBUILD_SHIFT = 5;
     // Diff
     public static final double COLUMNDIFF_GROWING_FACTOR = 1.1;
     // Properties
@@ -22,12 +22,36 @@ public class GraphVersion {
     protected final Graph graph;
     protected int nodeVersion = Integer.MIN_VALUE + 1;
     protected int edgeVersion = Integer.MIN_VALUE + 1;
+    // Versions are incremented at most once during a batch
+    protected boolean batch;
+    protected boolean nodeBatchIncremented;
+    protected boolean edgeBatchIncremented;
 
     public GraphVersion(Graph graph) {
         this.graph = graph;
     }
 
+    /**
+     * Starts a batch of modifications, during which node and edge versions are
+     * incremented at most once. Must be called with the write lock held.
+     */
+    public void beginBatch() {
+        batch = true;
+        nodeBatchIncremented = false;
+        edgeBatchIncremented = false;
+    }
+
+    public void endBatch() {
+        batch = false;
+    }
+
     public int incrementAndGetNodeVersion() {
+        if (batch) {
+            if (nodeBatchIncremented) {
+                return nodeVersion;
+            }
+            nodeBatchIncremented = true;
+        }
         nodeVersion++;
         if (nodeVersion == Integer.MAX_VALUE) {
             nodeVersion = Integer.MIN_VALUE + 1;
@@ -37,6 +61,12 @@ public class GraphVersion {
     }
 
     public int incrementAndGetEdgeVersion() {
+        if (batch) {
+            if (edgeBatchIncremented) {
+                return edgeVersion;
+            }
+            edgeBatchIncremented = true;
+        }
         edgeVersion++;
         if (edgeVersion == Integer.MAX_VALUE) {
             edgeVersion = Integer.MIN_VALUE + 1;
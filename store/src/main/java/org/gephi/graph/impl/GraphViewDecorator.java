@@ -20,6 +20,7 @@ import java.util.Iterator;
 import java.util.Set;
 import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeCursor;
 import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphModel;
@@ -339,6 +340,16 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
         return graphStore.getEdgeIterableWrapper(new EdgeViewIterator(graphStore.edgeStore.iteratorSelfLoop()));
     }
 
+    @Override
+    public EdgeIterable getEdges(int type) {
+        if (undirected) {
+            return graphStore.getEdgeIterableWrapper(new UndirectedEdgeViewIterator(graphStore.edgeStore
+                    .iteratorType(type)));
+        } else {
+            return graphStore.getEdgeIterableWrapper(new EdgeViewIterator(graphStore.edgeStore.iteratorType(type)));
+        }
+    }
+
     @Override
     public NodeIterable getNeighbors(Node node) {
         checkValidInViewNodeObject(node);
@@ -377,6 +388,11 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
 
     }
 
+    @Override
+    public EdgeCursor edgeCursor() {
+        return new EdgeCursorImpl(graphStore.edgeStore, this, undirected);
+    }
+
     @Override
     public int getNodeCount() {
         return view.getNodeCount();
@@ -15,8 +15,6 @@
  */
 package org.gephi.graph.impl;
 
-import cern.colt.bitvector.BitVector;
-import cern.colt.bitvector.QuickBitVector;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -38,8 +36,8 @@ public class GraphViewImpl implements GraphView {
     protected final boolean nodeView;
     protected final boolean edgeView;
     protected final GraphAttributesImpl attributes;
-    protected BitVector nodeBitVector;
-    protected BitVector edgeBitVector;
+    protected PagedBitVector nodeBitVector;
+    protected PagedBitVector edgeBitVector;
     protected int storeId;
     // Version
     protected final GraphVersion version;
@@ -55,6 +53,10 @@ public class GraphViewImpl implements GraphView {
     protected int mutualEdgesCount;
     // Dynamic
     protected Interval interval;
+    // Removals
+    protected volatile int removalEpoch;
+    // Whether the nodes are in the view store's node index
+    protected boolean nodesIndexed;
 
     public GraphViewImpl(final GraphStore store, boolean nodes, boolean edges) {
         this.graphStore = store;
@@ -62,11 +64,11 @@ public class GraphViewImpl implements GraphView {
         this.edgeView = edges;
         this.attributes = new GraphAttributesImpl();
         if (nodes) {
-            this.nodeBitVector = new BitVector(store.nodeStore.maxStoreId());
+            this.nodeBitVector = new PagedBitVector(store.nodeStore.maxStoreId());
         } else {
             this.nodeBitVector = null;
         }
-        this.edgeBitVector = new BitVector(store.edgeStore.maxStoreId());
+        this.edgeBitVector = new PagedBitVector(store.edgeStore.maxStoreId());
         this.typeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
         this.mutualEdgeTypeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
 
@@ -75,9 +77,11 @@ public class GraphViewImpl implements GraphView {
         this.version = graphStore.version != null ? new GraphVersion(directedDecorator) : null;
         this.observers = graphStore.version != null ? new ArrayList<GraphObserverImpl>() : null;
         this.interval = Interval.INFINITY_INTERVAL;
+        this.removalEpoch = store.viewStore != null ? store.viewStore.removalEpoch : 0;
     }
 
     public GraphViewImpl(final GraphViewImpl view, boolean nodes, boolean edges) {
+        view.applyRemovals();
         this.graphStore = view.graphStore;
         this.nodeView = nodes;
         this.edgeView = edges;
@@ -94,11 +98,13 @@ public class GraphViewImpl implements GraphView {
         System.arraycopy(view.typeCounts, 0, typeCounts, 0, view.typeCounts.length);
         this.mutualEdgeTypeCounts = new int[view.mutualEdgeTypeCounts.length];
         System.arraycopy(view.mutualEdgeTypeCounts, 0, mutualEdgeTypeCounts, 0, view.mutualEdgeTypeCounts.length);
+        this.mutualEdgesCount = view.mutualEdgesCount;
         this.directedDecorator = new GraphViewDecorator(graphStore, this, false);
         this.undirectedDecorator = new GraphViewDecorator(graphStore, this, true);
         this.version = graphStore.version != null ? new GraphVersion(directedDecorator) : null;
         this.observers = graphStore.version != null ? new ArrayList<GraphObserverImpl>() : null;
         this.interval = view.interval;
+        this.removalEpoch = view.removalEpoch;
     }
 
     protected DirectedSubgraph getDirectedGraph() {
@@ -111,16 +117,21 @@ public class GraphViewImpl implements GraphView {
 
     public boolean addNode(final Node node) {
         checkNodeView();
+        applyRemovals();
 
         NodeImpl nodeImpl = (NodeImpl) node;
         graphStore.nodeStore.checkNodeExists(nodeImpl);
 
         int id = nodeImpl.storeId;
-        boolean isSet = nodeBitVector.get(id);
+        boolean isSet = isNodeSet(id);
         if (!isSet) {
+            ensureNodeVectorSize(nodeImpl);
             nodeBitVector.set(id);
             nodeCount++;
             incrementNodeVersion();
+            if (nodesIndexed) {
+                graphStore.viewStore.indexNode(this, id);
+            }
 
             IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
             if (indexStore != null) {
@@ -137,10 +148,10 @@ public class GraphViewImpl implements GraphView {
                 while (itr.hasNext()) {
                     EdgeImpl edge = itr.next();
                     NodeImpl opposite = edge.source == nodeImpl ? edge.target : edge.source;
-                    if (nodeBitVector.get(opposite.getStoreId())) {
+                    if (isNodeSet(opposite.getStoreId())) {
                         // Add edge
                         int edgeid = edge.storeId;
-                        boolean edgeisSet = edgeBitVector.get(edgeid);
+                        boolean edgeisSet = isEdgeSet(edgeid);
                         if (!edgeisSet) {
 
                             incrementEdgeVersion();
@@ -176,12 +187,13 @@ public class GraphViewImpl implements GraphView {
 
     public boolean addEdge(final Edge edge) {
         checkEdgeView();
+        applyRemovals();
 
         EdgeImpl edgeImpl = (EdgeImpl) edge;
         graphStore.edgeStore.checkEdgeExists(edgeImpl);
 
         int id = edgeImpl.storeId;
-        boolean isSet = edgeBitVector.get(id);
+        boolean isSet = isEdgeSet(id);
         if (!isSet) {
             checkIncidentNodesExists(edgeImpl);
 
@@ -211,12 +223,13 @@ public class GraphViewImpl implements GraphView {
 
     public boolean removeNode(final Node node) {
         checkNodeView();
+        applyRemovals();
 
         NodeImpl nodeImpl = (NodeImpl) node;
         graphStore.nodeStore.checkNodeExists(nodeImpl);
 
         int id = nodeImpl.storeId;
-        boolean isSet = nodeBitVector.get(id);
+        boolean isSet = isNodeSet(id);
         if (isSet) {
             nodeBitVector.clear(id);
             nodeCount--;
@@ -237,7 +250,7 @@ public class GraphViewImpl implements GraphView {
                 EdgeImpl edgeImpl = itr.next();
 
                 int edgeId = edgeImpl.storeId;
-                boolean edgeSet = edgeBitVector.get(edgeId);
+                boolean edgeSet = isEdgeSet(edgeId);
                 if (edgeSet) {
                     removeEdge(edgeImpl);
                 }
@@ -265,12 +278,13 @@ public class GraphViewImpl implements GraphView {
 
     public boolean removeEdge(final Edge edge) {
         checkEdgeView();
+        applyRemovals();
 
         EdgeImpl edgeImpl = (EdgeImpl) edge;
         graphStore.edgeStore.checkEdgeExists(edgeImpl);
 
         int id = edgeImpl.storeId;
-        boolean isSet = edgeBitVector.get(id);
+        boolean isSet = isEdgeSet(id);
         if (isSet) {
             removeEdge(edgeImpl);
 
@@ -298,6 +312,7 @@ public class GraphViewImpl implements GraphView {
     }
 
     public void clear() {
+        applyRemovals();
         if (nodeCount > 0) {
             incrementNodeVersion();
         }
@@ -306,6 +321,7 @@ public class GraphViewImpl implements GraphView {
         }
         if (nodeView) {
             nodeBitVector.clear();
+            invalidateNodeIndex();
         }
         edgeBitVector.clear();
         nodeCount = 0;
@@ -335,6 +351,7 @@ public class GraphViewImpl implements GraphView {
     }
 
     public void clearEdges() {
+        applyRemovals();
         if (edgeCount > 0) {
             incrementEdgeVersion();
         }
@@ -355,16 +372,22 @@ public class GraphViewImpl implements GraphView {
     }
 
     public void fill() {
+        applyRemovals();
         if (nodeView) {
             if (nodeCount > 0) {
-                nodeBitVector = new BitVector(graphStore.nodeStore.maxStoreId());
+                nodeBitVector.release();
+                nodeBitVector = new PagedBitVector(graphStore.nodeStore.maxStoreId());
             }
+            ensureNodeVectorSize(graphStore.nodeStore.maxStoreId());
             nodeBitVector.not();
             this.nodeCount = graphStore.nodeStore.size();
+            invalidateNodeIndex();
         }
         if (edgeCount > 0) {
-            edgeBitVector = new BitVector(graphStore.edgeStore.maxStoreId());
+            edgeBitVector.release();
+            edgeBitVector = new PagedBitVector(graphStore.edgeStore.maxStoreId());
         }
+        ensureEdgeVectorSize(graphStore.edgeStore.maxStoreId());
         edgeBitVector.not();
 
         this.edgeCount = graphStore.edgeStore.size();
@@ -409,73 +432,81 @@ public class GraphViewImpl implements GraphView {
         if (!nodeView) {
             return true;
         }
-        return nodeBitVector.get(node.storeId);
+        applyRemovals();
+        return isNodeSet(node.storeId);
     }
 
     public boolean containsEdge(final EdgeImpl edge) {
-        return edgeBitVector.get(edge.storeId);
+        applyRemovals();
+        return isEdgeSet(edge.storeId);
     }
 
     public void intersection(final GraphViewImpl otherView) {
-        BitVector nodeOtherBitVector = otherView.nodeBitVector;
-        BitVector edgeOtherBitVector = otherView.edgeBitVector;
-
+        applyRemovals();
+        otherView.applyRemovals();
+        long[] removedEdges = null;
         if (nodeView) {
-            int nodeSize = nodeBitVector.size();
-            for (int i = 0; i < nodeSize; i++) {
-                boolean t = nodeBitVector.get(i);
-                boolean o = nodeOtherBitVector.get(i);
-                if (t && !o) {
-                    removeNode(getNode(i));
-                }
+            long[] removedNodes = difference(nodeBitVector, otherView.nodeBitVector);
+            if (removedNodes != null) {
+                removedEdges = removeNodes(removedNodes);
             }
         }
 
         if (edgeView) {
-            int edgeSize = edgeBitVector.size();
-            for (int i = 0; i < edgeSize; i++) {
-                boolean t = edgeBitVector.get(i);
-                boolean o = edgeOtherBitVector.get(i);
-                if (t && !o) {
-                    removeEdge(getEdge(i));
-                }
+            long[] edgeDifference = difference(edgeBitVector, otherView.edgeBitVector);
+            if (edgeDifference != null) {
+                removedEdges = or(removedEdges, edgeDifference);
             }
         }
+
+        if (removedEdges != null) {
+            removeEdges(removedEdges, true);
+        }
     }
 
     public void union(final GraphViewImpl otherView) {
-        BitVector nodeOtherBitVector = otherView.nodeBitVector;
-        BitVector edgeOtherBitVector = otherView.edgeBitVector;
-
+        applyRemovals();
+        otherView.applyRemovals();
         if (nodeView) {
-            int nodeSize = nodeBitVector.size();
-            for (int i = 0; i < nodeSize; i++) {
-                boolean t = nodeBitVector.get(i);
-                boolean o = nodeOtherBitVector.get(i);
-                if (!t && o) {
-                    addNode(getNode(i));
+            ensureNodeVectorSize(otherView.nodeBitVector.size());
+            long[] addedNodes = difference(otherView.nodeBitVector, nodeBitVector);
+            if (addedNodes != null) {
+                long[] addedEdges = addNodes(addedNodes);
+                if (addedEdges != null) {
+                    addEdges(addedEdges);
                 }
             }
         }
 
         if (edgeView) {
-            int edgeSize = edgeBitVector.size();
-            for (int i = 0; i < edgeSize; i++) {
-                boolean t = edgeBitVector.get(i);
-                boolean o = edgeOtherBitVector.get(i);
-                if (!t && o) {
-                    addEdge(getEdge(i));
+            ensureEdgeVectorSize(otherView.edgeBitVector.size());
+            long[] addedEdges = difference(otherView.edgeBitVector, edgeBitVector);
+            if (addedEdges != null) {
+                if (nodeView) {
+                    checkIncidentNodesExists(addedEdges);
                 }
+                addEdges(addedEdges);
             }
         }
     }
 
     public void not() {
+        applyRemovals();
+        long[] previousNodes = null;
         if (nodeView) {
-            nodeBitVector.not();
+            ensureNodeVectorSize(graphStore.nodeStore.maxStoreId());
+            previousNodes = new long[nodeBitVector.wordCount()];
+            for (int i = 0; i < previousNodes.length; i++) {
+                previousNodes[i] = nodeBitVector.getWord(i);
+            }
+            complement(nodeBitVector, graphStore.nodeStore.maxStoreId());
+            clearNodeGarbage(nodeBitVector);
             this.nodeCount = graphStore.nodeStore.size() - this.nodeCount;
+            invalidateNodeIndex();
         }
-        edgeBitVector.not();
+        ensureEdgeVectorSize(graphStore.edgeStore.maxStoreId());
+        complement(edgeBitVector, graphStore.edgeStore.maxStoreId());
+        clearEdgeGarbage(edgeBitVector);
 
         this.edgeCount = graphStore.edgeStore.size() - this.edgeCount;
         for (int i = 0; i < typeCounts.length; i++) {
@@ -492,15 +523,28 @@ public class GraphViewImpl implements GraphView {
         incrementEdgeVersion();
 
         if (nodeView) {
-            for (Edge e : graphStore.edgeStore) {
-                boolean t = edgeBitVector.get(e.getStoreId());
-                if (t && (!nodeBitVector.get(e.getSource().getStoreId()) || !nodeBitVector.get(e.getTarget()
-                        .getStoreId()))) {
-                    removeEdge((EdgeImpl) e);
+            // Dangling edges are the ones incident to the nodes that were in
+            // the view before
+            long[] danglingEdges = null;
+            for (int i = 0; i < previousNodes.length; i++) {
+                long word = previousNodes[i];
+                while (word != 0) {
+                    int id = (i << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    NodeImpl node = getNodeOrNull(id);
+                    if (node != null) {
+                        danglingEdges = collectEdges(node, danglingEdges, true);
+                    }
                 }
             }
+            if (danglingEdges != null) {
+                // Indices are rebuilt below
+                removeEdges(danglingEdges, false);
+            }
         }
 
+        // Every element changes, so rebuilding the view indices is cheaper
+        // than updating them element by element
         if (nodeView) {
             IndexStore<Node> nodeIndexStore = graphStore.nodeTable.store.indexStore;
             if (nodeIndexStore != null) {
@@ -526,7 +570,8 @@ public class GraphViewImpl implements GraphView {
     }
 
     public void addEdgeInNodeView(EdgeImpl edge) {
-        if (nodeBitVector.get(edge.source.getStoreId()) && nodeBitVector.get(edge.target.getStoreId())) {
+        applyRemovals();
+        if (isNodeSet(edge.source.getStoreId()) && isNodeSet(edge.target.getStoreId())) {
             incrementEdgeVersion();
 
             addEdge(edge);
@@ -535,20 +580,24 @@ public class GraphViewImpl implements GraphView {
 
     public int getNodeCount() {
         if (nodeView) {
+            applyRemovals();
             return nodeCount;
         }
         return graphStore.nodeStore.size();
     }
 
     public int getEdgeCount() {
+        applyRemovals();
         return edgeCount;
     }
 
     public int getUndirectedEdgeCount() {
+        applyRemovals();
         return edgeCount - mutualEdgesCount;
     }
 
     public int getEdgeCount(int type) {
+        applyRemovals();
         if (type < 0 || type >= typeCounts.length) {
             throw new IllegalArgumentException("Incorrect type=" + type);
         }
@@ -556,6 +605,7 @@ public class GraphViewImpl implements GraphView {
     }
 
     public int getUndirectedEdgeCount(int type) {
+        applyRemovals();
         if (type < 0 || type >= typeCounts.length) {
             throw new IllegalArgumentException("Incorrect type=" + type);
         }
@@ -599,6 +649,11 @@ public class GraphViewImpl implements GraphView {
         return storeId == GraphViewStore.NULL_VIEW;
     }
 
+    @Override
+    public int getStoreId() {
+        return storeId;
+    }
+
     protected GraphObserverImpl createGraphObserver(Graph graph, boolean withDiff) {
         if (observers != null) {
             GraphObserverImpl observer = new GraphObserverImpl(graphStore, version, graph, withDiff);
@@ -625,24 +680,123 @@ public class GraphViewImpl implements GraphView {
         }
     }
 
+    /**
+     * Applies the elements removed from the store since this view was last
+     * accessed.
+     */
+    protected void applyRemovals() {
+        GraphViewStore viewStore = graphStore.viewStore;
+        if (viewStore == null || removalEpoch == viewStore.removalEpoch) {
+            return;
+        }
+        // Concurrent readers may get here at the same time
+        synchronized (this) {
+            int epoch = viewStore.removalEpoch;
+            List<GraphViewStore.Removal> removals = viewStore.removals;
+            for (int i = removalEpoch - viewStore.removalsOffset; i < removals.size(); i++) {
+                GraphViewStore.Removal removal = removals.get(i);
+                if (removal.element instanceof NodeImpl) {
+                    applyNodeRemoval((NodeImpl) removal.element, removal.storeId);
+                } else {
+                    applyEdgeRemoval((EdgeImpl) removal.element, removal.storeId, removal.mutual);
+                }
+            }
+            removalEpoch = epoch;
+        }
+    }
+
+    private void applyNodeRemoval(NodeImpl nodeImpl, int id) {
+        // Incident edges have been removed before the node
+        if (nodeView && isNodeSet(id)) {
+            nodeBitVector.clear(id);
+            nodeCount--;
+            incrementNodeVersion();
+
+            IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+            if (indexStore != null) {
+                indexStore.clearInView(nodeImpl, this);
+            }
+            TimeIndexStore timeIndexStore = graphStore.timeStore.nodeIndexStore;
+            if (timeIndexStore != null) {
+                timeIndexStore.clearInView(nodeImpl, this);
+            }
+        }
+    }
+
+    private void applyEdgeRemoval(EdgeImpl edgeImpl, int id, boolean mutual) {
+        if (isEdgeSet(id)) {
+            incrementEdgeVersion();
+
+            edgeBitVector.clear(id);
+            edgeCount--;
+            typeCounts[edgeImpl.type]--;
+
+            if (mutual) {
+                mutualEdgeTypeCounts[edgeImpl.type]--;
+                mutualEdgesCount--;
+            }
+
+            IndexStore<Edge> indexStore = graphStore.edgeTable.store.indexStore;
+            if (indexStore != null) {
+                indexStore.clearInView(edgeImpl, this);
+            }
+        }
+    }
+
+    private boolean isNodeSet(int id) {
+        // Bit vectors only grow when something is added to the view, bits
+        // past the last word aren't set
+        return (id >> 6) < nodeBitVector.wordCount() && nodeBitVector.getQuick(id);
+    }
+
+    private boolean isEdgeSet(int id) {
+        return (id >> 6) < edgeBitVector.wordCount() && edgeBitVector.getQuick(id);
+    }
+
+    private void invalidateNodeIndex() {
+        if (nodesIndexed) {
+            graphStore.viewStore.invalidateNodeIndex(this);
+        }
+    }
+
+    protected void releaseBitVectors() {
+        if (nodeBitVector != null) {
+            nodeBitVector.release();
+        }
+        edgeBitVector.release();
+    }
+
+    protected void compact(int[] nodeMap, int[] edgeMap) {
+        if (nodeBitVector != null) {
+            nodeBitVector = remapBitVector(nodeBitVector, nodeMap, graphStore.nodeStore.maxStoreId());
+        }
+        edgeBitVector = remapBitVector(edgeBitVector, edgeMap, graphStore.edgeStore.maxStoreId());
+
+        if (observers != null) {
+            for (GraphObserverImpl observer : observers) {
+                observer.compact(nodeMap, edgeMap);
+            }
+        }
+    }
+
     protected void ensureNodeVectorSize(NodeImpl node) {
         int sid = node.storeId;
         if (sid >= nodeBitVector.size()) {
             int newSize = Math
                     .min(Math.max(sid + 1, (int) (sid * GraphStoreConfiguration.VIEW_GROWING_FACTOR)), Integer.MAX_VALUE);
-            nodeBitVector = growBitVector(nodeBitVector, newSize);
+            nodeBitVector.ensureSize(newSize);
         }
     }
 
     private void ensureNodeVectorSize(int size) {
         if (size > nodeBitVector.size()) {
-            nodeBitVector = growBitVector(nodeBitVector, size);
+            nodeBitVector.ensureSize(size);
         }
     }
 
     private void ensureEdgeVectorSize(int size) {
         if (size > edgeBitVector.size()) {
-            edgeBitVector = growBitVector(edgeBitVector, size);
+            edgeBitVector.ensureSize(size);
         }
     }
 
@@ -651,13 +805,14 @@ public class GraphViewImpl implements GraphView {
         if (sid >= edgeBitVector.size()) {
             int newSize = Math
                     .min(Math.max(sid + 1, (int) (sid * GraphStoreConfiguration.VIEW_GROWING_FACTOR)), Integer.MAX_VALUE);
-            edgeBitVector = growBitVector(edgeBitVector, newSize);
+            edgeBitVector.ensureSize(newSize);
         }
     }
 
     private void addEdge(EdgeImpl edgeImpl) {
         incrementEdgeVersion();
 
+        ensureEdgeVectorSize(edgeImpl);
         edgeBitVector.set(edgeImpl.storeId);
         edgeCount++;
 
@@ -699,18 +854,273 @@ public class GraphViewImpl implements GraphView {
         }
     }
 
-    private BitVector growBitVector(BitVector bitVector, int size) {
-        long[] elements = bitVector.elements();
-        long[] newElements = QuickBitVector.makeBitVector(size, 1);
-        System.arraycopy(elements, 0, newElements, 0, elements.length);
-        return new BitVector(newElements, size);
+    private long[] removeNodes(long[] removedNodes) {
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+        TimeIndexStore timeIndexStore = graphStore.timeStore.nodeIndexStore;
+        long[] removedEdges = null;
+        for (int i = 0; i < removedNodes.length; i++) {
+            long word = removedNodes[i];
+            if (word != 0) {
+                nodeBitVector.setWord(i, nodeBitVector.getWord(i) & ~word);
+                nodeCount -= Long.bitCount(word);
+                while (word != 0) {
+                    int id = (i << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    NodeImpl nodeImpl = getNodeOrNull(id);
+                    if (nodeImpl == null) {
+                        nodeCount++;
+                        continue;
+                    }
+                    if (indexStore != null) {
+                        indexStore.clearInView(nodeImpl, this);
+                    }
+                    if (timeIndexStore != null) {
+                        timeIndexStore.clearInView(nodeImpl, this);
+                    }
+                    removedEdges = collectEdges(nodeImpl, removedEdges, true);
+                }
+            }
+        }
+        incrementNodeVersion();
+        return removedEdges;
     }
 
-    private NodeImpl getNode(int id) {
+    private long[] addNodes(long[] addedNodes) {
+        for (int i = 0; i < addedNodes.length; i++) {
+            if (addedNodes[i] != 0) {
+                nodeBitVector.setWord(i, nodeBitVector.getWord(i) | addedNodes[i]);
+                nodeCount += Long.bitCount(addedNodes[i]);
+            }
+        }
+        incrementNodeVersion();
+        invalidateNodeIndex();
+
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+        TimeIndexStore timeIndexStore = graphStore.timeStore.nodeIndexStore;
+        long[] addedEdges = null;
+        for (int i = 0; i < addedNodes.length; i++) {
+            long word = addedNodes[i];
+            while (word != 0) {
+                int id = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                NodeImpl nodeImpl = getNodeOrNull(id);
+                if (nodeImpl == null) {
+                    nodeBitVector.clear(id);
+                    nodeCount--;
+                    continue;
+                }
+                if (indexStore != null) {
+                    indexStore.indexInView(nodeImpl, this);
+                }
+                if (timeIndexStore != null) {
+                    timeIndexStore.indexInView(nodeImpl, this);
+                }
+                if (!edgeView) {
+                    addedEdges = collectEdges(nodeImpl, addedEdges, false);
+                }
+            }
+        }
+        return addedEdges;
+    }
+
+    private long[] collectEdges(NodeImpl nodeImpl, long[] edges, boolean inView) {
+        // Marks the incident edges which are (or are not) in the view and
+        // whose opposite node is in the view when looking for edges to add
+        EdgeInOutIterator itr = graphStore.edgeStore.edgeIterator(nodeImpl);
+        while (itr.hasNext()) {
+            EdgeImpl edge = itr.next();
+            int edgeId = edge.storeId;
+            boolean isSet = isEdgeSet(edgeId);
+            if (inView != isSet) {
+                continue;
+            }
+            if (!inView) {
+                NodeImpl opposite = edge.source == nodeImpl ? edge.target : edge.source;
+                if (!isNodeSet(opposite.storeId)) {
+                    continue;
+                }
+            }
+            if (edges == null) {
+                edges = new long[(graphStore.edgeStore.maxStoreId() + 63) >> 6];
+            }
+            edges[edgeId >> 6] |= 1L << (edgeId & 63);
+        }
+        return edges;
+    }
+
+    private void addEdges(long[] addedEdges) {
+        IndexStore<Edge> indexStore = graphStore.edgeTable.store.indexStore;
+        TimeIndexStore timeIndexStore = graphStore.timeStore.edgeIndexStore;
+        boolean changed = false;
+        for (int i = 0; i < addedEdges.length; i++) {
+            long word = addedEdges[i];
+            while (word != 0) {
+                int id = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                EdgeImpl edgeImpl = getEdgeOrNull(id);
+                if (edgeImpl == null) {
+                    continue;
+                }
+                ensureEdgeVectorSize(edgeImpl);
+                edgeBitVector.set(id);
+                edgeCount++;
+                changed = true;
+
+                int type = edgeImpl.type;
+                ensureTypeCountArrayCapacity(type);
+                typeCounts[type]++;
+                if (edgeImpl.isMutual() && edgeImpl.source.storeId < edgeImpl.target.storeId) {
+                    mutualEdgeTypeCounts[type]++;
+                    mutualEdgesCount++;
+                }
+
+                if (indexStore != null) {
+                    indexStore.indexInView(edgeImpl, this);
+                }
+                if (timeIndexStore != null) {
+                    timeIndexStore.indexInView(edgeImpl, this);
+                }
+            }
+        }
+        if (changed) {
+            incrementEdgeVersion();
+        }
+    }
+
+    private void removeEdges(long[] removedEdges, boolean updateIndex) {
+        IndexStore<Edge> indexStore = updateIndex ? graphStore.edgeTable.store.indexStore : null;
+        boolean changed = false;
+        int wordCount = Math.min(removedEdges.length, edgeBitVector.wordCount());
+        for (int i = 0; i < wordCount; i++) {
+            long word = removedEdges[i];
+            if (word != 0) {
+                edgeBitVector.setWord(i, edgeBitVector.getWord(i) & ~word);
+                while (word != 0) {
+                    int id = (i << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    EdgeImpl edgeImpl = getEdgeOrNull(id);
+                    if (edgeImpl == null) {
+                        continue;
+                    }
+                    edgeCount--;
+                    changed = true;
+
+                    typeCounts[edgeImpl.type]--;
+                    if (edgeImpl.isMutual() && edgeImpl.source.storeId < edgeImpl.target.storeId) {
+                        mutualEdgeTypeCounts[edgeImpl.type]--;
+                        mutualEdgesCount--;
+                    }
+
+                    if (indexStore != null) {
+                        indexStore.clearInView(edgeImpl, this);
+                    }
+                }
+            }
+        }
+        if (changed) {
+            incrementEdgeVersion();
+        }
+    }
+
+    private void clearNodeGarbage(PagedBitVector bitVector) {
+        NodeStore nodeStore = graphStore.nodeStore;
+        for (int i = 0; i < nodeStore.blocksCount; i++) {
+            NodeStore.NodeBlock block = nodeStore.blocks[i];
+            for (int j = 0; j < block.garbageLength; j++) {
+                int id = block.offset + block.garbageArray[j] - Short.MIN_VALUE;
+                bitVector.clear(id);
+            }
+        }
+    }
+
+    private void clearEdgeGarbage(PagedBitVector bitVector) {
+        EdgeStore edgeStore = graphStore.edgeStore;
+        for (int i = 0; i < edgeStore.blocksCount; i++) {
+            EdgeStore.EdgeBlock block = edgeStore.blocks[i];
+            for (int j = 0; j < block.garbageLength; j++) {
+                int id = block.offset + block.garbageArray[j] - Short.MIN_VALUE;
+                bitVector.clear(id);
+            }
+        }
+    }
+
+    private static long[] difference(PagedBitVector bitVector, PagedBitVector otherBitVector) {
+        // Bits set in bitVector but not in otherBitVector, null if there are
+        // none
+        int wordCount = bitVector.wordCount();
+        long[] diff = null;
+        for (int i = 0; i < wordCount; i++) {
+            long word = word(bitVector, i) & ~word(otherBitVector, i);
+            if (word != 0) {
+                if (diff == null) {
+                    diff = new long[wordCount];
+                }
+                diff[i] = word;
+            }
+        }
+        return diff;
+    }
+
+    private static long word(PagedBitVector bitVector, int index) {
+        int wordCount = bitVector.wordCount();
+        if (index >= wordCount) {
+            return 0L;
+        }
+        long word = bitVector.getWord(index);
+        int remainder = bitVector.size() & 63;
+        if (index == wordCount - 1 && remainder != 0) {
+            word &= (1L << remainder) - 1;
+        }
+        return word;
+    }
+
+    private static long[] or(long[] words, long[] otherWords) {
+        if (words == null) {
+            return otherWords;
+        }
+        if (words.length < otherWords.length) {
+            words = Arrays.copyOf(words, otherWords.length);
+        }
+        for (int i = 0; i < otherWords.length; i++) {
+            words[i] |= otherWords[i];
+        }
+        return words;
+    }
+
+    private static void complement(PagedBitVector bitVector, int maxStoreId) {
+        // Only the bits of existing store ids are set afterwards
+        bitVector.not();
+        int limit = Math.min(maxStoreId, bitVector.size());
+        int wordCount = bitVector.wordCount();
+        for (int i = limit >> 6; i < wordCount; i++) {
+            long mask = i == limit >> 6 ? (1L << (limit & 63)) - 1 : 0L;
+            bitVector.setWord(i, bitVector.getWord(i) & mask);
+        }
+    }
+
+    private PagedBitVector remapBitVector(PagedBitVector bitVector, int[] map, int size) {
+        PagedBitVector newBitVector = new PagedBitVector(size);
+        int length = Math.min(bitVector.size(), map.length);
+        for (int i = 0; i < length; i++) {
+            if (bitVector.getQuick(i) && map[i] != NodeStore.NULL_ID) {
+                newBitVector.set(map[i]);
+            }
+        }
+        bitVector.release();
+        return newBitVector;
+    }
+
+    private NodeImpl getNodeOrNull(int id) {
+        if (!graphStore.nodeStore.isValidIndex(id)) {
+            return null;
+        }
         return graphStore.nodeStore.get(id);
     }
 
-    private EdgeImpl getEdge(int id) {
+    private EdgeImpl getEdgeOrNull(int id) {
+        if (!graphStore.edgeStore.isValidIndex(id)) {
+            return null;
+        }
         return graphStore.edgeStore.get(id);
     }
 
@@ -727,6 +1137,7 @@ public class GraphViewImpl implements GraphView {
     }
 
     public int deepHashCode() {
+        applyRemovals();
         int hash = 5;
         hash = 17 * hash + (this.nodeView ? 1 : 0);
         hash = 17 * hash + (this.edgeView ? 1 : 0);
@@ -745,6 +1156,8 @@ public class GraphViewImpl implements GraphView {
         if (obj == null) {
             return false;
         }
+        applyRemovals();
+        obj.applyRemovals();
         if (this.nodeBitVector != obj.nodeBitVector && (this.nodeBitVector == null || !this.nodeBitVector
                 .equals(obj.nodeBitVector))) {
             return false;
@@ -808,12 +1221,26 @@ public class GraphViewImpl implements GraphView {
 
     private void checkIncidentNodesExists(final EdgeImpl e) {
         if (nodeView) {
-            if (!nodeBitVector.get(e.source.storeId) || !nodeBitVector.get(e.target.storeId)) {
+            if (!isNodeSet(e.source.storeId) || !isNodeSet(e.target.storeId)) {
                 throw new RuntimeException("Both source and target nodes need to be in the view");
             }
         }
     }
 
+    private void checkIncidentNodesExists(final long[] edges) {
+        for (int i = 0; i < edges.length; i++) {
+            long word = edges[i];
+            while (word != 0) {
+                int id = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                EdgeImpl edgeImpl = getEdgeOrNull(id);
+                if (edgeImpl != null) {
+                    checkIncidentNodesExists(edgeImpl);
+                }
+            }
+        }
+    }
+
     private void checkValidEdgeObject(final Edge n) {
         if (n == null) {
             throw new NullPointerException();
@@ -17,6 +17,8 @@ package org.gephi.graph.impl;
 
 import it.unimi.dsi.fastutil.ints.IntRBTreeSet;
 import it.unimi.dsi.fastutil.ints.IntSortedSet;
+import java.util.ArrayList;
+import java.util.List;
 import org.gephi.graph.api.Interval;
 import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
@@ -37,6 +39,13 @@ public class GraphViewStore {
     protected final GraphStore graphStore;
     protected GraphViewImpl[] views;
     protected int length;
+    // Node-only views containing each node, by node store id
+    protected long[][] nodeViewIndex;
+    protected final List<GraphViewImpl> unindexedViews;
+    // Removals not yet applied to all views
+    protected final List<Removal> removals;
+    protected int removalsOffset;
+    protected volatile int removalEpoch;
     // Visible view
     protected GraphView visibleView;
 
@@ -47,6 +56,8 @@ public class GraphViewStore {
         this.graphStore = graphStore;
         this.views = new GraphViewImpl[DEFAULT_VIEWS];
         this.garbageQueue = new IntRBTreeSet();
+        this.removals = new ArrayList<Removal>();
+        this.unindexedViews = new ArrayList<GraphViewImpl>();
         this.visibleView = graphStore.mainGraphView;
     }
 
@@ -194,6 +205,19 @@ public class GraphViewStore {
         return ((GraphViewImpl) view).getUndirectedGraph();
     }
 
+    public GraphSnapshot getSnapshot(GraphView view, boolean undirected) {
+        checkNonNullViewObject(view);
+
+        if (view.isMainView()) {
+            return new GraphSnapshot(graphStore, null, undirected);
+        }
+        if (!undirected) {
+            checkDirectedAllowed();
+        }
+        checkViewExist((GraphViewImpl) view);
+        return new GraphSnapshot(graphStore, (GraphViewImpl) view, undirected);
+    }
+
     public GraphView getVisibleView() {
         return visibleView;
     }
@@ -222,48 +246,173 @@ public class GraphViewStore {
         graphViewImpl.destroyGraphObserver(graphObserver);
     }
 
-    protected void addNode(NodeImpl node) {
-        if (views.length > 0) {
-            for (GraphViewImpl view : views) {
-                if (view != null) {
-                    view.ensureNodeVectorSize(node);
+    protected void removeNode(NodeImpl node) {
+        if (nodeViewIndex != null && node.storeId < nodeViewIndex.length) {
+            nodeViewIndex[node.storeId] = null;
+        }
+        if (length > garbageQueue.size()) {
+            addRemoval(new Removal(node, node.storeId, false));
+        }
+    }
+
+    protected void addEdge(EdgeImpl edge) {
+        // Only views with nodes but not edges follow the edges added to the
+        // store, and only the ones containing both endpoints are visited
+        if (!unindexedViews.isEmpty()) {
+            for (GraphViewImpl view : unindexedViews) {
+                indexNodes(view);
+            }
+            unindexedViews.clear();
+        }
+        long[] sourceViews = nodeViews(edge.source.storeId);
+        long[] targetViews = nodeViews(edge.target.storeId);
+        if (sourceViews == null || targetViews == null) {
+            return;
+        }
+        int wordCount = Math.min(sourceViews.length, targetViews.length);
+        for (int i = 0; i < wordCount; i++) {
+            long word = sourceViews[i] & targetViews[i];
+            while (word != 0) {
+                int id = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                GraphViewImpl view = views[id];
+                if (view != null && view.nodeView && !view.edgeView) {
+                    view.addEdgeInNodeView(edge);
                 }
             }
         }
     }
 
-    protected void removeNode(NodeImpl node) {
-        if (views.length > 0) {
-            for (GraphViewImpl view : views) {
-                if (view != null) {
-                    view.removeNode(node);
-                }
+    /**
+     * Adds the node to the index of <code>view</code>, which must be a
+     * node-only view whose nodes are indexed.
+     * <p>
+     * Nodes removed from views are left in the index, so it may contain more
+     * views than the ones with the node but never less.
+     *
+     * @param view view the node was added to
+     * @param nodeId node store id
+     */
+    protected void indexNode(GraphViewImpl view, int nodeId) {
+        if (nodeViewIndex == null || nodeId >= nodeViewIndex.length) {
+            int length = nodeViewIndex == null ? 0 : nodeViewIndex.length;
+            long[][] newIndex = new long[Math.max(nodeId + 1, (int) (length * 1.5))][];
+            if (nodeViewIndex != null) {
+                System.arraycopy(nodeViewIndex, 0, newIndex, 0, length);
+            }
+            nodeViewIndex = newIndex;
+        }
+        long[] row = nodeViewIndex[nodeId];
+        int wordIndex = view.storeId >> 6;
+        if (row == null || wordIndex >= row.length) {
+            long[] newRow = new long[(views.length + 63) >> 6];
+            if (row != null) {
+                System.arraycopy(row, 0, newRow, 0, row.length);
             }
+            row = newRow;
+            nodeViewIndex[nodeId] = row;
         }
+        row[wordIndex] |= 1L << view.storeId;
     }
 
-    protected void addEdge(EdgeImpl edge) {
-        if (views.length > 0) {
-            for (GraphViewImpl view : views) {
-                if (view != null) {
-                    view.ensureEdgeVectorSize(edge);
+    /**
+     * Schedules the nodes of <code>view</code> to be indexed again before the
+     * next edge is added, after a bulk change.
+     *
+     * @param view node-only view
+     */
+    protected void invalidateNodeIndex(GraphViewImpl view) {
+        if (view.nodesIndexed) {
+            view.nodesIndexed = false;
+            unindexedViews.add(view);
+        }
+    }
+
+    /**
+     * Drops the node index, all the node-only views are indexed again before
+     * the next edge is added.
+     */
+    protected void resetNodeIndex() {
+        nodeViewIndex = null;
+        unindexedViews.clear();
+        for (GraphViewImpl view : views) {
+            if (view != null && view.nodeView && !view.edgeView) {
+                view.nodesIndexed = false;
+                unindexedViews.add(view);
+            }
+        }
+    }
 
-                    if (view.nodeView && !view.edgeView) {
-                        view.addEdgeInNodeView(edge);
-                    }
+    private void indexNodes(GraphViewImpl view) {
+        if (view.storeId == NULL_VIEW || view.nodesIndexed) {
+            return;
+        }
+        int id = view.storeId;
+        if (nodeViewIndex != null) {
+            for (long[] row : nodeViewIndex) {
+                if (row != null && (id >> 6) < row.length) {
+                    row[id >> 6] &= ~(1L << id);
                 }
             }
         }
+        PagedBitVector nodeBitVector = view.nodeBitVector;
+        for (int i = nodeBitVector.wordCount(); --i >= 0;) {
+            long word = nodeBitVector.getWord(i);
+            while (word != 0) {
+                indexNode(view, (i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        view.nodesIndexed = true;
+    }
+
+    private long[] nodeViews(int nodeId) {
+        if (nodeViewIndex == null || nodeId >= nodeViewIndex.length) {
+            return null;
+        }
+        return nodeViewIndex[nodeId];
     }
 
     protected void removeEdge(EdgeImpl edge) {
+        if (length > garbageQueue.size()) {
+            boolean mutual = edge.isMutual() && edge.source.storeId < edge.target.storeId;
+            addRemoval(new Removal(edge, edge.storeId, mutual));
+        }
+    }
+
+    /**
+     * Applies the pending removals to all the views.
+     */
+    protected void applyRemovals() {
+        for (GraphViewImpl view : views) {
+            if (view != null) {
+                view.applyRemovals();
+            }
+        }
+        removalsOffset += removals.size();
+        removals.clear();
+    }
+
+    private void addRemoval(Removal removal) {
+        // Views apply the removals when they are next accessed, the log is
+        // flushed once it gets too long
+        if (removals.size() >= GraphStoreConfiguration.VIEW_MAX_PENDING_REMOVALS) {
+            applyRemovals();
+        }
+        removals.add(removal);
+        removalEpoch = removalsOffset + removals.size();
+    }
+
+    protected void compact(int[] nodeMap, int[] edgeMap) {
+        applyRemovals();
         if (views.length > 0) {
             for (GraphViewImpl view : views) {
                 if (view != null) {
-                    view.removeEdge(edge);
+                    view.compact(nodeMap, edgeMap);
                 }
             }
         }
+        resetNodeIndex();
     }
 
     protected int addView(final GraphViewImpl view) {
@@ -279,6 +428,10 @@ public class GraphViewStore {
         }
         views[id] = view;
         view.storeId = id;
+        if (view.nodeView && !view.edgeView) {
+            view.nodesIndexed = false;
+            unindexedViews.add(view);
+        }
         return id;
     }
 
@@ -289,8 +442,10 @@ public class GraphViewStore {
         views[id] = null;
         garbageQueue.add(id);
         view.storeId = NULL_VIEW;
+        view.nodesIndexed = false;
 
         view.destroyAllObservers();
+        view.releaseBitVectors();
 
         // Check if not visible view
         if (visibleView == view) {
@@ -367,4 +522,17 @@ public class GraphViewStore {
             throw new RuntimeException("Can't get a directed subgraph from an undirected graph");
         }
     }
+
+    protected static final class Removal {
+
+        protected final ElementImpl element;
+        protected final int storeId;
+        protected final boolean mutual;
+
+        public Removal(ElementImpl element, int storeId, boolean mutual) {
+            this.element = element;
+            this.storeId = storeId;
+            this.mutual = mutual;
+        }
+    }
 }
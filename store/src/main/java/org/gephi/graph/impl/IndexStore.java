@@ -25,6 +25,7 @@ import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Element;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Metric;
 import org.gephi.graph.api.Node;
 
 public class IndexStore<T extends Element> {
@@ -106,7 +107,15 @@ public class IndexStore<T extends Element> {
     }
 
     public Object set(Column column, Object oldValue, Object value, T element) {
-        lock();
+        final long start = startMetric();
+        // Columns are indexed independently, so striped writers only exclude
+        // the writers of the same column
+        final boolean striped = isStripedLocking();
+        if (striped) {
+            lockStripe(column.getIndex());
+        } else {
+            lock();
+        }
         try {
             value = mainIndex.set(column, oldValue, value, element);
 
@@ -124,13 +133,19 @@ public class IndexStore<T extends Element> {
 
             return value;
         } finally {
-            unlock();
+            if (striped) {
+                unlockStripe(column.getIndex());
+            } else {
+                unlock();
+            }
+            stopMetric(start);
         }
     }
 
     public void clear(T element) {
         ElementImpl elementImpl = (ElementImpl) element;
 
+        final long start = startMetric();
         lock();
         try {
             final int length = columnStore.length;
@@ -153,11 +168,13 @@ public class IndexStore<T extends Element> {
             }
         } finally {
             unlock();
+            stopMetric(start);
         }
     }
 
     public void index(T element) {
         ElementImpl elementImpl = (ElementImpl) element;
+        final long start = startMetric();
         lock();
         try {
             ensureAttributeArrayLength(elementImpl, columnStore.length);
@@ -174,6 +191,7 @@ public class IndexStore<T extends Element> {
             }
         } finally {
             unlock();
+            stopMetric(start);
         }
     }
 
@@ -244,7 +262,7 @@ public class IndexStore<T extends Element> {
                 final ColumnImpl[] cols = columnStore.columns;
                 for (int i = 0; i < length; i++) {
                     Column c = cols[i];
-                    if (c != null && c.isIndexed()) {
+                    if (c != null && c.isIndexed() && elementImpl.attributes.length > c.getIndex()) {
                         Object value = elementImpl.attributes[c.getIndex()];
                         index.remove(c, value, element);
                     }
@@ -291,6 +309,32 @@ public class IndexStore<T extends Element> {
 
     }
 
+    private long startMetric() {
+        return columnStore.graphStore != null ? columnStore.graphStore.metrics.start() : 0L;
+    }
+
+    private void stopMetric(long start) {
+        if (start != 0L) {
+            columnStore.graphStore.metrics.stop(Metric.INDEX_UPDATE, start);
+        }
+    }
+
+    private boolean isStripedLocking() {
+        return columnStore.graphStore != null && columnStore.graphStore.stripedLocking;
+    }
+
+    private void lockStripe(int key) {
+        if (lock != null) {
+            lock.lockStripe(key);
+        }
+    }
+
+    private void unlockStripe(int key) {
+        if (lock != null) {
+            lock.unlockStripe(key);
+        }
+    }
+
     private void lock() {
         if (lock != null) {
             lock.lock();
@@ -15,6 +15,7 @@
  */
 package org.gephi.graph.impl;
 
+import it.unimi.dsi.fastutil.ints.IntCollection;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
@@ -31,6 +32,10 @@ public final class Interval2IntTreeMap implements Map<Interval, Integer> {
     private Node nil; // the sentinel node
     private Node root; // the root of this interval tree
     private int size = 0;
+    // Array index for queries, rebuilt after enough queries since the last
+    // modification
+    private volatile IntervalArrayIndex arrayIndex;
+    private int dirtyQueries;
 
     /**
      * Constructs an empty map.
@@ -74,6 +79,7 @@ public final class Interval2IntTreeMap implements Map<Interval, Integer> {
     }
 
     private void insert(Node z) {
+        invalidateArrayIndex();
         z.left = z.right = nil;
 
         Node y = root;
@@ -192,6 +198,7 @@ public final class Interval2IntTreeMap implements Map<Interval, Integer> {
     }
 
     private void delete(Node z) {
+        invalidateArrayIndex();
         z.max = Double.NEGATIVE_INFINITY;
 
         Node y;
@@ -487,6 +494,7 @@ public final class Interval2IntTreeMap implements Map<Interval, Integer> {
 
     @Override
     public void clear() {
+        invalidateArrayIndex();
         size = 0;
         root = nil;
         nil.left = nil.right = nil.p = nil;
@@ -563,6 +571,71 @@ public final class Interval2IntTreeMap implements Map<Interval, Integer> {
         return new ValueIterable(searchNodes(point));
     }
 
+    /**
+     * Adds to <code>result</code> the values which interval keys overlap with
+     * <code>[low, high]</code>, in the order of the keys.
+     * <p>
+     * Unlike {@link #values(org.gephi.graph.api.Interval)}, this method doesn't
+     * box the values or allocate intervals.
+     *
+     * @param low low bound
+     * @param high high bound
+     * @param result collection to add the values to
+     */
+    public void values(double low, double high, IntCollection result) {
+        IntervalArrayIndex index = getArrayIndex();
+        if (index != null) {
+            index.values(low, high, result);
+        } else {
+            searchValues(root.left, low, high, result);
+        }
+    }
+
+    private IntervalArrayIndex getArrayIndex() {
+        IntervalArrayIndex index = arrayIndex;
+        if (index == null && ++dirtyQueries > size >> GraphStoreConfiguration.INTERVAL_INDEX_REBUILD_SHIFT) {
+            // Rebuilding costs a tree walk, amortized over the queries done
+            // since the last modification
+            double[] lows = new double[size];
+            double[] highs = new double[size];
+            int[] values = new int[size];
+            fillArrays(root.left, lows, highs, values, 0);
+            index = new IntervalArrayIndex(lows, highs, values, size);
+            arrayIndex = index;
+        }
+        return index;
+    }
+
+    private void invalidateArrayIndex() {
+        arrayIndex = null;
+        dirtyQueries = 0;
+    }
+
+    private int fillArrays(Node x, double[] lows, double[] highs, int[] values, int pos) {
+        if (x != nil) {
+            pos = fillArrays(x.left, lows, highs, values, pos);
+            lows[pos] = x.i.getLow();
+            highs[pos] = x.i.getHigh();
+            values[pos++] = x.v;
+            pos = fillArrays(x.right, lows, highs, values, pos);
+        }
+        return pos;
+    }
+
+    private void searchValues(Node n, double low, double high, IntCollection result) {
+        if (n == nil || low > n.max) {
+            return;
+        }
+        searchValues(n.left, low, high, result);
+        if (n.i.getHigh() >= low && n.i.getLow() <= high) {
+            result.add(n.v);
+        }
+        if (high < n.i.getLow()) {
+            return;
+        }
+        searchValues(n.right, low, high, result);
+    }
+
     private List<Node> searchNodes(Interval interval) {
         List<Node> result = new ArrayList<Node>();
         searchNodes(root.left, interval, result);
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.ints.IntCollection;
+
+/**
+ * Immutable interval index backed by primitive arrays.
+ * <p>
+ * Intervals are sorted by low and then high bounds. The array forms an implicit
+ * balanced tree: the middle of a range is the root of the range's subtree, and
+ * each position stores the maximum high bound of its subtree. Queries add the
+ * values of overlapping intervals to a collection, in the interval order,
+ * without allocating.
+ */
+public class IntervalArrayIndex {
+
+    protected final double[] lows;
+    protected final double[] highs;
+    protected final int[] values;
+    protected final double[] maxHighs;
+    protected final int size;
+
+    /**
+     * Creates an index from intervals sorted by low and then high bounds.
+     *
+     * @param lows low bounds
+     * @param highs high bounds
+     * @param values values
+     * @param size number of intervals
+     */
+    public IntervalArrayIndex(double[] lows, double[] highs, int[] values, int size) {
+        this.lows = lows;
+        this.highs = highs;
+        this.values = values;
+        this.size = size;
+        this.maxHighs = new double[size];
+        computeMaxHigh(0, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds to <code>result</code> the values of the intervals overlapping
+     * <code>[low, high]</code>.
+     *
+     * @param low low bound
+     * @param high high bound
+     * @param result collection to add the values to
+     */
+    public void values(double low, double high, IntCollection result) {
+        search(0, size, low, high, result);
+    }
+
+    private void search(int from, int to, double low, double high, IntCollection result) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            // No interval of the subtree ends after the query starts
+            if (maxHighs[mid] < low) {
+                return;
+            }
+            search(from, mid, low, high, result);
+            // This interval and the ones to its right start after the query
+            // ends
+            if (lows[mid] > high) {
+                return;
+            }
+            if (highs[mid] >= low) {
+                result.add(values[mid]);
+            }
+            from = mid + 1;
+        }
+    }
+
+    private double computeMaxHigh(int from, int to) {
+        if (from >= to) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        int mid = (from + to) >>> 1;
+        double max = Math.max(highs[mid], Math.max(computeMaxHigh(from, mid), computeMaxHigh(mid + 1, to)));
+        maxHighs[mid] = max;
+        return max;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.gephi.graph.impl;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ObjectSet;
 import java.util.Map;
@@ -94,7 +95,10 @@ public class IntervalIndexImpl<T extends Element> extends TimeIndexImpl<T, Inter
         ObjectSet<Element> elements = new ObjectOpenHashSet<Element>();
         Interval2IntTreeMap sortedMap = (Interval2IntTreeMap) timestampIndexStore.timeSortedMap;
         if (!sortedMap.isEmpty()) {
-            for (Integer index : sortedMap.values(timestamp)) {
+            IntArrayList indexes = new IntArrayList();
+            sortedMap.values(timestamp, timestamp, indexes);
+            for (int i = 0; i < indexes.size(); i++) {
+                int index = indexes.getInt(i);
                 if (index < timestamps.length) {
                     TimeIndexEntry ts = timestamps[index];
                     if (ts != null) {
@@ -117,7 +121,10 @@ public class IntervalIndexImpl<T extends Element> extends TimeIndexImpl<T, Inter
         ObjectSet<Element> elements = new ObjectOpenHashSet<Element>();
         Interval2IntTreeMap sortedMap = (Interval2IntTreeMap) timestampIndexStore.timeSortedMap;
         if (!sortedMap.isEmpty()) {
-            for (Integer index : sortedMap.values(interval)) {
+            IntArrayList indexes = new IntArrayList();
+            sortedMap.values(interval.getLow(), interval.getHigh(), indexes);
+            for (int i = 0; i < indexes.size(); i++) {
+                int index = indexes.getInt(i);
                 if (index < timestamps.length) {
                     TimeIndexEntry ts = timestamps[index];
                     if (ts != null) {
@@ -15,8 +15,7 @@
  */
 package org.gephi.graph.impl;
 
-import java.io.IOException;
-import java.io.StringReader;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
 import java.util.ArrayList;
 import java.util.List;
 import org.gephi.graph.api.AttributeUtils;
@@ -26,6 +25,7 @@ import static org.gephi.graph.impl.FormattingAndParsingUtils.LEFT_BOUND_SQUARE_B
 import static org.gephi.graph.impl.FormattingAndParsingUtils.LEFT_BOUND_BRACKET;
 import static org.gephi.graph.impl.FormattingAndParsingUtils.RIGHT_BOUND_SQUARE_BRACKET;
 import static org.gephi.graph.impl.FormattingAndParsingUtils.RIGHT_BOUND_BRACKET;
+import org.gephi.graph.impl.FormattingAndParsingUtils.Cursor;
 import org.gephi.graph.api.types.IntervalBooleanMap;
 import org.gephi.graph.api.types.IntervalByteMap;
 import org.gephi.graph.api.types.IntervalCharMap;
@@ -109,16 +109,18 @@ public final class IntervalsParser {
             return new IntervalSet();
         }
 
-        List<IntervalWithValue<Object>> intervals;
-        try {
-            intervals = parseIntervals(null, input, timeZone);
-        } catch (IOException ex) {
-            throw new RuntimeException("Unexpected expection while parsing intervals", ex);
+        DoubleArrayList bounds = new DoubleArrayList();
+        parseIntervals(null, input, timeZone, bounds, null);
+
+        if (isSortedAndDisjoint(bounds)) {
+            // Common case, intervals are already sorted
+            bounds.trim();
+            return new IntervalSet(bounds.elements());
         }
 
-        IntervalSet result = new IntervalSet(intervals.size());
-        for (IntervalWithValue<Object> interval : intervals) {
-            result.add(interval.getInterval());
+        IntervalSet result = new IntervalSet(bounds.size() / 2);
+        for (int i = 0; i < bounds.size(); i += 2) {
+            result.add(new Interval(bounds.getDouble(i), bounds.getDouble(i + 1)));
         }
 
         return result;
@@ -164,13 +166,10 @@ public final class IntervalsParser {
             return null;
         }
 
-        List<IntervalWithValue<T>> intervals;
-        try {
-            intervals = parseIntervals(typeClass, input, timeZone);
-        } catch (IOException ex) {
-            throw new RuntimeException("Unexpected expection while parsing intervals", ex);
-        }
-        int capacity = intervals.size();
+        DoubleArrayList bounds = new DoubleArrayList();
+        List<T> values = new ArrayList<T>();
+        parseIntervals(typeClass, input, timeZone, bounds, values);
+        int capacity = values.size();
 
         IntervalMap result;
         typeClass = AttributeUtils.getStandardizedType(typeClass);
@@ -196,12 +195,12 @@ public final class IntervalsParser {
             throw new IllegalArgumentException("Unsupported type " + typeClass.getClass().getCanonicalName());
         }
 
-        for (IntervalWithValue<T> interval : intervals) {
-            T value = interval.getValue();
+        for (int i = 0; i < capacity; i++) {
+            T value = values.get(i);
             if (value == null) {
                 throw new IllegalArgumentException("A value must be provided for each interval");
             }
-            result.put(interval.getInterval(), interval.getValue());
+            result.put(new Interval(bounds.getDouble(2 * i), bounds.getDouble(2 * i + 1)), value);
         }
 
         return result;
@@ -235,61 +234,50 @@ public final class IntervalsParser {
      *        intervals without values
      * @param input Input to parse
      * @param timeZone Time zone to use or null to use default time zone (UTC)
-     * @return List of Interval
+     * @param bounds List to add the low and high bounds of each interval to
+     * @param values List to add the value of each interval to, or null if
+     *        parsing intervals without values
      */
-    private static <T> List<IntervalWithValue<T>> parseIntervals(Class<T> typeClass, String input, DateTimeZone timeZone) throws IOException, IllegalArgumentException {
-        if (input == null) {
-            return null;
-        }
-
+    private static <T> void parseIntervals(Class<T> typeClass, String input, DateTimeZone timeZone, DoubleArrayList bounds, List<T> values) throws IllegalArgumentException {
         input = input.trim();
 
-        List<IntervalWithValue<T>> intervals = new ArrayList<IntervalWithValue<T>>();
-
         if (input.equalsIgnoreCase(EMPTY_VALUE)) {
-            return intervals;
+            return;
         }
 
-        StringReader reader = new StringReader(input + ' ');// Add 1 space so
-                                                            // reader.skip
-                                                            // function always
-                                                            // works when
-                                                            // necessary (end of
-                                                            // string not
-                                                            // reached).
-
+        Cursor cursor = new Cursor(input);
         int r;
         char c;
-        while ((r = reader.read()) != -1) {
+        while ((r = cursor.read()) != -1) {
             c = (char) r;
             switch (c) {
                 case LEFT_BOUND_SQUARE_BRACKET:
                 case LEFT_BOUND_BRACKET:
-                    intervals.add(parseInterval(typeClass, reader, timeZone));
+                    parseInterval(typeClass, cursor, timeZone, bounds, values);
                     break;
                 default:
                     // Ignore other chars outside of intervals
             }
         }
 
-        if (intervals.isEmpty()) {
+        if (bounds.isEmpty()) {
             throw new IllegalArgumentException("No dynamic intervals could be parsed");
         }
-
-        return intervals;
     }
 
-    private static <T> IntervalWithValue<T> parseInterval(Class<T> typeClass, StringReader reader, DateTimeZone timeZone) throws IOException {
-        ArrayList<String> values = new ArrayList<String>();
+    private static <T> void parseInterval(Class<T> typeClass, Cursor cursor, DateTimeZone timeZone, DoubleArrayList bounds, List<T> values) {
+        int count = 0;
+        String valString = null;
 
         int r;
         char c;
-        while ((r = reader.read()) != -1) {
+        while ((r = cursor.read()) != -1) {
             c = (char) r;
             switch (c) {
                 case RIGHT_BOUND_SQUARE_BRACKET:
                 case RIGHT_BOUND_BRACKET:
-                    return buildInterval(typeClass, values, timeZone);
+                    addInterval(typeClass, count, valString, values);
+                    return;
                 case ' ':
                 case '\t':
                 case '\r':
@@ -300,66 +288,52 @@ public final class IntervalsParser {
                     break;
                 case '"':
                 case '\'':
-                    values.add(FormattingAndParsingUtils.parseLiteral(reader, c));
+                    String literal = FormattingAndParsingUtils.parseLiteral(cursor, c);
+                    if (count < 2) {
+                        bounds.add(FormattingAndParsingUtils.parseDateTimeOrTimestamp(literal, timeZone));
+                    } else {
+                        valString = literal;
+                    }
+                    count++;
                     break;
                 default:
-                    reader.skip(-1);// Go backwards 1 position, for reading
+                    cursor.unread();// Go backwards 1 position, for reading
                                     // start of value
-                    values.add(FormattingAndParsingUtils.parseValue(reader));
+                    FormattingAndParsingUtils.parseValue(cursor);
+                    if (count < 2) {
+                        bounds.add(FormattingAndParsingUtils
+                                .parseDateTimeOrTimestamp(cursor.input, cursor.valueStart, cursor.valueEnd, timeZone));
+                    } else if (count == 2) {
+                        valString = cursor.value();
+                    }
+                    count++;
             }
         }
 
-        return buildInterval(typeClass, values, timeZone);
+        addInterval(typeClass, count, valString, values);
     }
 
-    private static <T> IntervalWithValue<T> buildInterval(Class<T> typeClass, ArrayList<String> values, DateTimeZone timeZone) {
-        if (typeClass == null && values.size() != 2) {
+    private static <T> void addInterval(Class<T> typeClass, int count, String valString, List<T> values) {
+        if (typeClass == null && count != 2) {
             throw new IllegalArgumentException("Each interval must have 2 values");
-        } else if (typeClass != null && values.size() != 3) {
+        } else if (typeClass != null && count != 3) {
             throw new IllegalArgumentException("Each interval must have 3 values");
         }
 
-        double low = FormattingAndParsingUtils.parseDateTimeOrTimestamp(values.get(0), timeZone);
-        double high = FormattingAndParsingUtils.parseDateTimeOrTimestamp(values.get(1), timeZone);
-
-        if (typeClass == null) {
-            return new IntervalWithValue(low, high, null);
-        } else {
-            String valString = values.get(2);
-            Object value = FormattingAndParsingUtils.convertValue(typeClass, valString);
-
-            return new IntervalWithValue(low, high, value);
+        if (typeClass != null) {
+            values.add(FormattingAndParsingUtils.convertValue(typeClass, valString));
         }
     }
 
-    /**
-     * Represents an Interval with an associated value for it. Only for internal
-     * usage in this class.
-     *
-     * @author Eduardo Ramos
-     * @param <T> Type of the value
-     */
-    private static class IntervalWithValue<T> {
-
-        private final Interval interval;
-        private final T value;
-
-        public IntervalWithValue(double low, double high, T value) {
-            this.interval = new Interval(low, high);
-            this.value = value;
-        }
-
-        public IntervalWithValue(Interval interval, T value) {
-            this.interval = interval;
-            this.value = value;
-        }
-
-        public Interval getInterval() {
-            return interval;
-        }
-
-        public T getValue() {
-            return value;
+    private static boolean isSortedAndDisjoint(DoubleArrayList bounds) {
+        for (int i = 0; i < bounds.size(); i += 2) {
+            if (bounds.getDouble(i) > bounds.getDouble(i + 1)) {
+                return false;
+            }
+            if (i > 0 && !(bounds.getDouble(i - 1) < bounds.getDouble(i))) {
+                return false;
+            }
         }
+        return true;
     }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.MemoryEstimate;
+
+public class MemoryEstimateImpl implements MemoryEstimate {
+
+    protected final boolean sampled;
+    protected long nodeStore;
+    protected long edgeStore;
+    protected long edgeDictionaries;
+    protected long attributeArrays;
+    protected long timeIndex;
+    protected final Object2LongOpenHashMap<Column> columns;
+    protected final Object2LongOpenHashMap<Column> indexes;
+    protected final Object2LongOpenHashMap<GraphView> views;
+
+    public MemoryEstimateImpl(boolean sampled) {
+        this.sampled = sampled;
+        this.columns = new Object2LongOpenHashMap<Column>();
+        this.indexes = new Object2LongOpenHashMap<Column>();
+        this.views = new Object2LongOpenHashMap<GraphView>();
+    }
+
+    @Override
+    public long getTotal() {
+        long total = nodeStore + edgeStore + edgeDictionaries + attributeArrays + timeIndex;
+        for (long size : columns.values()) {
+            total += size;
+        }
+        for (long size : indexes.values()) {
+            total += size;
+        }
+        for (long size : views.values()) {
+            total += size;
+        }
+        return total;
+    }
+
+    @Override
+    public long getNodeStore() {
+        return nodeStore;
+    }
+
+    @Override
+    public long getEdgeStore() {
+        return edgeStore;
+    }
+
+    @Override
+    public long getEdgeDictionaries() {
+        return edgeDictionaries;
+    }
+
+    @Override
+    public long getAttributeArrays() {
+        return attributeArrays;
+    }
+
+    @Override
+    public long getColumn(Column column) {
+        return columns.getLong(column);
+    }
+
+    @Override
+    public long getIndex(Column column) {
+        return indexes.getLong(column);
+    }
+
+    @Override
+    public long getView(GraphView view) {
+        return views.getLong(view);
+    }
+
+    @Override
+    public long getTimeIndex() {
+        return timeIndex;
+    }
+
+    @Override
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryEstimate{total=" + getTotal() + ", nodeStore=" + nodeStore + ", edgeStore=" + edgeStore + ", edgeDictionaries=" + edgeDictionaries + ", attributeArrays=" + attributeArrays + ", columns=" + columns
+                .size() + ", indexes=" + indexes.size() + ", views=" + views.size() + ", timeIndex=" + timeIndex + ", sampled=" + sampled + '}';
+    }
+}
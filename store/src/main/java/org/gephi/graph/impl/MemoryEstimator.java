@@ -0,0 +1,412 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenCustomHashMap;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.types.IntervalMap;
+import org.gephi.graph.api.types.IntervalSet;
+import org.gephi.graph.api.types.TimeMap;
+import org.gephi.graph.api.types.TimeSet;
+
+/**
+ * Estimates the heap memory used by a graph store from its internal structures.
+ * <p>
+ * Sizes assume a 64-bit JVM with compressed references: 12-byte object headers,
+ * 16-byte array headers, 4-byte references and 8-byte alignment. Structures are
+ * walked once, in time linear in the number of elements, except attribute
+ * values which can be sampled. Hash maps and sets are sized from their number
+ * of entries and default load factor.
+ */
+public class MemoryEstimator {
+
+    // JVM layout
+    protected static final int OBJECT_HEADER = 12;
+    protected static final int ARRAY_HEADER = 16;
+    protected static final int REFERENCE = 4;
+    // Tree map and set entries: key, value, left, right and info
+    protected static final int TREE_ENTRY = 40;
+    // Hash set and map objects, excluding their arrays
+    protected static final int HASH_OBJECT = 48;
+
+    protected final GraphStore store;
+    protected final int sampleSize;
+
+    /**
+     * Creates an estimator sampling at most <code>sampleSize</code> elements
+     * per table for attribute values.
+     *
+     * @param store graph store
+     * @param sampleSize maximum number of sampled elements per table
+     */
+    public MemoryEstimator(GraphStore store, int sampleSize) {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("The sample size must be positive");
+        }
+        this.store = store;
+        this.sampleSize = sampleSize;
+    }
+
+    public MemoryEstimateImpl estimate() {
+        boolean sampled = store.nodeStore.size() > sampleSize || store.edgeStore.size() > sampleSize;
+        MemoryEstimateImpl estimate = new MemoryEstimateImpl(sampled);
+
+        store.autoReadLock();
+        try {
+            estimateNodeStore(estimate);
+            estimateEdgeStore(estimate);
+            estimateColumns(estimate, store.nodeTable.store, store.nodeStore);
+            estimateColumns(estimate, store.edgeTable.store, store.edgeStore);
+            estimateViews(estimate);
+            estimate.timeIndex = timeIndexStore(store.timeStore.nodeIndexStore) + timeIndexStore(store.timeStore.edgeIndexStore);
+        } finally {
+            store.autoReadUnlock();
+        }
+
+        // Index stores are locked separately as the table lock can't be taken
+        // while holding the graph lock
+        estimateIndexes(estimate, store.nodeTable.store);
+        estimateIndexes(estimate, store.edgeTable.store);
+        return estimate;
+    }
+
+    protected void estimateNodeStore(MemoryEstimateImpl estimate) {
+        NodeStore nodeStore = store.nodeStore;
+        long size = array(nodeStore.blocks.length, REFERENCE) + hashMap(nodeStore.dictionary.size(), GraphStoreConfiguration.NODESTORE_DICTIONARY_LOAD_FACTOR, 2 * REFERENCE);
+        long attributeArrays = 0;
+        for (int i = 0; i < nodeStore.blocksCount; i++) {
+            NodeStore.NodeBlock block = nodeStore.blocks[i];
+            size += object(2, 12) + array(block.backingArray.length, REFERENCE) + array(block.garbageArray.length, 2);
+            for (int j = 0; j < block.nodeLength; j++) {
+                NodeImpl node = block.backingArray[j];
+                if (node != null) {
+                    // graphStore, attributes, heads, head types and properties
+                    size += object(7, 16);
+                    size += array(node.headOut.length, REFERENCE) + array(node.headIn.length, REFERENCE);
+                    if (node.headOutTypes != null) {
+                        size += array(node.headOutTypes.length, 4);
+                    }
+                    if (node.headInTypes != null) {
+                        size += array(node.headInTypes.length, 4);
+                    }
+                    if (node.properties != null) {
+                        size += object(2, 21) + textProperties(node.properties.textProperties);
+                    }
+                    attributeArrays += array(node.attributes.length, REFERENCE);
+                }
+            }
+        }
+        estimate.nodeStore = size;
+        estimate.attributeArrays += attributeArrays;
+    }
+
+    protected void estimateEdgeStore(MemoryEstimateImpl estimate) {
+        EdgeStore edgeStore = store.edgeStore;
+        long size = array(edgeStore.blocks.length, REFERENCE) + hashMap(edgeStore.dictionary.size(), GraphStoreConfiguration.EDGESTORE_DICTIONARY_LOAD_FACTOR, 2 * REFERENCE);
+        size += array(edgeStore.typeHeads.length, 4) + array(edgeStore.mutualEdgesTypeSize.length, 4);
+        long attributeArrays = 0;
+        for (int i = 0; i < edgeStore.blocksCount; i++) {
+            EdgeStore.EdgeBlock block = edgeStore.blocks[i];
+            size += object(2, 12) + array(block.backingArray.length, REFERENCE) + array(block.garbageArray.length, 2);
+            for (int j = 0; j < block.nodeLength; j++) {
+                EdgeImpl edge = block.backingArray[j];
+                if (edge != null) {
+                    // graphStore, attributes, source, target, properties,
+                    // type, store id, links and flags
+                    size += object(5, 41);
+                    if (edge.properties != null) {
+                        size += object(1, 4) + textProperties(edge.properties.textProperties);
+                    }
+                    attributeArrays += array(edge.attributes.length, REFERENCE);
+                }
+            }
+        }
+        estimate.edgeStore = size;
+        estimate.attributeArrays += attributeArrays;
+
+        long dictionaries = array(edgeStore.longDictionary.length, REFERENCE);
+        for (Long2ObjectOpenCustomHashMap<int[]> dictionary : edgeStore.longDictionary) {
+            if (dictionary != null) {
+                dictionaries += hashMap(dictionary.size(), GraphStoreConfiguration.EDGESTORE_DICTIONARY_LOAD_FACTOR, 8 + REFERENCE);
+                for (int[] ids : dictionary.values()) {
+                    dictionaries += array(ids.length, 4);
+                }
+            }
+        }
+        estimate.edgeDictionaries = dictionaries;
+    }
+
+    protected <T extends Element> void estimateColumns(MemoryEstimateImpl estimate, ColumnStore<T> columnStore, Collection<T> elements) {
+        ColumnImpl[] columns = columnStore.toArray();
+        long[] sizes = new long[columns.length];
+        int count = elements.size();
+        int step = Math.max(1, (count + sampleSize - 1) / sampleSize);
+
+        int index = 0;
+        int sampledCount = 0;
+        for (T element : elements) {
+            if (index++ % step != 0) {
+                continue;
+            }
+            sampledCount++;
+            Object[] attributes = ((ElementImpl) element).attributes;
+            for (int i = 0; i < columns.length; i++) {
+                int columnIndex = columns[i].getIndex();
+                if (columnIndex < attributes.length && !columns[i].isDictionaryEncoded()) {
+                    sizes[i] += value(attributes[columnIndex]);
+                }
+            }
+        }
+
+        double scale = sampledCount > 0 ? (double) count / sampledCount : 0.0;
+        for (int i = 0; i < columns.length; i++) {
+            ColumnImpl column = columns[i];
+            long size = (long) (sizes[i] * scale);
+            if (column.dictionary != null) {
+                size += columnDictionary(column.dictionary);
+            }
+            estimate.columns.put(column, size);
+        }
+    }
+
+    protected <T extends Element> void estimateIndexes(MemoryEstimateImpl estimate, ColumnStore<T> columnStore) {
+        IndexStore<T> indexStore = columnStore.indexStore;
+        if (indexStore == null) {
+            return;
+        }
+        columnStore.lock();
+        try {
+            estimateIndex(estimate, indexStore.mainIndex);
+            for (IndexImpl<T> index : indexStore.viewIndexes.values()) {
+                estimateIndex(estimate, index);
+            }
+        } finally {
+            columnStore.unlock();
+        }
+    }
+
+    protected void estimateIndex(MemoryEstimateImpl estimate, IndexImpl<?> index) {
+        for (IndexImpl.AbstractIndex columnIndex : index.columns) {
+            if (columnIndex == null) {
+                continue;
+            }
+            Map map = columnIndex.map;
+            boolean tree = map instanceof SortedMap;
+            long size = HASH_OBJECT + hashSet(columnIndex.nullSet.size());
+            if (map != null) {
+                size += tree ? OBJECT_HEADER : hashMap(map.size(), 0.75f, 2 * REFERENCE);
+                for (Object o : map.values()) {
+                    Set set = (Set) o;
+                    // Map entry, value set and its backing set
+                    size += (tree ? TREE_ENTRY : 0) + object(2, 0) + HASH_OBJECT + hashSet(set.size());
+                }
+            }
+            ColumnImpl column = columnIndex.column;
+            estimate.indexes.put(column, estimate.indexes.getLong(column) + size);
+        }
+    }
+
+    protected void estimateViews(MemoryEstimateImpl estimate) {
+        GraphViewStore viewStore = store.viewStore;
+        for (GraphViewImpl view : viewStore.views) {
+            if (view != null) {
+                long size = object(11, 21);
+                size += bitVector(view.nodeBitVector) + bitVector(view.edgeBitVector);
+                if (view.typeCounts != null) {
+                    size += array(view.typeCounts.length, 4);
+                }
+                if (view.mutualEdgeTypeCounts != null) {
+                    size += array(view.mutualEdgeTypeCounts.length, 4);
+                }
+                estimate.views.put(view, size);
+            }
+        }
+    }
+
+    protected long timeIndexStore(TimeIndexStore timeIndexStore) {
+        if (timeIndexStore == null) {
+            return 0;
+        }
+        long size = OBJECT_HEADER + (long) timeIndexStore.timeSortedMap.size() * TREE_ENTRY;
+        size += OBJECT_HEADER + (long) timeIndexStore.garbageQueue.size() * TREE_ENTRY;
+        if (timeIndexStore.countMap != null) {
+            size += array(timeIndexStore.countMap.length, 4);
+        }
+        if (timeIndexStore.mainIndex != null) {
+            size += timeIndex(timeIndexStore.mainIndex);
+        }
+        if (timeIndexStore.viewIndexes != null) {
+            for (Object index : timeIndexStore.viewIndexes.values()) {
+                size += timeIndex((TimeIndexImpl) index);
+            }
+        }
+        return size;
+    }
+
+    protected long timeIndex(TimeIndexImpl timeIndex) {
+        long size = array(timeIndex.timestamps.length, REFERENCE);
+        for (TimeIndexImpl.TimeIndexEntry entry : timeIndex.timestamps) {
+            if (entry != null) {
+                size += object(1, 0) + HASH_OBJECT + hashSet(entry.elementSet.size());
+            }
+        }
+        return size;
+    }
+
+    protected static long value(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return string((String) value);
+        }
+        if (value instanceof Double || value instanceof Long) {
+            return object(0, 8);
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return object(0, 4);
+        }
+        if (value instanceof double[]) {
+            return array(((double[]) value).length, 8);
+        }
+        if (value instanceof long[]) {
+            return array(((long[]) value).length, 8);
+        }
+        if (value instanceof int[]) {
+            return array(((int[]) value).length, 4);
+        }
+        if (value instanceof float[]) {
+            return array(((float[]) value).length, 4);
+        }
+        if (value instanceof short[]) {
+            return array(((short[]) value).length, 2);
+        }
+        if (value instanceof char[]) {
+            return array(((char[]) value).length, 2);
+        }
+        if (value instanceof byte[]) {
+            return array(((byte[]) value).length, 1);
+        }
+        if (value instanceof boolean[]) {
+            return array(((boolean[]) value).length, 1);
+        }
+        if (value instanceof Object[]) {
+            Object[] array = (Object[]) value;
+            long size = array(array.length, REFERENCE);
+            for (Object o : array) {
+                size += value(o);
+            }
+            return size;
+        }
+        if (value instanceof TimeMap) {
+            TimeMap map = (TimeMap) value;
+            int timeSize = value instanceof IntervalMap ? 16 : 8;
+            return object(2, 4) + array(map.size() * timeSize / 8, 8) + array(map.size(), primitiveSize(map.getTypeClass()));
+        }
+        if (value instanceof TimeSet) {
+            TimeSet set = (TimeSet) value;
+            int timeSize = value instanceof IntervalSet ? 16 : 8;
+            return object(1, 4) + array(set.size() * timeSize / 8, 8);
+        }
+        if (value instanceof Interval) {
+            return object(0, 16);
+        }
+        return object(0, 0);
+    }
+
+    protected static long string(String value) {
+        return object(1, 4) + array(value.length(), 2);
+    }
+
+    protected static long textProperties(TextPropertiesImpl textProperties) {
+        if (textProperties == null) {
+            return 0;
+        }
+        return object(1, 21) + (textProperties.text != null ? string(textProperties.text) : 0);
+    }
+
+    protected static long columnDictionary(ColumnDictionary dictionary) {
+        long size = object(3, 8) + hashMap(dictionary.size, 0.75f, REFERENCE + 4);
+        if (dictionary.values != null) {
+            size += array(dictionary.values.length, REFERENCE);
+            for (int i = 0; i < dictionary.size; i++) {
+                if (dictionary.values[i] != null) {
+                    size += string(dictionary.values[i]);
+                }
+            }
+        }
+        return size;
+    }
+
+    protected static long bitVector(PagedBitVector bitVector) {
+        if (bitVector == null) {
+            return 0;
+        }
+        long size = object(1, 5) + array(bitVector.pages.length, REFERENCE);
+        for (PagedBitVector.Page page : bitVector.pages) {
+            if (page != null) {
+                // Shared pages are split between the vectors sharing them
+                size += (object(1, 4) + array(page.words.length, 8)) / Math.max(1, page.refCount);
+            }
+        }
+        return size;
+    }
+
+    protected static int primitiveSize(Class type) {
+        if (type == Double.class || type == Long.class) {
+            return 8;
+        }
+        if (type == Integer.class || type == Float.class) {
+            return 4;
+        }
+        if (type == Short.class || type == Character.class) {
+            return 2;
+        }
+        if (type == Byte.class || type == Boolean.class) {
+            return 1;
+        }
+        return REFERENCE;
+    }
+
+    protected static long object(int references, int primitiveBytes) {
+        return align(OBJECT_HEADER + references * REFERENCE + primitiveBytes);
+    }
+
+    protected static long array(int length, int elementSize) {
+        return align(ARRAY_HEADER + (long) length * elementSize);
+    }
+
+    protected static long hashMap(int size, float loadFactor, int entrySize) {
+        // Open addressing maps have one array per key and value type, plus a
+        // slot for the null key
+        return (long) (HashCommon.arraySize(size, loadFactor) + 1) * entrySize + 2 * ARRAY_HEADER;
+    }
+
+    protected static long hashSet(int size) {
+        return array(HashCommon.arraySize(size, 0.75f) + 1, REFERENCE);
+    }
+
+    protected static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
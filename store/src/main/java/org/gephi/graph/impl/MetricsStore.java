@@ -0,0 +1,258 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.gephi.graph.api.Metric;
+
+/**
+ * Counters and latency histograms of the graph store.
+ * <p>
+ * Nothing is recorded unless metrics are enabled, in which case callers time an
+ * event with {@link #start()} and {@link #stop(Metric, long)}. Cells are
+ * striped by thread so recording threads rarely write the same cache line.
+ * Snapshots sum the stripes and aren't atomic with respect to concurrent
+ * recording.
+ * <p>
+ * Latency buckets have exponential bounds, from 1 microsecond and growing by a
+ * factor of 4.
+ */
+public class MetricsStore implements GraphMetricsMXBean {
+
+    // Cell layout of a metric in a stripe
+    private static final int COUNT = 0;
+    private static final int TOTAL_TIME = 1;
+    private static final int MAX_TIME = 2;
+    private static final int HISTOGRAM = 3;
+    private static final int BUCKETS = GraphStoreConfiguration.METRICS_HISTOGRAM_BUCKETS;
+    // Rounded up to a multiple of 8 so metrics start on their own cache line
+    private static final int METRIC_CELLS = (HISTOGRAM + BUCKETS + 7) & ~7;
+    private static final Metric[] METRICS = Metric.values();
+    private static final int STRIPE_CELLS = METRIC_CELLS * METRICS.length;
+    private static final long[] BOUNDS;
+
+    static {
+        BOUNDS = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            BOUNDS[i] = 1000L << (2 * i);
+        }
+        BOUNDS[BUCKETS - 1] = Long.MAX_VALUE;
+    }
+
+    protected final AtomicLongArray cells;
+    protected final int stripeMask;
+    protected volatile boolean enabled;
+    protected ObjectName objectName;
+
+    public MetricsStore() {
+        this(GraphStoreConfiguration.METRICS_STRIPES);
+    }
+
+    public MetricsStore(int stripeCount) {
+        if (Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("The number of stripes must be a power of two");
+        }
+        this.stripeMask = stripeCount - 1;
+        this.cells = new AtomicLongArray(stripeCount * STRIPE_CELLS);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the start time of an event, or zero if metrics are disabled.
+     *
+     * @return start time, or zero
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records an event started at <code>start</code>, unless metrics were
+     * disabled when it started.
+     *
+     * @param metric metric
+     * @param start start time returned by {@link #start()}
+     */
+    public void stop(Metric metric, long start) {
+        if (start != 0L) {
+            record(metric, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records an event which took <code>time</code> nanoseconds.
+     *
+     * @param metric metric
+     * @param time time in nanoseconds
+     */
+    public void record(Metric metric, long time) {
+        int offset = stripeOffset() + metric.ordinal() * METRIC_CELLS;
+        cells.incrementAndGet(offset + COUNT);
+        cells.addAndGet(offset + TOTAL_TIME, time);
+        long max;
+        while ((max = cells.get(offset + MAX_TIME)) < time) {
+            if (cells.compareAndSet(offset + MAX_TIME, max, time)) {
+                break;
+            }
+        }
+        cells.incrementAndGet(offset + HISTOGRAM + bucket(time));
+    }
+
+    /**
+     * Adds <code>amount</code> to an amount metric, if metrics are enabled.
+     *
+     * @param metric metric
+     * @param amount amount
+     */
+    public void add(Metric metric, long amount) {
+        if (enabled) {
+            cells.addAndGet(stripeOffset() + metric.ordinal() * METRIC_CELLS + COUNT, amount);
+        }
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < cells.length(); i++) {
+            cells.set(i, 0L);
+        }
+    }
+
+    public GraphMetricsImpl snapshot() {
+        int metricCount = METRICS.length;
+        long[] counts = new long[metricCount];
+        long[] totalTimes = new long[metricCount];
+        long[] maxTimes = new long[metricCount];
+        long[][] histograms = new long[metricCount][BUCKETS];
+        for (int stripe = 0; stripe <= stripeMask; stripe++) {
+            for (int m = 0; m < metricCount; m++) {
+                int offset = stripe * STRIPE_CELLS + m * METRIC_CELLS;
+                counts[m] += cells.get(offset + COUNT);
+                totalTimes[m] += cells.get(offset + TOTAL_TIME);
+                maxTimes[m] = Math.max(maxTimes[m], cells.get(offset + MAX_TIME));
+                for (int b = 0; b < BUCKETS; b++) {
+                    histograms[m][b] += cells.get(offset + HISTOGRAM + b);
+                }
+            }
+        }
+        return new GraphMetricsImpl(enabled, counts, totalTimes, maxTimes, histograms);
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        GraphMetricsImpl snapshot = snapshot();
+        Map<String, Long> map = new LinkedHashMap<String, Long>();
+        for (Metric metric : METRICS) {
+            map.put(metric.name(), snapshot.getCount(metric));
+        }
+        return map;
+    }
+
+    @Override
+    public Map<String, Long> getTotalTimes() {
+        GraphMetricsImpl snapshot = snapshot();
+        Map<String, Long> map = new LinkedHashMap<String, Long>();
+        for (Metric metric : METRICS) {
+            map.put(metric.name(), snapshot.getTotalTime(metric));
+        }
+        return map;
+    }
+
+    @Override
+    public Map<String, Long> getMaxTimes() {
+        GraphMetricsImpl snapshot = snapshot();
+        Map<String, Long> map = new LinkedHashMap<String, Long>();
+        for (Metric metric : METRICS) {
+            map.put(metric.name(), snapshot.getMaxTime(metric));
+        }
+        return map;
+    }
+
+    @Override
+    public long[] getHistogram(String metric) {
+        return snapshot().getHistogram(Metric.valueOf(metric));
+    }
+
+    @Override
+    public long[] getHistogramBounds() {
+        return BOUNDS.clone();
+    }
+
+    /**
+     * Registers this store in the platform MBean server, under the
+     * <code>org.gephi.graph</code> domain.
+     *
+     * @param name name property of the object name
+     */
+    public synchronized void registerMXBean(String name) {
+        if (objectName != null) {
+            return;
+        }
+        try {
+            ObjectName on = new ObjectName("org.gephi.graph:type=GraphMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+            objectName = on;
+        } catch (JMException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    public synchronized void unregisterMXBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException ex) {
+            throw new RuntimeException(ex);
+        } finally {
+            objectName = null;
+        }
+    }
+
+    protected static long[] histogramBounds() {
+        return BOUNDS.clone();
+    }
+
+    private int stripeOffset() {
+        return ((int) Thread.currentThread().getId() & stripeMask) * STRIPE_CELLS;
+    }
+
+    private static int bucket(long time) {
+        if (time < 1000L) {
+            return 0;
+        }
+        // Each bucket is 4 times wider than the previous one
+        int bucket = 1 + ((63 - Long.numberOfLeadingZeros(time / 1000L)) >> 1);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+}
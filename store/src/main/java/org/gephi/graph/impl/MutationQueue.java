@@ -0,0 +1,333 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+
+/**
+ * Queue of graph modifications submitted by any number of threads and applied
+ * by a single writer thread.
+ * <p>
+ * The writer drains the queue in batches and applies each batch with a single
+ * write lock, during which the graph's node and edge versions are incremented
+ * at most once. An edge added and then removed in the same batch is neither
+ * added nor removed. Modifications are applied in the order they were
+ * submitted.
+ * <p>
+ * The queue is bounded, producers wait when the writer falls behind. As the
+ * writer can't apply a batch while another thread holds the read or write lock,
+ * producers holding a lock don't wait: their modifications are rejected if the
+ * queue is full. Their futures can't be waited for until the lock is released
+ * either.
+ */
+public class MutationQueue {
+
+    // Default values
+    public static final int DEFAULT_BATCH_SIZE = 1 << 12;
+    public static final int DEFAULT_QUEUE_CAPACITY = 1 << 16;
+
+    protected final GraphStore graphStore;
+    protected final BlockingQueue<Mutation> queue;
+    protected final int batchSize;
+    protected volatile Thread writer;
+    protected volatile boolean shutdown;
+    protected volatile boolean terminated;
+    // Progress
+    protected volatile long appliedMutations;
+    protected volatile long appliedBatches;
+
+    public MutationQueue(GraphModel graphModel) {
+        this(graphModel, DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public MutationQueue(GraphModel graphModel, int batchSize, int queueCapacity) {
+        if (batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("The batch size and queue capacity must be positive");
+        }
+        this.graphStore = ((GraphModelImpl) graphModel).store;
+        this.batchSize = batchSize;
+        this.queue = new LinkedBlockingQueue<Mutation>(queueCapacity);
+    }
+
+    /**
+     * Starts the writer thread.
+     *
+     * @throws IllegalStateException if already started or shut down
+     */
+    public synchronized void start() {
+        if (writer != null || shutdown) {
+            throw new IllegalStateException("The queue has already been started");
+        }
+        writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, "GraphStore Mutation Writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops accepting modifications and waits for the writer to apply the
+     * pending ones. If the writer wasn't started, the pending modifications are
+     * cancelled.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalMonitorStateException if the current thread holds the
+     *         graph lock
+     */
+    public void shutdown() throws InterruptedException {
+        if (graphStore.lock.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("Impossible to wait for the writer while holding the graph lock");
+        }
+        Thread thread;
+        synchronized (this) {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+            thread = writer;
+        }
+        if (thread != null) {
+            queue.put(Mutation.END);
+            thread.join();
+        } else {
+            terminate();
+        }
+    }
+
+    public Future<Boolean> addNode(Node node) {
+        return submit(new Mutation(graphStore, Operation.ADD_NODE, node, null, null));
+    }
+
+    public Future<Boolean> removeNode(Node node) {
+        return submit(new Mutation(graphStore, Operation.REMOVE_NODE, node, null, null));
+    }
+
+    public Future<Boolean> addEdge(Edge edge) {
+        return submit(new Mutation(graphStore, Operation.ADD_EDGE, edge, null, null));
+    }
+
+    public Future<Boolean> removeEdge(Edge edge) {
+        return submit(new Mutation(graphStore, Operation.REMOVE_EDGE, edge, null, null));
+    }
+
+    /**
+     * Submits setting the value of <code>column</code> on <code>element</code>.
+     * The future returns true once the value is set.
+     *
+     * @param element element
+     * @param column column
+     * @param value value
+     * @return future
+     */
+    public Future<Boolean> setAttribute(Element element, Column column, Object value) {
+        return submit(new Mutation(graphStore, Operation.SET_ATTRIBUTE, element, column, value));
+    }
+
+    /**
+     * Returns the number of modifications waiting to be applied.
+     *
+     * @return number of queued modifications
+     */
+    public int getQueuedMutations() {
+        return queue.size();
+    }
+
+    public long getAppliedMutations() {
+        return appliedMutations;
+    }
+
+    public long getAppliedBatches() {
+        return appliedBatches;
+    }
+
+    protected Future<Boolean> submit(Mutation mutation) {
+        if (mutation.element == null) {
+            throw new NullPointerException("The element can't be null");
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException("The queue has been shut down");
+        }
+        if (graphStore.lock.isHeldByCurrentThread()) {
+            // Waiting would deadlock with the writer waiting for the write lock
+            if (!queue.offer(mutation)) {
+                throw new RejectedExecutionException("The queue is full and the current thread holds the graph lock");
+            }
+        } else {
+            try {
+                queue.put(mutation);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException(e);
+            }
+        }
+        if (terminated) {
+            // Submitted concurrently with shutdown, after the writer stopped
+            mutation.cancel(false);
+        }
+        return mutation;
+    }
+
+    protected void drain() {
+        List<Mutation> batch = new ArrayList<Mutation>(batchSize);
+        boolean end = false;
+        while (!end) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                // Only shutdown stops the writer
+                continue;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            int endIndex = batch.indexOf(Mutation.END);
+            if (endIndex >= 0) {
+                // Modifications after the end were submitted concurrently with
+                // shutdown
+                for (int i = endIndex + 1; i < batch.size(); i++) {
+                    batch.get(i).cancel(false);
+                }
+                batch.subList(endIndex, batch.size()).clear();
+                end = true;
+            }
+            if (!batch.isEmpty()) {
+                apply(batch);
+            }
+            batch.clear();
+        }
+        terminate();
+    }
+
+    private void terminate() {
+        terminated = true;
+        Mutation mutation;
+        while ((mutation = queue.poll()) != null) {
+            mutation.cancel(false);
+        }
+    }
+
+    protected void apply(List<Mutation> batch) {
+        coalesce(batch);
+
+        graphStore.autoWriteLock();
+        GraphVersion version = graphStore.version;
+        if (version != null) {
+            version.beginBatch();
+        }
+        try {
+            for (Mutation mutation : batch) {
+                if (!mutation.isDone()) {
+                    mutation.run();
+                }
+            }
+        } finally {
+            if (version != null) {
+                version.endBatch();
+            }
+            graphStore.autoWriteUnlock();
+        }
+        appliedMutations += batch.size();
+        appliedBatches++;
+    }
+
+    /**
+     * Completes the pairs of adding and removing the same edge, if the edge
+     * isn't in the store yet. Both modifications return true. Edges added more
+     * than once in the batch aren't coalesced, their modifications are applied
+     * in order.
+     *
+     * @param batch batch
+     */
+    protected void coalesce(List<Mutation> batch) {
+        Map<Element, Mutation> addedEdges = null;
+        for (Mutation mutation : batch) {
+            if (mutation.operation == Operation.ADD_EDGE) {
+                EdgeImpl edge = (EdgeImpl) mutation.element;
+                if (edge.storeId == EdgeStore.NULL_ID) {
+                    if (addedEdges == null) {
+                        addedEdges = new IdentityHashMap<Element, Mutation>();
+                    }
+                    // Null marks edges added more than once
+                    addedEdges.put(edge, addedEdges.containsKey(edge) ? null : mutation);
+                }
+            } else if (mutation.operation == Operation.REMOVE_EDGE && addedEdges != null) {
+                Mutation added = addedEdges.get(mutation.element);
+                if (added != null) {
+                    addedEdges.remove(mutation.element);
+                    added.complete();
+                    mutation.complete();
+                }
+            }
+        }
+    }
+
+    protected enum Operation {
+
+        ADD_NODE, REMOVE_NODE, ADD_EDGE, REMOVE_EDGE, SET_ATTRIBUTE
+    }
+
+    protected static class Mutation extends FutureTask<Boolean> {
+
+        protected static final Mutation END = new Mutation(null, null, null, null, null);
+
+        protected final Operation operation;
+        protected final Element element;
+
+        public Mutation(final GraphStore graphStore, final Operation operation, final Element element, final Column column, final Object value) {
+            super(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    switch (operation) {
+                        case ADD_NODE:
+                            return graphStore.addNode((Node) element);
+                        case REMOVE_NODE:
+                            return graphStore.removeNode((Node) element);
+                        case ADD_EDGE:
+                            return graphStore.addEdge((Edge) element);
+                        case REMOVE_EDGE:
+                            return graphStore.removeEdge((Edge) element);
+                        case SET_ATTRIBUTE:
+                            element.setAttribute(column, value);
+                            return true;
+                        default:
+                            throw new RuntimeException("Unrecognized operation");
+                    }
+                }
+            });
+            this.operation = operation;
+            this.element = element;
+        }
+
+        protected void complete() {
+            set(Boolean.TRUE);
+        }
+    }
+}
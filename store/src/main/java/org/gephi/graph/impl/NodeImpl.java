@@ -16,6 +16,7 @@
 package org.gephi.graph.impl;
 
 import java.awt.Color;
+import java.util.Arrays;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.api.NodeProperties;
 import org.gephi.graph.api.Table;
@@ -26,6 +27,10 @@ public class NodeImpl extends ElementImpl implements Node {
     protected int storeId = NodeStore.NULL_ID;
     protected EdgeImpl[] headOut = new EdgeImpl[GraphStoreConfiguration.EDGESTORE_DEFAULT_TYPE_COUNT];
     protected EdgeImpl[] headIn = new EdgeImpl[GraphStoreConfiguration.EDGESTORE_DEFAULT_TYPE_COUNT];
+    // Sorted types of the heads when sparse, null when the heads are indexed by
+    // type
+    protected int[] headOutTypes;
+    protected int[] headInTypes;
     // Degree
     protected int inDegree;
     protected int outDegree;
@@ -54,6 +59,22 @@ public class NodeImpl extends ElementImpl implements Node {
         this.storeId = id;
     }
 
+    EdgeImpl getHeadOut(int type) {
+        return getHead(headOut, headOutTypes, type);
+    }
+
+    EdgeImpl getHeadIn(int type) {
+        return getHead(headIn, headInTypes, type);
+    }
+
+    private static EdgeImpl getHead(EdgeImpl[] heads, int[] types, int type) {
+        if (types == null) {
+            return type < heads.length ? heads[type] : null;
+        }
+        int index = Arrays.binarySearch(types, type);
+        return index >= 0 ? heads[index] : null;
+    }
+
     public int getDegree() {
         return inDegree + outDegree;
     }
@@ -19,9 +19,11 @@ import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ObjectSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import org.gephi.graph.api.Metric;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.api.NodeIterable;
 
@@ -45,6 +47,8 @@ public class NodeStore implements Collection<Node>, NodeIterable {
     protected Object2IntOpenHashMap dictionary;
     // View store
     protected final GraphViewStore viewStore;
+    // Metrics (optional)
+    protected final MetricsStore metrics;
 
     public NodeStore() {
         initStore();
@@ -52,27 +56,33 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         this.edgeStore = null;
         this.viewStore = null;
         this.version = null;
+        this.metrics = null;
     }
 
-    public NodeStore(final EdgeStore edgeStore, final GraphLock lock, final GraphViewStore viewStore, final GraphVersion graphVersion) {
+    public NodeStore(final EdgeStore edgeStore, final GraphLock lock, final GraphViewStore viewStore, final GraphVersion graphVersion, final MetricsStore metrics) {
         initStore();
         this.lock = lock;
         this.edgeStore = edgeStore;
         this.viewStore = viewStore;
         this.version = graphVersion;
+        this.metrics = metrics;
     }
 
     private void initStore() {
         this.size = 0;
+        initBlocks();
+        this.dictionary = new Object2IntOpenHashMap(GraphStoreConfiguration.NODESTORE_DEFAULT_DICTIONARY_SIZE,
+                GraphStoreConfiguration.NODESTORE_DICTIONARY_LOAD_FACTOR);
+        this.dictionary.defaultReturnValue(NULL_ID);
+    }
+
+    private void initBlocks() {
         this.garbageSize = 0;
         this.blocksCount = 1;
         this.currentBlockIndex = 0;
         this.blocks = new NodeBlock[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS];
         this.blocks[0] = new NodeBlock(0);
         this.currentBlock = blocks[currentBlockIndex];
-        this.dictionary = new Object2IntOpenHashMap(GraphStoreConfiguration.NODESTORE_DEFAULT_DICTIONARY_SIZE,
-                GraphStoreConfiguration.NODESTORE_DICTIONARY_LOAD_FACTOR);
-        this.dictionary.defaultReturnValue(NULL_ID);
     }
 
     private void ensureCapacity(final int capacity) {
@@ -229,6 +239,7 @@ public class NodeStore implements Collection<Node>, NodeIterable {
 
         NodeImpl node = (NodeImpl) n;
         if (node.storeId == NodeStore.NULL_ID) {
+            long start = startMetric();
             checkIdDoesntExist(n.getId());
 
             incrementVersion();
@@ -248,13 +259,11 @@ public class NodeStore implements Collection<Node>, NodeIterable {
                 currentBlock.add(node);
                 dictionary.put(node.getId(), node.storeId);
             }
-            if (viewStore != null) {
-                viewStore.addNode(node);
-            }
             node.indexAttributes();
 
             size++;
 
+            stopMetric(Metric.NODE_ADD, start);
             return true;
         } else if (isValidIndex(node.storeId) && get(node.storeId) == node) {
             return false;
@@ -270,6 +279,7 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         NodeImpl node = (NodeImpl) o;
         int id = node.storeId;
         if (id != NodeStore.NULL_ID) {
+            long start = startMetric();
             checkNodeExists(node);
 
             if (viewStore != null) {
@@ -302,6 +312,7 @@ public class NodeStore implements Collection<Node>, NodeIterable {
                     break;
                 }
             }
+            stopMetric(Metric.NODE_REMOVE, start);
             return true;
         }
         return false;
@@ -478,6 +489,16 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         return 0;
     }
 
+    private long startMetric() {
+        return metrics != null ? metrics.start() : 0L;
+    }
+
+    private void stopMetric(Metric metric, long start) {
+        if (metrics != null) {
+            metrics.stop(metric, start);
+        }
+    }
+
     protected boolean isValidIndex(int id) {
         if (id < 0 || id >= currentBlock.offset + currentBlock.nodeLength) {
             return false;
@@ -518,6 +539,90 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         }
     }
 
+    boolean needsCompaction() {
+        return garbageSize >= GraphStoreConfiguration.NODESTORE_BLOCK_SIZE && garbageSize > size * GraphStoreConfiguration.COMPACTION_GARBAGE_RATIO;
+    }
+
+    /**
+     * Renumbers the nodes so store ids are consecutive, preserving their order.
+     * <p>
+     * The edge store has to be compacted afterwards as its dictionary depends
+     * on node store ids.
+     *
+     * @return array mapping old store ids to new ones, or <code>NULL_ID</code>
+     *         for empty slots
+     */
+    protected int[] compact() {
+        int[] map = new int[maxStoreId()];
+        Arrays.fill(map, NULL_ID);
+
+        NodeImpl[] nodes = toArray();
+        initBlocks();
+        for (NodeImpl node : nodes) {
+            int oldId = node.storeId;
+            ensureCapacity(1);
+            currentBlock.add(node);
+            map[oldId] = node.storeId;
+            dictionary.put(node.getId(), node.storeId);
+        }
+        trimDictionary();
+        return map;
+    }
+
+    /**
+     * Adds the nodes at their index in the given array, which becomes their
+     * store id.
+     * <p>
+     * Null entries are left as empty slots. This is used to restore a store
+     * with its original store ids and requires the store to be empty.
+     *
+     * @param nodes nodes indexed by store id
+     * @param length number of store ids to consider in the array
+     */
+    protected void bulkAdd(NodeImpl[] nodes, int length) {
+        if (!isEmpty()) {
+            throw new IllegalStateException("The store is not empty");
+        }
+        if (length == 0) {
+            return;
+        }
+        incrementVersion();
+
+        initBlocks();
+        ensureCapacity(length);
+        dictionary = new Object2IntOpenHashMap(
+                Math.max(GraphStoreConfiguration.NODESTORE_DEFAULT_DICTIONARY_SIZE, length),
+                GraphStoreConfiguration.NODESTORE_DICTIONARY_LOAD_FACTOR);
+        dictionary.defaultReturnValue(NULL_ID);
+
+        for (int i = 0; i < length; i++) {
+            NodeImpl node = nodes[i];
+            NodeBlock block = blocks[i / GraphStoreConfiguration.NODESTORE_BLOCK_SIZE];
+            if (node == null) {
+                block.addGarbage();
+                garbageSize++;
+            } else {
+                checkNonNullNodeObject(node);
+                if (node.storeId != NodeStore.NULL_ID) {
+                    throw new IllegalArgumentException("The node already belongs to another store");
+                }
+                checkIdDoesntExist(node.getId());
+                block.add(node);
+                dictionary.put(node.getId(), node.storeId);
+                size++;
+            }
+        }
+        currentBlockIndex = blocksCount - 1;
+        currentBlock = blocks[currentBlockIndex];
+
+        for (int i = 0; i < length; i++) {
+            NodeImpl node = nodes[i];
+            if (node != null) {
+                node.indexAttributes();
+            }
+        }
+    }
+
     int maxStoreId() {
         return currentBlock.offset + currentBlock.nodeLength;
     }
@@ -553,6 +658,11 @@ public class NodeStore implements Collection<Node>, NodeIterable {
             k.setStoreId(i + offset);
         }
 
+        public void addGarbage() {
+            int i = nodeLength++;
+            garbageArray[garbageLength++] = (short) (i + Short.MIN_VALUE);
+        }
+
         public void set(NodeImpl k) {
             int i = garbageArray[--garbageLength] - Short.MIN_VALUE;
             backingArray[i] = k;
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import cern.colt.bitvector.BitVector;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Bit vector split in fixed-size pages which are shared between copies.
+ * <p>
+ * Copying the vector only copies the page references. A page is cloned the
+ * first time one of the vectors sharing it is modified. Pages are reference
+ * counted so the last vector holding a page modifies it in place.
+ * <p>
+ * Bits are stored like in {@link BitVector}, bit <code>i</code> is bit
+ * <code>i % 64</code> of word <code>i / 64</code>. A vector isn't thread-safe,
+ * but vectors sharing pages can be modified concurrently by different threads:
+ * reference counts are updated atomically and a shared page is cloned before
+ * the vector gives up its reference.
+ */
+public class PagedBitVector {
+
+    protected static final int PAGE_WORDS = GraphStoreConfiguration.VIEW_PAGE_SIZE >> 6;
+    protected Page[] pages;
+    protected int size;
+    protected boolean released;
+
+    public PagedBitVector(int size) {
+        this.pages = new Page[0];
+        ensureSize(size);
+    }
+
+    public PagedBitVector(long[] elements, int size) {
+        this(size);
+        int wordCount = Math.min(elements.length, wordCount());
+        for (int i = 0; i < wordCount; i++) {
+            pages[i / PAGE_WORDS].words[i % PAGE_WORDS] = elements[i];
+        }
+    }
+
+    private PagedBitVector(PagedBitVector bitVector) {
+        this.pages = new Page[bitVector.pages.length];
+        for (int i = 0; i < pages.length; i++) {
+            Page page = bitVector.pages[i];
+            if (bitVector.released) {
+                // Released pages may be modified in place by their owner
+                page = page.copy();
+            } else {
+                page.retain();
+            }
+            pages[i] = page;
+        }
+        this.size = bitVector.size;
+    }
+
+    /**
+     * Returns a copy of this vector, sharing the pages with it.
+     *
+     * @return copy
+     */
+    public PagedBitVector copy() {
+        return new PagedBitVector(this);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int wordCount() {
+        return (size + 63) >> 6;
+    }
+
+    public boolean get(int index) {
+        checkIndex(index);
+        return getQuick(index);
+    }
+
+    public boolean getQuick(int index) {
+        return (getWord(index >> 6) & (1L << (index & 63))) != 0;
+    }
+
+    public void set(int index) {
+        checkIndex(index);
+        int wordIndex = index >> 6;
+        long word = getWord(wordIndex);
+        long newWord = word | (1L << (index & 63));
+        if (newWord != word) {
+            writablePage(wordIndex / PAGE_WORDS).words[wordIndex % PAGE_WORDS] = newWord;
+        }
+    }
+
+    public void clear(int index) {
+        checkIndex(index);
+        int wordIndex = index >> 6;
+        long word = getWord(wordIndex);
+        long newWord = word & ~(1L << (index & 63));
+        if (newWord != word) {
+            writablePage(wordIndex / PAGE_WORDS).words[wordIndex % PAGE_WORDS] = newWord;
+        }
+    }
+
+    /**
+     * Clears all the bits. Shared pages are released rather than cloned.
+     */
+    public void clear() {
+        for (int i = 0; i < pages.length; i++) {
+            Page page = pages[i];
+            if (released || !page.isExclusive()) {
+                // The content isn't needed, no need to clone it
+                if (!released) {
+                    release(page);
+                }
+                pages[i] = new Page(page.words.length);
+            } else {
+                Arrays.fill(page.words, 0L);
+            }
+        }
+    }
+
+    /**
+     * Flips all the bits, including the unused bits of the last word.
+     */
+    public void not() {
+        for (int i = 0; i < pages.length; i++) {
+            long[] words = writablePage(i).words;
+            for (int j = 0; j < words.length; j++) {
+                words[j] = ~words[j];
+            }
+        }
+    }
+
+    public long getWord(int wordIndex) {
+        return pages[wordIndex / PAGE_WORDS].words[wordIndex % PAGE_WORDS];
+    }
+
+    /**
+     * Sets the word at <code>wordIndex</code>, cloning its page if it's shared
+     * and the word changes.
+     *
+     * @param wordIndex word index
+     * @param word word value
+     */
+    public void setWord(int wordIndex, long word) {
+        Page page = pages[wordIndex / PAGE_WORDS];
+        if (page.words[wordIndex % PAGE_WORDS] != word) {
+            writablePage(wordIndex / PAGE_WORDS).words[wordIndex % PAGE_WORDS] = word;
+        }
+    }
+
+    /**
+     * Grows this vector so it can hold at least <code>newSize</code> bits.
+     *
+     * @param newSize new size
+     */
+    public void ensureSize(int newSize) {
+        if (newSize <= size) {
+            return;
+        }
+        int wordCount = (newSize + 63) >> 6;
+        int pageCount = (wordCount + PAGE_WORDS - 1) / PAGE_WORDS;
+        if (pageCount > pages.length) {
+            Page[] newPages = new Page[pageCount];
+            System.arraycopy(pages, 0, newPages, 0, pages.length);
+            pages = newPages;
+        }
+        for (int i = 0; i < pageCount; i++) {
+            int pageWords = Math.min(PAGE_WORDS, wordCount - i * PAGE_WORDS);
+            Page page = pages[i];
+            if (page == null) {
+                pages[i] = new Page(pageWords);
+            } else if (page.words.length < pageWords) {
+                Page newPage = new Page(pageWords);
+                System.arraycopy(page.words, 0, newPage.words, 0, page.words.length);
+                if (!released) {
+                    release(page);
+                }
+                pages[i] = newPage;
+            }
+        }
+        size = newSize;
+    }
+
+    /**
+     * Releases the pages held by this vector so other vectors sharing them
+     * don't have to clone them anymore. This vector can still be read, but its
+     * content may change.
+     */
+    public void release() {
+        if (!released) {
+            released = true;
+            for (Page page : pages) {
+                release(page);
+            }
+        }
+    }
+
+    /**
+     * Returns a {@link BitVector} with the same bits.
+     *
+     * @return bit vector
+     */
+    public BitVector toBitVector() {
+        int wordCount = wordCount();
+        long[] elements = new long[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            elements[i] = getWord(i);
+        }
+        return new BitVector(elements, size);
+    }
+
+    /**
+     * Returns a hash code based on the set bits only, so vectors of different
+     * sizes with the same bits set have the same hash code.
+     *
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+        long h = 1234;
+        for (int i = wordCount(); --i >= 0;) {
+            h ^= maskedWord(i) * (i + 1);
+        }
+        return (int) ((h >> 32) ^ h);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        // Vectors grow lazily, only the set bits are compared
+        PagedBitVector other = (PagedBitVector) obj;
+        int wordCount = Math.max(wordCount(), other.wordCount());
+        for (int i = 0; i < wordCount; i++) {
+            if (maskedWord(i) != other.maskedWord(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long maskedWord(int wordIndex) {
+        int wordCount = wordCount();
+        if (wordIndex >= wordCount) {
+            return 0L;
+        }
+        long word = getWord(wordIndex);
+        if (wordIndex == wordCount - 1 && (size & 63) != 0) {
+            word &= (1L << (size & 63)) - 1;
+        }
+        return word;
+    }
+
+    private Page writablePage(int pageIndex) {
+        Page page = pages[pageIndex];
+        if (released) {
+            Page newPage = page.copy();
+            pages[pageIndex] = newPage;
+            return newPage;
+        }
+        while (true) {
+            int refCount = page.refCount;
+            if (refCount <= 1) {
+                return page;
+            }
+            // Cloned before giving up the reference, as the last vector
+            // holding the page modifies it in place
+            Page newPage = page.copy();
+            if (Page.REF_COUNT.compareAndSet(page, refCount, refCount - 1)) {
+                pages[pageIndex] = newPage;
+                return newPage;
+            }
+        }
+    }
+
+    private void release(Page page) {
+        while (true) {
+            int refCount = page.refCount;
+            if (refCount <= 0 || Page.REF_COUNT.compareAndSet(page, refCount, refCount - 1)) {
+                return;
+            }
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+    }
+
+    protected static final class Page {
+
+        protected static final AtomicIntegerFieldUpdater<Page> REF_COUNT = AtomicIntegerFieldUpdater
+                .newUpdater(Page.class, "refCount");
+        protected final long[] words;
+        protected volatile int refCount;
+
+        public Page(int length) {
+            this.words = new long[length];
+            this.refCount = 1;
+        }
+
+        public void retain() {
+            REF_COUNT.incrementAndGet(this);
+        }
+
+        public boolean isExclusive() {
+            return refCount <= 1;
+        }
+
+        public Page copy() {
+            Page page = new Page(words.length);
+            System.arraycopy(words, 0, page.words, 0, words.length);
+            return page;
+        }
+    }
+}
@@ -41,7 +41,10 @@ import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrays;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.shorts.ShortArrayList;
 import it.unimi.dsi.fastutil.shorts.ShortOpenHashSet;
@@ -49,14 +52,27 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.CRC32;
+import org.gephi.graph.api.Column;
 import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.Origin;
 import org.gephi.graph.api.Estimator;
@@ -73,7 +89,9 @@ import org.gephi.graph.api.types.TimestampShortMap;
 import org.gephi.graph.api.types.TimestampStringMap;
 import org.gephi.graph.api.types.TimestampMap;
 import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Element;
 import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.Metric;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.api.TimeRepresentation;
 import org.gephi.graph.api.types.IntervalBooleanMap;
@@ -90,13 +108,14 @@ import org.gephi.graph.api.types.IntervalStringMap;
 import org.gephi.graph.impl.EdgeImpl.EdgePropertiesImpl;
 import org.gephi.graph.impl.NodeImpl.NodePropertiesImpl;
 import org.gephi.graph.impl.utils.DataInputOutput;
+import org.gephi.graph.impl.utils.LZFCodec;
 import org.gephi.graph.impl.utils.LongPacker;
 import org.joda.time.DateTimeZone;
 
 // Greatly inspired from JDBM https://github.com/jankotek/JDBM3
 public class Serialization {
 
-    final static float VERSION = 0.5f;
+    final static float VERSION = 0.9f;
     final static int NULL_ID = -1;
     final static int NULL = 0;
     final static int NORMAL = 1;
@@ -181,6 +200,7 @@ public class Serialization {
     final static int CLASS = 126;
     final static int DATE = 127;
     final static String EMPTY_STRING = "";
+    final static int EDGE_DIRECTED_FLAG = 1;
     // Specifics
     final static int NODE = 200;
     final static int EDGE = 201;
@@ -214,19 +234,47 @@ public class Serialization {
     final static int LIST = 229;
     final static int SET = 230;
     final static int MAP = 231;
+    final static int GRAPH_STORE_DELTA = 232;
     // Store
     protected final Int2IntMap idMap;
     protected GraphModelImpl model;
     protected float readVersion = VERSION;
+    // Record state
+    protected int lastNodeStoreId;
+    protected int lastEdgeStoreId;
+    protected int lastEdgeSourceId;
+    // Bulk loading
+    protected NodeImpl[] loadedNodes;
+    protected int loadedNodesLength;
+    protected EdgeImpl[] loadedEdges;
+    protected int loadedEdgesLength;
+    // Selective loading
+    protected int selectedViewId = GraphViewStore.NULL_VIEW;
+    protected Collection<String> selectedNodeColumns;
+    protected Collection<String> selectedEdgeColumns;
+    protected PagedBitVector nodeSelection;
+    protected PagedBitVector edgeSelection;
+    protected int[] droppedNodeColumns;
+    protected int[] droppedEdgeColumns;
+    // Copies of the column dictionaries, indexed by column
+    protected ColumnDictionary[] nodeDictionaries;
+    protected ColumnDictionary[] edgeDictionaries;
     // Deserialized configuration
     protected GraphStoreConfigurationVersion graphStoreConfigurationVersion;
+    // Chunks (optional)
+    protected final ExecutorService executor;
 
     public Serialization() {
         this(null);
     }
 
     public Serialization(GraphModelImpl graphModel) {
+        this(graphModel, null);
+    }
+
+    public Serialization(GraphModelImpl graphModel, ExecutorService executor) {
         model = graphModel;
+        this.executor = executor;
         idMap = new Int2IntOpenHashMap();
         idMap.defaultReturnValue(NULL_ID);
     }
@@ -238,6 +286,29 @@ public class Serialization {
         serialize(out, model.store);
     }
 
+    public Future<Void> serializeGraphModelInBackground(DataOutput out, GraphModelImpl model, ExecutorService executor) throws IOException {
+        this.model = model;
+        BackgroundSave save;
+        model.store.autoWriteLock();
+        try {
+            if (model.store.backgroundSave != null) {
+                throw new IllegalStateException("A background save is already running");
+            }
+            save = new BackgroundSave(this, model, out);
+            model.store.backgroundSave = save;
+        } finally {
+            model.store.autoWriteUnlock();
+        }
+        FutureTask<Void> task = save.newTask();
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            save.finish();
+            throw e;
+        }
+        return task;
+    }
+
     public GraphModelImpl deserializeGraphModel(DataInput is) throws IOException, ClassNotFoundException {
         readVersion = (Float) deserialize(is);
         Configuration config = (Configuration) deserialize(is);
@@ -246,6 +317,23 @@ public class Serialization {
         return model;
     }
 
+    public GraphModelImpl deserializeGraphModel(DataInput is, int viewId, Collection<String> nodeColumns, Collection<String> edgeColumns) throws IOException, ClassNotFoundException {
+        selectedViewId = viewId;
+        selectedNodeColumns = nodeColumns;
+        selectedEdgeColumns = edgeColumns;
+        try {
+            return deserializeGraphModel(is);
+        } finally {
+            selectedViewId = GraphViewStore.NULL_VIEW;
+            selectedNodeColumns = null;
+            selectedEdgeColumns = null;
+            nodeSelection = null;
+            edgeSelection = null;
+            droppedNodeColumns = null;
+            droppedEdgeColumns = null;
+        }
+    }
+
     public GraphModelImpl deserializeGraphModelWithoutVersionPrefix(DataInput is, float version) throws IOException, ClassNotFoundException {
         readVersion = version;
         Configuration config = (Configuration) deserialize(is);
@@ -254,49 +342,225 @@ public class Serialization {
         return model;
     }
 
-    public void serializeGraphStore(DataOutput out, GraphStore store) throws IOException {
-        // Configuration
-        serializeGraphStoreConfiguration(out);
+    public void serializeGraphModelCheckpoint(DataOutput out, GraphModelImpl model) throws IOException {
+        model.store.autoWriteLock();
+        try {
+            serializeGraphModel(out, model);
+            if (model.checkpoint != null) {
+                model.checkpoint.destroy();
+            }
+            model.checkpoint = new DeltaCheckpoint(model.store);
+        } finally {
+            model.store.autoWriteUnlock();
+        }
+    }
 
-        // GraphVersion
-        serialize(out, store.version);
+    public void serializeGraphModelDelta(DataOutput out, GraphModelImpl model) throws IOException {
+        this.model = model;
+        model.store.autoWriteLock();
+        try {
+            if (model.checkpoint == null) {
+                throw new IllegalStateException("A checkpoint should be written first");
+            }
+            serialize(out, VERSION);
+            serialize(out, model.checkpoint);
+        } finally {
+            model.store.autoWriteUnlock();
+        }
+    }
 
-        // Edge types
-        EdgeTypeStore edgeTypeStore = store.edgeTypeStore;
-        serialize(out, edgeTypeStore);
+    public void clearCheckpoint(GraphModelImpl model) {
+        model.store.autoWriteLock();
+        try {
+            if (model.checkpoint != null) {
+                model.checkpoint.destroy();
+                model.checkpoint = null;
+            }
+        } finally {
+            model.store.autoWriteUnlock();
+        }
+    }
 
-        // Column
-        serialize(out, store.nodeTable);
-        serialize(out, store.edgeTable);
+    public void startWriteAheadLog(GraphModelImpl model, OutputStream output, int groupCommitSize) {
+        model.store.autoWriteLock();
+        try {
+            if (model.store.writeAheadLog != null) {
+                throw new IllegalStateException("A write-ahead log is already started");
+            }
+            WriteAheadLog writeAheadLog = new WriteAheadLog(model.store, output, groupCommitSize);
+            writeAheadLog.start();
+            model.store.writeAheadLog = writeAheadLog;
+        } finally {
+            model.store.autoWriteUnlock();
+        }
+    }
 
-        // Time store
-        serialize(out, store.timeStore);
+    public void commitWriteAheadLog(GraphModelImpl model) throws IOException {
+        WriteAheadLog writeAheadLog = model.store.writeAheadLog;
+        if (writeAheadLog == null) {
+            throw new IllegalStateException("No write-ahead log is started");
+        }
+        writeAheadLog.commit();
+    }
 
-        // Factory
-        serialize(out, store.factory);
+    public void stopWriteAheadLog(GraphModelImpl model) throws IOException {
+        WriteAheadLog writeAheadLog;
+        model.store.autoWriteLock();
+        try {
+            writeAheadLog = model.store.writeAheadLog;
+            if (writeAheadLog == null) {
+                throw new IllegalStateException("No write-ahead log is started");
+            }
+            model.store.writeAheadLog = null;
+        } finally {
+            model.store.autoWriteUnlock();
+        }
+        writeAheadLog.close();
+    }
 
-        // Atts
-        serialize(out, store.attributes);
+    public int replayWriteAheadLog(DataInput is, GraphModelImpl model) throws IOException {
+        return WriteAheadLog.replay(is, model.store);
+    }
 
-        // TimeFormat
-        serialize(out, store.timeFormat);
+    public GraphModelImpl deserializeGraphModelWithDeltas(DataInput is, DataInput... deltas) throws IOException, ClassNotFoundException {
+        deserializeGraphModel(is);
+        for (DataInput delta : deltas) {
+            readVersion = (Float) deserialize(delta);
+            if (!(deserialize(delta) instanceof GraphStore)) {
+                throw new IOException("The input isn't a graph store delta");
+            }
+        }
+        return model;
+    }
 
-        // Time zone
-        serialize(out, store.timeZone);
+    public void serializeGraphStore(DataOutput out, final GraphStore store) throws IOException {
+        long start = store.metrics.start();
+        List<Callable<Chunk>> tasks = new ArrayList<Callable<Chunk>>();
+        tasks.addAll(newHeadChunkWriters(store));
 
-        // Nodes + Edges
-        int nodesAndEdges = store.nodeStore.size() + store.edgeStore.size();
-        serialize(out, nodesAndEdges);
+        // Nodes, one chunk per block
+        NodeStore nodeStore = store.nodeStore;
+        for (int i = 0; i < nodeStore.blocksCount; i++) {
+            NodeStore.NodeBlock block = nodeStore.blocks[i];
+            tasks.add(newNodeBlockWriter(block.backingArray, block.nodeLength));
+        }
 
-        for (Node node : store.nodeStore) {
-            serialize(out, node);
+        // Edges, one chunk per block
+        EdgeStore edgeStore = store.edgeStore;
+        for (int i = 0; i < edgeStore.blocksCount; i++) {
+            EdgeStore.EdgeBlock block = edgeStore.blocks[i];
+            tasks.add(newEdgeBlockWriter(block.backingArray, block.nodeLength));
         }
-        for (Edge edge : store.edgeStore) {
-            serialize(out, edge);
+
+        tasks.add(newViewsChunkWriter(store));
+
+        List<Chunk> chunks = runAll(tasks);
+
+        LongPacker.packInt(out, nodeStore.maxStoreId());
+        LongPacker.packInt(out, nodeStore.blocksCount);
+        LongPacker.packInt(out, edgeStore.maxStoreId());
+        LongPacker.packInt(out, edgeStore.blocksCount);
+        long bytes = 0;
+        for (Chunk chunk : chunks) {
+            chunk.write(out);
+            bytes += chunk.length;
         }
+        store.metrics.stop(Metric.SERIALIZATION, start);
+        store.metrics.add(Metric.SERIALIZED_BYTES, bytes);
+    }
+
+    protected List<Callable<Chunk>> newHeadChunkWriters(final GraphStore store) {
+        List<Callable<Chunk>> tasks = new ArrayList<Callable<Chunk>>();
+
+        // Dictionaries are copied now as they can't be read while the blocks
+        // are encoded
+        nodeDictionaries = copyDictionaries(store.nodeTable);
+        edgeDictionaries = copyDictionaries(store.edgeTable);
+
+        // Configuration, version, edge types, factory, atts, time format and
+        // time zone
+        tasks.add(new ChunkWriter() {
+            @Override
+            void write(Serialization ser, DataOutput chunkOut) throws IOException {
+                ser.serializeGraphStoreConfiguration(chunkOut);
+                ser.serialize(chunkOut, store.version);
+                ser.serialize(chunkOut, store.edgeTypeStore);
+                ser.serialize(chunkOut, store.factory);
+                ser.serialize(chunkOut, store.attributes);
+                ser.serialize(chunkOut, store.timeFormat);
+                ser.serialize(chunkOut, store.timeZone);
+            }
+        });
+
+        // Columns
+        tasks.add(new ChunkWriter() {
+            @Override
+            void write(Serialization ser, DataOutput chunkOut) throws IOException {
+                ser.serialize(chunkOut, store.nodeTable);
+                ser.serialize(chunkOut, store.edgeTable);
+            }
+        });
+
+        // Time store
+        tasks.add(new ChunkWriter() {
+            @Override
+            void write(Serialization ser, DataOutput chunkOut) throws IOException {
+                ser.serialize(chunkOut, store.timeStore);
+            }
+        });
+
+        return tasks;
+    }
+
+    protected Callable<Chunk> newNodeBlockWriter(final NodeImpl[] nodes, final int length) {
+        return new ChunkWriter() {
+            @Override
+            void write(Serialization ser, DataOutput chunkOut) throws IOException {
+                int count = 0;
+                for (int j = 0; j < length; j++) {
+                    if (nodes[j] != null) {
+                        count++;
+                    }
+                }
+                LongPacker.packInt(chunkOut, count);
+                for (int j = 0; j < length; j++) {
+                    NodeImpl node = nodes[j];
+                    if (node != null) {
+                        ser.serialize(chunkOut, node);
+                    }
+                }
+            }
+        };
+    }
+
+    protected Callable<Chunk> newEdgeBlockWriter(final EdgeImpl[] edges, final int length) {
+        return new ChunkWriter() {
+            @Override
+            void write(Serialization ser, DataOutput chunkOut) throws IOException {
+                int count = 0;
+                for (int j = 0; j < length; j++) {
+                    if (edges[j] != null) {
+                        count++;
+                    }
+                }
+                LongPacker.packInt(chunkOut, count);
+                for (int j = 0; j < length; j++) {
+                    EdgeImpl edge = edges[j];
+                    if (edge != null) {
+                        ser.serialize(chunkOut, edge);
+                    }
+                }
+            }
+        };
+    }
 
-        // Views
-        serialize(out, store.viewStore);
+    protected Callable<Chunk> newViewsChunkWriter(final GraphStore store) {
+        return new ChunkWriter() {
+            @Override
+            void write(Serialization ser, DataOutput chunkOut) throws IOException {
+                ser.serialize(chunkOut, store.viewStore);
+            }
+        };
     }
 
     public GraphStore deserializeGraphStore(DataInput is) throws IOException, ClassNotFoundException {
@@ -304,6 +568,13 @@ public class Serialization {
             throw new IOException("The store is not empty");
         }
 
+        if (readVersion >= 0.8f) {
+            deserializeChunkedGraphStore(is);
+            return model.store;
+        } else if (isSelective()) {
+            throw new IOException("Selective loading isn't supported before version 0.8");
+        }
+
         // Store Configuration
         deserialize(is);
 
@@ -337,8 +608,18 @@ public class Serialization {
 
         // Nodes and edges
         int nodesAndEdges = (Integer) deserialize(is);
-        for (int i = 0; i < nodesAndEdges; i++) {
-            deserialize(is);
+        resetRecordState();
+        loadedNodes = new NodeImpl[GraphStoreConfiguration.NODESTORE_BLOCK_SIZE];
+        loadedEdges = new EdgeImpl[GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE];
+        try {
+            for (int i = 0; i < nodesAndEdges; i++) {
+                deserialize(is);
+            }
+            model.store.nodeStore.bulkAdd(loadedNodes, loadedNodesLength);
+            model.store.edgeStore.bulkAdd(loadedEdges, loadedEdgesLength);
+        } finally {
+            loadedNodes = null;
+            loadedEdges = null;
         }
 
         // ViewStore
@@ -347,77 +628,902 @@ public class Serialization {
         return model.store;
     }
 
+    private void deserializeChunkedGraphStore(DataInput is) throws IOException, ClassNotFoundException {
+        final int nodeLength = LongPacker.unpackInt(is);
+        int nodeChunks = LongPacker.unpackInt(is);
+        final int edgeLength = LongPacker.unpackInt(is);
+        int edgeChunks = LongPacker.unpackInt(is);
+
+        int viewsChunk = 3 + nodeChunks + edgeChunks;
+        Chunk[] chunks = new Chunk[viewsChunk + 1];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = Chunk.read(is);
+        }
+
+        // The selected view is read first so the blocks without any of its
+        // elements don't need to be decompressed
+        boolean viewSelected = selectedViewId != GraphViewStore.NULL_VIEW;
+        if (viewSelected) {
+            selectView(chunks[viewsChunk].decompress());
+        }
+
+        List<Integer> selectedChunks = new ArrayList<Integer>();
+        List<Callable<byte[]>> decompressTasks = new ArrayList<Callable<byte[]>>();
+        for (int i = 0; i < chunks.length; i++) {
+            boolean selected;
+            if (i == 2) {
+                // Time indices are rebuilt when only a part is loaded
+                selected = !isSelective();
+            } else if (i >= 3 && i < 3 + nodeChunks) {
+                int offset = (i - 3) * GraphStoreConfiguration.NODESTORE_BLOCK_SIZE;
+                selected = isAnySelected(nodeSelection, offset, offset + GraphStoreConfiguration.NODESTORE_BLOCK_SIZE);
+            } else if (i >= 3 + nodeChunks && i < viewsChunk) {
+                int offset = (i - 3 - nodeChunks) * GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE;
+                selected = isAnySelected(edgeSelection, offset, offset + GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE);
+            } else if (i == viewsChunk) {
+                selected = !viewSelected;
+            } else {
+                selected = true;
+            }
+            if (selected) {
+                final Chunk chunk = chunks[i];
+                selectedChunks.add(i);
+                decompressTasks.add(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws IOException {
+                        return chunk.decompress();
+                    }
+                });
+            }
+        }
+        List<byte[]> decompressed = runAll(decompressTasks);
+        byte[][] data = new byte[chunks.length][];
+        for (int i = 0; i < selectedChunks.size(); i++) {
+            data[selectedChunks.get(i)] = decompressed.get(i);
+        }
+        chunks = null;
+
+        // Configuration, version, edge types, factory, atts, time format and
+        // time zone
+        DataInput in = new DataInputOutput(data[0]);
+        deserialize(in);
+        GraphVersion version = (GraphVersion) deserialize(in);
+        model.store.version.nodeVersion = version.nodeVersion;
+        model.store.version.edgeVersion = version.edgeVersion;
+        deserialize(in);
+        deserialize(in);
+        GraphAttributesImpl attributes = (GraphAttributesImpl) deserialize(in);
+        model.store.attributes.setGraphAttributes(attributes);
+        deserialize(in);
+        deserialize(in);
+
+        // Columns
+        in = new DataInputOutput(data[1]);
+        deserialize(in);
+        deserialize(in);
+        droppedNodeColumns = selectColumns(model.store.nodeTable, selectedNodeColumns);
+        droppedEdgeColumns = selectColumns(model.store.edgeTable, selectedEdgeColumns);
+
+        // Time store
+        if (data[2] != null) {
+            deserialize(new DataInputOutput(data[2]));
+        }
+
+        // Nodes
+        final NodeImpl[] nodes = new NodeImpl[nodeLength];
+        List<Callable<Void>> nodeTasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < nodeChunks; i++) {
+            if (data[3 + i] == null) {
+                continue;
+            }
+            nodeTasks.add(new ChunkReader(data[3 + i]) {
+                @Override
+                void read(Serialization ser) {
+                    ser.loadedNodes = nodes;
+                    ser.loadedNodesLength = nodeLength;
+                }
+            });
+        }
+        runAll(nodeTasks);
+
+        // Edges
+        final EdgeImpl[] edges = new EdgeImpl[edgeLength];
+        List<Callable<Void>> edgeTasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < edgeChunks; i++) {
+            if (data[3 + nodeChunks + i] == null) {
+                continue;
+            }
+            edgeTasks.add(new ChunkReader(data[3 + nodeChunks + i]) {
+                @Override
+                void read(Serialization ser) {
+                    ser.loadedNodes = nodes;
+                    ser.loadedNodesLength = nodeLength;
+                    ser.loadedEdges = edges;
+                    ser.loadedEdgesLength = edgeLength;
+                }
+            });
+        }
+        runAll(edgeTasks);
+
+        if (viewSelected) {
+            // Other views can't be kept, so the loaded elements are packed
+            model.store.nodeStore.bulkAdd(nodes, pack(nodes, nodeLength));
+            model.store.edgeStore.bulkAdd(edges, pack(edges, edgeLength));
+        } else {
+            model.store.nodeStore.bulkAdd(nodes, nodeLength);
+            model.store.edgeStore.bulkAdd(edges, edgeLength);
+
+            // ViewStore
+            deserialize(new DataInputOutput(data[viewsChunk]));
+        }
+    }
+
+    private boolean isSelective() {
+        return selectedViewId != GraphViewStore.NULL_VIEW || selectedNodeColumns != null || selectedEdgeColumns != null;
+    }
+
+    private void selectView(byte[] data) throws IOException, ClassNotFoundException {
+        DataInput in = new DataInputOutput(data);
+        if (in.readUnsignedByte() != GRAPH_VIEW_STORE) {
+            throw new IOException("The views can't be read");
+        }
+        int length = (Integer) deserialize(in);
+        Object[] views = (Object[]) deserialize(in);
+        if (selectedViewId < 0 || selectedViewId >= length || views[selectedViewId] == null) {
+            throw new IOException("The view " + selectedViewId + " can't be found");
+        }
+        GraphViewImpl view = (GraphViewImpl) views[selectedViewId];
+        nodeSelection = view.nodeView ? view.nodeBitVector : null;
+        edgeSelection = view.edgeBitVector;
+    }
+
+    private int[] selectColumns(TableImpl table, Collection<String> columnIds) {
+        if (columnIds == null) {
+            return null;
+        }
+        Set<Column> selectedColumns = new ReferenceOpenHashSet<Column>();
+        for (String columnId : columnIds) {
+            Column column = table.getColumn(columnId);
+            if (column != null) {
+                selectedColumns.add(column);
+            }
+        }
+        IntArrayList dropped = new IntArrayList();
+        for (Column column : table.toArray()) {
+            if (!column.isProperty() && !selectedColumns.contains(column)) {
+                dropped.add(column.getIndex());
+                table.removeColumn(column);
+            }
+        }
+        return dropped.toIntArray();
+    }
+
+    private static boolean isSelected(PagedBitVector selection, int storeId) {
+        return selection == null || (storeId < selection.size() && selection.getQuick(storeId));
+    }
+
+    private static boolean isAnySelected(PagedBitVector selection, int from, int to) {
+        if (selection == null) {
+            return true;
+        }
+        to = Math.min(to, selection.size());
+        for (int i = from; i < to; i++) {
+            if (selection.getQuick(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void dropColumns(Object[] attributes, int[] droppedColumns) {
+        if (droppedColumns != null) {
+            for (int index : droppedColumns) {
+                if (index < attributes.length) {
+                    attributes[index] = null;
+                }
+            }
+        }
+    }
+
+    private static ColumnDictionary[] copyDictionaries(TableImpl table) {
+        return copyDictionaries(table.store);
+    }
+
+    private static ColumnDictionary[] copyDictionaries(ColumnStore columnStore) {
+        ColumnDictionary[] dictionaries = new ColumnDictionary[columnStore.length];
+        for (int i = 0; i < dictionaries.length; i++) {
+            ColumnImpl column = columnStore.columns[i];
+            if (column != null && column.dictionary != null) {
+                dictionaries[i] = column.dictionary.copy();
+            }
+        }
+        return dictionaries;
+    }
+
+    /**
+     * Replaces the values of dictionary encoded columns by their codes. Values
+     * not in the dictionary copy, if any, are written as they are.
+     */
+    private static Object[] encodeAttributes(Object[] attributes, ColumnDictionary[] dictionaries) {
+        if (dictionaries == null) {
+            return attributes;
+        }
+        Object[] encoded = attributes;
+        int length = Math.min(attributes.length, dictionaries.length);
+        for (int i = 0; i < length; i++) {
+            ColumnDictionary dictionary = dictionaries[i];
+            if (dictionary != null && attributes[i] instanceof String) {
+                int code = dictionary.codes.getInt(attributes[i]);
+                if (code != ColumnDictionary.NULL_CODE) {
+                    if (encoded == attributes) {
+                        encoded = Arrays.copyOf(attributes, attributes.length);
+                    }
+                    encoded[i] = code;
+                }
+            }
+        }
+        return encoded;
+    }
+
+    private static void decodeAttributes(Object[] attributes, TableImpl table) throws IOException {
+        ColumnStore columnStore = table.store;
+        int length = Math.min(attributes.length, columnStore.length);
+        for (int i = 0; i < length; i++) {
+            ColumnImpl column = columnStore.columns[i];
+            if (column != null && column.isDictionaryEncoded() && attributes[i] != null) {
+                if (column.dictionary != null && attributes[i] instanceof Integer) {
+                    int code = (Integer) attributes[i];
+                    if (code < 0 || code >= column.dictionary.size()) {
+                        throw new IOException("The dictionary code " + code + " is invalid");
+                    }
+                    attributes[i] = column.dictionary.getValue(code);
+                } else {
+                    attributes[i] = column.encode(attributes[i]);
+                }
+            }
+        }
+    }
+
+    private static int pack(Object[] elements, int length) {
+        int packedLength = 0;
+        for (int i = 0; i < length; i++) {
+            if (elements[i] != null) {
+                elements[packedLength++] = elements[i];
+            }
+        }
+        Arrays.fill(elements, packedLength, length, null);
+        return packedLength;
+    }
+
+    protected <T> List<T> runAll(List<Callable<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<T>(tasks.size());
+        if (executor == null || tasks.size() < 2) {
+            for (Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (IOException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+            }
+            return results;
+        }
+        try {
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+        return results;
+    }
+
+    private Serialization newChunkSerialization() {
+        Serialization ser = new Serialization(model);
+        ser.readVersion = readVersion;
+        ser.nodeDictionaries = nodeDictionaries;
+        ser.edgeDictionaries = edgeDictionaries;
+        ser.nodeSelection = nodeSelection;
+        ser.edgeSelection = edgeSelection;
+        ser.droppedNodeColumns = droppedNodeColumns;
+        ser.droppedEdgeColumns = droppedEdgeColumns;
+        return ser;
+    }
+
+    private abstract class ChunkWriter implements Callable<Chunk> {
+
+        @Override
+        public Chunk call() throws IOException {
+            DataInputOutput out = new DataInputOutput();
+            write(newChunkSerialization(), out);
+            return Chunk.compress(out.getBuf(), out.getPos());
+        }
+
+        abstract void write(Serialization ser, DataOutput chunkOut) throws IOException;
+    }
+
+    private abstract class ChunkReader implements Callable<Void> {
+
+        private final byte[] data;
+
+        public ChunkReader(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public Void call() throws IOException, ClassNotFoundException {
+            Serialization ser = newChunkSerialization();
+            read(ser);
+            DataInputOutput in = new DataInputOutput(data);
+            int count = LongPacker.unpackInt(in);
+            for (int i = 0; i < count; i++) {
+                ser.deserialize(in);
+            }
+            return null;
+        }
+
+        abstract void read(Serialization ser);
+    }
+
+    /**
+     * Independently compressed and checksummed part of a serialized graph
+     * store.
+     * <p>
+     * The data is kept uncompressed if compression doesn't make it smaller.
+     */
+    protected static class Chunk {
+
+        protected final int rawLength;
+        protected final byte[] data;
+        protected final int length;
+        protected final int checksum;
+
+        public Chunk(int rawLength, byte[] data, int length, int checksum) {
+            this.rawLength = rawLength;
+            this.data = data;
+            this.length = length;
+            this.checksum = checksum;
+        }
+
+        public static Chunk compress(byte[] raw, int rawLength) {
+            byte[] data = new byte[LZFCodec.maxCompressedLength(rawLength)];
+            int length = LZFCodec.compress(raw, rawLength, data);
+            if (length >= rawLength) {
+                data = raw;
+                length = rawLength;
+            }
+            return new Chunk(rawLength, data, length, checksum(raw, rawLength));
+        }
+
+        public static Chunk read(DataInput is) throws IOException {
+            int rawLength = LongPacker.unpackInt(is);
+            int length = LongPacker.unpackInt(is);
+            int checksum = is.readInt();
+            byte[] data = new byte[length];
+            is.readFully(data);
+            return new Chunk(rawLength, data, length, checksum);
+        }
+
+        public void write(DataOutput out) throws IOException {
+            LongPacker.packInt(out, rawLength);
+            LongPacker.packInt(out, length);
+            out.writeInt(checksum);
+            out.write(data, 0, length);
+        }
+
+        public byte[] decompress() throws IOException {
+            byte[] raw;
+            if (length == rawLength) {
+                raw = data;
+            } else {
+                raw = new byte[rawLength];
+                LZFCodec.decompress(data, length, raw, rawLength);
+            }
+            if (checksum(raw, rawLength) != checksum) {
+                throw new IOException("The chunk checksum doesn't match");
+            }
+            return raw;
+        }
+
+        private static int checksum(byte[] data, int length) {
+            CRC32 crc = new CRC32();
+            crc.update(data, 0, length);
+            return (int) crc.getValue();
+        }
+    }
+
+    private void resetRecordState() {
+        lastNodeStoreId = 0;
+        lastEdgeStoreId = 0;
+        lastEdgeSourceId = 0;
+        loadedNodesLength = 0;
+        loadedEdgesLength = 0;
+    }
+
     private void serializeNode(DataOutput out, NodeImpl node) throws IOException {
         serialize(out, node.getId());
-        serialize(out, node.storeId);
-        serialize(out, node.attributes);
+        packDelta(out, node.storeId, lastNodeStoreId);
+        lastNodeStoreId = node.storeId;
+        serialize(out, encodeAttributes(node.attributes, nodeDictionaries));
         serialize(out, node.properties);
     }
 
     private void serializeEdge(DataOutput out, EdgeImpl edge) throws IOException {
+        int sourceId = edge.source.storeId;
         serialize(out, edge.getId());
-        serialize(out, edge.source.storeId);
-        serialize(out, edge.target.storeId);
-        serialize(out, edge.type);
+        packDelta(out, edge.storeId, lastEdgeStoreId);
+        lastEdgeStoreId = edge.storeId;
+        packDelta(out, sourceId, lastEdgeSourceId);
+        packDelta(out, edge.target.storeId, sourceId);
+        lastEdgeSourceId = sourceId;
+        LongPacker.packInt(out, edge.type);
         if (edge.graphStore != null && edge.hasDynamicWeight()) {
-            serialize(out, edge.getWeight());
+            out.writeDouble(edge.getWeight());
         } else {
-            serialize(out, GraphStoreConfiguration.DEFAULT_EDGE_WEIGHT);
+            out.writeDouble(GraphStoreConfiguration.DEFAULT_EDGE_WEIGHT);
         }
-        serialize(out, edge.isDirected());
-        serialize(out, edge.attributes);
+        out.writeByte(edge.isDirected() ? EDGE_DIRECTED_FLAG : 0);
+        serialize(out, encodeAttributes(edge.attributes, edgeDictionaries));
         serialize(out, edge.properties);
     }
 
     private NodeImpl deserializeNode(DataInput is) throws IOException, ClassNotFoundException {
         Object id = deserialize(is);
-        int storeId = (Integer) deserialize(is);
+        int storeId;
+        if (readVersion >= 0.6f) {
+            storeId = unpackDelta(is, lastNodeStoreId);
+            lastNodeStoreId = storeId;
+        } else {
+            storeId = (Integer) deserialize(is);
+        }
         Object[] attributes = (Object[]) deserialize(is);
         NodePropertiesImpl properties = (NodePropertiesImpl) deserialize(is);
+        if (!isSelected(nodeSelection, storeId)) {
+            return null;
+        }
+        dropColumns(attributes, droppedNodeColumns);
+        decodeAttributes(attributes, model.store.nodeTable);
 
         NodeImpl node = (NodeImpl) model.store.factory.newNode(id);
         node.attributes = attributes;
         if (node.properties != null) {
             node.setNodeProperties(properties);
         }
-        model.store.nodeStore.add(node);
 
-        idMap.put(storeId, node.storeId);
+        if (loadedNodes != null) {
+            if (storeId < 0 || (storeId < loadedNodesLength && loadedNodes[storeId] != null)) {
+                throw new IOException("The node store id " + storeId + " is invalid");
+            }
+            if (storeId >= loadedNodes.length) {
+                loadedNodes = ObjectArrays.grow(loadedNodes, storeId + 1);
+            }
+            loadedNodes[storeId] = node;
+            loadedNodesLength = Math.max(loadedNodesLength, storeId + 1);
+        } else {
+            model.store.nodeStore.add(node);
+            idMap.put(storeId, node.storeId);
+        }
 
         return node;
     }
 
     private EdgeImpl deserializeEdge(DataInput is) throws IOException, ClassNotFoundException {
         Object id = deserialize(is);
-        int sourceId = (Integer) deserialize(is);
-        int targetId = (Integer) deserialize(is);
-        int type = (Integer) deserialize(is);
-        double weight = (Double) deserialize(is);
-        boolean directed = (Boolean) deserialize(is);
+        int storeId = loadedEdgesLength;
+        int sourceId;
+        int targetId;
+        int type;
+        double weight;
+        boolean directed;
+        if (readVersion >= 0.6f) {
+            if (readVersion >= 0.7f) {
+                storeId = unpackDelta(is, lastEdgeStoreId);
+                lastEdgeStoreId = storeId;
+            }
+            sourceId = unpackDelta(is, lastEdgeSourceId);
+            targetId = unpackDelta(is, sourceId);
+            lastEdgeSourceId = sourceId;
+            type = LongPacker.unpackInt(is);
+            weight = is.readDouble();
+            directed = (is.readByte() & EDGE_DIRECTED_FLAG) != 0;
+        } else {
+            sourceId = (Integer) deserialize(is);
+            targetId = (Integer) deserialize(is);
+            type = (Integer) deserialize(is);
+            weight = (Double) deserialize(is);
+            directed = (Boolean) deserialize(is);
+        }
         Object[] attributes = (Object[]) deserialize(is);
         EdgePropertiesImpl properties = (EdgePropertiesImpl) deserialize(is);
+        if (!isSelected(edgeSelection, storeId)) {
+            return null;
+        }
+        dropColumns(attributes, droppedEdgeColumns);
+        decodeAttributes(attributes, model.store.edgeTable);
 
-        int sourceNewId = idMap.get(sourceId);
-        int targetNewId = idMap.get(targetId);
+        NodeImpl source;
+        NodeImpl target;
+        if (loadedNodes != null) {
+            source = getLoadedNode(sourceId);
+            target = getLoadedNode(targetId);
+        } else {
+            int sourceNewId = idMap.get(sourceId);
+            int targetNewId = idMap.get(targetId);
+            source = sourceNewId != NULL_ID ? model.store.nodeStore.get(sourceNewId) : null;
+            target = targetNewId != NULL_ID ? model.store.nodeStore.get(targetNewId) : null;
+        }
 
-        if (sourceId == NULL_ID || targetId == NULL_ID) {
+        if (source == null || target == null) {
             throw new IOException("The edge source of target can't be found");
         }
 
-        NodeImpl source = model.store.nodeStore.get(sourceNewId);
-        NodeImpl target = model.store.nodeStore.get(targetNewId);
-
         EdgeImpl edge = (EdgeImpl) model.store.factory.newEdge(id, source, target, type, weight, directed);
         edge.attributes = attributes;
         if (edge.properties != null) {
             edge.setEdgeProperties(properties);
         }
 
-        model.store.edgeStore.add(edge);
+        if (loadedEdges != null) {
+            if (storeId < 0 || (storeId < loadedEdgesLength && loadedEdges[storeId] != null)) {
+                throw new IOException("The edge store id " + storeId + " is invalid");
+            }
+            if (storeId >= loadedEdges.length) {
+                loadedEdges = ObjectArrays.grow(loadedEdges, storeId + 1);
+            }
+            loadedEdges[storeId] = edge;
+            loadedEdgesLength = Math.max(loadedEdgesLength, storeId + 1);
+        } else {
+            model.store.edgeStore.add(edge);
+        }
 
         return edge;
     }
 
+    private NodeImpl getLoadedNode(int storeId) {
+        if (storeId < 0 || storeId >= loadedNodesLength) {
+            return null;
+        }
+        return loadedNodes[storeId];
+    }
+
+    private void serializeGraphStoreDelta(final DataOutput out, final DeltaCheckpoint checkpoint) throws IOException {
+        GraphStore store = checkpoint.graphStore;
+
+        // Factory, atts, time format and time zone
+        serialize(out, store.factory);
+        serialize(out, store.attributes);
+        serialize(out, store.timeFormat);
+        serialize(out, store.timeZone);
+
+        // Columns
+        List<ColumnImpl> addedNodeColumns = serializeColumnsDelta(out, checkpoint, store.nodeTable);
+        List<ColumnImpl> addedEdgeColumns = serializeColumnsDelta(out, checkpoint, store.edgeTable);
+
+        // Nodes and edges
+        List<Node> addedNodes = new ArrayList<Node>();
+        List<Node> removedNodes = new ArrayList<Node>();
+        List<Edge> addedEdges = new ArrayList<Edge>();
+        List<Edge> removedEdges = new ArrayList<Edge>();
+        if (checkpoint.graphObserver.hasGraphChanged()) {
+            GraphObserverImpl.GraphDiffImpl diff = (GraphObserverImpl.GraphDiffImpl) checkpoint.graphObserver.getDiff();
+            addedNodes.addAll(diff.addedNodes);
+            removedNodes.addAll(diff.removedNodes);
+            addedEdges.addAll(diff.addedEdges);
+            removedEdges.addAll(diff.removedEdges);
+        }
+        serialize(out, removedEdges.size());
+        for (Edge edge : removedEdges) {
+            serialize(out, edge.getId());
+        }
+        serialize(out, removedNodes.size());
+        for (Node node : removedNodes) {
+            serialize(out, node.getId());
+        }
+        serialize(out, addedNodes.size());
+        for (Node node : addedNodes) {
+            NodeImpl nodeImpl = (NodeImpl) node;
+            serialize(out, nodeImpl.getId());
+            serialize(out, nodeImpl.properties);
+            serializeAttributesDelta(out, nodeImpl, store.nodeTable);
+        }
+        serialize(out, addedEdges.size());
+        for (Edge edge : addedEdges) {
+            EdgeImpl edgeImpl = (EdgeImpl) edge;
+            serialize(out, edgeImpl.getId());
+            serialize(out, edgeImpl.source.getId());
+            serialize(out, edgeImpl.target.getId());
+            serialize(out, store.edgeTypeStore.getLabel(edgeImpl.type));
+            serialize(out, edgeImpl.hasDynamicWeight() ? GraphStoreConfiguration.DEFAULT_EDGE_WEIGHT
+                    : edgeImpl.getWeight());
+            serialize(out, edgeImpl.isDirected());
+            serialize(out, edgeImpl.properties);
+            serializeAttributesDelta(out, edgeImpl, store.edgeTable);
+        }
+
+        // Attribute values of the other elements
+        Set<Object> added = new ReferenceOpenHashSet<Object>(addedNodes.size() + addedEdges.size());
+        added.addAll(addedNodes);
+        added.addAll(addedEdges);
+        serializeValuesDelta(out, checkpoint, store.nodeTable, addedNodeColumns, store.nodeStore, added);
+        serializeValuesDelta(out, checkpoint, store.edgeTable, addedEdgeColumns, store.edgeStore, added);
+
+        checkpoint.refreshColumns(store.nodeTable);
+        checkpoint.refreshColumns(store.edgeTable);
+    }
+
+    private List<ColumnImpl> serializeColumnsDelta(final DataOutput out, final DeltaCheckpoint checkpoint, final TableImpl table) throws IOException {
+        Reference2ObjectMap<ColumnImpl, ColumnObserverImpl> observers = checkpoint.getColumnObservers(table);
+
+        List<String> removedColumns = new ArrayList<String>();
+        for (ColumnImpl column : observers.keySet()) {
+            if (!checkpoint.isInTable(table, column)) {
+                removedColumns.add(column.getId());
+            }
+        }
+        List<ColumnImpl> addedColumns = new ArrayList<ColumnImpl>();
+        for (Column column : table.toArray()) {
+            if (!observers.containsKey(column)) {
+                addedColumns.add((ColumnImpl) column);
+            }
+        }
+
+        serialize(out, removedColumns.size());
+        for (String id : removedColumns) {
+            serialize(out, id);
+        }
+        serialize(out, addedColumns.size());
+        for (ColumnImpl column : addedColumns) {
+            serialize(out, column.id);
+            serialize(out, column.title);
+            serialize(out, column.origin);
+            serialize(out, column.typeClass);
+            serialize(out, column.defaultValue);
+            serialize(out, column.indexed);
+            serialize(out, column.estimator);
+            serialize(out, column.isDictionaryEncoded());
+        }
+        return addedColumns;
+    }
+
+    private void serializeAttributesDelta(final DataOutput out, final ElementImpl element, final TableImpl table) throws IOException {
+        int count = 0;
+        for (Column column : table.toArray()) {
+            if (getAttributeDelta(element, column) != null) {
+                count++;
+            }
+        }
+        serialize(out, count);
+        for (Column column : table.toArray()) {
+            Object value = getAttributeDelta(element, column);
+            if (value != null) {
+                serialize(out, column.getId());
+                serialize(out, value);
+            }
+        }
+    }
+
+    private void serializeValuesDelta(final DataOutput out, final DeltaCheckpoint checkpoint, final TableImpl table, final List<ColumnImpl> addedColumns, final Iterable<? extends Element> elements, final Set<Object> added) throws IOException {
+        List<ColumnImpl> columns = new ArrayList<ColumnImpl>();
+        List<List<Element>> touchedElements = new ArrayList<List<Element>>();
+
+        // Columns that existed at the checkpoint only have their touched values
+        for (Map.Entry<ColumnImpl, ColumnObserverImpl> entry : checkpoint.getColumnObservers(table).entrySet()) {
+            ColumnImpl column = entry.getKey();
+            ColumnObserverImpl observer = entry.getValue();
+            if (checkpoint.isInTable(table, column) && observer.hasColumnChanged() && column.getIndex() != GraphStoreConfiguration.ELEMENT_ID_INDEX) {
+                List<Element> touched = new ArrayList<Element>();
+                for (Object element : ((ColumnObserverImpl.ColumnDiffImpl) observer.getDiff()).touchedElements) {
+                    if (!added.contains(element)) {
+                        touched.add((Element) element);
+                    }
+                }
+                columns.add(column);
+                touchedElements.add(touched);
+            }
+        }
+
+        // Added columns have all their values
+        for (ColumnImpl column : addedColumns) {
+            List<Element> touched = new ArrayList<Element>();
+            for (Element element : elements) {
+                if (!added.contains(element) && getAttributeDelta((ElementImpl) element, column) != null) {
+                    touched.add(element);
+                }
+            }
+            columns.add(column);
+            touchedElements.add(touched);
+        }
+
+        serialize(out, columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnImpl column = columns.get(i);
+            List<Element> touched = touchedElements.get(i);
+            serialize(out, column.getId());
+            serialize(out, touched.size());
+            for (Element element : touched) {
+                serialize(out, element.getId());
+                serialize(out, getAttributeDelta((ElementImpl) element, column));
+            }
+        }
+    }
+
+    private Object getAttributeDelta(ElementImpl element, Column column) {
+        int index = column.getIndex();
+        Object[] attributes = element.attributes;
+        if (index == GraphStoreConfiguration.ELEMENT_ID_INDEX || index >= attributes.length) {
+            return null;
+        }
+        return attributes[index];
+    }
+
+    private GraphStore deserializeGraphStoreDelta(final DataInput is) throws IOException, ClassNotFoundException {
+        GraphStore store = model.store;
+
+        // Factory, atts, time format and time zone
+        deserialize(is);
+        GraphAttributesImpl attributes = (GraphAttributesImpl) deserialize(is);
+        store.attributes.attributes.clear();
+        store.attributes.setGraphAttributes(attributes);
+        deserialize(is);
+        deserialize(is);
+
+        // Columns
+        deserializeColumnsDelta(is, store.nodeTable);
+        deserializeColumnsDelta(is, store.edgeTable);
+
+        // Nodes and edges
+        int removedEdges = (Integer) deserialize(is);
+        for (int i = 0; i < removedEdges; i++) {
+            EdgeImpl edge = store.getEdge(deserialize(is));
+            if (edge != null) {
+                store.removeEdge(edge);
+            }
+        }
+        int removedNodes = (Integer) deserialize(is);
+        for (int i = 0; i < removedNodes; i++) {
+            NodeImpl node = store.getNode(deserialize(is));
+            if (node != null) {
+                store.removeNode(node);
+            }
+        }
+        int addedNodes = (Integer) deserialize(is);
+        for (int i = 0; i < addedNodes; i++) {
+            Object id = deserialize(is);
+            NodePropertiesImpl properties = (NodePropertiesImpl) deserialize(is);
+
+            NodeImpl node = (NodeImpl) store.factory.newNode(id);
+            if (node.properties != null && properties != null) {
+                node.setNodeProperties(properties);
+            }
+            deserializeAttributesDelta(is, node, store.nodeTable);
+            store.addNode(node);
+        }
+        int addedEdges = (Integer) deserialize(is);
+        for (int i = 0; i < addedEdges; i++) {
+            Object id = deserialize(is);
+            NodeImpl source = store.getNode(deserialize(is));
+            NodeImpl target = store.getNode(deserialize(is));
+            Object label = deserialize(is);
+            double weight = (Double) deserialize(is);
+            boolean directed = (Boolean) deserialize(is);
+            EdgePropertiesImpl properties = (EdgePropertiesImpl) deserialize(is);
+
+            if (source == null || target == null) {
+                throw new IOException("The edge source of target can't be found");
+            }
+            int type = store.edgeTypeStore.addType(label);
+            EdgeImpl edge = (EdgeImpl) store.factory.newEdge(id, source, target, type, weight, directed);
+            if (edge.properties != null && properties != null) {
+                edge.setEdgeProperties(properties);
+            }
+            deserializeAttributesDelta(is, edge, store.edgeTable);
+            store.addEdge(edge);
+        }
+
+        // Attribute values of the other elements
+        deserializeValuesDelta(is, store.nodeTable, false);
+        deserializeValuesDelta(is, store.edgeTable, true);
+
+        return store;
+    }
+
+    private void deserializeColumnsDelta(final DataInput is, final TableImpl table) throws IOException, ClassNotFoundException {
+        int removedColumns = (Integer) deserialize(is);
+        for (int i = 0; i < removedColumns; i++) {
+            String id = (String) deserialize(is);
+            if (table.hasColumn(id)) {
+                table.removeColumn(id);
+            }
+        }
+        int addedColumns = (Integer) deserialize(is);
+        for (int i = 0; i < addedColumns; i++) {
+            String id = (String) deserialize(is);
+            String title = (String) deserialize(is);
+            Origin origin = (Origin) deserialize(is);
+            Class typeClass = (Class) deserialize(is);
+            Object defaultValue = deserialize(is);
+            boolean indexed = (Boolean) deserialize(is);
+            Estimator estimator = (Estimator) deserialize(is);
+            boolean dictionaryEncoded = readVersion >= 0.9f && (Boolean) deserialize(is);
+
+            ColumnImpl column = (ColumnImpl) table
+                    .addColumn(id, title, typeClass, origin, defaultValue, indexed, dictionaryEncoded);
+            if (estimator != null) {
+                column.setEstimator(estimator);
+            }
+        }
+    }
+
+    private void deserializeAttributesDelta(final DataInput is, final ElementImpl element, final TableImpl table) throws IOException, ClassNotFoundException {
+        int count = (Integer) deserialize(is);
+        for (int i = 0; i < count; i++) {
+            ColumnImpl column = getColumnDelta(table, (String) deserialize(is));
+            Object value = column.encode(deserialize(is));
+
+            int index = column.getIndex();
+            if (index >= element.attributes.length) {
+                element.attributes = Arrays.copyOf(element.attributes, table.store.length);
+            }
+            element.attributes[index] = value;
+        }
+    }
+
+    private void deserializeValuesDelta(final DataInput is, final TableImpl table, boolean edges) throws IOException, ClassNotFoundException {
+        GraphStore store = model.store;
+        int columns = (Integer) deserialize(is);
+        for (int i = 0; i < columns; i++) {
+            ColumnImpl column = getColumnDelta(table, (String) deserialize(is));
+            int count = (Integer) deserialize(is);
+            for (int j = 0; j < count; j++) {
+                Object id = deserialize(is);
+                Object value = deserialize(is);
+
+                ElementImpl element = edges ? store.getEdge(id) : store.getNode(id);
+                if (element == null) {
+                    throw new IOException("The element '" + id + "' can't be found");
+                }
+                if (value == null) {
+                    element.removeAttribute(column);
+                } else {
+                    element.setAttribute(column, value);
+                }
+            }
+        }
+    }
+
+    private ColumnImpl getColumnDelta(final TableImpl table, final String id) throws IOException {
+        ColumnImpl column = (ColumnImpl) table.getColumn(id);
+        if (column == null) {
+            throw new IOException("The column '" + id + "' can't be found");
+        }
+        return column;
+    }
+
+    private static void packDelta(DataOutput out, int value, int previous) throws IOException {
+        long delta = (long) value - previous;
+        LongPacker.packLong(out, (delta << 1) ^ (delta >> 63));
+    }
+
+    private static int unpackDelta(DataInput is, int previous) throws IOException {
+        long zigzag = LongPacker.unpackLong(is);
+        long delta = (zigzag >>> 1) ^ -(zigzag & 1);
+        return (int) (previous + delta);
+    }
+
     private void serializeEdgeTypeStore(final DataOutput out) throws IOException {
         EdgeTypeStore edgeTypeStore = model.store.edgeTypeStore;
         int length = edgeTypeStore.length;
@@ -478,9 +1584,19 @@ public class Serialization {
         int length = columnStore.length;
         serialize(out, length);
 
+        boolean edges = Edge.class.equals(columnStore.elementType);
+        ColumnDictionary[] dictionaries = edges ? edgeDictionaries : nodeDictionaries;
+        if (dictionaries == null) {
+            dictionaries = copyDictionaries(columnStore);
+            if (edges) {
+                edgeDictionaries = dictionaries;
+            } else {
+                nodeDictionaries = dictionaries;
+            }
+        }
         for (int i = 0; i < length; i++) {
             ColumnImpl col = columnStore.columns[i];
-            serializeColumn(out, col);
+            serializeColumn(out, col, i < dictionaries.length ? dictionaries[i] : null);
         }
 
         serialize(out, columnStore.garbageQueue.toShortArray());
@@ -509,7 +1625,7 @@ public class Serialization {
         return columnStore;
     }
 
-    private void serializeColumn(final DataOutput out, final ColumnImpl column) throws IOException {
+    private void serializeColumn(final DataOutput out, final ColumnImpl column, final ColumnDictionary dictionary) throws IOException {
         if (column == null) {
             serialize(out, null);
             return;
@@ -523,6 +1639,14 @@ public class Serialization {
         serialize(out, column.indexed);
         serialize(out, column.readOnly);
         serialize(out, column.estimator);
+        if (dictionary != null) {
+            serialize(out, dictionary.toArray());
+        } else if (column.isDictionaryEncoded()) {
+            // Timestamp columns use the store's dictionary, rebuilt on read
+            serialize(out, new String[0]);
+        } else {
+            serialize(out, null);
+        }
     }
 
     private ColumnImpl deserializeColumn(final DataInput is, TableImpl table) throws IOException, ClassNotFoundException {
@@ -538,9 +1662,13 @@ public class Serialization {
         boolean indexed = (Boolean) deserialize(is);
         boolean readOnly = (Boolean) deserialize(is);
         Estimator estimator = (Estimator) deserialize(is);
+        String[] dictionaryValues = readVersion >= 0.9f ? (String[]) deserialize(is) : null;
 
         ColumnImpl column = new ColumnImpl(table, (String) id, typeClass, title, defaultValue, origin, indexed,
-                readOnly);
+                readOnly, dictionaryValues != null);
+        if (column.dictionary != null) {
+            column.dictionary.addAll(dictionaryValues);
+        }
         column.storeId = storeId;
         if (estimator != null) {
             column.setEstimator(estimator);
@@ -602,18 +1730,20 @@ public class Serialization {
         for (int i = 0; i < garbages.length; i++) {
             viewStore.garbageQueue.add(garbages[i]);
         }
+        viewStore.resetNodeIndex();
         return viewStore;
     }
 
     private void serializeGraphView(final DataOutput out, final GraphViewImpl view) throws IOException {
+        view.applyRemovals();
         serialize(out, view.nodeView);
         serialize(out, view.edgeView);
         serialize(out, view.storeId);
         serialize(out, view.nodeCount);
         serialize(out, view.edgeCount);
 
-        serialize(out, view.nodeBitVector);
-        serialize(out, view.edgeBitVector);
+        serialize(out, view.nodeBitVector != null ? view.nodeBitVector.toBitVector() : null);
+        serialize(out, view.edgeBitVector.toBitVector());
 
         serialize(out, view.typeCounts);
         serialize(out, view.mutualEdgeTypeCounts);
@@ -644,8 +1774,9 @@ public class Serialization {
 
         view.nodeCount = nodeCount;
         view.edgeCount = edgeCount;
-        view.nodeBitVector = nodeCountVector;
-        view.edgeBitVector = edgeCountVector;
+        view.nodeBitVector = nodeCountVector != null ? new PagedBitVector(nodeCountVector.elements(),
+                nodeCountVector.size()) : null;
+        view.edgeBitVector = new PagedBitVector(edgeCountVector.elements(), edgeCountVector.size());
         view.storeId = storeId;
 
         view.typeCounts = typeCounts;
@@ -1495,6 +2626,10 @@ public class Serialization {
             TableImpl b = (TableImpl) obj;
             out.write(TABLE);
             serializeTable(out, b);
+        } else if (obj instanceof DeltaCheckpoint) {
+            DeltaCheckpoint b = (DeltaCheckpoint) obj;
+            out.write(GRAPH_STORE_DELTA);
+            serializeGraphStoreDelta(out, b);
         } else if (obj instanceof GraphStore) {
             GraphStore b = (GraphStore) obj;
             out.write(GRAPH_STORE);
@@ -2061,6 +3196,9 @@ public class Serialization {
             case GRAPH_STORE:
                 ret = deserializeGraphStore(is);
                 break;
+            case GRAPH_STORE_DELTA:
+                ret = deserializeGraphStoreDelta(is);
+                break;
             case GRAPH_FACTORY:
                 ret = deserializeGraphFactory(is);
                 break;
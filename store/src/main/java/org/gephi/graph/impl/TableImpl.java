@@ -55,6 +55,11 @@ public class TableImpl<T extends Element> implements Table {
 
     @Override
     public Column addColumn(String id, String title, Class type, Origin origin, Object defaultValue, boolean indexed) {
+        return addColumn(id, title, type, origin, defaultValue, indexed, false);
+    }
+
+    @Override
+    public Column addColumn(String id, String title, Class type, Origin origin, Object defaultValue, boolean indexed, boolean dictionaryEncoded) {
         checkValidId(id);
         checkSupportedTypes(type);
         checkDefaultValue(defaultValue, type);
@@ -74,9 +79,15 @@ public class TableImpl<T extends Element> implements Table {
             indexed = false;
         }
 
-        ColumnImpl column = new ColumnImpl(this, id, type, title, defaultValue, origin, indexed, false);
+        ColumnImpl column = new ColumnImpl(this, id, type, title, defaultValue, origin, indexed, false,
+                dictionaryEncoded);
         store.addColumn(column);
 
+        WriteAheadLog writeAheadLog = getWriteAheadLog();
+        if (writeAheadLog != null) {
+            writeAheadLog.logAddColumn(column);
+        }
+
         return column;
     }
 
@@ -123,11 +134,23 @@ public class TableImpl<T extends Element> implements Table {
     @Override
     public void removeColumn(Column column) {
         store.removeColumn(column);
+
+        WriteAheadLog writeAheadLog = getWriteAheadLog();
+        if (writeAheadLog != null) {
+            writeAheadLog.logRemoveColumn((ColumnImpl) column);
+        }
     }
 
     @Override
     public void removeColumn(String id) {
+        WriteAheadLog writeAheadLog = getWriteAheadLog();
+        Column column = writeAheadLog != null ? store.getColumn(id.toLowerCase()) : null;
+
         store.removeColumn(id.toLowerCase());
+
+        if (column != null) {
+            writeAheadLog.logRemoveColumn((ColumnImpl) column);
+        }
     }
 
     @Override
@@ -201,4 +224,8 @@ public class TableImpl<T extends Element> implements Table {
             throw new RuntimeException("The observer doesn't belong to this table");
         }
     }
+
+    private WriteAheadLog getWriteAheadLog() {
+        return store.graphStore != null ? store.graphStore.writeAheadLog : null;
+    }
 }
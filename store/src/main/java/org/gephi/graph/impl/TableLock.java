@@ -16,20 +16,84 @@
 package org.gephi.graph.impl;
 
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.gephi.graph.api.Metric;
 
+/**
+ * Table lock, either held exclusively or shared between threads working on
+ * different stripes.
+ * <p>
+ * Holding a stripe excludes the exclusive lock holder and the other threads
+ * holding the same stripe.
+ */
 public class TableLock {
 
-    protected final ReentrantLock lock;
+    protected final ReentrantReadWriteLock lock;
+    protected final ReentrantLock[] stripes;
+    // Metrics (optional)
+    protected final MetricsStore metrics;
+    // Outermost exclusive lock acquisition time, if metrics are enabled
+    protected long lockTime;
 
     public TableLock() {
-        lock = new ReentrantLock();
+        this(GraphStoreConfiguration.TABLE_LOCK_STRIPES, null);
+    }
+
+    public TableLock(MetricsStore metrics) {
+        this(GraphStoreConfiguration.TABLE_LOCK_STRIPES, metrics);
+    }
+
+    public TableLock(int stripeCount) {
+        this(stripeCount, null);
+    }
+
+    public TableLock(int stripeCount, MetricsStore metrics) {
+        if (Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("The number of stripes must be a power of two");
+        }
+        lock = new ReentrantReadWriteLock();
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.metrics = metrics;
     }
 
     public void lock() {
-        lock.lock();
+        if (metrics != null) {
+            long start = metrics.start();
+            lock.writeLock().lock();
+            if (start != 0L) {
+                long now = System.nanoTime();
+                metrics.record(Metric.TABLE_LOCK, now - start);
+                if (lock.getWriteHoldCount() == 1) {
+                    lockTime = now;
+                }
+            }
+        } else {
+            lock.writeLock().lock();
+        }
     }
 
     public void unlock() {
-        lock.unlock();
+        if (lockTime != 0L && lock.getWriteHoldCount() == 1) {
+            metrics.record(Metric.TABLE_LOCK_HOLD, System.nanoTime() - lockTime);
+            lockTime = 0L;
+        }
+        lock.writeLock().unlock();
+    }
+
+    public void lockStripe(int key) {
+        long start = metrics != null ? metrics.start() : 0L;
+        lock.readLock().lock();
+        stripes[key & (stripes.length - 1)].lock();
+        if (start != 0L) {
+            metrics.stop(Metric.TABLE_LOCK, start);
+        }
+    }
+
+    public void unlockStripe(int key) {
+        stripes[key & (stripes.length - 1)].unlock();
+        lock.readLock().unlock();
     }
 }
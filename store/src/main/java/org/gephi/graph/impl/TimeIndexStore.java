@@ -21,6 +21,7 @@ import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.locks.ReentrantLock;
 import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Element;
@@ -36,6 +37,7 @@ public abstract class TimeIndexStore<T extends Element, K, S extends TimeSet<K>,
 
     // Lock
     protected final GraphLock graphLock;
+    protected final ReentrantLock updateLock;
     // Element
     protected final Class<T> elementType;
     // Timestamp index managament
@@ -50,6 +52,7 @@ public abstract class TimeIndexStore<T extends Element, K, S extends TimeSet<K>,
     protected TimeIndexStore(Class<T> type, GraphLock lock, boolean indexed, Map<K, Integer> sortedMap) {
         elementType = type;
         graphLock = lock;
+        updateLock = new ReentrantLock();
 
         garbageQueue = new IntRBTreeSet();
         // Subclass
@@ -65,6 +68,18 @@ public abstract class TimeIndexStore<T extends Element, K, S extends TimeSet<K>,
 
     protected abstract TimeIndexImpl createIndex(boolean main);
 
+    /**
+     * Locks the store against concurrent updates from attribute writes, which
+     * only hold the shared read lock when striped locking is enabled.
+     */
+    public void lock() {
+        updateLock.lock();
+    }
+
+    public void unlock() {
+        updateLock.unlock();
+    }
+
     public Integer add(K k) {
         checkK(k);
 
@@ -28,10 +28,13 @@ public class TimeStore {
     // Store
     protected TimeIndexStore nodeIndexStore;
     protected TimeIndexStore edgeIndexStore;
+    // Timestamps shared by dictionary encoded columns
+    protected final TimestampDictionary timestampDictionary;
 
     public TimeStore(GraphStore store, GraphLock graphLock, boolean indexed) {
         lock = graphLock;
         graphStore = store;
+        timestampDictionary = new TimestampDictionary();
 
         TimeRepresentation timeRepresentation = GraphStoreConfiguration.DEFAULT_TIME_REPRESENTATION;
         if (store != null) {
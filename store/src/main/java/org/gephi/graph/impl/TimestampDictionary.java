@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrays;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenCustomHashMap;
+import org.gephi.graph.api.types.TimestampMap;
+import org.gephi.graph.api.types.TimestampSet;
+
+/**
+ * Store-wide dictionary of the timestamp arrays of timestamp sets and maps.
+ * <p>
+ * Sets and maps with the same timestamps share the dictionary's instance of the
+ * array, so elements sampled at the same timestamps don't each hold a copy.
+ * Only values set as a whole are shared, as adding timestamps one at a time
+ * would fill the dictionary with every intermediate array. Arrays stay in the
+ * dictionary even when no set or map uses them anymore. Once the dictionary is
+ * full, new arrays aren't shared.
+ */
+public class TimestampDictionary {
+
+    protected final Object2ObjectOpenCustomHashMap<double[], double[]> arrays;
+    protected final int maxSize;
+
+    public TimestampDictionary() {
+        this(GraphStoreConfiguration.TIMESTAMP_DICTIONARY_MAX_SIZE);
+    }
+
+    public TimestampDictionary(int maxSize) {
+        this.maxSize = maxSize;
+        this.arrays = new Object2ObjectOpenCustomHashMap<double[], double[]>(DoubleArrays.HASH_STRATEGY);
+    }
+
+    /**
+     * Returns the dictionary's instance of <code>timestamps</code>, adding it
+     * if it doesn't exist yet and the dictionary isn't full.
+     *
+     * @param timestamps sorted timestamps
+     * @return shared instance of the array, or the array itself
+     */
+    public synchronized double[] get(double[] timestamps) {
+        double[] array = arrays.get(timestamps);
+        if (array != null) {
+            return array;
+        }
+        if (arrays.size() < maxSize) {
+            arrays.put(timestamps, timestamps);
+        }
+        return timestamps;
+    }
+
+    /**
+     * Makes <code>value</code> share its timestamps with the other sets or maps
+     * having the same timestamps, if it's a timestamp set or map.
+     *
+     * @param value value
+     */
+    public void share(Object value) {
+        if (value instanceof TimestampMap) {
+            TimestampMap map = (TimestampMap) value;
+            if (!map.isEmpty()) {
+                map.shareTimestamps(get(map.getTimestamps()));
+            }
+        } else if (value instanceof TimestampSet) {
+            TimestampSet set = (TimestampSet) value;
+            if (!set.isEmpty()) {
+                set.shareTimestamps(get(set.toPrimitiveArray()));
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return arrays.size();
+    }
+}
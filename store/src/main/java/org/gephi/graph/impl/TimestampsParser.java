@@ -15,9 +15,7 @@
  */
 package org.gephi.graph.impl;
 
-import java.io.IOException;
-import java.io.StringReader;
-import java.util.ArrayList;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
 import org.gephi.graph.api.AttributeUtils;
 import static org.gephi.graph.impl.FormattingAndParsingUtils.COMMA;
 import static org.gephi.graph.impl.FormattingAndParsingUtils.DYNAMIC_TYPE_LEFT_BOUND;
@@ -26,6 +24,7 @@ import static org.gephi.graph.impl.FormattingAndParsingUtils.LEFT_BOUND_BRACKET;
 import static org.gephi.graph.impl.FormattingAndParsingUtils.LEFT_BOUND_SQUARE_BRACKET;
 import static org.gephi.graph.impl.FormattingAndParsingUtils.RIGHT_BOUND_BRACKET;
 import static org.gephi.graph.impl.FormattingAndParsingUtils.RIGHT_BOUND_SQUARE_BRACKET;
+import org.gephi.graph.impl.FormattingAndParsingUtils.Cursor;
 import org.gephi.graph.api.types.TimestampBooleanMap;
 import org.gephi.graph.api.types.TimestampByteMap;
 import org.gephi.graph.api.types.TimestampCharMap;
@@ -104,55 +103,51 @@ public final class TimestampsParser {
             return new TimestampSet();
         }
 
-        ArrayList<String> values = new ArrayList<String>();
-        try {
-            StringReader reader = new StringReader(input + ' ');// Add 1 space
-                                                                // so
-                                                                // reader.skip
-                                                                // function
-                                                                // always works
-                                                                // when
-                                                                // necessary
-                                                                // (end of
-                                                                // string not
-                                                                // reached).
-            int r;
-            char c;
-            while ((r = reader.read()) != -1) {
-                c = (char) r;
-                switch (c) {
-                    case DYNAMIC_TYPE_LEFT_BOUND:
-                    case DYNAMIC_TYPE_RIGHT_BOUND:
-                    case RIGHT_BOUND_SQUARE_BRACKET:
-                    case RIGHT_BOUND_BRACKET:
-                    case LEFT_BOUND_BRACKET:
-                    case LEFT_BOUND_SQUARE_BRACKET:
-                    case ' ':
-                    case '\t':
-                    case '\r':
-                    case '\n':
-                    case COMMA:
-                        // Ignore special characters and leading whitespace or
-                        // similar until a value or literal starts:
-                        break;
-                    case '"':
-                    case '\'':
-                        values.add(FormattingAndParsingUtils.parseLiteral(reader, c));
-                        break;
-                    default:
-                        reader.skip(-1);// Go backwards 1 position, for reading
-                                        // start of value
-                        values.add(FormattingAndParsingUtils.parseValue(reader));
-                }
+        DoubleArrayList values = new DoubleArrayList();
+        Cursor cursor = new Cursor(input);
+        int r;
+        char c;
+        while ((r = cursor.read()) != -1) {
+            c = (char) r;
+            switch (c) {
+                case DYNAMIC_TYPE_LEFT_BOUND:
+                case DYNAMIC_TYPE_RIGHT_BOUND:
+                case RIGHT_BOUND_SQUARE_BRACKET:
+                case RIGHT_BOUND_BRACKET:
+                case LEFT_BOUND_BRACKET:
+                case LEFT_BOUND_SQUARE_BRACKET:
+                case ' ':
+                case '\t':
+                case '\r':
+                case '\n':
+                case COMMA:
+                    // Ignore special characters and leading whitespace or
+                    // similar until a value or literal starts:
+                    break;
+                case '"':
+                case '\'':
+                    values.add(FormattingAndParsingUtils.parseDateTimeOrTimestamp(FormattingAndParsingUtils
+                            .parseLiteral(cursor, c), timeZone));
+                    break;
+                default:
+                    cursor.unread();// Go backwards 1 position, for reading
+                                    // start of value
+                    FormattingAndParsingUtils.parseValue(cursor);
+                    values.add(FormattingAndParsingUtils
+                            .parseDateTimeOrTimestamp(input, cursor.valueStart, cursor.valueEnd, timeZone));
             }
-        } catch (IOException ex) {
-            throw new RuntimeException("Unexpected expection while parsing timestamps", ex);
+        }
+
+        if (isStrictlyIncreasing(values)) {
+            // Common case, timestamps are already sorted
+            values.trim();
+            return new TimestampSet(values.elements());
         }
 
         TimestampSet result = new TimestampSet(values.size());
 
-        for (String value : values) {
-            result.add(FormattingAndParsingUtils.parseDateTimeOrTimestamp(value, timeZone));
+        for (int i = 0; i < values.size(); i++) {
+            result.add(values.getDouble(i));
         }
 
         return result;
@@ -227,30 +222,19 @@ public final class TimestampsParser {
             return result;
         }
 
-        StringReader reader = new StringReader(input + ' ');// Add 1 space so
-                                                            // reader.skip
-                                                            // function always
-                                                            // works when
-                                                            // necessary (end of
-                                                            // string not
-                                                            // reached).
-
-        try {
-            int r;
-            char c;
-            while ((r = reader.read()) != -1) {
-                c = (char) r;
-                switch (c) {
-                    case LEFT_BOUND_SQUARE_BRACKET:
-                    case LEFT_BOUND_BRACKET:
-                        parseTimestampAndValue(typeClass, reader, result, timeZone);
-                        break;
-                    default:
-                        // Ignore other chars outside of bounds
-                }
+        Cursor cursor = new Cursor(input);
+        int r;
+        char c;
+        while ((r = cursor.read()) != -1) {
+            c = (char) r;
+            switch (c) {
+                case LEFT_BOUND_SQUARE_BRACKET:
+                case LEFT_BOUND_BRACKET:
+                    parseTimestampAndValue(typeClass, cursor, result, timeZone);
+                    break;
+                default:
+                    // Ignore other chars outside of bounds
             }
-        } catch (IOException ex) {
-            throw new RuntimeException("Unexpected expection while parsing timestamps", ex);
         }
 
         return result;
@@ -275,17 +259,19 @@ public final class TimestampsParser {
         return parseTimestampMap(typeClass, input, null);
     }
 
-    private static <T> void parseTimestampAndValue(Class<T> typeClass, StringReader reader, TimestampMap<T> result, DateTimeZone timeZone) throws IOException {
-        ArrayList<String> values = new ArrayList<String>();
+    private static <T> void parseTimestampAndValue(Class<T> typeClass, Cursor cursor, TimestampMap<T> result, DateTimeZone timeZone) {
+        int count = 0;
+        double timestamp = 0;
+        String valString = null;
 
         int r;
         char c;
-        while ((r = reader.read()) != -1) {
+        while ((r = cursor.read()) != -1) {
             c = (char) r;
             switch (c) {
                 case RIGHT_BOUND_SQUARE_BRACKET:
                 case RIGHT_BOUND_BRACKET:
-                    addTimestampAndValue(typeClass, values, result, timeZone);
+                    addTimestampAndValue(typeClass, count, timestamp, valString, result);
                     return;
                 case ' ':
                 case '\t':
@@ -297,28 +283,47 @@ public final class TimestampsParser {
                     break;
                 case '"':
                 case '\'':
-                    values.add(FormattingAndParsingUtils.parseLiteral(reader, c));
+                    String literal = FormattingAndParsingUtils.parseLiteral(cursor, c);
+                    if (count == 0) {
+                        timestamp = FormattingAndParsingUtils.parseDateTimeOrTimestamp(literal, timeZone);
+                    } else {
+                        valString = literal;
+                    }
+                    count++;
                     break;
                 default:
-                    reader.skip(-1);// Go backwards 1 position, for reading
+                    cursor.unread();// Go backwards 1 position, for reading
                                     // start of value
-                    values.add(FormattingAndParsingUtils.parseValue(reader));
+                    FormattingAndParsingUtils.parseValue(cursor);
+                    if (count == 0) {
+                        timestamp = FormattingAndParsingUtils
+                                .parseDateTimeOrTimestamp(cursor.input, cursor.valueStart, cursor.valueEnd, timeZone);
+                    } else if (count == 1) {
+                        valString = cursor.value();
+                    }
+                    count++;
             }
         }
 
-        addTimestampAndValue(typeClass, values, result, timeZone);
+        addTimestampAndValue(typeClass, count, timestamp, valString, result);
     }
 
-    private static <T> void addTimestampAndValue(Class<T> typeClass, ArrayList<String> values, TimestampMap<T> result, DateTimeZone timeZone) {
-        if (values.size() != 2) {
+    private static <T> void addTimestampAndValue(Class<T> typeClass, int count, double timestamp, String valString, TimestampMap<T> result) {
+        if (count != 2) {
             throw new IllegalArgumentException("Each timestamp and value array must have 2 values");
         }
 
-        double timestamp = FormattingAndParsingUtils.parseDateTimeOrTimestamp(values.get(0), timeZone);
-
-        String valString = values.get(1);
         T value = FormattingAndParsingUtils.convertValue(typeClass, valString);
 
         result.put(timestamp, value);
     }
+
+    private static boolean isStrictlyIncreasing(DoubleArrayList values) {
+        for (int i = 1; i < values.size(); i++) {
+            if (!(values.getDouble(i - 1) < values.getDouble(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -18,6 +18,7 @@ package org.gephi.graph.impl;
 import java.util.Collection;
 import java.util.Set;
 import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeCursor;
 import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphModel;
@@ -160,6 +161,11 @@ public class UndirectedDecorator implements UndirectedGraph, UndirectedSubgraph
         return store.getEdgeIterableWrapper(store.edgeStore.iteratorSelfLoop());
     }
 
+    @Override
+    public EdgeIterable getEdges(int type) {
+        return store.getEdgeIterableWrapper(store.edgeStore.iteratorUndirected(type));
+    }
+
     @Override
     public NodeIterable getNeighbors(Node node) {
         return store.getNodeIterableWrapper(store.edgeStore.neighborIterator(node));
@@ -180,6 +186,11 @@ public class UndirectedDecorator implements UndirectedGraph, UndirectedSubgraph
         return store.getEdgeIterableWrapper(store.edgeStore.edgeUndirectedIterator(node, type));
     }
 
+    @Override
+    public EdgeCursor edgeCursor() {
+        return new EdgeCursorImpl(store.edgeStore, null, true);
+    }
+
     @Override
     public int getNodeCount() {
         return store.getNodeCount();
@@ -0,0 +1,793 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.booleans.BooleanArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import java.io.DataInput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import org.gephi.graph.api.AttributeUtils;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.Origin;
+import org.gephi.graph.impl.utils.DataInputOutput;
+import org.gephi.graph.impl.utils.LongPacker;
+
+/**
+ * Append-only log of the mutations made to a graph store.
+ * <p>
+ * Records are appended to an in-memory buffer by the mutating threads and
+ * written as checksummed batches, either explicitly with {@link #commit()} or
+ * by a background thread when the buffer reaches the group commit size. A batch
+ * is synced to disk when the output is a file, so a single sync covers all the
+ * records of the batch. Mutating threads never write to the output, so no io
+ * happens under the element monitors or the graph lock.
+ * <p>
+ * If a batch can't be written or a record can't be encoded, the log fails: the
+ * pending records are dropped and no further records are appended, so the
+ * output always holds a consistent prefix of the mutations. Mutations
+ * themselves aren't affected, the failure is thrown by the next
+ * {@link #commit()} or {@link #close()}.
+ * <p>
+ * Columns are referred to by a code, defined by a record the first time the
+ * column is used in the log. Element ids and attribute values are encoded like
+ * in {@link Serialization}.
+ * <p>
+ * Node and edge properties (e.g. position or color), graph attributes and views
+ * aren't logged.
+ */
+public class WriteAheadLog {
+
+    // Default group commit size, in bytes
+    public final static int DEFAULT_GROUP_COMMIT_SIZE = 1 << 16;
+    // Record types
+    final static int DEFINE_COLUMN = 0;
+    final static int ADD_NODE = 1;
+    final static int ADD_EDGE = 2;
+    final static int REMOVE_NODE = 3;
+    final static int REMOVE_EDGE = 4;
+    final static int CLEAR = 5;
+    final static int CLEAR_EDGES = 6;
+    final static int CLEAR_NODE_EDGES = 7;
+    final static int CLEAR_NODE_EDGES_TYPE = 8;
+    final static int ADD_COLUMN = 9;
+    final static int REMOVE_COLUMN = 10;
+    final static int SET_ATTRIBUTE = 11;
+    final static int REMOVE_ATTRIBUTE = 12;
+    final static int SET_TIME_ATTRIBUTE = 13;
+    final static int REMOVE_TIME_ATTRIBUTE = 14;
+    final static int ADD_TIME = 15;
+    final static int REMOVE_TIME = 16;
+    final static int SET_WEIGHT = 17;
+    final static int SET_TIME_WEIGHT = 18;
+    // Store
+    protected final GraphStore graphStore;
+    protected final Serialization serialization;
+    // Output
+    protected final OutputStream stream;
+    protected final DataOutputStream output;
+    protected final int groupCommitSize;
+    protected final Object commitLock = new Object();
+    protected Thread committer;
+    // Pending records
+    protected DataInputOutput buffer;
+    protected int records;
+    protected boolean closed;
+    protected volatile IOException failure;
+    // Column codes
+    protected final Reference2IntMap<ColumnImpl> columnCodes;
+    protected int columnCount;
+
+    public WriteAheadLog(GraphStore graphStore, OutputStream output) {
+        this(graphStore, output, DEFAULT_GROUP_COMMIT_SIZE);
+    }
+
+    public WriteAheadLog(GraphStore graphStore, OutputStream output, int groupCommitSize) {
+        if (groupCommitSize <= 0) {
+            throw new IllegalArgumentException("The group commit size should be positive");
+        }
+        this.graphStore = graphStore;
+        this.serialization = new Serialization(graphStore.graphModel);
+        this.stream = output;
+        this.output = new DataOutputStream(output);
+        this.groupCommitSize = groupCommitSize;
+        this.buffer = new DataInputOutput();
+        this.columnCodes = new Reference2IntOpenHashMap<ColumnImpl>();
+        this.columnCodes.defaultReturnValue(-1);
+    }
+
+    /**
+     * Starts the background thread writing the batches once the buffer reaches
+     * the group commit size.
+     */
+    public synchronized void start() {
+        if (committer != null || closed) {
+            throw new IllegalStateException("The write-ahead log has already been started");
+        }
+        committer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                groupCommit();
+            }
+        }, "GraphStore Write-Ahead Log");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Stops the background thread and writes the pending records.
+     *
+     * @throws IOException if an io error occurs or the log failed before
+     */
+    public void close() throws IOException {
+        Thread thread;
+        synchronized (this) {
+            closed = true;
+            thread = committer;
+            notifyAll();
+        }
+        if (thread != null && thread != Thread.currentThread()) {
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        commit();
+    }
+
+    /**
+     * Writes the pending records as a single batch and syncs it.
+     *
+     * @throws IOException if an io error occurs or the log failed before
+     */
+    public void commit() throws IOException {
+        synchronized (commitLock) {
+            DataInputOutput batch;
+            int count;
+            synchronized (this) {
+                checkFailure();
+                if (records == 0) {
+                    return;
+                }
+                batch = buffer;
+                count = records;
+                buffer = new DataInputOutput();
+                records = 0;
+            }
+
+            try {
+                CRC32 crc = new CRC32();
+                crc.update(batch.getBuf(), 0, batch.getPos());
+
+                LongPacker.packInt(output, count);
+                LongPacker.packInt(output, batch.getPos());
+                output.writeInt((int) crc.getValue());
+                output.write(batch.getBuf(), 0, batch.getPos());
+                output.flush();
+                sync();
+            } catch (IOException e) {
+                // The batch may be partially written, later batches couldn't
+                // be replayed
+                fail(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns the error which made the log fail, or null if it didn't fail.
+     *
+     * @return failure or null
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    public void logAddNode(NodeImpl node) {
+        try {
+            synchronized (this) {
+                if (failure != null) {
+                    return;
+                }
+                defineColumns(node, graphStore.nodeTable);
+                beginRecord(ADD_NODE);
+                serialization.serialize(buffer, node.getId());
+                writeAttributes(node, graphStore.nodeTable);
+            }
+            notifyIfFull();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public void logAddEdge(EdgeImpl edge) {
+        try {
+            synchronized (this) {
+                if (failure != null) {
+                    return;
+                }
+                defineColumns(edge, graphStore.edgeTable);
+                beginRecord(ADD_EDGE);
+                serialization.serialize(buffer, edge.getId());
+                serialization.serialize(buffer, edge.source.getId());
+                serialization.serialize(buffer, edge.target.getId());
+                serialization.serialize(buffer, graphStore.edgeTypeStore.getLabel(edge.type));
+                buffer.writeDouble(edge.hasDynamicWeight() ? GraphStoreConfiguration.DEFAULT_EDGE_WEIGHT : edge
+                        .getWeight());
+                buffer.writeBoolean(edge.isDirected());
+                writeAttributes(edge, graphStore.edgeTable);
+            }
+            notifyIfFull();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public void logRemoveNode(NodeImpl node) {
+        logElement(REMOVE_NODE, node);
+    }
+
+    public void logRemoveEdge(EdgeImpl edge) {
+        logElement(REMOVE_EDGE, edge);
+    }
+
+    public void logClear() {
+        logElement(CLEAR, null);
+    }
+
+    public void logClearEdges() {
+        logElement(CLEAR_EDGES, null);
+    }
+
+    public void logClearEdges(NodeImpl node) {
+        logElement(CLEAR_NODE_EDGES, node);
+    }
+
+    public void logClearEdges(NodeImpl node, int type) {
+        try {
+            synchronized (this) {
+                if (failure != null) {
+                    return;
+                }
+                beginRecord(CLEAR_NODE_EDGES_TYPE);
+                serialization.serialize(buffer, node.getId());
+                serialization.serialize(buffer, graphStore.edgeTypeStore.getLabel(type));
+            }
+            notifyIfFull();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public void logAddColumn(ColumnImpl column) {
+        try {
+            synchronized (this) {
+                if (failure != null) {
+                    return;
+                }
+                beginRecord(ADD_COLUMN);
+                buffer.writeBoolean(AttributeUtils.isEdgeColumn(column));
+                serialization.serialize(buffer, column.getId());
+                serialization.serialize(buffer, column.getTitle());
+                serialization.serialize(buffer, column.getTypeClass());
+                serialization.serialize(buffer, column.getOrigin());
+                serialization.serialize(buffer, column.getDefaultValue());
+                buffer.writeBoolean(column.isIndexed());
+                buffer.writeBoolean(column.isDictionaryEncoded());
+            }
+            notifyIfFull();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public void logRemoveColumn(ColumnImpl column) {
+        try {
+            synchronized (this) {
+                if (failure != null) {
+                    return;
+                }
+                beginRecord(REMOVE_COLUMN);
+                buffer.writeBoolean(AttributeUtils.isEdgeColumn(column));
+                serialization.serialize(buffer, column.getId());
+                columnCodes.removeInt(column);
+            }
+            notifyIfFull();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public void logSetAttribute(ElementImpl element, Column column, Object value) {
+        logAttribute(SET_ATTRIBUTE, element, (ColumnImpl) column, value, null);
+    }
+
+    public void logRemoveAttribute(ElementImpl element, Column column) {
+        logAttribute(REMOVE_ATTRIBUTE, element, (ColumnImpl) column, null, null);
+    }
+
+    public void logSetAttribute(ElementImpl element, Column column, Object value, Object timeObject) {
+        logAttribute(SET_TIME_ATTRIBUTE, element, (ColumnImpl) column, value, timeObject);
+    }
+
+    public void logRemoveAttribute(ElementImpl element, Column column, Object timeObject) {
+        logAttribute(REMOVE_TIME_ATTRIBUTE, element, (ColumnImpl) column, null, timeObject);
+    }
+
+    public void logAddTime(ElementImpl element, Object timeObject) {
+        logTime(ADD_TIME, element, timeObject);
+    }
+
+    public void logRemoveTime(ElementImpl element, Object timeObject) {
+        logTime(REMOVE_TIME, element, timeObject);
+    }
+
+    public void logSetWeight(EdgeImpl edge, double weight) {
+        logWeight(SET_WEIGHT, edge, weight, null);
+    }
+
+    public void logSetWeight(EdgeImpl edge, double weight, Object timeObject) {
+        logWeight(SET_TIME_WEIGHT, edge, weight, timeObject);
+    }
+
+    /**
+     * Replays the records of <code>input</code> on <code>graphStore</code>.
+     * <p>
+     * Replay stops at the end of the input, or at the first truncated or
+     * corrupted batch, which is the last one being written when the log was
+     * interrupted.
+     *
+     * @param input data input to read the log from
+     * @param graphStore graph store to apply the records on
+     * @return the number of replayed records
+     * @throws IOException if an io error occurs
+     */
+    public static int replay(DataInput input, GraphStore graphStore) throws IOException {
+        Replay replay = new Replay(graphStore);
+        int replayed = 0;
+        while (true) {
+            byte[] data;
+            int count;
+            try {
+                count = LongPacker.unpackInt(input);
+                int length = LongPacker.unpackInt(input);
+                int checksum = input.readInt();
+                data = new byte[length];
+                input.readFully(data);
+
+                CRC32 crc = new CRC32();
+                crc.update(data, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+            } catch (EOFException e) {
+                break;
+            } catch (IndexOutOfBoundsException e) {
+                // In-memory inputs don't throw EOFException
+                break;
+            }
+
+            DataInputOutput batch = new DataInputOutput(data);
+            try {
+                for (int i = 0; i < count; i++) {
+                    replay.apply(batch);
+                }
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+            replayed += count;
+        }
+        return replayed;
+    }
+
+    private void logElement(int type, ElementImpl element) {
+        try {
+            synchronized (this) {
+                if (failure != null) {
+                    return;
+                }
+                beginRecord(type);
+                if (element != null) {
+                    serialization.serialize(buffer, element.getId());
+                }
+            }
+            notifyIfFull();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void logAttribute(int type, ElementImpl element, ColumnImpl column, Object value, Object timeObject) {
+        try {
+            synchronized (this) {
+                if (failure != null) {
+                    return;
+                }
+                int code = getColumnCode(column);
+                beginRecord(type);
+                LongPacker.packInt(buffer, code);
+                serialization.serialize(buffer, element.getId());
+                if (type == SET_ATTRIBUTE || type == SET_TIME_ATTRIBUTE) {
+                    serialization.serialize(buffer, value);
+                }
+                if (type == SET_TIME_ATTRIBUTE || type == REMOVE_TIME_ATTRIBUTE) {
+                    serialization.serialize(buffer, timeObject);
+                }
+            }
+            notifyIfFull();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void logTime(int type, ElementImpl element, Object timeObject) {
+        try {
+            synchronized (this) {
+                if (failure != null) {
+                    return;
+                }
+                beginRecord(type);
+                buffer.writeBoolean(element instanceof EdgeImpl);
+                serialization.serialize(buffer, element.getId());
+                serialization.serialize(buffer, timeObject);
+            }
+            notifyIfFull();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void logWeight(int type, EdgeImpl edge, double weight, Object timeObject) {
+        try {
+            synchronized (this) {
+                if (failure != null) {
+                    return;
+                }
+                beginRecord(type);
+                serialization.serialize(buffer, edge.getId());
+                buffer.writeDouble(weight);
+                if (timeObject != null) {
+                    serialization.serialize(buffer, timeObject);
+                }
+            }
+            notifyIfFull();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void defineColumns(ElementImpl element, TableImpl table) throws IOException {
+        Object[] attributes = element.attributes;
+        for (int i = GraphStoreConfiguration.ELEMENT_ID_INDEX + 1; i < attributes.length; i++) {
+            ColumnImpl column = getColumnByIndex(table, i);
+            if (attributes[i] != null && column != null) {
+                getColumnCode(column);
+            }
+        }
+    }
+
+    private void writeAttributes(ElementImpl element, TableImpl table) throws IOException {
+        Object[] attributes = element.attributes;
+        int count = 0;
+        for (int i = GraphStoreConfiguration.ELEMENT_ID_INDEX + 1; i < attributes.length; i++) {
+            if (attributes[i] != null && getColumnByIndex(table, i) != null) {
+                count++;
+            }
+        }
+        LongPacker.packInt(buffer, count);
+        for (int i = GraphStoreConfiguration.ELEMENT_ID_INDEX + 1; i < attributes.length; i++) {
+            ColumnImpl column = getColumnByIndex(table, i);
+            if (attributes[i] != null && column != null) {
+                LongPacker.packInt(buffer, getColumnCode(column));
+                serialization.serialize(buffer, attributes[i]);
+            }
+        }
+    }
+
+    private ColumnImpl getColumnByIndex(TableImpl table, int index) {
+        ColumnImpl[] columns = table.store.columns;
+        return index < columns.length ? columns[index] : null;
+    }
+
+    private int getColumnCode(ColumnImpl column) throws IOException {
+        int code = columnCodes.getInt(column);
+        if (code == -1) {
+            code = columnCount++;
+            columnCodes.put(column, code);
+
+            beginRecord(DEFINE_COLUMN);
+            buffer.writeBoolean(AttributeUtils.isEdgeColumn(column));
+            serialization.serialize(buffer, column.getId());
+        }
+        return code;
+    }
+
+    private void beginRecord(int type) throws IOException {
+        buffer.write(type);
+        records++;
+    }
+
+    private synchronized void notifyIfFull() {
+        if (buffer.getPos() >= groupCommitSize) {
+            notifyAll();
+        }
+    }
+
+    private void groupCommit() {
+        while (true) {
+            synchronized (this) {
+                while (!closed && (failure != null || buffer.getPos() < groupCommitSize)) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // Only close stops the committer
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+            }
+            try {
+                commit();
+            } catch (IOException e) {
+                // Kept as the failure, thrown by the next commit
+            }
+        }
+    }
+
+    private synchronized void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+        buffer = new DataInputOutput();
+        records = 0;
+    }
+
+    private void checkFailure() throws IOException {
+        IOException e = failure;
+        if (e != null) {
+            throw new IOException("The write-ahead log failed", e);
+        }
+    }
+
+    private void sync() throws IOException {
+        if (stream instanceof FileOutputStream) {
+            ((FileOutputStream) stream).getFD().sync();
+        }
+    }
+
+    /**
+     * Replay state, which maps the column codes to the columns ids.
+     */
+    private static class Replay {
+
+        private final GraphStore store;
+        private final Serialization serialization;
+        private final ObjectArrayList<String> columnIds = new ObjectArrayList<String>();
+        private final BooleanArrayList columnEdges = new BooleanArrayList();
+
+        public Replay(GraphStore store) {
+            this.store = store;
+            this.serialization = new Serialization(store.graphModel);
+        }
+
+        void apply(DataInputOutput in) throws IOException, ClassNotFoundException {
+            int type = in.readUnsignedByte();
+            switch (type) {
+                case DEFINE_COLUMN: {
+                    columnEdges.add(in.readBoolean());
+                    columnIds.add((String) serialization.deserialize(in));
+                    break;
+                }
+                case ADD_NODE: {
+                    NodeImpl node = (NodeImpl) store.factory.newNode(serialization.deserialize(in));
+                    readAttributes(in, node);
+                    if (store.getNode(node.getId()) == null) {
+                        store.addNode(node);
+                    }
+                    break;
+                }
+                case ADD_EDGE: {
+                    Object id = serialization.deserialize(in);
+                    NodeImpl source = getNode(serialization.deserialize(in));
+                    NodeImpl target = getNode(serialization.deserialize(in));
+                    int edgeType = store.edgeTypeStore.addType(serialization.deserialize(in));
+                    double weight = in.readDouble();
+                    boolean directed = in.readBoolean();
+                    EdgeImpl edge = (EdgeImpl) store.factory.newEdge(id, source, target, edgeType, weight, directed);
+                    readAttributes(in, edge);
+                    if (store.getEdge(id) == null) {
+                        store.addEdge(edge);
+                    }
+                    break;
+                }
+                case REMOVE_NODE: {
+                    NodeImpl node = store.getNode(serialization.deserialize(in));
+                    if (node != null) {
+                        store.removeNode(node);
+                    }
+                    break;
+                }
+                case REMOVE_EDGE: {
+                    EdgeImpl edge = store.getEdge(serialization.deserialize(in));
+                    if (edge != null) {
+                        store.removeEdge(edge);
+                    }
+                    break;
+                }
+                case CLEAR:
+                    store.clear();
+                    break;
+                case CLEAR_EDGES:
+                    store.clearEdges();
+                    break;
+                case CLEAR_NODE_EDGES:
+                    store.clearEdges(getNode(serialization.deserialize(in)));
+                    break;
+                case CLEAR_NODE_EDGES_TYPE: {
+                    NodeImpl node = getNode(serialization.deserialize(in));
+                    int edgeType = store.edgeTypeStore.getId(serialization.deserialize(in));
+                    if (edgeType != EdgeTypeStore.NULL_TYPE) {
+                        store.clearEdges(node, edgeType);
+                    }
+                    break;
+                }
+                case ADD_COLUMN: {
+                    TableImpl table = in.readBoolean() ? store.edgeTable : store.nodeTable;
+                    String id = (String) serialization.deserialize(in);
+                    String title = (String) serialization.deserialize(in);
+                    Class typeClass = (Class) serialization.deserialize(in);
+                    Origin origin = (Origin) serialization.deserialize(in);
+                    Object defaultValue = serialization.deserialize(in);
+                    boolean indexed = in.readBoolean();
+                    boolean dictionaryEncoded = in.readBoolean();
+                    if (!table.hasColumn(id)) {
+                        table.addColumn(id, title, typeClass, origin, defaultValue, indexed, dictionaryEncoded);
+                    }
+                    break;
+                }
+                case REMOVE_COLUMN: {
+                    TableImpl table = in.readBoolean() ? store.edgeTable : store.nodeTable;
+                    String id = (String) serialization.deserialize(in);
+                    if (table.hasColumn(id)) {
+                        table.removeColumn(id);
+                    }
+                    break;
+                }
+                case SET_ATTRIBUTE:
+                case REMOVE_ATTRIBUTE:
+                case SET_TIME_ATTRIBUTE:
+                case REMOVE_TIME_ATTRIBUTE: {
+                    int code = LongPacker.unpackInt(in);
+                    Column column = getColumn(code);
+                    ElementImpl element = getElement(columnEdges.getBoolean(code), serialization.deserialize(in));
+                    if (type == SET_ATTRIBUTE) {
+                        element.setAttribute(column, serialization.deserialize(in));
+                    } else if (type == REMOVE_ATTRIBUTE) {
+                        element.removeAttribute(column);
+                    } else if (type == SET_TIME_ATTRIBUTE) {
+                        Object value = serialization.deserialize(in);
+                        Object timeObject = serialization.deserialize(in);
+                        if (timeObject instanceof Interval) {
+                            element.setAttribute(column, value, (Interval) timeObject);
+                        } else {
+                            element.setAttribute(column, value, (Double) timeObject);
+                        }
+                    } else {
+                        Object timeObject = serialization.deserialize(in);
+                        if (timeObject instanceof Interval) {
+                            element.removeAttribute(column, (Interval) timeObject);
+                        } else {
+                            element.removeAttribute(column, (Double) timeObject);
+                        }
+                    }
+                    break;
+                }
+                case ADD_TIME:
+                case REMOVE_TIME: {
+                    ElementImpl element = getElement(in.readBoolean(), serialization.deserialize(in));
+                    Object timeObject = serialization.deserialize(in);
+                    if (type == ADD_TIME) {
+                        if (timeObject instanceof Interval) {
+                            element.addInterval((Interval) timeObject);
+                        } else {
+                            element.addTimestamp((Double) timeObject);
+                        }
+                    } else {
+                        if (timeObject instanceof Interval) {
+                            element.removeInterval((Interval) timeObject);
+                        } else {
+                            element.removeTimestamp((Double) timeObject);
+                        }
+                    }
+                    break;
+                }
+                case SET_WEIGHT:
+                case SET_TIME_WEIGHT: {
+                    EdgeImpl edge = (EdgeImpl) getElement(true, serialization.deserialize(in));
+                    double weight = in.readDouble();
+                    if (type == SET_WEIGHT) {
+                        edge.setWeight(weight);
+                    } else {
+                        Object timeObject = serialization.deserialize(in);
+                        if (timeObject instanceof Interval) {
+                            edge.setWeight(weight, (Interval) timeObject);
+                        } else {
+                            edge.setWeight(weight, (Double) timeObject);
+                        }
+                    }
+                    break;
+                }
+                default:
+                    throw new IOException("Unknown log record type " + type);
+            }
+        }
+
+        private void readAttributes(DataInputOutput in, ElementImpl element) throws IOException, ClassNotFoundException {
+            int count = LongPacker.unpackInt(in);
+            for (int i = 0; i < count; i++) {
+                Column column = getColumn(LongPacker.unpackInt(in));
+                Object value = ((ColumnImpl) column).encode(serialization.deserialize(in));
+
+                int index = column.getIndex();
+                if (index >= element.attributes.length) {
+                    Object[] newArray = new Object[index + 1];
+                    System.arraycopy(element.attributes, 0, newArray, 0, element.attributes.length);
+                    element.attributes = newArray;
+                }
+                element.attributes[index] = value;
+            }
+        }
+
+        private Column getColumn(int code) throws IOException {
+            if (code < 0 || code >= columnIds.size()) {
+                throw new IOException("The column code " + code + " isn't defined");
+            }
+            TableImpl table = columnEdges.getBoolean(code) ? store.edgeTable : store.nodeTable;
+            Column column = table.getColumn(columnIds.get(code));
+            if (column == null) {
+                throw new IOException("The column '" + columnIds.get(code) + "' can't be found");
+            }
+            return column;
+        }
+
+        private NodeImpl getNode(Object id) throws IOException {
+            return (NodeImpl) getElement(false, id);
+        }
+
+        private ElementImpl getElement(boolean edge, Object id) throws IOException {
+            ElementImpl element = edge ? store.getEdge(id) : store.getNode(id);
+            if (element == null) {
+                throw new IOException("The element '" + id + "' can't be found");
+            }
+            return element;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl.utils;
+
+import java.io.IOException;
+
+/**
+ * Fast LZ77 compression codec using the LZF block format.
+ * <p>
+ * A control byte below 32 starts a run of up to 32 literal bytes. Otherwise its
+ * 3 high bits hold the match length (7 meaning that an extra length byte
+ * follows) and its 5 low bits the high part of the back-reference offset, whose
+ * low part is in the next byte. Matches are found with a single-entry hash
+ * table, which favors speed over compression ratio.
+ */
+public final class LZFCodec {
+
+    private static final int HASH_LOG = 14;
+    private static final int HASH_SIZE = 1 << HASH_LOG;
+    private static final int MAX_LITERAL = 1 << 5;
+    private static final int MAX_OFFSET = 1 << 13;
+    private static final int MAX_MATCH = (1 << 8) + (1 << 3);
+
+    // Default constructor
+    private LZFCodec() {
+
+    }
+
+    /**
+     * Returns the maximum compressed length of <code>length</code> bytes.
+     *
+     * @param length the uncompressed length
+     * @return the maximum compressed length
+     */
+    public static int maxCompressedLength(int length) {
+        return length + length / MAX_LITERAL + 1;
+    }
+
+    /**
+     * Compresses the <code>inLength</code> first bytes of <code>in</code>.
+     *
+     * @param in the input buffer
+     * @param inLength the number of bytes to compress
+     * @param out the output buffer, at least {@link #maxCompressedLength(int)}
+     *        long
+     * @return the compressed length
+     */
+    public static int compress(byte[] in, int inLength, byte[] out) {
+        int[] hashTable = new int[HASH_SIZE];
+        int inPos = 0;
+        int outPos = 0;
+        int literalStart = 0;
+        while (inPos + 2 < inLength) {
+            int hash = hash(in, inPos);
+            int ref = hashTable[hash] - 1;
+            hashTable[hash] = inPos + 1;
+            int offset = inPos - ref - 1;
+            if (ref >= 0 && offset < MAX_OFFSET && in[ref] == in[inPos] && in[ref + 1] == in[inPos + 1] && in[ref + 2] == in[inPos + 2]) {
+                int maxLength = Math.min(inLength - inPos, MAX_MATCH);
+                int length = 3;
+                while (length < maxLength && in[ref + length] == in[inPos + length]) {
+                    length++;
+                }
+                outPos = writeLiterals(in, literalStart, inPos, out, outPos);
+
+                int code = length - 2;
+                if (code < 7) {
+                    out[outPos++] = (byte) ((code << 5) | (offset >>> 8));
+                } else {
+                    out[outPos++] = (byte) ((7 << 5) | (offset >>> 8));
+                    out[outPos++] = (byte) (code - 7);
+                }
+                out[outPos++] = (byte) offset;
+
+                inPos += length;
+                literalStart = inPos;
+            } else {
+                inPos++;
+            }
+        }
+        return writeLiterals(in, literalStart, inLength, out, outPos);
+    }
+
+    /**
+     * Decompresses the <code>inLength</code> first bytes of <code>in</code>.
+     *
+     * @param in the compressed buffer
+     * @param inLength the compressed length
+     * @param out the output buffer
+     * @param outLength the expected uncompressed length
+     * @throws IOException if the compressed data is corrupted
+     */
+    public static void decompress(byte[] in, int inLength, byte[] out, int outLength) throws IOException {
+        int inPos = 0;
+        int outPos = 0;
+        while (inPos < inLength) {
+            int ctrl = in[inPos++] & 0xff;
+            if (ctrl < MAX_LITERAL) {
+                int run = ctrl + 1;
+                if (inPos + run > inLength || outPos + run > outLength) {
+                    throw new IOException("The compressed data is corrupted");
+                }
+                System.arraycopy(in, inPos, out, outPos, run);
+                inPos += run;
+                outPos += run;
+            } else {
+                int code = ctrl >>> 5;
+                if (code == 7) {
+                    if (inPos >= inLength) {
+                        throw new IOException("The compressed data is corrupted");
+                    }
+                    code += in[inPos++] & 0xff;
+                }
+                if (inPos >= inLength) {
+                    throw new IOException("The compressed data is corrupted");
+                }
+                int ref = outPos - (((ctrl & 0x1f) << 8) | (in[inPos++] & 0xff)) - 1;
+                int length = code + 2;
+                if (ref < 0 || outPos + length > outLength) {
+                    throw new IOException("The compressed data is corrupted");
+                }
+                for (int i = 0; i < length; i++) {
+                    out[outPos++] = out[ref++];
+                }
+            }
+        }
+        if (outPos != outLength) {
+            throw new IOException("The compressed data is corrupted");
+        }
+    }
+
+    private static int writeLiterals(byte[] in, int start, int end, byte[] out, int outPos) {
+        while (start < end) {
+            int run = Math.min(end - start, MAX_LITERAL);
+            out[outPos++] = (byte) (run - 1);
+            System.arraycopy(in, start, out, outPos, run);
+            outPos += run;
+            start += run;
+        }
+        return outPos;
+    }
+
+    private static int hash(byte[] in, int pos) {
+        int value = ((in[pos] & 0xff) << 16) | ((in[pos + 1] & 0xff) << 8) | (in[pos + 2] & 0xff);
+        return (value * 0x9E3779B1) >>> (32 - HASH_LOG);
+    }
+}
@@ -135,6 +135,25 @@ public class TimestampMapTest {
         }
     }
 
+    @Test
+    public void testShareTimestamps() {
+        TimestampDoubleMap map1 = new TimestampDoubleMap(new double[] { 1.0, 2.0 }, new double[] { 1.0, 2.0 });
+        TimestampDoubleMap map2 = new TimestampDoubleMap(new double[] { 1.0, 2.0 }, new double[] { 3.0, 4.0 });
+        double[] timestamps = map1.getTimestamps();
+        map2.shareTimestamps(timestamps);
+        Assert.assertSame(map2.getTimestamps(), timestamps);
+
+        map2.put(2.0, 5.0);
+        Assert.assertSame(map2.getTimestamps(), timestamps);
+        Assert.assertEquals(map1.getDouble(2.0), 2.0);
+
+        map2.remove(1.0);
+        Assert.assertEquals(timestamps, new double[] { 1.0, 2.0 });
+        Assert.assertEquals(map1.getDouble(1.0), 1.0);
+        Assert.assertEquals(map2.getDouble(2.0), 5.0);
+        Assert.assertEquals(map2.size(), 1);
+    }
+
     @Test
     public void testClear() {
         for (TimestampMap set : getAllInstances()) {
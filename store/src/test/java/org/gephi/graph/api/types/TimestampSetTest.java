@@ -263,6 +263,30 @@ public class TimestampSetTest {
         Assert.assertEquals(set2.size(), 2);
     }
 
+    @Test
+    public void testShareTimestamps() {
+        TimestampSet set1 = new TimestampSet(new double[] { 1.0, 2.0 });
+        TimestampSet set2 = new TimestampSet(new double[] { 1.0, 2.0 });
+        double[] timestamps = set1.toPrimitiveArray();
+        set1.shareTimestamps(timestamps);
+        set2.shareTimestamps(timestamps);
+        Assert.assertSame(set2.toPrimitiveArray(), timestamps);
+
+        set2.remove(1.0);
+        Assert.assertEquals(timestamps, new double[] { 1.0, 2.0 });
+        Assert.assertTrue(set1.contains(1.0));
+
+        set1.add(3.0);
+        Assert.assertEquals(timestamps, new double[] { 1.0, 2.0 });
+        Assert.assertEquals(set1.toPrimitiveArray(), new double[] { 1.0, 2.0, 3.0 });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testShareDifferentTimestamps() {
+        TimestampSet set = new TimestampSet(new double[] { 1.0, 2.0 });
+        set.shareTimestamps(new double[] { 1.0, 3.0 });
+    }
+
     @Test
     public void testToStringDouble() {
         TimestampSet set1 = new TimestampSet();
@@ -119,6 +119,14 @@ public class ArraysParserTest {
         Assert.assertEquals(new double[] { -1e6, .01, 1., 2e6 }, a2);
     }
 
+    @Test
+    public void testParseDoubleQuoted() {
+        double[] a1 = (double[]) ArraysParser
+                .parseArrayAsPrimitiveArray(Double[].class, "[\"-1e6\", '.01', 1.123456789123456789, 'Infinity']");
+
+        Assert.assertEquals(new double[] { -1e6, .01, 1.123456789123456789, Double.POSITIVE_INFINITY }, a1);
+    }
+
     @Test
     public void testParseBigInteger() {
         BigInteger[] a1 = ArraysParser
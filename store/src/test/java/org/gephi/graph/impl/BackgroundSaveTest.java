@@ -0,0 +1,166 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.impl.utils.DataInputOutput;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class BackgroundSaveTest {
+
+    private ExecutorService executor;
+    private CountDownLatch latch;
+
+    @BeforeMethod
+    public void setUp() {
+        // Single thread blocked until the latch is released so saves don't
+        // start right away
+        executor = Executors.newSingleThreadExecutor();
+        latch = new CountDownLatch(1);
+        executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                latch.await();
+                return null;
+            }
+        });
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        latch.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testWriteInBackground() throws Exception {
+        GraphModelImpl graphModel = GraphGenerator.generateSmallGraphStore().graphModel;
+        DataInputOutput out = new DataInputOutput();
+        Future<Void> future = GraphModel.Serialization.writeInBackground(out, graphModel, executor);
+        latch.countDown();
+        future.get();
+        Assert.assertNull(graphModel.store.backgroundSave);
+
+        GraphModelImpl read = (GraphModelImpl) GraphModel.Serialization.read(new DataInputOutput(out.toByteArray()));
+        Assert.assertTrue(graphModel.deepEquals(read));
+    }
+
+    @Test
+    public void testWriteInBackgroundWithMutations() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Graph graph = graphModel.getGraph();
+        Column age = graphModel.getNodeTable().addColumn("age", Integer.class);
+        Column name = graphModel.getNodeTable().addColumn("name", String.class);
+        for (int i = 0; i < 10; i++) {
+            Node node = graphModel.factory().newNode(String.valueOf(i));
+            node.setAttribute(age, i);
+            node.setAttribute(name, "n" + i);
+            graph.addNode(node);
+        }
+        for (int i = 0; i < 9; i++) {
+            graph.addEdge(graphModel.factory().newEdge(graph.getNode(String.valueOf(i)), graph.getNode(String
+                    .valueOf(i + 1)), 0, true));
+        }
+
+        DataInputOutput expected = new DataInputOutput();
+        GraphModel.Serialization.write(expected, graphModel);
+
+        DataInputOutput out = new DataInputOutput();
+        Future<Void> future = GraphModel.Serialization.writeInBackground(out, graphModel, executor);
+
+        graph.getNode("0").setAttribute(age, 42);
+        graph.getNode("1").setLabel("foo");
+        graph.getEdges().toArray()[0].setWeight(5.0);
+        graph.removeNode(graph.getNode("2"));
+        graph.addNode(graphModel.factory().newNode("10"));
+        graphModel.getNodeTable().removeColumn(name);
+        graph.clearEdges();
+
+        latch.countDown();
+        future.get();
+
+        GraphModelImpl read = (GraphModelImpl) GraphModel.Serialization.read(new DataInputOutput(out.toByteArray()));
+        GraphModelImpl readExpected = (GraphModelImpl) GraphModel.Serialization.read(new DataInputOutput(expected
+                .toByteArray()));
+        Assert.assertTrue(readExpected.deepEquals(read));
+
+        Graph readGraph = read.getGraph();
+        Assert.assertEquals(readGraph.getNodeCount(), 10);
+        Assert.assertEquals(readGraph.getEdgeCount(), 9);
+        Assert.assertNull(readGraph.getNode("10"));
+        Assert.assertEquals(readGraph.getNode("0").getAttribute("age"), 0);
+        Assert.assertEquals(readGraph.getNode("2").getAttribute("name"), "n2");
+        for (Edge edge : readGraph.getEdges()) {
+            Assert.assertEquals(edge.getWeight(), 1.0);
+        }
+    }
+
+    @Test
+    public void testWriteInBackgroundCompact() throws Exception {
+        GraphModelImpl graphModel = GraphGenerator.generateSmallGraphStore().graphModel;
+        DataInputOutput expected = new DataInputOutput();
+        GraphModel.Serialization.write(expected, graphModel);
+
+        DataInputOutput out = new DataInputOutput();
+        Future<Void> future = GraphModel.Serialization.writeInBackground(out, graphModel, executor);
+        Graph graph = graphModel.getGraph();
+        graph.removeNode(graph.getNodes().toArray()[0]);
+        graphModel.store.compact();
+        latch.countDown();
+        future.get();
+
+        GraphModelImpl read = (GraphModelImpl) GraphModel.Serialization.read(new DataInputOutput(out.toByteArray()));
+        GraphModelImpl readExpected = (GraphModelImpl) GraphModel.Serialization.read(new DataInputOutput(expected
+                .toByteArray()));
+        Assert.assertTrue(readExpected.deepEquals(read));
+    }
+
+    @Test
+    public void testWriteInBackgroundCancelled() throws Exception {
+        GraphModelImpl graphModel = GraphGenerator.generateSmallGraphStore().graphModel;
+        Future<Void> future = GraphModel.Serialization.writeInBackground(new DataInputOutput(), graphModel, executor);
+        Assert.assertNotNull(graphModel.store.backgroundSave);
+        Assert.assertTrue(future.cancel(false));
+        Assert.assertNull(graphModel.store.backgroundSave);
+
+        // Another save can run
+        DataInputOutput out = new DataInputOutput();
+        future = GraphModel.Serialization.writeInBackground(out, graphModel, executor);
+        latch.countDown();
+        future.get();
+        GraphModelImpl read = (GraphModelImpl) GraphModel.Serialization.read(new DataInputOutput(out.toByteArray()));
+        Assert.assertTrue(graphModel.deepEquals(read));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testWriteInBackgroundTwice() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphModel.Serialization.writeInBackground(new DataInputOutput(), graphModel, executor);
+        GraphModel.Serialization.writeInBackground(new DataInputOutput(), graphModel, executor);
+    }
+}
@@ -38,6 +38,7 @@ import org.gephi.graph.api.Column;
 import org.gephi.graph.api.ColumnIterable;
 import org.gephi.graph.api.DirectedGraph;
 import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeCursor;
 import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.Element;
 import org.gephi.graph.api.GraphModel;
@@ -372,6 +373,16 @@ public class BasicGraphStore implements DirectedGraph {
         throw new UnsupportedOperationException("Not supported yet.");
     }
 
+    @Override
+    public EdgeIterable getEdges(int type) {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+
+    @Override
+    public EdgeCursor edgeCursor() {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+
     @Override
     public Edge getMutualEdge(Edge edge) {
         throw new UnsupportedOperationException("Not supported yet.");
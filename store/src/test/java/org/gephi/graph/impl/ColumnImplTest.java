@@ -148,4 +148,23 @@ public class ColumnImplTest {
         col2.setEstimator(Estimator.MIN);
         Assert.assertNotEquals(col1.deepHashCode(), col2.deepHashCode());
     }
+
+    @Test
+    public void testColumnDictionaryEncoded() {
+        ColumnImpl col1 = new ColumnImpl(null, "0", String.class, null, null, Origin.DATA, false, false, true);
+        Assert.assertTrue(col1.isDictionaryEncoded());
+        String value = new String("foo");
+        Assert.assertSame(col1.encode(value), value);
+        Assert.assertSame(col1.encode(new String("foo")), value);
+        Assert.assertEquals(col1.dictionary.getCode("foo"), 0);
+
+        ColumnImpl col2 = new ColumnImpl("0", String.class, null, null, Origin.DATA, false, false);
+        Assert.assertFalse(col2.isDictionaryEncoded());
+        Assert.assertFalse(col1.deepEquals(col2));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testColumnDictionaryEncodedNotString() {
+        new ColumnImpl(null, "0", Integer.class, null, null, Origin.DATA, false, false, true);
+    }
 }
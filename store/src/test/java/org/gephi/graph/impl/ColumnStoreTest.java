@@ -117,6 +117,11 @@ public class ColumnStoreTest {
                 throw new UnsupportedOperationException("Not supported yet.");
             }
 
+            @Override
+            public boolean isDictionaryEncoded() {
+                throw new UnsupportedOperationException("Not supported yet.");
+            }
+
             @Override
             public boolean isProperty() {
                 throw new UnsupportedOperationException("Not supported yet.");
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeCursor;
+import org.gephi.graph.api.EdgeIterable;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class EdgeCursorTest {
+
+    @Test
+    public void testEmpty() {
+        GraphStore graphStore = new GraphModelImpl().store;
+        NodeImpl n = new NodeImpl("0", graphStore);
+        graphStore.addNode(n);
+
+        EdgeCursor cursor = graphStore.edgeCursor();
+        cursor.reset(n);
+        Assert.assertEquals(cursor.nextEdgeStoreId(), EdgeStore.NULL_ID);
+        Assert.assertNull(cursor.edge());
+        Assert.assertEquals(graphStore.lock.readWriteLock.getReadHoldCount(), 0);
+    }
+
+    @Test
+    public void testOut() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        EdgeCursor cursor = graphStore.edgeCursor();
+        for (Node n : graphStore.getNodes().toArray()) {
+            cursor.resetOut(n);
+            Assert.assertEquals(collect(cursor), toIds(graphStore.getOutEdges(n)));
+        }
+        Assert.assertEquals(graphStore.lock.readWriteLock.getReadHoldCount(), 0);
+    }
+
+    @Test
+    public void testIn() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        EdgeCursor cursor = graphStore.edgeCursor();
+        for (Node n : graphStore.getNodes().toArray()) {
+            cursor.resetIn(n);
+            Assert.assertEquals(collect(cursor), toIds(graphStore.getInEdges(n)));
+        }
+    }
+
+    @Test
+    public void testInOut() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        EdgeCursor cursor = graphStore.edgeCursor();
+        for (Node n : graphStore.getNodes().toArray()) {
+            cursor.reset(n);
+            Assert.assertEquals(collect(cursor), toIds(graphStore.getEdges(n)));
+        }
+    }
+
+    @Test
+    public void testType() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        EdgeCursor cursor = graphStore.edgeCursor();
+        for (Node n : graphStore.getNodes().toArray()) {
+            for (int type = 0; type < 4; type++) {
+                cursor.resetOut(n, type);
+                Assert.assertEquals(collect(cursor), toIds(graphStore.getOutEdges(n, type)));
+                cursor.resetIn(n, type);
+                Assert.assertEquals(collect(cursor), toIds(graphStore.getInEdges(n, type)));
+                cursor.reset(n, type);
+                Assert.assertEquals(collect(cursor), toIds(graphStore.getEdges(n, type)));
+            }
+        }
+    }
+
+    @Test
+    public void testSelfLoop() {
+        GraphStore graphStore = new GraphModelImpl().store;
+        NodeImpl n = new NodeImpl("0", graphStore);
+        graphStore.addNode(n);
+        EdgeImpl e = new EdgeImpl("0", graphStore, n, n, 0, 2.0, true);
+        graphStore.addEdge(e);
+
+        EdgeCursor cursor = graphStore.edgeCursor();
+        cursor.reset(n);
+        Assert.assertEquals(cursor.nextEdgeStoreId(), e.getStoreId());
+        Assert.assertEquals(cursor.sourceStoreId(), n.getStoreId());
+        Assert.assertEquals(cursor.targetStoreId(), n.getStoreId());
+        Assert.assertEquals(cursor.oppositeStoreId(), n.getStoreId());
+        Assert.assertEquals(cursor.weight(), 2.0);
+        Assert.assertEquals(cursor.nextEdgeStoreId(), EdgeStore.NULL_ID);
+    }
+
+    @Test
+    public void testPrimitives() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        EdgeCursor cursor = graphStore.edgeCursor();
+        for (Node n : graphStore.getNodes().toArray()) {
+            cursor.reset(n);
+            while (cursor.nextEdgeStoreId() != EdgeStore.NULL_ID) {
+                Edge edge = cursor.edge();
+                Assert.assertEquals(cursor.sourceStoreId(), edge.getSource().getStoreId());
+                Assert.assertEquals(cursor.targetStoreId(), edge.getTarget().getStoreId());
+                Assert.assertEquals(cursor.oppositeStoreId(), graphStore.getOpposite(n, edge).getStoreId());
+                Assert.assertEquals(cursor.type(), edge.getType());
+                Assert.assertEquals(cursor.weight(), edge.getWeight());
+            }
+        }
+    }
+
+    @Test
+    public void testUndirected() {
+        GraphStore graphStore = GraphGenerator.generateSmallMixedGraphStore();
+        EdgeCursor cursor = graphStore.undirectedDecorator.edgeCursor();
+        for (Node n : graphStore.getNodes().toArray()) {
+            cursor.reset(n);
+            Assert.assertEquals(collect(cursor), toIds(graphStore.undirectedDecorator.getEdges(n)));
+        }
+    }
+
+    @Test
+    public void testView() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        GraphViewImpl view = graphStore.viewStore.createView();
+        Graph graph = graphStore.viewStore.getDirectedGraph(view);
+        Node[] nodes = graphStore.getNodes().toArray();
+        for (int i = 0; i < nodes.length; i += 2) {
+            graph.addNode(nodes[i]);
+        }
+        Edge[] edges = graphStore.getEdges().toArray();
+        for (int i = 0; i < edges.length; i += 3) {
+            if (graph.contains(edges[i].getSource()) && graph.contains(edges[i].getTarget())) {
+                graph.addEdge(edges[i]);
+            }
+        }
+
+        EdgeCursor cursor = graph.edgeCursor();
+        for (Node n : graph.getNodes().toArray()) {
+            cursor.resetOut(n);
+            Assert.assertEquals(collect(cursor), toIds(graph.getEdges(n).toArray(), n, true));
+            cursor.reset(n);
+            Assert.assertEquals(collect(cursor), toIds(graph.getEdges(n)));
+        }
+    }
+
+    @Test
+    public void testUndirectedView() {
+        GraphStore graphStore = GraphGenerator.generateSmallMixedGraphStore();
+        GraphViewImpl view = graphStore.viewStore.createView();
+        view.fill();
+        Graph graph = graphStore.viewStore.getUndirectedGraph(view);
+
+        EdgeCursor cursor = graph.edgeCursor();
+        for (Node n : graph.getNodes().toArray()) {
+            cursor.reset(n);
+            Assert.assertEquals(collect(cursor), toIds(graph.getEdges(n)));
+        }
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testNodeNotInView() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphViewImpl view = graphStore.viewStore.createView();
+        Graph graph = graphStore.viewStore.getDirectedGraph(view);
+
+        graph.edgeCursor().reset(graphStore.getNodes().toArray()[0]);
+    }
+
+    @Test
+    public void testDoBreak() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        EdgeCursor cursor = graphStore.edgeCursor();
+        for (Node n : graphStore.getNodes().toArray()) {
+            if (n.getStoreId() % 2 == 0) {
+                cursor.reset(n);
+            }
+        }
+        Assert.assertEquals(graphStore.lock.readWriteLock.getReadHoldCount(), 1);
+        cursor.doBreak();
+        Assert.assertEquals(graphStore.lock.readWriteLock.getReadHoldCount(), 0);
+        cursor.doBreak();
+        Assert.assertEquals(graphStore.lock.readWriteLock.getReadHoldCount(), 0);
+    }
+
+    // Utility
+    private IntList collect(EdgeCursor cursor) {
+        IntList list = new IntArrayList();
+        int id;
+        while ((id = cursor.nextEdgeStoreId()) != EdgeStore.NULL_ID) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private IntList toIds(EdgeIterable iterable) {
+        IntList list = new IntArrayList();
+        for (Edge e : iterable) {
+            list.add(e.getStoreId());
+        }
+        return list;
+    }
+
+    private IntList toIds(Edge[] edges, Node node, boolean out) {
+        IntList list = new IntArrayList();
+        for (Edge e : edges) {
+            if ((out ? e.getSource() : e.getTarget()) == node) {
+                list.add(e.getStoreId());
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class EdgeListImporterTest {
+
+    private ExecutorService executor;
+    private File file;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        executor = Executors.newFixedThreadPool(3);
+        file = File.createTempFile("edges", ".tsv");
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdown();
+        file.delete();
+    }
+
+    @Test
+    public void testImportEdges() throws IOException {
+        write("# comment\n1\t2\n2\t3\t2.5\r\n\n3\t1\n");
+        GraphModelImpl graphModel = new GraphModelImpl();
+        EdgeListImporter importer = new EdgeListImporter(graphModel);
+        importer.importEdges(file, executor);
+
+        Graph graph = graphModel.getGraph();
+        Assert.assertEquals(graph.getNodeCount(), 3);
+        Assert.assertEquals(graph.getEdgeCount(), 3);
+        Edge edge = graph.getEdge(graph.getNode("2"), graph.getNode("3"));
+        Assert.assertNotNull(edge);
+        Assert.assertEquals(edge.getWeight(), 2.5);
+        Assert.assertTrue(edge.isDirected());
+        Assert.assertEquals(importer.getLinesRead(), 3);
+        Assert.assertEquals(importer.getNodesAdded(), 3);
+        Assert.assertEquals(importer.getEdgesAdded(), 3);
+        Assert.assertEquals(importer.getBytesRead(), file.length());
+        Assert.assertEquals(importer.getQueuedBatches(), 0);
+    }
+
+    @Test
+    public void testImportEdgesChunks() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append(i).append(',').append(i + 1).append(',').append(i).append('\n');
+        }
+        write(sb.toString());
+
+        GraphModelImpl graphModel = new GraphModelImpl();
+        EdgeListImporter importer = new EdgeListImporter(graphModel);
+        importer.setDelimiter(',');
+        importer.setChunkSize(97);
+        importer.setBatchSize(10);
+        importer.setQueueCapacity(2);
+        importer.importEdges(file, executor);
+
+        Graph graph = graphModel.getGraph();
+        Assert.assertEquals(graph.getNodeCount(), 1001);
+        Assert.assertEquals(graph.getEdgeCount(), 1000);
+        for (int i = 0; i < 1000; i++) {
+            Edge edge = graph.getEdge(graph.getNode(String.valueOf(i)), graph.getNode(String.valueOf(i + 1)));
+            Assert.assertNotNull(edge);
+            Assert.assertEquals(edge.getWeight(), (double) i);
+        }
+    }
+
+    @Test
+    public void testImportUndirectedEdges() throws IOException {
+        write("a b\nb a\n");
+        GraphModelImpl graphModel = new GraphModelImpl();
+        graphModel.getGraph().addNode(graphModel.factory().newNode("a"));
+        EdgeListImporter importer = new EdgeListImporter(graphModel);
+        importer.setDelimiter(' ');
+        importer.setDirected(false);
+        importer.importEdges(file, executor);
+
+        Graph graph = graphModel.getGraph();
+        Assert.assertEquals(graph.getNodeCount(), 2);
+        int edgeCount = GraphStoreConfiguration.ENABLE_PARALLEL_EDGES ? 2 : 1;
+        Assert.assertEquals(graph.getEdgeCount(), edgeCount);
+        Assert.assertFalse(graph.getEdge(graph.getNode("a"), graph.getNode("b")).isDirected());
+        Assert.assertEquals(importer.getNodesAdded(), 1);
+        Assert.assertEquals(importer.getEdgesAdded(), edgeCount);
+    }
+
+    @Test
+    public void testImportNodes() throws IOException {
+        write("1\tfoo\n2\n1\tbar\n");
+        GraphModelImpl graphModel = new GraphModelImpl();
+        EdgeListImporter importer = new EdgeListImporter(graphModel);
+        importer.importNodes(file, executor);
+
+        Graph graph = graphModel.getGraph();
+        Assert.assertEquals(graph.getNodeCount(), 2);
+        Assert.assertEquals(graph.getNode("1").getLabel(), "bar");
+        Assert.assertNull(graph.getNode("2").getLabel());
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testImportInvalidWeight() throws IOException {
+        write("1\t2\tfoo\n");
+        new EdgeListImporter(new GraphModelImpl()).importEdges(file, executor);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testImportInvalidEdge() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append(i).append('\t').append(i + 1).append('\n');
+        }
+        sb.append("1\n");
+        write(sb.toString());
+
+        EdgeListImporter importer = new EdgeListImporter(new GraphModelImpl());
+        importer.setChunkSize(100);
+        importer.setBatchSize(1);
+        importer.setQueueCapacity(1);
+        importer.importEdges(file, executor);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, timeOut = 10000)
+    public void testImportWriterFailure() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append(i).append('\t').append(i + 1).append('\n');
+        }
+        write(sb.toString());
+
+        Configuration config = new Configuration();
+        config.setNodeIdType(Integer.class);
+        EdgeListImporter importer = new EdgeListImporter(new GraphModelImpl(config));
+        importer.setChunkSize(100);
+        importer.setBatchSize(1);
+        importer.setQueueCapacity(1);
+        importer.importEdges(file, executor);
+    }
+
+    private void write(String content) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -527,6 +527,37 @@ public class EdgeStoreTest {
         Assert.assertEquals(edgeStore.garbageSize, 0);
     }
 
+    @Test
+    public void testBulkAdd() {
+        EdgeImpl[] edges = GraphGenerator.generateMixedEdgeList(1000);
+        EdgeImpl[] slots = new EdgeImpl[edges.length * 2];
+        for (int i = 0; i < edges.length; i++) {
+            slots[i * 2] = edges[i];
+        }
+        EdgeStore edgeStore = new EdgeStore();
+        edgeStore.bulkAdd(slots, slots.length - 1);
+
+        Assert.assertEquals(edgeStore.size(), edges.length);
+        Assert.assertEquals(edgeStore.garbageSize, edges.length - 1);
+        int undirected = 0;
+        int mutual = 0;
+        for (int i = 0; i < edges.length; i++) {
+            EdgeImpl edge = edges[i];
+            Assert.assertEquals(edge.getStoreId(), i * 2);
+            Assert.assertSame(edgeStore.get(edge.getId()), edge);
+            Assert.assertSame(edgeStore.get(edge.source, edge.target, edge.type, false), edge);
+            if (!edge.isDirected()) {
+                undirected++;
+            } else if (!edge.isSelfLoop() && edgeStore.get(edge.target, edge.source, edge.type, false) != null) {
+                Assert.assertTrue(edge.isMutual());
+                mutual++;
+            }
+        }
+        Assert.assertEquals(edgeStore.undirectedSize, undirected);
+        Assert.assertEquals(edgeStore.mutualEdgesSize, mutual / 2);
+        Assert.assertEquals(edgeStore.toArray(), edges);
+    }
+
     @Test
     public void testDictionary() {
         EdgeStore edgeStore = new EdgeStore();
@@ -1624,7 +1655,7 @@ public class EdgeStoreTest {
     @Test
     public void testTypeCounting() {
         EdgeTypeStore edgeTypeStore = new EdgeTypeStore();
-        EdgeStore edgeStore = new EdgeStore(edgeTypeStore, null, null, null);
+        EdgeStore edgeStore = new EdgeStore(edgeTypeStore, null, null, null, null);
         EdgeImpl[] edges = GraphGenerator.generateSmallMultiTypeEdgeList();
 
         Int2IntMap counts = new Int2IntOpenHashMap();
@@ -1827,6 +1858,93 @@ public class EdgeStoreTest {
         Assert.assertEquals(0, neighbours.size());
     }
 
+    @Test
+    public void testSparseHeads() {
+        NodeStore nodeStore = GraphGenerator.generateNodeStore(2);
+        NodeImpl source = nodeStore.get(0);
+        NodeImpl target = nodeStore.get(1);
+        int[] types = new int[] { 0, 3, 40, 20, 100, 7 };
+        EdgeStore edgeStore = new EdgeStore();
+        for (int type : types) {
+            edgeStore.add(new EdgeImpl(String.valueOf(type), source, target, type, 1.0, true));
+        }
+
+        Assert.assertNotNull(source.headOutTypes);
+        Assert.assertNotNull(target.headInTypes);
+        Assert.assertEquals(source.headOut.length, types.length);
+        Assert.assertEquals(target.headIn.length, types.length);
+        for (int i = 0; i < source.headOut.length; i++) {
+            Assert.assertEquals(source.headOut[i].type, source.headOutTypes[i]);
+            Assert.assertEquals(target.headIn[i].type, target.headInTypes[i]);
+        }
+
+        for (int type : types) {
+            EdgeStore.EdgeTypeOutIterator outItr = edgeStore.edgeOutIterator(source, type);
+            Assert.assertTrue(outItr.hasNext());
+            Assert.assertEquals(outItr.next().type, type);
+            Assert.assertFalse(outItr.hasNext());
+            EdgeStore.EdgeTypeInIterator inItr = edgeStore.edgeInIterator(target, type);
+            Assert.assertTrue(inItr.hasNext());
+            Assert.assertEquals(inItr.next().type, type);
+            Assert.assertFalse(inItr.hasNext());
+        }
+        Assert.assertFalse(edgeStore.edgeOutIterator(source, 50).hasNext());
+        Assert.assertFalse(edgeStore.edgeInIterator(target, 1000).hasNext());
+
+        Assert.assertEquals(count(edgeStore.edgeOutIterator(source)), types.length);
+        Assert.assertEquals(count(edgeStore.edgeInIterator(target)), types.length);
+        Assert.assertEquals(count(edgeStore.edgeIterator(source)), types.length);
+        Assert.assertEquals(count(edgeStore.edgeIterator(target)), types.length);
+    }
+
+    @Test
+    public void testSparseHeadsBackToDense() {
+        NodeStore nodeStore = GraphGenerator.generateNodeStore(2);
+        NodeImpl source = nodeStore.get(0);
+        NodeImpl target = nodeStore.get(1);
+        int[] types = new int[] { 0, 3, 40, 20, 100, 7 };
+        EdgeStore edgeStore = new EdgeStore();
+        for (int type : types) {
+            edgeStore.add(new EdgeImpl(String.valueOf(type), source, target, type, 1.0, true));
+        }
+
+        edgeStore.remove(edgeStore.get("100"));
+        edgeStore.remove(edgeStore.get("0"));
+        Assert.assertNotNull(source.headOutTypes);
+        edgeStore.remove(edgeStore.get("20"));
+        edgeStore.remove(edgeStore.get("40"));
+        Assert.assertNull(source.headOutTypes);
+        Assert.assertNull(target.headInTypes);
+        Assert.assertEquals(source.headOut.length, 8);
+        Assert.assertEquals(target.headIn.length, 8);
+
+        Assert.assertEquals(count(edgeStore.edgeOutIterator(source, 3)), 1);
+        Assert.assertEquals(count(edgeStore.edgeOutIterator(source, 7)), 1);
+        Assert.assertEquals(count(edgeStore.edgeInIterator(target, 7)), 1);
+        Assert.assertEquals(count(edgeStore.edgeOutIterator(source)), 2);
+
+        edgeStore.remove(edgeStore.get("7"));
+        edgeStore.remove(edgeStore.get("3"));
+        Assert.assertEquals(source.headOut.length, GraphStoreConfiguration.EDGESTORE_DEFAULT_TYPE_COUNT);
+        Assert.assertFalse(edgeStore.edgeOutIterator(source).hasNext());
+    }
+
+    @Test
+    public void testTrimHeadsKeepsLowerTypes() {
+        NodeStore nodeStore = GraphGenerator.generateNodeStore(2);
+        NodeImpl source = nodeStore.get(0);
+        NodeImpl target = nodeStore.get(1);
+        EdgeStore edgeStore = new EdgeStore();
+        for (int type = 0; type < 3; type++) {
+            edgeStore.add(new EdgeImpl(String.valueOf(type), source, target, type, 1.0, true));
+        }
+
+        edgeStore.remove(edgeStore.get("2"));
+        Assert.assertEquals(count(edgeStore.edgeOutIterator(source, 1)), 1);
+        Assert.assertEquals(count(edgeStore.edgeInIterator(target, 1)), 1);
+        Assert.assertEquals(source.headOut.length, 2);
+    }
+
     @Test
     public void testSelfLoopIterator() {
         EdgeImpl[] edges = GraphGenerator.generateSmallEdgeList();
@@ -1851,9 +1969,133 @@ public class EdgeStoreTest {
         Assert.assertEquals(count, selfLoops);
     }
 
+    @Test
+    public void testSelfLoopIteratorAfterRemove() {
+        EdgeImpl[] edges = GraphGenerator.generateSmallEdgeList();
+        EdgeStore edgeStore = new EdgeStore();
+        edgeStore.addAll(Arrays.asList(edges));
+
+        Set<EdgeImpl> selfLoops = new HashSet<EdgeImpl>();
+        boolean remove = true;
+        for (EdgeImpl e : edges) {
+            if (e.isSelfLoop()) {
+                if (remove) {
+                    edgeStore.remove(e);
+                } else {
+                    selfLoops.add(e);
+                }
+                remove = !remove;
+            }
+        }
+
+        EdgeStore.SelfLoopIterator itr = edgeStore.iteratorSelfLoop();
+        while (itr.hasNext()) {
+            Edge e = itr.next();
+            Assert.assertTrue(selfLoops.remove(e));
+        }
+        Assert.assertTrue(selfLoops.isEmpty());
+    }
+
+    @Test
+    public void testSelfLoopIteratorRemove() {
+        EdgeImpl[] edges = GraphGenerator.generateSmallEdgeList();
+        EdgeStore edgeStore = new EdgeStore();
+        edgeStore.addAll(Arrays.asList(edges));
+
+        int size = edgeStore.size();
+        int removed = 0;
+        EdgeStore.SelfLoopIterator itr = edgeStore.iteratorSelfLoop();
+        while (itr.hasNext()) {
+            EdgeImpl e = itr.next();
+            itr.remove();
+            Assert.assertFalse(edgeStore.contains(e));
+            removed++;
+        }
+        Assert.assertEquals(edgeStore.size(), size - removed);
+        Assert.assertFalse(edgeStore.iteratorSelfLoop().hasNext());
+    }
+
+    @Test
+    public void testTypeIterator() {
+        EdgeImpl[] edges = GraphGenerator.generateSmallMultiTypeEdgeList();
+        EdgeStore edgeStore = new EdgeStore();
+        edgeStore.addAll(Arrays.asList(edges));
+        removeSomeEdges(edgeStore, 0.3f);
+
+        int typeCount = edgeStore.longDictionary.length;
+        for (int type = 0; type < typeCount; type++) {
+            Set<Edge> expected = new HashSet<Edge>();
+            for (Edge e : edgeStore) {
+                if (e.getType() == type) {
+                    expected.add(e);
+                }
+            }
+            Iterator<Edge> itr = edgeStore.iteratorType(type);
+            while (itr.hasNext()) {
+                Edge e = itr.next();
+                Assert.assertEquals(e.getType(), type);
+                Assert.assertTrue(expected.remove(e));
+            }
+            Assert.assertTrue(expected.isEmpty());
+        }
+    }
+
+    @Test
+    public void testTypeIteratorUnknownType() {
+        EdgeImpl[] edges = GraphGenerator.generateSmallEdgeList();
+        EdgeStore edgeStore = new EdgeStore();
+        edgeStore.addAll(Arrays.asList(edges));
+
+        Assert.assertFalse(edgeStore.iteratorType(42).hasNext());
+        Assert.assertFalse(edgeStore.iteratorType(-1).hasNext());
+    }
+
+    @Test
+    public void testTypeIteratorRemove() {
+        EdgeImpl[] edges = GraphGenerator.generateSmallMultiTypeEdgeList();
+        EdgeStore edgeStore = new EdgeStore();
+        edgeStore.addAll(Arrays.asList(edges));
+
+        int type = edges[0].getType();
+        int size = edgeStore.size();
+        int removed = 0;
+        Iterator<Edge> itr = edgeStore.iteratorType(type);
+        while (itr.hasNext()) {
+            itr.next();
+            itr.remove();
+            removed++;
+        }
+        Assert.assertTrue(removed > 0);
+        Assert.assertEquals(edgeStore.size(), size - removed);
+        Assert.assertFalse(edgeStore.iteratorType(type).hasNext());
+        for (Edge e : edgeStore) {
+            Assert.assertFalse(e.getType() == type);
+        }
+    }
+
+    @Test
+    public void testTypeIteratorClear() {
+        EdgeImpl[] edges = GraphGenerator.generateSmallMultiTypeEdgeList();
+        EdgeStore edgeStore = new EdgeStore();
+        edgeStore.addAll(Arrays.asList(edges));
+        edgeStore.clear();
+
+        Assert.assertFalse(edgeStore.iteratorType(0).hasNext());
+        Assert.assertFalse(edgeStore.iteratorSelfLoop().hasNext());
+    }
+
     /*
      * UTILITY METHODS
      */
+    private int count(Iterator<Edge> itr) {
+        int count = 0;
+        while (itr.hasNext()) {
+            itr.next();
+            count++;
+        }
+        return count;
+    }
+
     private void testContainsOnly(EdgeStore store, List<EdgeImpl> list) {
         for (EdgeImpl n : list) {
             Assert.assertTrue(store.contains(n));
@@ -1066,6 +1066,70 @@ public class ElementImplTest {
 
     }
 
+    @Test
+    public void testDictionaryEncodedTimestampColumn() {
+        GraphStore store = new GraphStore();
+        Column column = store.nodeTable
+                .addColumn("age", null, TimestampDoubleMap.class, Origin.DATA, null, false, true);
+        NodeImpl n1 = new NodeImpl("0", store);
+        NodeImpl n2 = new NodeImpl("1", store);
+        store.addNode(n1);
+        store.addNode(n2);
+
+        n1.setAttribute(column, new TimestampDoubleMap(new double[] { 1.0, 2.0 }, new double[] { 1.0, 2.0 }));
+        n2.setAttribute(column, new TimestampDoubleMap(new double[] { 1.0, 2.0 }, new double[] { 3.0, 4.0 }));
+        TimestampDoubleMap m1 = (TimestampDoubleMap) n1.getAttribute(column);
+        TimestampDoubleMap m2 = (TimestampDoubleMap) n2.getAttribute(column);
+        Assert.assertSame(m1.getTimestamps(), m2.getTimestamps());
+        Assert.assertEquals(n2.getAttribute(column, 2.0), 4.0);
+
+        n2.removeAttribute(column, 1.0);
+        Assert.assertEquals(m1.getTimestamps(), new double[] { 1.0, 2.0 });
+        Assert.assertEquals(m2.getTimestamps(), new double[] { 2.0 });
+
+        TimestampDoubleMap m3 = new TimestampDoubleMap(new double[] { 1.0, 2.0 }, new double[] { 5.0, 6.0 });
+        n2.setAttribute(column, m3);
+        Assert.assertSame(m3.getTimestamps(), m1.getTimestamps());
+        Assert.assertEquals(store.timeStore.timestampDictionary.size(), 1);
+    }
+
+    @Test
+    public void testDictionaryEncodedTimestampColumnIncremental() {
+        GraphStore store = new GraphStore();
+        Column column = store.nodeTable
+                .addColumn("age", null, TimestampDoubleMap.class, Origin.DATA, null, false, true);
+        NodeImpl node = new NodeImpl("0", store);
+        store.addNode(node);
+
+        for (int i = 0; i < 100; i++) {
+            node.setAttribute(column, (double) i, (double) i);
+        }
+        Assert.assertEquals(store.timeStore.timestampDictionary.size(), 0);
+        Assert.assertEquals(((TimestampDoubleMap) node.getAttribute(column)).size(), 100);
+    }
+
+    @Test
+    public void testCopyAttributesSharesTimestamps() {
+        GraphStore store = new GraphStore();
+        Column column = store.nodeTable.addColumn("age", TimestampDoubleMap.class);
+        NodeImpl node = new NodeImpl("0", store);
+        store.addNode(node);
+
+        node.setAttribute(column, 1.0, 1.0);
+        node.setAttribute(column, 2.0, 2.0);
+        Object[] copy = node.copyAttributes();
+        TimestampDoubleMap map = (TimestampDoubleMap) node.getAttribute(column);
+        TimestampDoubleMap mapCopy = (TimestampDoubleMap) copy[column.getIndex()];
+        Assert.assertNotSame(mapCopy, map);
+        Assert.assertSame(mapCopy.getTimestamps(), map.getTimestamps());
+
+        node.setAttribute(column, 3.0, 3.0);
+        node.setAttribute(column, 4.0, 1.0);
+        Assert.assertEquals(mapCopy.getTimestamps(), new double[] { 1.0, 2.0 });
+        Assert.assertEquals(mapCopy.toDoubleArray(), new double[] { 1.0, 2.0 });
+        Assert.assertEquals(map.getDouble(1.0), 4.0);
+    }
+
     @Test
     public void testGetTable() {
         GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
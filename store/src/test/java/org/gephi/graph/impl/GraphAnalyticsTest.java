@@ -0,0 +1,251 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.DirectedSubgraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class GraphAnalyticsTest {
+
+    @Test
+    public void testPageRankCycle() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Node[] nodes = addNodes(graphModel, 4);
+        for (int i = 0; i < 4; i++) {
+            addEdge(graphModel, nodes[i], nodes[(i + 1) % 4]);
+        }
+        Column column = graphModel.getNodeTable().addColumn("pagerank", Double.class);
+
+        int iterations = new GraphAnalytics(graphModel.getDirectedGraph()).pageRank(column, 0.85, 1e-6, false);
+        Assert.assertTrue(iterations >= 1);
+        for (Node node : nodes) {
+            Assert.assertEquals((Double) node.getAttribute(column), 0.25, 1e-6);
+        }
+    }
+
+    @Test
+    public void testPageRankStar() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Node[] nodes = addNodes(graphModel, 5);
+        for (int i = 1; i < 5; i++) {
+            addEdge(graphModel, nodes[i], nodes[0]);
+        }
+        Column column = graphModel.getNodeTable().addColumn("pagerank", Double.class);
+
+        new GraphAnalytics(graphModel.getDirectedGraph()).pageRank(column, 0.85, 1e-9, false);
+        double sum = 0.0;
+        for (Node node : nodes) {
+            sum += (Double) node.getAttribute(column);
+        }
+        Assert.assertEquals(sum, 1.0, 1e-6);
+        Assert.assertTrue((Double) nodes[0].getAttribute(column) > (Double) nodes[1].getAttribute(column));
+    }
+
+    @Test
+    public void testPageRankWeighted() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Node[] nodes = addNodes(graphModel, 3);
+        addEdge(graphModel, nodes[0], nodes[1]).setWeight(9.0);
+        addEdge(graphModel, nodes[0], nodes[2]).setWeight(1.0);
+        Column column = graphModel.getNodeTable().addColumn("pagerank", Double.class);
+
+        new GraphAnalytics(graphModel.getDirectedGraph()).pageRank(column, 0.85, 1e-9, true);
+        Assert.assertTrue((Double) nodes[1].getAttribute(column) > (Double) nodes[2].getAttribute(column));
+    }
+
+    @Test
+    public void testConnectedComponents() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Node[] nodes = addNodes(graphModel, 7);
+        addEdge(graphModel, nodes[0], nodes[1]);
+        addEdge(graphModel, nodes[2], nodes[1]);
+        addEdge(graphModel, nodes[3], nodes[4]);
+        addEdge(graphModel, nodes[5], nodes[4]);
+        addEdge(graphModel, nodes[5], nodes[5]);
+        Column column = graphModel.getNodeTable().addColumn("component", Integer.class);
+
+        int count = new GraphAnalytics(graphModel.getDirectedGraph()).connectedComponents(column);
+        Assert.assertEquals(count, 3);
+        Assert.assertEquals(nodes[0].getAttribute(column), 0);
+        Assert.assertEquals(nodes[2].getAttribute(column), 0);
+        Assert.assertEquals(nodes[3].getAttribute(column), 1);
+        Assert.assertEquals(nodes[5].getAttribute(column), 1);
+        Assert.assertEquals(nodes[6].getAttribute(column), 2);
+    }
+
+    @Test
+    public void testBreadthFirstSearch() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Node[] nodes = addNodes(graphModel, 4);
+        addEdge(graphModel, nodes[0], nodes[1]);
+        addEdge(graphModel, nodes[1], nodes[2]);
+        Column column = graphModel.getNodeTable().addColumn("distance", Integer.class);
+
+        int reached = new GraphAnalytics(graphModel.getDirectedGraph()).breadthFirstSearch(nodes[1], column);
+        Assert.assertEquals(reached, 2);
+        Assert.assertNull(nodes[0].getAttribute(column));
+        Assert.assertEquals(nodes[1].getAttribute(column), 0);
+        Assert.assertEquals(nodes[2].getAttribute(column), 1);
+        Assert.assertNull(nodes[3].getAttribute(column));
+
+        reached = new GraphAnalytics(graphModel.getUndirectedGraph()).breadthFirstSearch(nodes[2], column);
+        Assert.assertEquals(reached, 3);
+        Assert.assertEquals(nodes[0].getAttribute(column), 2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBreadthFirstSearchSourceNotInView() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Node[] nodes = addNodes(graphModel, 2);
+        GraphView view = graphModel.createView();
+        DirectedSubgraph subgraph = graphModel.getDirectedGraph(view);
+        subgraph.addNode(nodes[0]);
+        Column column = graphModel.getNodeTable().addColumn("distance", Integer.class);
+
+        new GraphAnalytics(subgraph).breadthFirstSearch(nodes[1], column);
+    }
+
+    @Test
+    public void testDegreeDistribution() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Node[] nodes = addNodes(graphModel, 4);
+        addEdge(graphModel, nodes[0], nodes[1]);
+        addEdge(graphModel, nodes[1], nodes[0]);
+        addEdge(graphModel, nodes[1], nodes[2]);
+        addEdge(graphModel, nodes[2], nodes[2]);
+
+        assertDegreeDistribution(graphModel.getDirectedGraph());
+        assertDegreeDistribution(graphModel.getUndirectedGraph());
+    }
+
+    @Test
+    public void testView() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Node[] nodes = addNodes(graphModel, 4);
+        addEdge(graphModel, nodes[0], nodes[1]);
+        addEdge(graphModel, nodes[1], nodes[2]);
+        addEdge(graphModel, nodes[2], nodes[3]);
+        Column column = graphModel.getNodeTable().addColumn("component", Integer.class);
+
+        GraphView view = graphModel.createView();
+        DirectedSubgraph subgraph = graphModel.getDirectedGraph(view);
+        subgraph.fill();
+        subgraph.removeNode(nodes[1]);
+
+        int count = new GraphAnalytics(subgraph).connectedComponents(column);
+        Assert.assertEquals(count, 2);
+        Assert.assertEquals(nodes[0].getAttribute(column), 0);
+        Assert.assertNull(nodes[1].getAttribute(column));
+        Assert.assertEquals(nodes[2].getAttribute(column), 1);
+        Assert.assertEquals(nodes[3].getAttribute(column), 1);
+        assertDegreeDistribution(subgraph);
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Random random = new Random(42);
+        Node[] nodes = addNodes(graphModel, 5000);
+        for (int i = 0; i < 8000; i++) {
+            Node source = nodes[random.nextInt(nodes.length)];
+            Node target = nodes[random.nextInt(nodes.length)];
+            if (graphModel.getDirectedGraph().getEdge(source, target) == null) {
+                addEdge(graphModel, source, target).setWeight(1 + random.nextInt(5));
+            }
+        }
+        Column rank = graphModel.getNodeTable().addColumn("rank", Double.class);
+        Column parallelRank = graphModel.getNodeTable().addColumn("parallelRank", Double.class);
+        Column component = graphModel.getNodeTable().addColumn("component", Integer.class);
+        Column parallelComponent = graphModel.getNodeTable().addColumn("parallelComponent", Integer.class);
+        Column distance = graphModel.getNodeTable().addColumn("distance", Integer.class);
+        Column parallelDistance = graphModel.getNodeTable().addColumn("parallelDistance", Integer.class);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            DirectedGraph graph = graphModel.getDirectedGraph();
+            GraphAnalytics sequential = new GraphAnalytics(graph);
+            GraphAnalytics parallel = new GraphAnalytics(graph, executor);
+
+            Assert.assertEquals(parallel.pageRank(parallelRank, 0.85, 1e-9, true), sequential
+                    .pageRank(rank, 0.85, 1e-9, true));
+            Assert.assertEquals(parallel.connectedComponents(parallelComponent), sequential
+                    .connectedComponents(component));
+            Assert.assertEquals(parallel.breadthFirstSearch(nodes[0], parallelDistance), sequential
+                    .breadthFirstSearch(nodes[0], distance));
+            Assert.assertEquals(parallel.degreeDistribution(), sequential.degreeDistribution());
+
+            for (Node node : nodes) {
+                Assert.assertEquals((Double) node.getAttribute(parallelRank), (Double) node.getAttribute(rank), 1e-12);
+                Assert.assertEquals(node.getAttribute(parallelComponent), node.getAttribute(component));
+                Assert.assertEquals(node.getAttribute(parallelDistance), node.getAttribute(distance));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testWrongColumnType() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Column column = graphModel.getNodeTable().addColumn("foo", String.class);
+        new GraphAnalytics(graphModel.getDirectedGraph()).connectedComponents(column);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testEdgeColumn() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Column column = graphModel.getEdgeTable().addColumn("foo", Double.class);
+        new GraphAnalytics(graphModel.getDirectedGraph()).pageRank(column, 0.85, 1e-6, false);
+    }
+
+    private void assertDegreeDistribution(Graph graph) {
+        int maxDegree = 0;
+        for (Node node : graph.getNodes()) {
+            maxDegree = Math.max(maxDegree, graph.getDegree(node));
+        }
+        long[] expected = new long[maxDegree + 1];
+        for (Node node : graph.getNodes()) {
+            expected[graph.getDegree(node)]++;
+        }
+        Assert.assertEquals(new GraphAnalytics(graph).degreeDistribution(), expected);
+    }
+
+    private Node[] addNodes(GraphModel graphModel, int count) {
+        Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = graphModel.factory().newNode(String.valueOf(i));
+            graphModel.getDirectedGraph().addNode(nodes[i]);
+        }
+        return nodes;
+    }
+
+    private Edge addEdge(GraphModel graphModel, Node source, Node target) {
+        Edge edge = graphModel.factory().newEdge(source, target);
+        graphModel.getDirectedGraph().addEdge(edge);
+        return edge;
+    }
+}
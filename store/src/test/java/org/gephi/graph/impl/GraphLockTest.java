@@ -15,6 +15,7 @@
  */
 package org.gephi.graph.impl;
 
+import org.gephi.graph.api.Metric;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -57,4 +58,23 @@ public class GraphLockTest {
         GraphLock lock = new GraphLock();
         lock.checkHoldWriteLock();
     }
+
+    @Test
+    public void testMetrics() {
+        MetricsStore metrics = new MetricsStore();
+        metrics.setEnabled(true);
+        GraphLock lock = new GraphLock(metrics);
+        lock.writeLock();
+        lock.writeLock();
+        lock.readLock();
+        lock.readUnlock();
+        lock.writeUnlock();
+        Assert.assertEquals(metrics.snapshot().getCount(Metric.WRITE_LOCK_HOLD), 0);
+        lock.writeUnlock();
+
+        GraphMetricsImpl snapshot = metrics.snapshot();
+        Assert.assertEquals(snapshot.getCount(Metric.WRITE_LOCK), 2);
+        Assert.assertEquals(snapshot.getCount(Metric.WRITE_LOCK_HOLD), 1);
+        Assert.assertEquals(snapshot.getCount(Metric.READ_LOCK), 1);
+    }
 }
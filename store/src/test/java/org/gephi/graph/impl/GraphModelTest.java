@@ -16,7 +16,11 @@
 package org.gephi.graph.impl;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.gephi.graph.api.Column;
 import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.Index;
@@ -25,12 +29,16 @@ import org.gephi.graph.api.TimeFormat;
 import org.gephi.graph.api.Interval;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphMetrics;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.GraphObserver;
 import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Metric;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.api.Origin;
 import org.gephi.graph.impl.utils.DataInputOutput;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 import org.gephi.graph.api.TimeIndex;
@@ -60,6 +68,148 @@ public class GraphModelTest {
         Assert.assertNotNull(graphModel.getEdgeTable());
     }
 
+    @Test
+    public void testCompact() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Graph graph = graphModel.getGraph();
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        graph.addNode(n1);
+        graph.addNode(n2);
+        graph.removeNode(n1);
+        Assert.assertEquals(graphModel.getMaxNodeStoreId(), 2);
+
+        graphModel.compact();
+        Assert.assertEquals(graphModel.getMaxNodeStoreId(), 1);
+        Assert.assertEquals(n2.getStoreId(), 0);
+        Assert.assertSame(graph.getNode("2"), n2);
+    }
+
+    @Test
+    public void testStripedLocking() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Assert.assertFalse(graphModel.isStripedLocking());
+        graphModel.setStripedLocking(true);
+        Assert.assertTrue(graphModel.isStripedLocking());
+
+        Column column = graphModel.getNodeTable().addColumn("foo", String.class);
+        Graph graph = graphModel.getGraph();
+        Node node = graphModel.factory().newNode("1");
+        graph.addNode(node);
+
+        graph.readLock();
+        try {
+            node.setAttribute(column, "bar");
+            node.setLabel("label");
+        } finally {
+            graph.readUnlock();
+        }
+        Assert.assertEquals(node.getAttribute(column), "bar");
+        Assert.assertEquals(graphModel.getNodeIndex().count(column, "bar"), 1);
+        Assert.assertEquals(graphModel.store.lock.readWriteLock.getReadLockCount(), 0);
+
+        graphModel.setStripedLocking(false);
+        Assert.assertFalse(graphModel.isStripedLocking());
+    }
+
+    @Test
+    public void testStripedLockingDynamicWhileIterating() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        graphModel.setStripedLocking(true);
+        Column column = graphModel.getNodeTable().addColumn("foo", TimestampDoubleMap.class);
+        Graph graph = graphModel.getGraph();
+        graph.addNode(graphModel.factory().newNode("1"));
+        graph.addNode(graphModel.factory().newNode("2"));
+
+        for (Node node : graph.getNodes()) {
+            node.setAttribute(column, 1.0, 2.0);
+        }
+        Assert.assertEquals(graphModel.store.timeStore.nodeIndexStore.size(), 1);
+        Assert.assertFalse(graphModel.store.timeStore.nodeIndexStore.updateLock.isLocked());
+        Assert.assertEquals(graphModel.store.lock.readWriteLock.getReadLockCount(), 0);
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Assert.assertFalse(graphModel.isMetricsEnabled());
+        graphModel.setMetricsEnabled(true);
+        try {
+            Assert.assertTrue(graphModel.isMetricsEnabled());
+
+            Graph graph = graphModel.getGraph();
+            Node n1 = graphModel.factory().newNode("1");
+            Node n2 = graphModel.factory().newNode("2");
+            graph.addNode(n1);
+            graph.addNode(n2);
+            graph.addEdge(graphModel.factory().newEdge(n1, n2));
+            graph.removeNode(n2);
+            graph.getNodeCount();
+
+            GraphMetrics metrics = graphModel.getMetrics();
+            Assert.assertTrue(metrics.isEnabled());
+            Assert.assertEquals(metrics.getCount(Metric.NODE_ADD), 2);
+            Assert.assertEquals(metrics.getCount(Metric.NODE_REMOVE), 1);
+            Assert.assertEquals(metrics.getCount(Metric.EDGE_ADD), 1);
+            Assert.assertEquals(metrics.getCount(Metric.EDGE_REMOVE), 1);
+            Assert.assertTrue(metrics.getCount(Metric.WRITE_LOCK) >= 4);
+            Assert.assertEquals(metrics.getCount(Metric.WRITE_LOCK_HOLD), metrics.getCount(Metric.WRITE_LOCK));
+            Assert.assertTrue(metrics.getCount(Metric.READ_LOCK) >= 1);
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = graphModel.store.metrics.objectName;
+            Assert.assertTrue(server.isRegistered(name));
+            Map counts = (Map) server.getAttribute(name, "Counts");
+            Assert.assertFalse(counts.isEmpty());
+        } finally {
+            graphModel.setMetricsEnabled(false);
+        }
+        Assert.assertNull(graphModel.store.metrics.objectName);
+
+        Graph graph = graphModel.getGraph();
+        graph.addNode(graphModel.factory().newNode("3"));
+        Assert.assertEquals(graphModel.getMetrics().getCount(Metric.NODE_ADD), 2);
+    }
+
+    @Test
+    public void testMetricsSerialization() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        graphModel.getGraph().addNode(graphModel.factory().newNode("1"));
+        graphModel.store.metrics.setEnabled(true);
+
+        DataInputOutput dio = new DataInputOutput();
+        GraphModel.Serialization.write(dio, graphModel);
+
+        GraphMetrics metrics = graphModel.getMetrics();
+        Assert.assertEquals(metrics.getCount(Metric.SERIALIZATION), 1);
+        Assert.assertTrue(metrics.getCount(Metric.SERIALIZED_BYTES) > 0);
+    }
+
+    @Test
+    public void testAutoCompaction() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Assert.assertFalse(graphModel.isAutoCompaction());
+        graphModel.setAutoCompaction(true);
+        Assert.assertTrue(graphModel.isAutoCompaction());
+
+        Graph graph = graphModel.getGraph();
+        int count = GraphStoreConfiguration.NODESTORE_BLOCK_SIZE * 3;
+        Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = graphModel.factory().newNode(String.valueOf(i));
+        }
+        graph.addAllNodes(Arrays.asList(nodes));
+        for (int i = 0; i < count - 10; i++) {
+            graph.removeNode(nodes[i]);
+        }
+
+        Assert.assertEquals(graph.getNodeCount(), 10);
+        Assert.assertTrue(graphModel.getMaxNodeStoreId() < GraphStoreConfiguration.NODESTORE_BLOCK_SIZE);
+        for (int i = count - 10; i < count; i++) {
+            Assert.assertSame(graph.getNode(String.valueOf(i)), nodes[i]);
+        }
+    }
+
     @Test
     public void testGetGraphVisibleDefault() {
         GraphModelImpl graphModel = new GraphModelImpl();
@@ -437,6 +587,216 @@ public class GraphModelTest {
         Assert.assertTrue(readModelImpl.deepEquals(readModelImpl));
     }
 
+    @Test
+    public void testSerializationWithExecutor() throws IOException {
+        GraphModelImpl graphModelImpl = new GraphModelImpl();
+        GraphStore store = graphModelImpl.store;
+        store.addAllNodes(Arrays.asList(GraphGenerator.generateLargeNodeList()));
+        store.addAllEdges(Arrays.asList(GraphGenerator
+                .generateEdgeList(store.nodeStore, GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE * 3, 0, true, true, false)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            DataInputOutput dio = new DataInputOutput();
+            GraphModel.Serialization.write(dio, graphModelImpl, executor);
+            byte[] bytes = dio.toByteArray();
+            GraphModelImpl readModelImpl = (GraphModelImpl) GraphModel.Serialization.read(dio.reset(bytes), executor);
+
+            GraphStore readStore = readModelImpl.store;
+            Assert.assertEquals(readStore.getNodeCount(), store.getNodeCount());
+            Assert.assertEquals(readStore.getEdgeCount(), store.getEdgeCount());
+            for (Edge edge : store.getEdges()) {
+                Edge readEdge = readStore.getEdge(edge.getId());
+                Assert.assertEquals(readEdge.getStoreId(), edge.getStoreId());
+                Assert.assertEquals(readEdge.getSource().getId(), edge.getSource().getId());
+                Assert.assertEquals(readEdge.getTarget().getId(), edge.getTarget().getId());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSerializationReadView() throws IOException {
+        GraphModelImpl graphModelImpl = new GraphModelImpl();
+        GraphStore store = graphModelImpl.store;
+        store.addAllNodes(Arrays.asList(GraphGenerator.generateLargeNodeList()));
+        store.addAllEdges(Arrays.asList(GraphGenerator
+                .generateEdgeList(store.nodeStore, GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE * 3, 0, true, true, false)));
+
+        GraphView view = graphModelImpl.createView();
+        Graph subgraph = graphModelImpl.getGraph(view);
+        for (int i = 0; i < 100; i++) {
+            subgraph.addNode(store.getNode(store.nodeStore.get(i * 3).getId()));
+        }
+
+        DataInputOutput dio = new DataInputOutput();
+        GraphModel.Serialization.write(dio, graphModelImpl);
+        byte[] bytes = dio.toByteArray();
+        GraphModelImpl readModelImpl = (GraphModelImpl) GraphModel.Serialization.readView(dio.reset(bytes), view
+                .getStoreId());
+
+        GraphStore readStore = readModelImpl.store;
+        Assert.assertEquals(readStore.getNodeCount(), subgraph.getNodeCount());
+        Assert.assertEquals(readStore.getEdgeCount(), subgraph.getEdgeCount());
+        Assert.assertEquals(readStore.viewStore.size(), 0);
+        for (Node node : subgraph.getNodes()) {
+            Assert.assertNotNull(readStore.getNode(node.getId()));
+        }
+        for (Edge edge : subgraph.getEdges()) {
+            Edge readEdge = readStore.getEdge(edge.getId());
+            Assert.assertEquals(readEdge.getSource().getId(), edge.getSource().getId());
+            Assert.assertEquals(readEdge.getTarget().getId(), edge.getTarget().getId());
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testSerializationReadViewNotFound() throws IOException {
+        DataInputOutput dio = new DataInputOutput();
+        GraphModel.Serialization.write(dio, GraphGenerator.generateSmallGraphStore().graphModel);
+        GraphModel.Serialization.readView(dio.reset(dio.toByteArray()), 0);
+    }
+
+    @Test
+    public void testSerializationReadColumns() throws IOException {
+        GraphModelImpl graphModelImpl = new GraphModelImpl();
+        Column age = graphModelImpl.getNodeTable().addColumn("age", Integer.class);
+        Column name = graphModelImpl.getNodeTable().addColumn("name", String.class);
+        Graph graph = graphModelImpl.getGraph();
+        Node n1 = graphModelImpl.factory().newNode("1");
+        n1.setAttribute(age, 5);
+        n1.setAttribute(name, "foo");
+        n1.setLabel("bar");
+        graph.addNode(n1);
+
+        DataInputOutput dio = new DataInputOutput();
+        GraphModel.Serialization.write(dio, graphModelImpl);
+        byte[] bytes = dio.toByteArray();
+        GraphModel readModel = GraphModel.Serialization.readColumns(dio.reset(bytes), Arrays.asList("age"), null);
+
+        Assert.assertTrue(readModel.getNodeTable().hasColumn("age"));
+        Assert.assertFalse(readModel.getNodeTable().hasColumn("name"));
+        Node readNode = readModel.getGraph().getNode("1");
+        Assert.assertEquals(readNode.getAttribute("age"), 5);
+        Assert.assertEquals(readNode.getLabel(), "bar");
+        Assert.assertEquals(readNode.getAttributes().length, n1.getAttributes().length);
+        Assert.assertNull(readNode.getAttributes()[name.getIndex()]);
+    }
+
+    @Test
+    public void testSerializationDeltas() throws IOException {
+        GraphModelImpl graphModelImpl = new GraphModelImpl();
+        Column age = graphModelImpl.getNodeTable().addColumn("age", Integer.class);
+        Graph graph = graphModelImpl.getGraph();
+        Node n1 = graphModelImpl.factory().newNode("1");
+        Node n2 = graphModelImpl.factory().newNode("2");
+        Node n3 = graphModelImpl.factory().newNode("3");
+        graph.addAllNodes(Arrays.asList(n1, n2, n3));
+        graph.addEdge(graphModelImpl.factory().newEdge("1", n1, n2, 0, 1.0, true));
+        graph.addEdge(graphModelImpl.factory().newEdge("2", n2, n3, 0, 1.0, true));
+
+        DataInputOutput base = new DataInputOutput();
+        GraphModel.Serialization.writeCheckpoint(base, graphModelImpl);
+
+        n1.setAttribute(age, 5);
+        graph.removeNode(n3);
+        Node n4 = graphModelImpl.factory().newNode("4");
+        n4.setAttribute(age, 7);
+        n4.setX(2f);
+        graph.addNode(n4);
+        int type = graphModelImpl.addEdgeType("knows");
+        graph.addEdge(graphModelImpl.factory().newEdge("3", n1, n4, type, 2.0, false));
+        Column name = graphModelImpl.getNodeTable().addColumn("name", String.class);
+        n2.setAttribute(name, "b");
+
+        DataInputOutput delta1 = new DataInputOutput();
+        GraphModel.Serialization.writeDelta(delta1, graphModelImpl);
+
+        n4.setAttribute(age, 8);
+        n1.removeAttribute(age);
+        graphModelImpl.getNodeTable().removeColumn(name);
+
+        DataInputOutput delta2 = new DataInputOutput();
+        GraphModel.Serialization.writeDelta(delta2, graphModelImpl);
+
+        GraphModelImpl readModel1 = (GraphModelImpl) GraphModel.Serialization.readWithDeltas(new DataInputOutput(base
+                .toByteArray()), new DataInputOutput(delta1.toByteArray()));
+        Graph readGraph1 = readModel1.getGraph();
+        Assert.assertEquals(readGraph1.getNodeCount(), 3);
+        Assert.assertEquals(readGraph1.getEdgeCount(), 2);
+        Assert.assertNull(readGraph1.getNode("3"));
+        Assert.assertNull(readGraph1.getEdge("2"));
+        Assert.assertEquals(readGraph1.getNode("1").getAttribute("age"), 5);
+        Assert.assertEquals(readGraph1.getNode("4").getAttribute("age"), 7);
+        Assert.assertEquals(readGraph1.getNode("4").x(), 2f);
+        Assert.assertEquals(readGraph1.getNode("2").getAttribute("name"), "b");
+        Edge readEdge = readGraph1.getEdge("3");
+        Assert.assertEquals(readEdge.getTypeLabel(), "knows");
+        Assert.assertEquals(readEdge.getWeight(), 2.0);
+        Assert.assertFalse(readEdge.isDirected());
+        Assert.assertSame(readEdge.getSource(), readGraph1.getNode("1"));
+
+        GraphModelImpl readModel2 = (GraphModelImpl) GraphModel.Serialization.readWithDeltas(new DataInputOutput(base
+                .toByteArray()), new DataInputOutput(delta1.toByteArray()), new DataInputOutput(delta2.toByteArray()));
+        Graph readGraph2 = readModel2.getGraph();
+        Assert.assertNull(readGraph2.getNode("1").getAttribute("age"));
+        Assert.assertEquals(readGraph2.getNode("4").getAttribute("age"), 8);
+        Assert.assertFalse(readModel2.getNodeTable().hasColumn("name"));
+        Assert.assertEquals(readModel2.getNodeIndex().count(readModel2.getNodeTable().getColumn("age"), 8), 1);
+    }
+
+    @Test
+    public void testSerializationDeltaEmpty() throws IOException {
+        GraphModelImpl graphModelImpl = new GraphModelImpl();
+        graphModelImpl.getGraph().addNode(graphModelImpl.factory().newNode("1"));
+
+        DataInputOutput base = new DataInputOutput();
+        GraphModel.Serialization.writeCheckpoint(base, graphModelImpl);
+        DataInputOutput delta = new DataInputOutput();
+        GraphModel.Serialization.writeDelta(delta, graphModelImpl);
+
+        GraphModel readModel = GraphModel.Serialization
+                .readWithDeltas(new DataInputOutput(base.toByteArray()), new DataInputOutput(delta.toByteArray()));
+        Assert.assertEquals(readModel.getGraph().getNodeCount(), 1);
+    }
+
+    @Test
+    public void testSerializationMerge() throws IOException {
+        GraphModelImpl graphModelImpl = new GraphModelImpl();
+        Graph graph = graphModelImpl.getGraph();
+        Node n1 = graphModelImpl.factory().newNode("1");
+        graph.addNode(n1);
+
+        DataInputOutput base = new DataInputOutput();
+        GraphModel.Serialization.writeCheckpoint(base, graphModelImpl);
+        Node n2 = graphModelImpl.factory().newNode("2");
+        graph.addNode(n2);
+        graph.addEdge(graphModelImpl.factory().newEdge(n1, n2));
+        DataInputOutput delta = new DataInputOutput();
+        GraphModel.Serialization.writeDelta(delta, graphModelImpl);
+
+        DataInputOutput merged = new DataInputOutput();
+        GraphModel.Serialization.merge(merged, new DataInputOutput(base.toByteArray()), new DataInputOutput(delta
+                .toByteArray()));
+        GraphModel readModel = GraphModel.Serialization.read(new DataInputOutput(merged.toByteArray()));
+        Assert.assertEquals(readModel.getGraph().getNodeCount(), 2);
+        Assert.assertEquals(readModel.getGraph().getEdgeCount(), 1);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testSerializationDeltaWithoutCheckpoint() throws IOException {
+        GraphModelImpl graphModelImpl = new GraphModelImpl();
+        GraphModel.Serialization.writeDelta(new DataInputOutput(), graphModelImpl);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testSerializationClearCheckpoint() throws IOException {
+        GraphModelImpl graphModelImpl = new GraphModelImpl();
+        GraphModel.Serialization.writeCheckpoint(new DataInputOutput(), graphModelImpl);
+        GraphModel.Serialization.clearCheckpoint(graphModelImpl);
+        GraphModel.Serialization.writeDelta(new DataInputOutput(), graphModelImpl);
+    }
+
     @Test
     public void testSerializationReadWithoutVersionHeader() throws IOException {
         DataInputOutput dio = new DataInputOutput();
@@ -47,6 +47,28 @@ public class GraphObserverTest {
         store.createGraphObserver(store2, false);
     }
 
+    @Test
+    public void testCompact() {
+        GraphStore store = GraphGenerator.generateSmallGraphStore();
+        GraphObserverImpl graphObserver = store.createGraphObserver(store, true);
+
+        Node[] nodes = store.getNodes().toArray();
+        store.removeNode(nodes[0]);
+        store.removeNode(nodes[2]);
+        store.compact();
+
+        Assert.assertTrue(graphObserver.hasGraphChanged());
+        GraphDiff diff = graphObserver.getDiff();
+        Assert.assertEquals(diff.getRemovedNodes().toCollection().size(), 2);
+        Assert.assertTrue(diff.getRemovedNodes().toCollection().contains(nodes[0]));
+        Assert.assertTrue(diff.getRemovedNodes().toCollection().contains(nodes[2]));
+        Assert.assertEquals(diff.getAddedNodes().toCollection().size(), 0);
+        Assert.assertEquals(diff.getAddedEdges().toCollection().size(), 0);
+
+        store.compact();
+        Assert.assertFalse(graphObserver.hasGraphChanged());
+    }
+
     @Test
     public void testDefaultObserverWithUndirectedGraph() {
         GraphStore store = new GraphStore();
@@ -343,6 +365,28 @@ public class GraphObserverTest {
         Assert.assertSame(diff.getRemovedEdges(), EdgeIterable.EMPTY);
     }
 
+    @Test
+    public void testDiffRemoveNodesOnlyOnce() {
+        GraphStore store = GraphGenerator.generateSmallGraphStore();
+        GraphObserverImpl graphObserver = store.createGraphObserver(store, true);
+
+        Node removedNode = store.factory.newNode("r1");
+        store.addNode(removedNode);
+        graphObserver.hasGraphChanged();
+        store.removeNode(removedNode);
+        graphObserver.hasGraphChanged();
+        graphObserver.getDiff();
+
+        store.addNode(store.factory.newNode("a1"));
+
+        boolean a = graphObserver.hasGraphChanged();
+        GraphDiff diff = graphObserver.getDiff();
+
+        Assert.assertTrue(a);
+        Assert.assertSame(diff.getRemovedNodes(), NodeIterable.EMPTY);
+        Assert.assertEquals(diff.getAddedNodes().toArray().length, 1);
+    }
+
     @Test
     public void testDiffRemoveEdges() {
         GraphStore store = GraphGenerator.generateSmallGraphStore();
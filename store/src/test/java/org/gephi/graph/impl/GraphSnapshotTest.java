@@ -0,0 +1,447 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeCursor;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.ElementIterable;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.UndirectedGraph;
+import org.gephi.graph.api.types.TimestampDoubleMap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class GraphSnapshotTest {
+
+    @Test
+    public void testEmpty() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        DirectedGraph snapshot = graphModel.snapshot();
+
+        Assert.assertEquals(snapshot.getNodeCount(), 0);
+        Assert.assertEquals(snapshot.getEdgeCount(), 0);
+        Assert.assertEquals(snapshot.getEdgeCount(0), 0);
+        Assert.assertFalse(snapshot.getNodes().iterator().hasNext());
+        Assert.assertFalse(snapshot.getEdges().iterator().hasNext());
+        Assert.assertNull(snapshot.getNode("0"));
+        Assert.assertTrue(snapshot.isDirected());
+        Assert.assertSame(snapshot.getModel(), graphModel);
+    }
+
+    @Test
+    public void testNodesAndEdges() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        DirectedGraph snapshot = graphStore.graphModel.snapshot();
+
+        Assert.assertEquals(snapshot.getNodeCount(), graphStore.getNodeCount());
+        Assert.assertEquals(snapshot.getEdgeCount(), graphStore.getEdgeCount());
+        Assert.assertEquals(toIdList(snapshot.getNodes()), toIdList(graphStore.getNodes()));
+        Assert.assertEquals(toIdList(snapshot.getEdges()), toIdList(graphStore.getEdges()));
+        for (Node n : graphStore.getNodes()) {
+            Assert.assertTrue(snapshot.contains(n));
+            Assert.assertEquals(snapshot.getNode(n.getId()).getId(), n.getId());
+            Assert.assertTrue(snapshot.hasNode(n.getId()));
+        }
+        for (Edge e : graphStore.getEdges()) {
+            Assert.assertTrue(snapshot.contains(e));
+            Assert.assertEquals(snapshot.getEdge(e.getId()).getId(), e.getId());
+            Assert.assertTrue(snapshot.hasEdge(e.getId()));
+        }
+        for (int type = 0; type < 4; type++) {
+            Assert.assertEquals(snapshot.getEdgeCount(type), graphStore.edgeStore.size(type));
+            Assert.assertEquals(toIdSet(snapshot.getEdges(type)), toIdSet(graphStore.getEdges(type)));
+        }
+        Assert.assertEquals(toIdSet(snapshot.getSelfLoops()), toIdSet(graphStore.getSelfLoops()));
+    }
+
+    @Test
+    public void testAdjacency() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        DirectedGraph snapshot = graphStore.graphModel.snapshot();
+
+        for (Node n : graphStore.getNodes()) {
+            Assert.assertEquals(toIdSet(snapshot.getOutEdges(n)), toIdSet(graphStore.getOutEdges(n)));
+            Assert.assertEquals(toIdSet(snapshot.getInEdges(n)), toIdSet(graphStore.getInEdges(n)));
+            Assert.assertEquals(snapshot.getEdges(n).toCollection().size(), graphStore.getEdges(n).toCollection()
+                    .size());
+            Assert.assertEquals(toIdSet(snapshot.getEdges(n)), toIdSet(graphStore.getEdges(n)));
+            Assert.assertEquals(toIdSet(snapshot.getSuccessors(n)), toIdSet(graphStore.getSuccessors(n)));
+            Assert.assertEquals(toIdSet(snapshot.getPredecessors(n)), toIdSet(graphStore.getPredecessors(n)));
+            Assert.assertEquals(toIdSet(snapshot.getNeighbors(n)), toIdSet(graphStore.getNeighbors(n)));
+            Assert.assertEquals(snapshot.getDegree(n), graphStore.getDegree(n));
+            Assert.assertEquals(snapshot.getInDegree(n), graphStore.getInDegree(n));
+            Assert.assertEquals(snapshot.getOutDegree(n), graphStore.getOutDegree(n));
+            for (int type = 0; type < 4; type++) {
+                Assert.assertEquals(toIdSet(snapshot.getOutEdges(n, type)), toIdSet(graphStore.getOutEdges(n, type)));
+                Assert.assertEquals(toIdSet(snapshot.getInEdges(n, type)), toIdSet(graphStore.getInEdges(n, type)));
+                Assert.assertEquals(toIdSet(snapshot.getEdges(n, type)), toIdSet(graphStore.getEdges(n, type)));
+                Assert.assertEquals(toIdSet(snapshot.getNeighbors(n, type)), toIdSet(graphStore.getNeighbors(n, type)));
+            }
+        }
+    }
+
+    @Test
+    public void testGetEdge() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        DirectedGraph snapshot = graphStore.graphModel.snapshot();
+
+        Node[] nodes = graphStore.getNodes().toArray();
+        for (Node n1 : nodes) {
+            for (Node n2 : nodes) {
+                Assert.assertEquals(snapshot.isAdjacent(n1, n2), graphStore.isAdjacent(n1, n2));
+                Assert.assertEquals(getId(snapshot.getEdge(n1, n2)), getId(graphStore.getEdge(n1, n2)));
+                for (int type = 0; type < 4; type++) {
+                    Assert.assertEquals(getId(snapshot.getEdge(n1, n2, type)), getId(graphStore.getEdge(n1, n2, type)));
+                    Assert.assertEquals(snapshot.isAdjacent(n1, n2, type), graphStore.isAdjacent(n1, n2, type));
+                    Assert.assertEquals(toIdSet(snapshot.getEdges(n1, n2, type)), toIdSet(graphStore
+                            .getEdges(n1, n2, type)));
+                }
+            }
+        }
+        for (Edge e : graphStore.getEdges()) {
+            Assert.assertEquals(getId(snapshot.getMutualEdge(e)), getId(graphStore.getMutualEdge(e)));
+        }
+    }
+
+    @Test
+    public void testUndirected() {
+        GraphStore graphStore = GraphGenerator.generateSmallMixedGraphStore();
+        UndirectedGraph snapshot = graphStore.graphModel.undirectedSnapshot();
+        UndirectedDecorator graph = graphStore.undirectedDecorator;
+
+        Assert.assertEquals(snapshot.getEdgeCount(), graph.getEdgeCount());
+        Assert.assertEquals(snapshot.getEdgeCount(0), graph.getEdgeCount(0));
+        Assert.assertEquals(toIdSet(snapshot.getEdges()), toIdSet(graph.getEdges()));
+        Assert.assertEquals(snapshot.isMixed(), graph.isMixed());
+        for (Node n : graphStore.getNodes()) {
+            Assert.assertEquals(toIdSet(snapshot.getEdges(n)), toIdSet(graph.getEdges(n)));
+            Assert.assertEquals(toIdSet(snapshot.getNeighbors(n)), toIdSet(graph.getNeighbors(n)));
+            Assert.assertEquals(snapshot.getDegree(n), graph.getDegree(n));
+        }
+        GraphViewImpl view = graphStore.viewStore.createView();
+        view.fill();
+        Graph viewGraph = graphStore.viewStore.getUndirectedGraph(view);
+        Node[] nodes = graphStore.getNodes().toArray();
+        for (Node n1 : nodes) {
+            for (Node n2 : nodes) {
+                Assert.assertEquals(snapshot.isAdjacent(n1, n2), viewGraph.isAdjacent(n1, n2));
+                Assert.assertEquals(toIdSet(snapshot.getEdges(n1, n2)), toIdSet(graph.getEdges(n1, n2)));
+            }
+        }
+    }
+
+    @Test
+    public void testView() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        GraphViewImpl view = graphStore.viewStore.createView();
+        Graph graph = graphStore.viewStore.getDirectedGraph(view);
+        Node[] nodes = graphStore.getNodes().toArray();
+        for (int i = 0; i < nodes.length; i += 2) {
+            graph.addNode(nodes[i]);
+        }
+        Edge[] edges = graphStore.getEdges().toArray();
+        for (int i = 0; i < edges.length; i += 3) {
+            if (graph.contains(edges[i].getSource()) && graph.contains(edges[i].getTarget())) {
+                graph.addEdge(edges[i]);
+            }
+        }
+
+        DirectedGraph snapshot = graphStore.graphModel.snapshot(view);
+        Assert.assertSame(snapshot.getView(), view);
+        Assert.assertEquals(snapshot.getNodeCount(), graph.getNodeCount());
+        Assert.assertEquals(snapshot.getEdgeCount(), graph.getEdgeCount());
+        Assert.assertEquals(toIdSet(snapshot.getEdges()), toIdSet(graph.getEdges()));
+        for (Node n : graph.getNodes()) {
+            Assert.assertEquals(toIdSet(snapshot.getEdges(n)), toIdSet(graph.getEdges(n)));
+            Assert.assertEquals(snapshot.getDegree(n), graph.getDegree(n));
+        }
+        Assert.assertFalse(snapshot.contains(nodes[1]));
+    }
+
+    @Test
+    public void testIsolatedFromChanges() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        graphStore.setAttribute("foo", "bar");
+        DirectedGraph snapshot = graphStore.graphModel.snapshot();
+        Set<Object> edges = toIdSet(snapshot.getEdges());
+        int nodeCount = graphStore.getNodeCount();
+
+        Node node = graphStore.getNodes().toArray()[0];
+        Set<Object> nodeEdges = toIdSet(snapshot.getEdges(node));
+        Edge edge = graphStore.getEdges().toArray()[0];
+        double weight = edge.getWeight();
+        edge.setWeight(weight + 1.0);
+        graphStore.removeNode(node);
+        graphStore.setAttribute("foo", "baz");
+
+        Assert.assertEquals(snapshot.getNodeCount(), nodeCount);
+        Assert.assertTrue(snapshot.contains(node));
+        Assert.assertEquals(toIdSet(snapshot.getEdges()), edges);
+        Assert.assertEquals(toIdSet(snapshot.getEdges(node)), nodeEdges);
+        Assert.assertEquals(snapshot.getAttribute("foo"), "bar");
+
+        EdgeCursor cursor = snapshot.edgeCursor();
+        cursor.resetOut(edge.getSource());
+        while (cursor.nextEdgeStoreId() != EdgeStore.NULL_ID) {
+            if (cursor.edge().getId().equals(edge.getId())) {
+                Assert.assertEquals(cursor.weight(), weight);
+            }
+        }
+    }
+
+    @Test
+    public void testAttributesIsolatedFromChanges() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = graphStore.nodeTable.addColumn("age", Integer.class);
+        Column dynamicColumn = graphStore.nodeTable.addColumn("score", TimestampDoubleMap.class);
+        Column edgeColumn = graphStore.edgeTable.addColumn("name", String.class);
+        Node node = graphStore.getNodes().toArray()[0];
+        Edge edge = graphStore.getEdges().toArray()[0];
+        node.setAttribute(column, 1);
+        node.setAttribute(dynamicColumn, 1.0, 1.0);
+        node.setLabel("foo");
+        node.setX(1f);
+        edge.setAttribute(edgeColumn, "bar");
+        edge.setWeight(2.0);
+
+        Graph snapshot = graphStore.graphModel.snapshot();
+        node.setAttribute(column, 2);
+        node.setAttribute(dynamicColumn, 2.0, 1.0);
+        node.setAttribute(dynamicColumn, 3.0, 2.0);
+        node.setLabel("baz");
+        node.setX(2f);
+        edge.setAttribute(edgeColumn, "qux");
+        edge.setWeight(3.0);
+
+        Node snapshotNode = snapshot.getNode(node.getId());
+        Assert.assertNotSame(snapshotNode, node);
+        Assert.assertEquals(snapshotNode.getAttribute(column), 1);
+        Assert.assertEquals(snapshotNode.getAttribute("age"), 1);
+        Assert.assertEquals(snapshotNode.getAttribute(dynamicColumn, 1.0), 1.0);
+        Assert.assertNull(snapshotNode.getAttribute(dynamicColumn, 2.0));
+        Assert.assertEquals(snapshotNode.getLabel(), "foo");
+        Assert.assertEquals(snapshotNode.x(), 1f);
+
+        Edge snapshotEdge = snapshot.getEdge(edge.getId());
+        Assert.assertEquals(snapshotEdge.getAttribute(edgeColumn), "bar");
+        Assert.assertEquals(snapshotEdge.getWeight(), 2.0);
+        Assert.assertSame(snapshotEdge.getSource(), snapshot.getNode(edge.getSource().getId()));
+        for (Edge e : snapshot.getEdges(node)) {
+            if (e.getId().equals(edge.getId())) {
+                Assert.assertEquals(e.getWeight(), 2.0);
+            }
+        }
+
+        Assert.assertEquals(node.getAttribute(column), 2);
+        Assert.assertEquals(edge.getWeight(), 3.0);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testSetAttributeOnSnapshotNode() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = graphStore.nodeTable.addColumn("age", Integer.class);
+        Graph snapshot = graphStore.graphModel.snapshot();
+        snapshot.getNodes().toArray()[0].setAttribute(column, 1);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testSetWeightOnSnapshotEdge() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Graph snapshot = graphStore.graphModel.snapshot();
+        snapshot.getEdges().toArray()[0].setWeight(2.0);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testSetPositionOnSnapshotNode() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Graph snapshot = graphStore.graphModel.snapshot();
+        snapshot.getNodes().toArray()[0].setX(1f);
+    }
+
+    @Test
+    public void testCompact() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Node[] nodes = graphStore.getNodes().toArray();
+        graphStore.removeNode(nodes[0]);
+        DirectedGraph snapshot = graphStore.graphModel.snapshot();
+        graphStore.compact();
+
+        for (int i = 1; i < nodes.length; i++) {
+            Assert.assertTrue(snapshot.contains(nodes[i]));
+            Assert.assertEquals(snapshot.getDegree(nodes[i]), graphStore.getDegree(nodes[i]));
+        }
+    }
+
+    @Test
+    public void testNoLocking() throws InterruptedException {
+        final GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        DirectedGraph snapshot = graphStore.graphModel.snapshot();
+
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                graphStore.writeLock();
+                try {
+                    locked.countDown();
+                    done.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    graphStore.writeUnlock();
+                }
+            }
+        });
+        writer.start();
+        Assert.assertTrue(locked.await(10, TimeUnit.SECONDS));
+        try {
+            int count = 0;
+            for (Node n : snapshot.getNodes()) {
+                count += snapshot.getDegree(n);
+                for (Edge e : snapshot.getOutEdges(n)) {
+                    Assert.assertSame(e.getSource(), n);
+                }
+            }
+            Assert.assertEquals(count, 2 * snapshot.getEdgeCount());
+        } finally {
+            done.countDown();
+        }
+        writer.join();
+        Assert.assertEquals(graphStore.lock.readWriteLock.getReadHoldCount(), 0);
+    }
+
+    @Test
+    public void testEdgeCursor() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        DirectedGraph snapshot = graphStore.graphModel.snapshot();
+        EdgeCursor cursor = snapshot.edgeCursor();
+        EdgeCursor storeCursor = graphStore.edgeCursor();
+
+        for (Node n : graphStore.getNodes().toArray()) {
+            cursor.reset(n);
+            storeCursor.reset(n);
+            Assert.assertEquals(collect(cursor), collect(storeCursor));
+            cursor.resetOut(n, 1);
+            storeCursor.resetOut(n, 1);
+            Assert.assertEquals(collect(cursor), collect(storeCursor));
+
+            cursor.resetIn(n);
+            while (cursor.nextEdgeStoreId() != EdgeStore.NULL_ID) {
+                Edge edge = cursor.edge();
+                Assert.assertEquals(cursor.targetStoreId(), n.getStoreId());
+                Assert.assertEquals(cursor.sourceStoreId(), edge.getSource().getStoreId());
+                Assert.assertEquals(cursor.oppositeStoreId(), edge.getSource().getStoreId());
+                Assert.assertEquals(cursor.type(), edge.getType());
+                Assert.assertEquals(cursor.weight(), edge.getWeight());
+            }
+        }
+    }
+
+    @Test
+    public void testUndirectedEdgeCursor() {
+        GraphStore graphStore = GraphGenerator.generateSmallMixedGraphStore();
+        UndirectedGraph snapshot = graphStore.graphModel.undirectedSnapshot();
+        EdgeCursor cursor = snapshot.edgeCursor();
+        EdgeCursor storeCursor = graphStore.undirectedDecorator.edgeCursor();
+
+        for (Node n : graphStore.getNodes().toArray()) {
+            cursor.reset(n);
+            storeCursor.reset(n);
+            Assert.assertEquals(collect(cursor), collect(storeCursor));
+        }
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testAddNode() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        graphStore.graphModel.snapshot().addNode(new NodeImpl("foo"));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testRemoveEdge() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        DirectedGraph snapshot = graphStore.graphModel.snapshot();
+        snapshot.removeEdge(snapshot.getEdges().toArray()[0]);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testIteratorRemove() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        DirectedGraph snapshot = graphStore.graphModel.snapshot();
+        Iterator<Edge> itr = snapshot.getEdges().iterator();
+        itr.hasNext();
+        itr.next();
+        itr.remove();
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testNodeNotInSnapshot() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        DirectedGraph snapshot = graphStore.graphModel.snapshot();
+        NodeImpl node = new NodeImpl("foo", graphStore);
+        graphStore.addNode(node);
+        snapshot.getEdges(node);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDestroyedView() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphView view = graphStore.viewStore.createView();
+        graphStore.viewStore.destroyView(view);
+        graphStore.graphModel.snapshot(view);
+    }
+
+    // Utility
+    private Set<Object> toIdSet(ElementIterable<? extends Element> iterable) {
+        return new HashSet<Object>(toIdList(iterable));
+    }
+
+    private List<Object> toIdList(ElementIterable<? extends Element> iterable) {
+        List<Object> ids = new ArrayList<Object>();
+        for (Element element : iterable) {
+            ids.add(element.getId());
+        }
+        return ids;
+    }
+
+    private Object getId(Element element) {
+        return element != null ? element.getId() : null;
+    }
+
+    private IntSet collect(EdgeCursor cursor) {
+        IntSet set = new IntOpenHashSet();
+        int id;
+        while ((id = cursor.nextEdgeStoreId()) != EdgeStore.NULL_ID) {
+            set.add(id);
+        }
+        return set;
+    }
+}
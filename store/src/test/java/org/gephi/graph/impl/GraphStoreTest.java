@@ -20,9 +20,12 @@ import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import java.awt.Color;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.gephi.graph.api.Column;
@@ -629,6 +632,146 @@ public class GraphStoreTest {
         }
     }
 
+    @Test
+    public void testGetEdgesByType() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+
+        for (int type = 0; type < graphStore.edgeStore.longDictionary.length; type++) {
+            List<EdgeImpl> expected = new ArrayList<EdgeImpl>();
+            for (EdgeImpl e : graphStore.edgeStore.toArray()) {
+                if (e.type == type) {
+                    expected.add(e);
+                }
+            }
+            testEdgeIterable(graphStore.getEdges(type), expected.toArray(new EdgeImpl[0]));
+            Assert.assertEquals(graphStore.getEdges(type).toArray().length, graphStore.edgeStore.size(type));
+        }
+        testEdgeIterable(graphStore.getEdges(graphStore.edgeStore.longDictionary.length + 1), new EdgeImpl[] {});
+    }
+
+    @Test
+    public void testCompact() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        Node[] nodes = graphStore.getNodes().toArray();
+        for (int i = 0; i < nodes.length; i += 3) {
+            graphStore.removeNode(nodes[i]);
+        }
+        Edge[] edges = graphStore.getEdges().toArray();
+        for (int i = 0; i < edges.length; i += 4) {
+            graphStore.removeEdge(edges[i]);
+        }
+
+        Map<Object, Set<Object>> adjacency = new HashMap<Object, Set<Object>>();
+        for (Node n : graphStore.getNodes()) {
+            Set<Object> edgeIds = new HashSet<Object>();
+            for (Edge e : graphStore.getEdges(n)) {
+                edgeIds.add(e.getId());
+            }
+            adjacency.put(n.getId(), edgeIds);
+        }
+        int nodeCount = graphStore.getNodeCount();
+        int edgeCount = graphStore.getEdgeCount();
+        int undirectedEdgeCount = graphStore.undirectedDecorator.getEdgeCount();
+        int selfLoopCount = graphStore.getSelfLoops().toArray().length;
+
+        graphStore.compact();
+
+        Assert.assertEquals(graphStore.nodeStore.maxStoreId(), nodeCount);
+        Assert.assertEquals(graphStore.edgeStore.maxStoreId(), edgeCount);
+        Assert.assertEquals(graphStore.nodeStore.garbageSize, 0);
+        Assert.assertEquals(graphStore.edgeStore.garbageSize, 0);
+        Assert.assertEquals(graphStore.getNodeCount(), nodeCount);
+        Assert.assertEquals(graphStore.getEdgeCount(), edgeCount);
+        Assert.assertEquals(graphStore.undirectedDecorator.getEdgeCount(), undirectedEdgeCount);
+        Assert.assertEquals(graphStore.getSelfLoops().toArray().length, selfLoopCount);
+
+        for (Node n : graphStore.getNodes()) {
+            Assert.assertSame(graphStore.getNode(n.getId()), n);
+            Set<Object> edgeIds = new HashSet<Object>();
+            for (Edge e : graphStore.getEdges(n)) {
+                edgeIds.add(e.getId());
+            }
+            Assert.assertEquals(edgeIds, adjacency.get(n.getId()));
+        }
+        for (Edge e : graphStore.getEdges()) {
+            Assert.assertSame(graphStore.getEdge(e.getId()), e);
+            Assert.assertSame(graphStore.getEdge(e.getSource(), e.getTarget(), e.getType()), e);
+            Assert.assertSame(graphStore.edgeStore.get(e.getStoreId()), e);
+        }
+        for (int type = 0; type < graphStore.edgeStore.longDictionary.length; type++) {
+            Assert.assertEquals(graphStore.getEdges(type).toArray().length, graphStore.edgeStore.size(type));
+        }
+    }
+
+    @Test
+    public void testCompactThenModify() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Node[] nodes = graphStore.getNodes().toArray();
+        for (int i = 0; i < nodes.length; i += 2) {
+            graphStore.removeNode(nodes[i]);
+        }
+        graphStore.compact();
+
+        Edge[] edges = graphStore.getEdges().toArray();
+        for (Edge e : edges) {
+            Assert.assertTrue(graphStore.removeEdge(e));
+        }
+        Assert.assertEquals(graphStore.getEdgeCount(), 0);
+
+        Node[] remaining = graphStore.getNodes().toArray();
+        EdgeImpl edge = new EdgeImpl("new", graphStore, (NodeImpl) remaining[0], (NodeImpl) remaining[1], 0, 1.0, true);
+        Assert.assertTrue(graphStore.addEdge(edge));
+        Assert.assertSame(graphStore.getEdge(remaining[0], remaining[1]), edge);
+        NodeImpl node = new NodeImpl("new", graphStore);
+        Assert.assertTrue(graphStore.addNode(node));
+        Assert.assertEquals(node.getStoreId(), remaining.length);
+    }
+
+    @Test
+    public void testCompactView() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphViewImpl view = graphStore.viewStore.createView();
+        DirectedSubgraph graph = graphStore.viewStore.getDirectedGraph(view);
+        Node[] nodes = graphStore.getNodes().toArray();
+        for (int i = 0; i < nodes.length; i += 2) {
+            graph.addNode(nodes[i]);
+        }
+        for (Edge e : graphStore.getEdges().toArray()) {
+            if (graph.contains(e.getSource()) && graph.contains(e.getTarget())) {
+                graph.addEdge(e);
+            }
+        }
+        for (int i = 0; i < nodes.length; i += 3) {
+            graphStore.removeNode(nodes[i]);
+        }
+        Set<Node> viewNodes = new HashSet<Node>(graph.getNodes().toCollection());
+        Set<Edge> viewEdges = new HashSet<Edge>(graph.getEdges().toCollection());
+
+        graphStore.compact();
+
+        Assert.assertEquals(new HashSet<Node>(graph.getNodes().toCollection()), viewNodes);
+        Assert.assertEquals(new HashSet<Edge>(graph.getEdges().toCollection()), viewEdges);
+        Assert.assertEquals(graph.getNodeCount(), viewNodes.size());
+        Assert.assertEquals(graph.getEdgeCount(), viewEdges.size());
+        for (Node n : graphStore.getNodes()) {
+            Assert.assertEquals(graph.contains(n), viewNodes.contains(n));
+        }
+    }
+
+    @Test
+    public void testCompactWithoutGarbage() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Node[] nodes = graphStore.getNodes().toArray();
+        int[] storeIds = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            storeIds[i] = nodes[i].getStoreId();
+        }
+        graphStore.compact();
+        for (int i = 0; i < nodes.length; i++) {
+            Assert.assertEquals(nodes[i].getStoreId(), storeIds[i]);
+        }
+    }
+
     @Test
     public void testRemoveNode() {
         GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
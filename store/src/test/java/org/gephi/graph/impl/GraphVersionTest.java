@@ -286,6 +286,7 @@ public class GraphVersionTest {
         Node node = graphStore.getNodes().toArray()[0];
         int degree = graphStore.getDegree(node);
         graphStore.removeNode(node);
+        view.applyRemovals();
 
         Assert.assertEquals(view.version.edgeVersion, edgeVersion + degree);
         Assert.assertEquals(view.version.nodeVersion, nodeVersion + 1);
@@ -302,6 +303,7 @@ public class GraphVersionTest {
 
         Edge edge = graphStore.getEdges().toArray()[0];
         graphStore.removeEdge(edge);
+        view.applyRemovals();
 
         Assert.assertEquals(view.version.edgeVersion, edgeVersion + 1);
         Assert.assertEquals(view.version.nodeVersion, nodeVersion);
@@ -77,10 +77,11 @@ public class GraphViewImplTest {
         NodeImpl node = new NodeImpl("A");
         graphStore.addNode(node);
 
-        Assert.assertTrue(view.nodeBitVector.size() >= node.storeId);
+        Assert.assertFalse(view.containsNode(node));
         boolean a = view.addNode(node);
         Assert.assertTrue(a);
         Assert.assertTrue(view.containsNode(node));
+        Assert.assertTrue(view.nodeBitVector.size() > node.storeId);
     }
 
     @Test
@@ -99,10 +100,11 @@ public class GraphViewImplTest {
         EdgeImpl edge = new EdgeImpl("S", source, target, 0, 1.0, true);
         graphStore.addEdge(edge);
 
-        Assert.assertTrue(view.edgeBitVector.size() >= edge.storeId);
+        Assert.assertFalse(view.containsEdge(edge));
         boolean a = view.addEdge(edge);
         Assert.assertTrue(a);
         Assert.assertTrue(view.containsEdge(edge));
+        Assert.assertTrue(view.edgeBitVector.size() > edge.storeId);
     }
 
     @Test
@@ -388,6 +390,85 @@ public class GraphViewImplTest {
         Assert.assertTrue(view.containsEdge(e1));
     }
 
+    @Test
+    public void testViewIntersectionUnionCounts() {
+        GraphStore graphStore = GraphGenerator.generateSmallMixedGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView();
+        GraphViewImpl view2 = store.createView();
+        GraphViewImpl expected = store.createView();
+
+        int i = 0;
+        for (Node n : graphStore.getNodes().toArray()) {
+            if (i % 2 == 0) {
+                view.addNode(n);
+            }
+            if (i % 3 == 0) {
+                view2.addNode(n);
+            }
+            if (i % 2 == 0 && i % 3 == 0) {
+                expected.addNode(n);
+            }
+            i++;
+        }
+        for (Edge e : graphStore.getEdges().toArray()) {
+            if (view.containsNode((NodeImpl) e.getSource()) && view.containsNode((NodeImpl) e.getTarget())) {
+                view.addEdge(e);
+            }
+            if (view2.containsNode((NodeImpl) e.getSource()) && view2.containsNode((NodeImpl) e.getTarget())) {
+                view2.addEdge(e);
+            }
+            if (expected.containsNode((NodeImpl) e.getSource()) && expected.containsNode((NodeImpl) e.getTarget())) {
+                expected.addEdge(e);
+            }
+        }
+
+        GraphViewImpl original = new GraphViewImpl(view, true, true);
+        GraphViewImpl union = new GraphViewImpl(view, true, true);
+        view.intersection(view2);
+        Assert.assertTrue(view.deepEquals(expected));
+
+        union.union(view2);
+        for (Node n : graphStore.getNodes()) {
+            Assert.assertEquals(union.containsNode((NodeImpl) n), original.containsNode((NodeImpl) n) || view2
+                    .containsNode((NodeImpl) n));
+        }
+        int edgeCount = 0;
+        int mutualEdgeCount = 0;
+        for (Edge e : graphStore.getEdges()) {
+            if (union.containsEdge((EdgeImpl) e)) {
+                edgeCount++;
+                if (((EdgeImpl) e).isMutual() && e.getSource().getStoreId() < e.getTarget().getStoreId()) {
+                    mutualEdgeCount++;
+                }
+            }
+        }
+        Assert.assertEquals(union.getEdgeCount(), edgeCount);
+        Assert.assertEquals(union.getEdgeCount() - union.getUndirectedEdgeCount(), mutualEdgeCount);
+    }
+
+    @Test
+    public void testViewNotWithGarbage() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView();
+
+        graphStore.removeNode(graphStore.getNodes().toArray()[0]);
+
+        view.not();
+        Assert.assertEquals(view.getNodeCount(), graphStore.getNodeCount());
+        Assert.assertEquals(view.getEdgeCount(), graphStore.getEdgeCount());
+
+        NodeImpl n2 = new NodeImpl("new");
+        graphStore.addNode(n2);
+        Assert.assertFalse(view.containsNode(n2));
+
+        view.not();
+        Assert.assertEquals(view.getNodeCount(), 1);
+        Assert.assertTrue(view.containsNode(n2));
+        Assert.assertEquals(view.getEdgeCount(), 0);
+    }
+
     @Test
     public void testNodeView() {
         GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
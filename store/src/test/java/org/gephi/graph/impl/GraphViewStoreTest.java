@@ -234,6 +234,11 @@ public class GraphViewStoreTest {
             public boolean isDestroyed() {
                 throw new UnsupportedOperationException("Not supported yet.");
             }
+
+            @Override
+            public int getStoreId() {
+                throw new UnsupportedOperationException("Not supported yet.");
+            }
         });
     }
 
@@ -340,6 +345,111 @@ public class GraphViewStoreTest {
         Assert.assertTrue(copyView.containsNode(n1));
     }
 
+    @Test
+    public void testViewCopyDestroyed() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView();
+        view.fill();
+
+        GraphViewImpl copyView = store.createView(view);
+        Assert.assertSame(copyView.nodeBitVector.pages[0], view.nodeBitVector.pages[0]);
+        store.destroyView(copyView);
+
+        NodeImpl n1 = graphStore.getNode("0");
+        view.removeNode(n1);
+        Assert.assertFalse(view.containsNode(n1));
+        Assert.assertEquals(view.getNodeCount(), graphStore.getNodeCount() - 1);
+    }
+
+    @Test
+    public void testViewDeferredRemoval() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView();
+        view.fill();
+
+        NodeImpl n1 = graphStore.getNode("0");
+        int storeId = n1.storeId;
+        graphStore.removeNode(n1);
+        Assert.assertFalse(store.removals.isEmpty());
+        Assert.assertEquals(view.getNodeCount(), graphStore.getNodeCount());
+        Assert.assertEquals(view.getEdgeCount(), graphStore.getEdgeCount());
+
+        NodeImpl n2 = (NodeImpl) graphStore.factory.newNode("foo");
+        graphStore.addNode(n2);
+        Assert.assertEquals(n2.storeId, storeId);
+        Assert.assertFalse(view.containsNode(n2));
+        Assert.assertEquals(view.getNodeCount(), graphStore.getNodeCount() - 1);
+    }
+
+    @Test
+    public void testViewAddEdgeNodeView() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl nodeView = store.createView(true, false);
+        GraphViewImpl view = store.createView();
+        NodeImpl n1 = graphStore.getNode("1");
+        NodeImpl n2 = graphStore.getNode("2");
+        nodeView.addNode(n1);
+        nodeView.addNode(n2);
+        view.addNode(n1);
+        view.addNode(n2);
+
+        EdgeImpl edge = (EdgeImpl) graphStore.factory.newEdge("edge", n2, n1, EdgeTypeStore.NULL_LABEL, 1.0, true);
+        graphStore.addEdge(edge);
+        Assert.assertTrue(nodeView.nodesIndexed);
+        Assert.assertTrue(nodeView.containsEdge(edge));
+        Assert.assertFalse(view.containsEdge(edge));
+    }
+
+    @Test
+    public void testViewAddEdgeNodeViewIndex() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        NodeImpl n1 = graphStore.getNode("1");
+        NodeImpl n2 = graphStore.getNode("2");
+        GraphViewImpl[] views = new GraphViewImpl[100];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = store.createView(true, false);
+            views[i].addNode(n1);
+            if (i % 2 == 0) {
+                views[i].addNode(n2);
+            }
+        }
+        GraphViewImpl filledView = store.createView(true, false);
+        int edgeCount = views[0].getEdgeCount();
+
+        graphStore.addEdge(graphStore.factory.newEdge("e1", n1, n2, EdgeTypeStore.NULL_LABEL, 1.0, true));
+        long[] both = store.nodeViewIndex[n2.storeId];
+        Assert.assertNotNull(both);
+        for (int i = 0; i < views.length; i++) {
+            Assert.assertEquals((both[views[i].storeId >> 6] & (1L << views[i].storeId)) != 0, i % 2 == 0);
+            Assert.assertEquals(views[i].getEdgeCount(), i % 2 == 0 ? edgeCount + 1 : 0);
+        }
+
+        // Bulk changes are indexed before the next edge
+        filledView.fill();
+        views[1].addNode(n2);
+        EdgeImpl edge = (EdgeImpl) graphStore.factory.newEdge("e2", n2, n1, EdgeTypeStore.NULL_LABEL, 1.0, true);
+        graphStore.addEdge(edge);
+        Assert.assertTrue(filledView.containsEdge(edge));
+        Assert.assertTrue(views[1].containsEdge(edge));
+        Assert.assertFalse(views[3].containsEdge(edge));
+
+        // Store ids of removed nodes aren't indexed anymore
+        int storeId = n2.storeId;
+        views[0].removeNode(n2);
+        graphStore.removeNode(n2);
+        NodeImpl n3 = (NodeImpl) graphStore.factory.newNode("3");
+        graphStore.addNode(n3);
+        Assert.assertEquals(n3.storeId, storeId);
+        edge = (EdgeImpl) graphStore.factory.newEdge("e3", n1, n3, EdgeTypeStore.NULL_LABEL, 1.0, true);
+        graphStore.addEdge(edge);
+        Assert.assertFalse(views[0].containsEdge(edge));
+        Assert.assertFalse(views[2].containsEdge(edge));
+    }
+
     @Test
     public void testViewCopyMain() {
         GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
@@ -462,6 +462,56 @@ public class IndexStoreTest {
     }
 
     // UTILITY
+    @Test
+    public void testSetStriped() throws Exception {
+        final GraphStore graphStore = new GraphStore();
+        graphStore.stripedLocking = true;
+        final ColumnImpl foo = new ColumnImpl("foo", Integer.class, "Foo", null, Origin.DATA, true, false);
+        final ColumnImpl bar = new ColumnImpl("bar", Integer.class, "Bar", null, Origin.DATA, true, false);
+        graphStore.nodeTable.store.addColumn(foo);
+        graphStore.nodeTable.store.addColumn(bar);
+
+        final int threadCount = 4;
+        final int nodeCount = 1000;
+        final NodeImpl[] nodes = new NodeImpl[threadCount * nodeCount];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new NodeImpl(String.valueOf(i), graphStore);
+            graphStore.addNode(nodes[i]);
+        }
+
+        Thread[] threads = new Thread[threadCount];
+        final Throwable[] errors = new Throwable[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int thread = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = thread * nodeCount; i < (thread + 1) * nodeCount; i++) {
+                            nodes[i].setAttribute(foo, thread);
+                            nodes[i].setAttribute(bar, i % 2);
+                        }
+                    } catch (Throwable e) {
+                        errors[thread] = e;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (int t = 0; t < threadCount; t++) {
+            threads[t].join();
+            Assert.assertNull(errors[t]);
+        }
+
+        IndexImpl<Node> index = graphStore.nodeTable.store.indexStore.mainIndex;
+        for (int t = 0; t < threadCount; t++) {
+            Assert.assertEquals(index.count(foo, t), nodeCount);
+        }
+        Assert.assertEquals(index.count(bar, 0), nodes.length / 2);
+        Assert.assertEquals(index.count(bar, 1), nodes.length / 2);
+        Assert.assertEquals(index.count(foo, null), 0);
+    }
+
     private NodeImpl[] generateNodesWithUniqueAttributes(ColumnStore<Node> columnStore) {
         int count = 100;
         NodeImpl[] nodes = new NodeImpl[count];
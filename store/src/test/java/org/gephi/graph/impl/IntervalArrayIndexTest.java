@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class IntervalArrayIndexTest {
+
+    @Test
+    public void testEmpty() {
+        IntervalArrayIndex index = new IntervalArrayIndex(new double[0], new double[0], new int[0], 0);
+        IntArrayList values = new IntArrayList();
+        index.values(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, values);
+        Assert.assertTrue(values.isEmpty());
+        Assert.assertEquals(index.size(), 0);
+    }
+
+    @Test
+    public void testValues() {
+        double[] lows = new double[] { 1.0, 2.0, 2.0, 5.0, 9.0 };
+        double[] highs = new double[] { 10.0, 3.0, 4.0, 6.0, 9.0 };
+        int[] values = new int[] { 0, 1, 2, 3, 4 };
+        IntervalArrayIndex index = new IntervalArrayIndex(lows, highs, values, 5);
+
+        Assert.assertEquals(values(index, 3.5, 3.5), new int[] { 0, 2 });
+        Assert.assertEquals(values(index, 4.0, 5.0), new int[] { 0, 2, 3 });
+        Assert.assertEquals(values(index, 9.0, 12.0), new int[] { 0, 4 });
+        Assert.assertEquals(values(index, 10.5, 12.0), new int[0]);
+        Assert.assertEquals(values(index, 0.0, 0.5), new int[0]);
+    }
+
+    @Test
+    public void testInfiniteBounds() {
+        double[] lows = new double[] { Double.NEGATIVE_INFINITY, 1.0 };
+        double[] highs = new double[] { 0.0, Double.POSITIVE_INFINITY };
+        IntervalArrayIndex index = new IntervalArrayIndex(lows, highs, new int[] { 0, 1 }, 2);
+
+        Assert.assertEquals(values(index, -100.0, -100.0), new int[] { 0 });
+        Assert.assertEquals(values(index, 100.0, 100.0), new int[] { 1 });
+        Assert.assertEquals(values(index, 0.5, 0.5), new int[0]);
+    }
+
+    private int[] values(IntervalArrayIndex index, double low, double high) {
+        IntArrayList values = new IntArrayList();
+        index.values(low, high, values);
+        return values.toIntArray();
+    }
+}
@@ -15,9 +15,12 @@
  */
 package org.gephi.graph.impl;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
@@ -255,6 +258,37 @@ public class IntervalTreeMapTest {
         }
     }
 
+    @Test
+    public void testPrimitiveValues() {
+        Random random = new Random(42l);
+        Interval2IntTreeMap map = new Interval2IntTreeMap();
+        List<Interval> intervals = new ArrayList<Interval>();
+        for (int i = 0; i < 500; i++) {
+            int start = random.nextInt(1000);
+            Interval interval = new Interval(start, start + random.nextInt(50));
+            if (!map.containsKey(interval)) {
+                map.put(interval, i);
+                intervals.add(interval);
+            }
+        }
+        for (int i = 0; i < 300; i++) {
+            if (i == 100) {
+                // Modifications invalidate the array index
+                map.remove(intervals.remove(0));
+            }
+            double low = random.nextInt(1100) - 50;
+            double high = low + random.nextInt(20);
+            IntArrayList values = new IntArrayList();
+            map.values(low, high, values);
+
+            IntArrayList expected = new IntArrayList();
+            for (Integer value : map.values(new Interval(low, high))) {
+                expected.add(value);
+            }
+            Assert.assertEquals(values, expected);
+        }
+    }
+
     @Test
     public void testGetIntervals() {
         Interval2IntTreeMap m = new Interval2IntTreeMap();
@@ -378,4 +378,17 @@ public class IntervalsParserTest {
     public void testParseInfinityBadIntervalsOverlapping() {
         IntervalsParser.parseIntervalSet("[-Infinity, 0.0]; [-3.0, 1.0]");// Overlapping
     }
+
+    @Test
+    public void testParseIntervalSetUnsorted() {
+        IntervalSet expected = new IntervalSet();
+        expected.add(new Interval(1, 2));
+        expected.add(new Interval(3, 4));
+        assertEquals(IntervalsParser.parseIntervalSet("[3, 4] [1, 2]"), expected);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testParseIntervalSetBadBounds() {
+        IntervalsParser.parseIntervalSet("[1, 2] [4, 3]");
+    }
 }
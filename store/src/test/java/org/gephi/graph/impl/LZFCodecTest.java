@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import org.gephi.graph.impl.utils.LZFCodec;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LZFCodecTest {
+
+    @Test
+    public void testEmpty() throws IOException {
+        Assert.assertEquals(roundTrip(new byte[0]), 0);
+    }
+
+    @Test
+    public void testSmall() throws IOException {
+        roundTrip(new byte[] { 1, 2 });
+    }
+
+    @Test
+    public void testRandom() throws IOException {
+        byte[] data = new byte[10000];
+        new Random(42).nextBytes(data);
+        int length = roundTrip(data);
+        Assert.assertTrue(length <= LZFCodec.maxCompressedLength(data.length));
+    }
+
+    @Test
+    public void testRepeated() throws IOException {
+        byte[] data = new byte[10000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 13);
+        }
+        int length = roundTrip(data);
+        Assert.assertTrue(length < data.length / 10);
+    }
+
+    @Test
+    public void testLongRun() throws IOException {
+        byte[] data = new byte[100000];
+        Arrays.fill(data, (byte) 7);
+        int length = roundTrip(data);
+        Assert.assertTrue(length < data.length / 50);
+    }
+
+    @Test
+    public void testMixed() throws IOException {
+        Random random = new Random(42);
+        byte[] data = new byte[50000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (random.nextInt(4) == 0 ? random.nextInt() : i % 256);
+        }
+        roundTrip(data);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testCorrupted() throws IOException {
+        byte[] data = new byte[1000];
+        Arrays.fill(data, (byte) 7);
+        byte[] compressed = new byte[LZFCodec.maxCompressedLength(data.length)];
+        int length = LZFCodec.compress(data, data.length, compressed);
+        LZFCodec.decompress(compressed, length - 1, new byte[data.length], data.length);
+    }
+
+    private int roundTrip(byte[] data) throws IOException {
+        byte[] compressed = new byte[LZFCodec.maxCompressedLength(data.length)];
+        int length = LZFCodec.compress(data, data.length, compressed);
+        byte[] decompressed = new byte[data.length];
+        LZFCodec.decompress(compressed, length, decompressed, data.length);
+        Assert.assertEquals(decompressed, data);
+        return length;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.MemoryEstimate;
+import org.gephi.graph.api.Node;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MemoryEstimatorTest {
+
+    @Test
+    public void testEmpty() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        MemoryEstimate estimate = graphModel.estimateMemory();
+        Assert.assertFalse(estimate.isSampled());
+        Assert.assertTrue(estimate.getTotal() > 0);
+        Assert.assertEquals(estimate.getAttributeArrays(), 0);
+    }
+
+    @Test
+    public void testGrowsWithNodes() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        long empty = graphModel.estimateMemory().getNodeStore();
+        addNodes(graphModel, 100);
+        MemoryEstimate estimate = graphModel.estimateMemory();
+        Assert.assertTrue(estimate.getNodeStore() > empty + 100 * 40);
+        Assert.assertTrue(estimate.getAttributeArrays() > 0);
+    }
+
+    @Test
+    public void testEdges() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        long empty = graphModel.estimateMemory().getEdgeStore();
+        addNodes(graphModel, 101);
+        for (int i = 0; i < 100; i++) {
+            Node source = graphModel.getDirectedGraph().getNode(String.valueOf(i));
+            Node target = graphModel.getDirectedGraph().getNode(String.valueOf(i + 1));
+            graphModel.getDirectedGraph().addEdge(graphModel.factory().newEdge(source, target));
+        }
+        MemoryEstimate estimate = graphModel.estimateMemory();
+        Assert.assertTrue(estimate.getEdgeStore() > empty + 100 * 40);
+        Assert.assertTrue(estimate.getEdgeDictionaries() > 0);
+    }
+
+    @Test
+    public void testColumnAndIndex() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Column column = graphModel.getNodeTable().addColumn("foo", String.class);
+        addNodes(graphModel, 100);
+        for (Node node : graphModel.getDirectedGraph().getNodes()) {
+            node.setAttribute(column, "value" + node.getId());
+        }
+        MemoryEstimate estimate = graphModel.estimateMemory();
+        Assert.assertTrue(estimate.getColumn(column) > 100 * 24);
+        Assert.assertTrue(estimate.getIndex(column) > 0);
+    }
+
+    @Test
+    public void testSampled() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Column column = graphModel.getNodeTable().addColumn("foo", String.class);
+        addNodes(graphModel, 1000);
+        for (Node node : graphModel.getDirectedGraph().getNodes()) {
+            node.setAttribute(column, "value" + node.getId());
+        }
+        MemoryEstimate exact = graphModel.estimateMemory(Integer.MAX_VALUE);
+        MemoryEstimate sampled = graphModel.estimateMemory(100);
+        Assert.assertFalse(exact.isSampled());
+        Assert.assertTrue(sampled.isSampled());
+        Assert.assertEquals(sampled.getNodeStore(), exact.getNodeStore());
+        double ratio = (double) sampled.getColumn(column) / exact.getColumn(column);
+        Assert.assertTrue(ratio > 0.9 && ratio < 1.1);
+    }
+
+    @Test
+    public void testView() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        addNodes(graphModel, 100);
+        GraphView view = graphModel.createView();
+        MemoryEstimate estimate = graphModel.estimateMemory();
+        Assert.assertTrue(estimate.getView(view) > 0);
+        Assert.assertEquals(estimate.getView(graphModel.getVisibleView()), 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidSampleSize() {
+        new GraphModelImpl().estimateMemory(0);
+    }
+
+    private void addNodes(GraphModel graphModel, int count) {
+        for (int i = 0; i < count; i++) {
+            graphModel.getDirectedGraph().addNode(graphModel.factory().newNode(String.valueOf(i)));
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Map;
+import org.gephi.graph.api.Metric;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MetricsStoreTest {
+
+    @Test
+    public void testEmpty() {
+        MetricsStore metrics = new MetricsStore();
+        Assert.assertFalse(metrics.isEnabled());
+        GraphMetricsImpl snapshot = metrics.snapshot();
+        for (Metric metric : Metric.values()) {
+            Assert.assertEquals(snapshot.getCount(metric), 0);
+            Assert.assertEquals(snapshot.getTotalTime(metric), 0);
+            Assert.assertEquals(snapshot.getMaxTime(metric), 0);
+        }
+    }
+
+    @Test
+    public void testDisabled() {
+        MetricsStore metrics = new MetricsStore();
+        long start = metrics.start();
+        Assert.assertEquals(start, 0L);
+        metrics.stop(Metric.READ_LOCK, start);
+        metrics.add(Metric.SERIALIZED_BYTES, 10);
+        Assert.assertEquals(metrics.snapshot().getCount(Metric.READ_LOCK), 0);
+        Assert.assertEquals(metrics.snapshot().getCount(Metric.SERIALIZED_BYTES), 0);
+    }
+
+    @Test
+    public void testRecord() {
+        MetricsStore metrics = new MetricsStore();
+        metrics.record(Metric.WRITE_LOCK, 500L);
+        metrics.record(Metric.WRITE_LOCK, 5000L);
+        metrics.record(Metric.WRITE_LOCK, 3000000L);
+
+        GraphMetricsImpl snapshot = metrics.snapshot();
+        Assert.assertEquals(snapshot.getCount(Metric.WRITE_LOCK), 3);
+        Assert.assertEquals(snapshot.getTotalTime(Metric.WRITE_LOCK), 3005500L);
+        Assert.assertEquals(snapshot.getMaxTime(Metric.WRITE_LOCK), 3000000L);
+        Assert.assertEquals(snapshot.getCount(Metric.READ_LOCK), 0);
+
+        long[] histogram = snapshot.getHistogram(Metric.WRITE_LOCK);
+        long[] bounds = snapshot.getHistogramBounds();
+        Assert.assertEquals(histogram.length, bounds.length);
+        long total = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            total += histogram[i];
+        }
+        Assert.assertEquals(total, 3);
+        Assert.assertEquals(histogram[0], 1);
+        Assert.assertEquals(histogram[2], 1);
+    }
+
+    @Test
+    public void testHistogramBounds() {
+        MetricsStore metrics = new MetricsStore();
+        long[] bounds = metrics.getHistogramBounds();
+        Assert.assertEquals(bounds.length, GraphStoreConfiguration.METRICS_HISTOGRAM_BUCKETS);
+        Assert.assertEquals(bounds[bounds.length - 1], Long.MAX_VALUE);
+        for (int i = 0; i < bounds.length; i++) {
+            long low = i == 0 ? 0L : bounds[i - 1];
+            metrics.reset();
+            metrics.record(Metric.INDEX_UPDATE, low);
+            metrics.record(Metric.INDEX_UPDATE, bounds[i] - 1);
+            Assert.assertEquals(metrics.snapshot().getHistogram(Metric.INDEX_UPDATE)[i], 2);
+        }
+    }
+
+    @Test
+    public void testAmount() {
+        MetricsStore metrics = new MetricsStore();
+        metrics.setEnabled(true);
+        metrics.add(Metric.SERIALIZED_BYTES, 100);
+        metrics.add(Metric.SERIALIZED_BYTES, 20);
+        Assert.assertEquals(metrics.snapshot().getCount(Metric.SERIALIZED_BYTES), 120);
+        Assert.assertEquals(metrics.snapshot().getTotalTime(Metric.SERIALIZED_BYTES), 0);
+    }
+
+    @Test
+    public void testStripes() throws InterruptedException {
+        final MetricsStore metrics = new MetricsStore(4);
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        metrics.record(Metric.NODE_ADD, j);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        GraphMetricsImpl snapshot = metrics.snapshot();
+        Assert.assertEquals(snapshot.getCount(Metric.NODE_ADD), 8000);
+        Assert.assertEquals(snapshot.getTotalTime(Metric.NODE_ADD), 8 * 999 * 1000 / 2);
+        Assert.assertEquals(snapshot.getMaxTime(Metric.NODE_ADD), 999);
+    }
+
+    @Test
+    public void testReset() {
+        MetricsStore metrics = new MetricsStore();
+        metrics.record(Metric.EDGE_ADD, 10);
+        metrics.reset();
+        Assert.assertEquals(metrics.snapshot().getCount(Metric.EDGE_ADD), 0);
+    }
+
+    @Test
+    public void testCounts() {
+        MetricsStore metrics = new MetricsStore();
+        metrics.record(Metric.OBSERVER_DIFF, 10);
+        Map<String, Long> counts = metrics.getCounts();
+        Assert.assertEquals(counts.size(), Metric.values().length);
+        Assert.assertEquals(counts.get("OBSERVER_DIFF"), Long.valueOf(1));
+        Assert.assertEquals(metrics.getMaxTimes().get("OBSERVER_DIFF"), Long.valueOf(10));
+        Assert.assertEquals(metrics.getHistogram("OBSERVER_DIFF")[0], 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testStripeCountPowerOfTwo() {
+        new MetricsStore(6);
+    }
+}
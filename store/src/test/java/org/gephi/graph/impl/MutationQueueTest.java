@@ -0,0 +1,250 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Node;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MutationQueueTest {
+
+    @Test
+    public void testAddNodesAndEdges() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        MutationQueue queue = new MutationQueue(graphModel);
+        queue.start();
+
+        Node n1 = store.factory.newNode("1");
+        Node n2 = store.factory.newNode("2");
+        Edge edge = store.factory.newEdge(n1, n2);
+        queue.addNode(n1);
+        queue.addNode(n2);
+        Future<Boolean> added = queue.addEdge(edge);
+        Assert.assertTrue(added.get());
+        Assert.assertTrue(store.contains(edge));
+
+        Assert.assertTrue(queue.removeNode(n1).get());
+        Assert.assertFalse(store.contains(edge));
+        Assert.assertEquals(store.getNodeCount(), 1);
+        queue.shutdown();
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        final GraphStore store = graphModel.store;
+        final MutationQueue queue = new MutationQueue(graphModel, 16, 64);
+        queue.start();
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t * 1000;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        queue.addNode(store.factory.newNode(String.valueOf(offset + i)));
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        queue.shutdown();
+
+        Assert.assertEquals(store.getNodeCount(), 4000);
+        Assert.assertEquals(queue.getAppliedMutations(), 4000);
+        Assert.assertEquals(queue.getQueuedMutations(), 0);
+    }
+
+    @Test
+    public void testSingleVersionPerBatch() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        MutationQueue queue = new MutationQueue(graphModel);
+        int nodeVersion = store.version.nodeVersion;
+
+        Node n1 = store.factory.newNode("1");
+        Node n2 = store.factory.newNode("2");
+        queue.addNode(n1);
+        queue.addNode(n2);
+        queue.addNode(store.factory.newNode("3"));
+        queue.addEdge(store.factory.newEdge(n1, n2));
+        queue.start();
+        queue.shutdown();
+
+        Assert.assertEquals(store.getNodeCount(), 3);
+        Assert.assertEquals(store.version.nodeVersion, nodeVersion + 1);
+        Assert.assertEquals(queue.getAppliedBatches(), 1);
+        Assert.assertFalse(store.version.batch);
+    }
+
+    @Test
+    public void testCoalesceAddRemoveEdge() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        MutationQueue queue = new MutationQueue(graphModel);
+
+        Node n1 = store.factory.newNode("1");
+        Node n2 = store.factory.newNode("2");
+        Edge edge = store.factory.newEdge(n1, n2);
+        queue.addNode(n1);
+        queue.addNode(n2);
+        int edgeVersion = store.version.edgeVersion;
+        Future<Boolean> added = queue.addEdge(edge);
+        Future<Boolean> removed = queue.removeEdge(edge);
+        queue.start();
+
+        Assert.assertTrue(added.get());
+        Assert.assertTrue(removed.get());
+        queue.shutdown();
+        Assert.assertEquals(store.getEdgeCount(), 0);
+        Assert.assertEquals(store.version.edgeVersion, edgeVersion);
+    }
+
+    @Test
+    public void testCoalesceDuplicateAddEdge() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        MutationQueue queue = new MutationQueue(graphModel);
+
+        Node n1 = store.factory.newNode("1");
+        Node n2 = store.factory.newNode("2");
+        Edge edge = store.factory.newEdge(n1, n2);
+        queue.addNode(n1);
+        queue.addNode(n2);
+        Future<Boolean> added = queue.addEdge(edge);
+        Future<Boolean> addedAgain = queue.addEdge(edge);
+        Future<Boolean> removed = queue.removeEdge(edge);
+        queue.start();
+
+        Assert.assertTrue(added.get());
+        Assert.assertFalse(addedAgain.get());
+        Assert.assertTrue(removed.get());
+        queue.shutdown();
+        Assert.assertFalse(store.contains(edge));
+        Assert.assertEquals(store.getEdgeCount(), 0);
+    }
+
+    @Test
+    public void testSetAttribute() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        Column column = graphModel.getNodeTable().addColumn("age", Integer.class);
+        Node node = store.factory.newNode("1");
+        store.addNode(node);
+
+        MutationQueue queue = new MutationQueue(graphModel);
+        queue.start();
+        Assert.assertTrue(queue.setAttribute(node, column, 42).get());
+        Assert.assertEquals(node.getAttribute(column), 42);
+        queue.shutdown();
+    }
+
+    @Test
+    public void testSubmitWithReadLock() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        MutationQueue queue = new MutationQueue(graphModel);
+        queue.start();
+
+        Node node = store.factory.newNode("1");
+        store.lock.readLock();
+        Future<Boolean> added;
+        try {
+            added = queue.addNode(node);
+        } finally {
+            store.lock.readUnlock();
+        }
+        Assert.assertTrue(added.get());
+        Assert.assertTrue(store.contains(node));
+        queue.shutdown();
+    }
+
+    @Test(timeOut = 10000)
+    public void testSubmitWithReadLockFullQueue() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        MutationQueue queue = new MutationQueue(graphModel, 1, 2);
+
+        store.lock.readLock();
+        try {
+            queue.addNode(store.factory.newNode("1"));
+            queue.addNode(store.factory.newNode("2"));
+            try {
+                queue.addNode(store.factory.newNode("3"));
+                Assert.fail("Expected the full queue to reject the modification");
+            } catch (RejectedExecutionException e) {
+                // Expected
+            }
+        } finally {
+            store.lock.readUnlock();
+        }
+        queue.start();
+        queue.shutdown();
+        Assert.assertEquals(store.getNodeCount(), 2);
+    }
+
+    @Test(expectedExceptions = IllegalMonitorStateException.class)
+    public void testShutdownWithReadLock() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        MutationQueue queue = new MutationQueue(graphModel);
+        store.lock.readLock();
+        try {
+            queue.shutdown();
+        } finally {
+            store.lock.readUnlock();
+        }
+    }
+
+    @Test(expectedExceptions = ExecutionException.class)
+    public void testFailure() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        MutationQueue queue = new MutationQueue(graphModel);
+        queue.start();
+        try {
+            Node n1 = store.factory.newNode("1");
+            Node n2 = store.factory.newNode("2");
+            queue.addEdge(store.factory.newEdge(n1, n2)).get();
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = RejectedExecutionException.class)
+    public void testShutdown() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        MutationQueue queue = new MutationQueue(graphModel);
+        Future<Boolean> added = queue.addNode(graphModel.store.factory.newNode("1"));
+        queue.shutdown();
+        Assert.assertTrue(added.isCancelled());
+        queue.addNode(graphModel.store.factory.newNode("2"));
+    }
+}
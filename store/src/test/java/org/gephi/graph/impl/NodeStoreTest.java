@@ -502,6 +502,37 @@ public class NodeStoreTest {
         nodeStore.add(node2);
     }
 
+    @Test
+    public void testBulkAdd() {
+        NodeImpl[] nodes = GraphGenerator.generateLargeNodeList();
+        NodeImpl[] slots = new NodeImpl[nodes.length * 2];
+        for (int i = 0; i < nodes.length; i++) {
+            slots[i * 2] = nodes[i];
+        }
+        NodeStore nodeStore = new NodeStore();
+        nodeStore.bulkAdd(slots, slots.length - 1);
+
+        Assert.assertEquals(nodeStore.size(), nodes.length);
+        Assert.assertEquals(nodeStore.garbageSize, nodes.length - 1);
+        Assert.assertEquals(nodeStore.maxStoreId(), slots.length - 1);
+        for (int i = 0; i < nodes.length; i++) {
+            Assert.assertEquals(nodes[i].getStoreId(), i * 2);
+            Assert.assertSame(nodeStore.get(nodes[i].getId()), nodes[i]);
+        }
+        Assert.assertEquals(nodeStore.toArray(), nodes);
+
+        NodeImpl node = new NodeImpl("new");
+        nodeStore.add(node);
+        Assert.assertEquals(node.getStoreId() % 2, 1);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testBulkAddNotEmpty() {
+        NodeStore nodeStore = new NodeStore();
+        nodeStore.add(new NodeImpl("0"));
+        nodeStore.bulkAdd(new NodeImpl[] { new NodeImpl("1") }, 1);
+    }
+
     private void testContainsOnly(NodeStore store, List<NodeImpl> list) {
         for (NodeImpl n : list) {
             Assert.assertTrue(store.contains(n));
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import cern.colt.bitvector.BitVector;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PagedBitVectorTest {
+
+    private static final int SIZE = GraphStoreConfiguration.VIEW_PAGE_SIZE * 3 + 10;
+
+    @Test
+    public void testSetClear() {
+        PagedBitVector bitVector = new PagedBitVector(SIZE);
+        Assert.assertEquals(bitVector.size(), SIZE);
+        Assert.assertEquals(bitVector.pages.length, 4);
+
+        bitVector.set(0);
+        bitVector.set(SIZE - 1);
+        Assert.assertTrue(bitVector.get(0));
+        Assert.assertTrue(bitVector.get(SIZE - 1));
+        Assert.assertFalse(bitVector.get(1));
+
+        bitVector.clear(0);
+        Assert.assertFalse(bitVector.get(0));
+
+        bitVector.clear();
+        Assert.assertFalse(bitVector.get(SIZE - 1));
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        new PagedBitVector(10).get(10);
+    }
+
+    @Test
+    public void testCopySharesPages() {
+        PagedBitVector bitVector = new PagedBitVector(SIZE);
+        bitVector.set(5);
+        PagedBitVector copy = bitVector.copy();
+        for (int i = 0; i < bitVector.pages.length; i++) {
+            Assert.assertSame(copy.pages[i], bitVector.pages[i]);
+        }
+        Assert.assertEquals(copy, bitVector);
+
+        copy.set(GraphStoreConfiguration.VIEW_PAGE_SIZE + 1);
+        Assert.assertFalse(bitVector.get(GraphStoreConfiguration.VIEW_PAGE_SIZE + 1));
+        Assert.assertTrue(copy.get(GraphStoreConfiguration.VIEW_PAGE_SIZE + 1));
+        Assert.assertSame(copy.pages[0], bitVector.pages[0]);
+        Assert.assertNotSame(copy.pages[1], bitVector.pages[1]);
+
+        bitVector.clear(5);
+        Assert.assertTrue(copy.get(5));
+        Assert.assertNotSame(copy.pages[0], bitVector.pages[0]);
+    }
+
+    @Test
+    public void testCopyReleased() {
+        PagedBitVector bitVector = new PagedBitVector(SIZE);
+        PagedBitVector copy = bitVector.copy();
+        PagedBitVector.Page page = copy.pages[0];
+        copy.release();
+
+        bitVector.set(1);
+        Assert.assertSame(bitVector.pages[0], page);
+        Assert.assertTrue(copy.get(1));
+
+        copy.set(2);
+        Assert.assertFalse(bitVector.get(2));
+    }
+
+    @Test
+    public void testConcurrentCopies() throws Exception {
+        final PagedBitVector bitVector = new PagedBitVector(SIZE);
+        for (int i = 0; i < SIZE; i += 2) {
+            bitVector.set(i);
+        }
+        final PagedBitVector[] copies = new PagedBitVector[8];
+        for (int i = 0; i < copies.length; i++) {
+            copies[i] = bitVector.copy();
+        }
+        Thread[] threads = new Thread[copies.length];
+        for (int t = 0; t < threads.length; t++) {
+            final PagedBitVector copy = copies[t];
+            final int offset = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = offset; i < SIZE; i += copies.length) {
+                        copy.clear(i);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int i = 0; i < SIZE; i++) {
+            Assert.assertEquals(bitVector.get(i), i % 2 == 0);
+            for (int t = 0; t < copies.length; t++) {
+                Assert.assertEquals(copies[t].get(i), i % 2 == 0 && i % copies.length != t);
+            }
+        }
+        for (PagedBitVector copy : copies) {
+            copy.release();
+        }
+        for (PagedBitVector.Page page : bitVector.pages) {
+            Assert.assertEquals(page.refCount, 1);
+        }
+    }
+
+    @Test
+    public void testEnsureSize() {
+        PagedBitVector bitVector = new PagedBitVector(10);
+        bitVector.set(9);
+        PagedBitVector copy = bitVector.copy();
+        bitVector.ensureSize(SIZE);
+        Assert.assertEquals(bitVector.size(), SIZE);
+        Assert.assertTrue(bitVector.get(9));
+
+        bitVector.set(SIZE - 1);
+        bitVector.clear(9);
+        Assert.assertTrue(copy.get(9));
+        Assert.assertEquals(copy.size(), 10);
+    }
+
+    @Test
+    public void testNot() {
+        PagedBitVector bitVector = new PagedBitVector(SIZE);
+        bitVector.set(3);
+        PagedBitVector copy = bitVector.copy();
+        bitVector.not();
+        Assert.assertFalse(bitVector.get(3));
+        Assert.assertTrue(bitVector.get(SIZE - 1));
+        Assert.assertTrue(copy.get(3));
+        Assert.assertFalse(copy.get(SIZE - 1));
+    }
+
+    @Test
+    public void testToBitVector() {
+        PagedBitVector bitVector = new PagedBitVector(SIZE);
+        bitVector.set(7);
+        bitVector.set(SIZE - 2);
+        BitVector colt = bitVector.toBitVector();
+        Assert.assertEquals(colt.size(), SIZE);
+        Assert.assertEquals(colt.cardinality(), 2);
+        Assert.assertTrue(colt.get(SIZE - 2));
+
+        PagedBitVector read = new PagedBitVector(colt.elements(), colt.size());
+        Assert.assertEquals(read, bitVector);
+        Assert.assertEquals(read.hashCode(), bitVector.hashCode());
+    }
+}
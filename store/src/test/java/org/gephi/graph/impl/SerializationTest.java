@@ -54,6 +54,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import org.gephi.graph.api.Column;
 import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.Origin;
 import org.gephi.graph.api.Estimator;
@@ -70,6 +71,7 @@ import org.gephi.graph.api.types.TimestampShortMap;
 import org.gephi.graph.api.types.TimestampStringMap;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.Node;
 import org.gephi.graph.api.TimeRepresentation;
 import org.gephi.graph.api.types.IntervalBooleanMap;
 import org.gephi.graph.api.types.IntervalByteMap;
@@ -155,6 +157,173 @@ public class SerializationTest {
         Assert.assertTrue(edgeStore.equals(l.edgeStore));
     }
 
+    @Test
+    public void testEdgeStoreWithGaps() throws IOException, ClassNotFoundException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore graphStore = graphModel.store;
+
+        NodeStore nodeStore = graphStore.nodeStore;
+        EdgeStore edgeStore = graphStore.edgeStore;
+        NodeImpl[] nodes = GraphGenerator.generateNodeList(500);
+        nodeStore.addAll(Arrays.asList(nodes));
+        EdgeImpl[] edges = GraphGenerator.generateMixedEdgeList(nodeStore, 2000, 0, true);
+        edgeStore.addAll(Arrays.asList(edges));
+        for (int i = 0; i < nodes.length; i += 7) {
+            graphStore.removeNode(nodes[i]);
+        }
+
+        Serialization ser = new Serialization(graphModel);
+        byte[] buf = ser.serialize(graphStore);
+
+        graphModel = new GraphModelImpl();
+        ser = new Serialization(graphModel);
+        GraphStore l = (GraphStore) ser.deserialize(buf);
+        Assert.assertEquals(l.getNodeCount(), nodeStore.size());
+        Assert.assertEquals(l.getEdgeCount(), edgeStore.size());
+        for (Edge edge : edgeStore) {
+            Edge readEdge = l.getEdge(edge.getId());
+            Assert.assertEquals(readEdge.getSource().getId(), edge.getSource().getId());
+            Assert.assertEquals(readEdge.getTarget().getId(), edge.getTarget().getId());
+            Assert.assertEquals(readEdge.isDirected(), edge.isDirected());
+            Assert.assertEquals(readEdge.getType(), edge.getType());
+        }
+    }
+
+    @Test
+    public void testGraphStoreKeepsStoreIds() throws IOException, ClassNotFoundException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore graphStore = graphModel.store;
+
+        NodeStore nodeStore = graphStore.nodeStore;
+        EdgeStore edgeStore = graphStore.edgeStore;
+        NodeImpl[] nodes = GraphGenerator.generateNodeList(500);
+        nodeStore.addAll(Arrays.asList(nodes));
+        EdgeImpl[] edges = GraphGenerator.generateMixedEdgeList(nodeStore, 2000, 0, true);
+        edgeStore.addAll(Arrays.asList(edges));
+        for (int i = 0; i < nodes.length; i += 7) {
+            graphStore.removeNode(nodes[i]);
+        }
+        for (int i = 0; i < edges.length; i += 5) {
+            if (edgeStore.contains(edges[i])) {
+                graphStore.removeEdge(edges[i]);
+            }
+        }
+
+        Serialization ser = new Serialization(graphModel);
+        byte[] buf = ser.serialize(graphStore);
+
+        graphModel = new GraphModelImpl();
+        ser = new Serialization(graphModel);
+        GraphStore l = (GraphStore) ser.deserialize(buf);
+        Assert.assertEquals(l.nodeStore.size(), nodeStore.size());
+        Assert.assertEquals(l.edgeStore.size(), edgeStore.size());
+        Assert.assertEquals(l.edgeStore.undirectedSize, edgeStore.undirectedSize);
+        Assert.assertEquals(l.edgeStore.mutualEdgesSize, edgeStore.mutualEdgesSize);
+        for (Node node : nodeStore) {
+            NodeImpl readNode = l.nodeStore.get(node.getId());
+            Assert.assertEquals(readNode.getStoreId(), node.getStoreId());
+            Assert.assertEquals(readNode.getDegree(), ((NodeImpl) node).getDegree());
+        }
+        for (Edge edge : edgeStore) {
+            EdgeImpl readEdge = l.edgeStore.get(edge.getId());
+            Assert.assertEquals(readEdge.getStoreId(), edge.getStoreId());
+            Assert.assertEquals(readEdge.isMutual(), ((EdgeImpl) edge).isMutual());
+        }
+
+        Assert.assertEquals(l.nodeStore.garbageSize, nodeStore.garbageSize);
+        Assert.assertEquals(l.edgeStore.garbageSize, edgeStore.garbageSize);
+
+        NodeImpl node = new NodeImpl("new", l);
+        l.nodeStore.add(node);
+        Assert.assertTrue(node.getStoreId() < nodeStore.maxStoreId());
+    }
+
+    @Test
+    public void testGraphViewWithGaps() throws IOException, ClassNotFoundException {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        NodeImpl[] nodes = graphStore.nodeStore.toArray();
+        graphStore.removeNode(nodes[0]);
+
+        GraphViewImpl view = graphStore.viewStore.createView();
+        for (Node node : graphStore.getNodes()) {
+            view.addNode(node);
+        }
+        for (Edge edge : graphStore.getEdges()) {
+            view.addEdge(edge);
+        }
+
+        Serialization ser = new Serialization(graphStore.graphModel);
+        byte[] buf = ser.serialize(graphStore);
+
+        GraphModelImpl graphModel = new GraphModelImpl();
+        ser = new Serialization(graphModel);
+        GraphStore l = (GraphStore) ser.deserialize(buf);
+        GraphViewImpl readView = l.viewStore.views[view.storeId];
+        Assert.assertEquals(readView.getNodeCount(), view.getNodeCount());
+        Assert.assertEquals(readView.getEdgeCount(), view.getEdgeCount());
+        for (Node node : l.getNodes()) {
+            Assert.assertTrue(readView.containsNode((NodeImpl) node));
+        }
+        for (Edge edge : l.getEdges()) {
+            Assert.assertTrue(readView.containsEdge((EdgeImpl) edge));
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testGraphStoreCorruptedChunk() throws IOException, ClassNotFoundException {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+
+        Serialization ser = new Serialization(graphStore.graphModel);
+        byte[] buf = ser.serialize(graphStore);
+        buf[buf.length - 1] ^= 0x55;
+
+        ser = new Serialization(new GraphModelImpl());
+        ser.deserialize(buf);
+    }
+
+    @Test
+    public void testLegacyNodeAndEdgeRecords() throws IOException, ClassNotFoundException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore graphStore = graphModel.store;
+        NodeImpl source = new NodeImpl("0", graphStore);
+        NodeImpl target = new NodeImpl("1", graphStore);
+        EdgeImpl edge = new EdgeImpl("0", graphStore, source, target, 0, 2.0, false);
+
+        Serialization ser = new Serialization(graphModel);
+        DataInputOutput dio = new DataInputOutput();
+        int[] storeIds = new int[] { 5, 9 };
+        NodeImpl[] nodes = new NodeImpl[] { source, target };
+        for (int i = 0; i < nodes.length; i++) {
+            dio.write(Serialization.NODE);
+            ser.serialize(dio, nodes[i].getId());
+            ser.serialize(dio, storeIds[i]);
+            ser.serialize(dio, nodes[i].attributes);
+            ser.serialize(dio, nodes[i].properties);
+        }
+        dio.write(Serialization.EDGE);
+        ser.serialize(dio, edge.getId());
+        ser.serialize(dio, 5);
+        ser.serialize(dio, 9);
+        ser.serialize(dio, edge.getType());
+        ser.serialize(dio, 2.0);
+        ser.serialize(dio, edge.isDirected());
+        ser.serialize(dio, edge.attributes);
+        ser.serialize(dio, edge.properties);
+        byte[] buf = dio.toByteArray();
+
+        GraphModelImpl readModel = new GraphModelImpl();
+        ser = new Serialization(readModel);
+        ser.readVersion = 0.5f;
+        dio = new DataInputOutput(buf);
+        ser.deserialize(dio);
+        ser.deserialize(dio);
+        EdgeImpl readEdge = (EdgeImpl) ser.deserialize(dio);
+        Assert.assertEquals(readEdge.getSource().getId(), "0");
+        Assert.assertEquals(readEdge.getTarget().getId(), "1");
+        Assert.assertFalse(readEdge.isDirected());
+        Assert.assertEquals(readModel.getGraph().getEdgeCount(), 1);
+    }
+
     @Test
     public void testNodeStore() throws IOException, ClassNotFoundException {
         GraphModelImpl graphModel = new GraphModelImpl();
@@ -1220,4 +1389,59 @@ public class SerializationTest {
         GraphModelImpl read = ser.deserializeGraphModelWithoutVersionPrefix(dio.reset(bytes), Serialization.VERSION);
         Assert.assertTrue(read.deepEquals(gm));
     }
+
+    @Test
+    public void testDictionaryEncodedTimestampColumn() throws Exception {
+        GraphModelImpl gm = GraphGenerator.generateSmallGraphStore().graphModel;
+        Column col = gm.getNodeTable().addColumn("age", null, TimestampDoubleMap.class, Origin.DATA, null, false, true);
+        for (Node node : gm.getGraph().getNodes().toArray()) {
+            node.setAttribute(col, 1.0, 1.0);
+            node.setAttribute(col, 2.0, 2.0);
+        }
+        Serialization ser = new Serialization(gm);
+
+        DataInputOutput dio = new DataInputOutput();
+        ser.serializeGraphModel(dio, gm);
+        byte[] bytes = dio.toByteArray();
+
+        GraphModelImpl read = ser.deserializeGraphModel(dio.reset(bytes));
+        Assert.assertTrue(read.deepEquals(gm));
+
+        Column readCol = read.getNodeTable().getColumn("age");
+        Assert.assertTrue(readCol.isDictionaryEncoded());
+        double[] timestamps = null;
+        for (Node node : read.getGraph().getNodes()) {
+            TimestampDoubleMap map = (TimestampDoubleMap) node.getAttribute(readCol);
+            if (timestamps == null) {
+                timestamps = map.getTimestamps();
+            }
+            Assert.assertSame(map.getTimestamps(), timestamps);
+        }
+    }
+
+    @Test
+    public void testDictionaryEncodedColumn() throws Exception {
+        GraphModelImpl gm = GraphGenerator.generateSmallGraphStore().graphModel;
+        Column col = gm.getNodeTable().addColumn("category", null, String.class, Origin.DATA, null, true, true);
+        int i = 0;
+        for (Node node : gm.getGraph().getNodes().toArray()) {
+            node.setAttribute(col, i++ % 2 == 0 ? "foo" : "bar");
+        }
+        Serialization ser = new Serialization(gm);
+
+        DataInputOutput dio = new DataInputOutput();
+        ser.serializeGraphModel(dio, gm);
+        byte[] bytes = dio.toByteArray();
+
+        GraphModelImpl read = ser.deserializeGraphModel(dio.reset(bytes));
+        Assert.assertTrue(read.deepEquals(gm));
+
+        ColumnImpl readCol = (ColumnImpl) read.getNodeTable().getColumn("category");
+        Assert.assertTrue(readCol.isDictionaryEncoded());
+        Assert.assertEquals(readCol.dictionary.toArray(), new String[] { "foo", "bar" });
+        for (Node node : read.getGraph().getNodes()) {
+            String value = (String) node.getAttribute(readCol);
+            Assert.assertSame(value, readCol.dictionary.getValue(readCol.dictionary.getCode(value)));
+        }
+    }
 }
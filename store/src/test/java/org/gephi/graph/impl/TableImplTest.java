@@ -278,4 +278,19 @@ public class TableImplTest {
 
         Assert.assertEquals(table1.deepHashCode(), table2.deepHashCode());
     }
+
+    @Test
+    public void testAddColumnDictionaryEncoded() {
+        GraphStore graphStore = new GraphStore();
+        Column col = graphStore.nodeTable.addColumn("Country", null, String.class, Origin.DATA, null, true, true);
+        Assert.assertTrue(col.isDictionaryEncoded());
+
+        NodeImpl n1 = new NodeImpl("1", graphStore);
+        NodeImpl n2 = new NodeImpl("2", graphStore);
+        graphStore.addAllNodes(Arrays.asList(n1, n2));
+        n1.setAttribute(col, new String("France"));
+        n2.setAttribute(col, new String("France"));
+        Assert.assertSame(n1.getAttribute(col), n2.getAttribute(col));
+        Assert.assertEquals(graphStore.nodeTable.store.indexStore.getIndex(graphStore).count(col, "France"), 2);
+    }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TableLockTest {
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testStripeCountPowerOfTwo() {
+        new TableLock(3);
+    }
+
+    @Test
+    public void testLockStripe() {
+        TableLock lock = new TableLock(4);
+        lock.lockStripe(6);
+        Assert.assertEquals(lock.lock.getReadHoldCount(), 1);
+        Assert.assertTrue(lock.stripes[2].isHeldByCurrentThread());
+        Assert.assertFalse(lock.stripes[1].isHeldByCurrentThread());
+        lock.unlockStripe(6);
+        Assert.assertEquals(lock.lock.getReadHoldCount(), 0);
+        Assert.assertFalse(lock.stripes[2].isHeldByCurrentThread());
+    }
+
+    @Test
+    public void testLockStripeWhileLocked() {
+        TableLock lock = new TableLock();
+        lock.lock();
+        lock.lockStripe(1);
+        lock.unlockStripe(1);
+        lock.unlock();
+        Assert.assertFalse(lock.lock.isWriteLocked());
+    }
+
+    @Test
+    public void testLockExcludesStripes() throws Exception {
+        final TableLock lock = new TableLock();
+        lock.lockStripe(1);
+        final boolean[] locked = new boolean[1];
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                locked[0] = lock.lock.writeLock().tryLock();
+            }
+        });
+        thread.start();
+        thread.join();
+        Assert.assertFalse(locked[0]);
+        lock.unlockStripe(1);
+    }
+}
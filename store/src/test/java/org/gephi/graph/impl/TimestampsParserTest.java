@@ -30,6 +30,8 @@ import org.gephi.graph.api.types.TimestampMap;
 import org.gephi.graph.api.types.TimestampShortMap;
 import org.gephi.graph.api.types.TimestampStringMap;
 import org.gephi.graph.api.types.TimestampSet;
+import org.gephi.graph.api.AttributeUtils;
+import org.joda.time.DateTimeZone;
 import static org.testng.Assert.*;
 import org.testng.annotations.Test;
 
@@ -361,4 +363,37 @@ public class TimestampsParserTest {
 
         assertEquals("<[-Infinity, 1.0]; [-3.0, 3.0]; [0.0, 2.0]; [1.0, 4.0]>", parseTimestampMapToString("[-Infinity, 1] [0.0, 2] [-3.0, 3] [1.0, 4]", Double.class));
     }
+
+    @Test
+    public void testParseTimestampSetUnsorted() {
+        assertEquals(buildTimestampSet(1, 2, 3), TimestampsParser.parseTimestampSet("[3, 1, 2, 1]"));
+    }
+
+    @Test
+    public void testParseNumbersFastPath() {
+        String[] numbers = { "0", "-0", "1", "-1.5", "0.1", "3.14159", ".5", "1.", "1e3", "1.5E-7", "-2e+22", "123456789012345", "12345678901234567890", "0.30000000000000004", "1e300", "INFINITY", "-infinity" };
+        for (String number : numbers) {
+            double expected = FormattingAndParsingUtils.parseDateTimeOrTimestamp(number);
+            double result = FormattingAndParsingUtils.parseDateTimeOrTimestamp(number, 0, number.length(), null);
+            assertEquals(Double.doubleToLongBits(result), Double.doubleToLongBits(expected), number);
+        }
+    }
+
+    @Test
+    public void testParseDatesFastPath() {
+        String[] dates = { "2015-01-01", "2016-02-29", "1969-12-31T23:59", "2015-01-01T10:30:15", "2015-01-01T10:30:15.5", "2015-01-01T10:30:15.123", "2015-01-01T10:30:15Z", "2015-01-01T10:30:15.123+01:30", "2015-01-01T10:30-05:00", "0001-01-01", "1600-03-01T00:00" };
+        DateTimeZone[] zones = { null, DateTimeZone.UTC, DateTimeZone.forOffsetHours(3), DateTimeZone
+                .forID("Europe/Paris") };
+        for (DateTimeZone zone : zones) {
+            for (String date : dates) {
+                assertEquals(FormattingAndParsingUtils.parseDateTimeOrTimestamp(date, 0, date.length(), zone), AttributeUtils
+                        .parseDateTime(date, zone), date);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testParseTimestampSetBadLeapDay() {
+        TimestampsParser.parseTimestampSet("[2015-02-29]");
+    }
 }
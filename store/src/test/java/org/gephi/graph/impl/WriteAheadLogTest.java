@@ -0,0 +1,276 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.types.TimestampDoubleMap;
+import org.gephi.graph.impl.utils.DataInputOutput;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class WriteAheadLogTest {
+
+    @Test
+    public void testReplayNodesAndEdges() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        GraphModel.Serialization.startWriteAheadLog(log, graphModel);
+
+        Graph graph = graphModel.getGraph();
+        Column age = graphModel.getNodeTable().addColumn("age", Integer.class);
+        Node n1 = graphModel.factory().newNode("1");
+        n1.setAttribute(age, 10);
+        Node n2 = graphModel.factory().newNode("2");
+        Node n3 = graphModel.factory().newNode("3");
+        graph.addNode(n1);
+        graph.addAllNodes(Arrays.asList(n2, n3));
+        int type = graphModel.addEdgeType("knows");
+        graph.addEdge(graphModel.factory().newEdge("e1", n1, n2, type, 3.0, false));
+        graph.addEdge(graphModel.factory().newEdge("e2", n2, n3, 0, 1.0, true));
+        n2.setAttribute(age, 20);
+        n2.setLabel("foo");
+        graph.getEdge("e2").setWeight(5.0);
+        graph.removeNode(n3);
+
+        GraphModel.Serialization.stopWriteAheadLog(graphModel);
+
+        GraphModelImpl readModel = new GraphModelImpl();
+        int records = GraphModel.Serialization.replayWriteAheadLog(new DataInputOutput(log.toByteArray()), readModel);
+        Assert.assertTrue(records > 0);
+
+        Graph readGraph = readModel.getGraph();
+        Assert.assertEquals(readGraph.getNodeCount(), 2);
+        Assert.assertEquals(readGraph.getEdgeCount(), 1);
+        Assert.assertNull(readGraph.getNode("3"));
+        Assert.assertEquals(readGraph.getNode("1").getAttribute("age"), 10);
+        Assert.assertEquals(readGraph.getNode("2").getAttribute("age"), 20);
+        Assert.assertEquals(readGraph.getNode("2").getLabel(), "foo");
+        Edge readEdge = readGraph.getEdge("e1");
+        Assert.assertEquals(readEdge.getTypeLabel(), "knows");
+        Assert.assertEquals(readEdge.getWeight(), 3.0);
+        Assert.assertFalse(readEdge.isDirected());
+    }
+
+    @Test
+    public void testReplayOnSnapshot() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Graph graph = graphModel.getGraph();
+        Column age = graphModel.getNodeTable().addColumn("age", Integer.class);
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        graph.addAllNodes(Arrays.asList(n1, n2));
+        graph.addEdge(graphModel.factory().newEdge("e1", n1, n2, 0, 1.0, true));
+
+        DataInputOutput snapshot = new DataInputOutput();
+        GraphModel.Serialization.write(snapshot, graphModel);
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        GraphModel.Serialization.startWriteAheadLog(log, graphModel);
+
+        n1.setAttribute(age, 5);
+        n2.removeAttribute(age);
+        graph.removeEdge(graph.getEdge("e1"));
+        Column name = graphModel.getNodeTable().addColumn("name", String.class);
+        n2.setAttribute(name, "bar");
+        graphModel.getNodeTable().removeColumn("age");
+
+        GraphModel.Serialization.stopWriteAheadLog(graphModel);
+
+        GraphModel readModel = GraphModel.Serialization.read(new DataInputOutput(snapshot.toByteArray()));
+        GraphModel.Serialization.replayWriteAheadLog(new DataInputOutput(log.toByteArray()), readModel);
+
+        Graph readGraph = readModel.getGraph();
+        Assert.assertEquals(readGraph.getNodeCount(), 2);
+        Assert.assertEquals(readGraph.getEdgeCount(), 0);
+        Assert.assertFalse(readModel.getNodeTable().hasColumn("age"));
+        Assert.assertEquals(readGraph.getNode("2").getAttribute("name"), "bar");
+    }
+
+    @Test
+    public void testReplayTimestamps() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Graph graph = graphModel.getGraph();
+        Column price = graphModel.getNodeTable().addColumn("price", TimestampDoubleMap.class);
+        Node n1 = graphModel.factory().newNode("1");
+        graph.addNode(n1);
+
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        GraphModel.Serialization.startWriteAheadLog(log, graphModel);
+        n1.addTimestamp(1.0);
+        n1.addTimestamp(2.0);
+        n1.removeTimestamp(1.0);
+        n1.setAttribute(price, 4.0, 1.0);
+        n1.setAttribute(price, 6.0, 2.0);
+        n1.removeAttribute(price, 1.0);
+        GraphModel.Serialization.stopWriteAheadLog(graphModel);
+
+        GraphModelImpl readModel = new GraphModelImpl();
+        readModel.getNodeTable().addColumn("price", TimestampDoubleMap.class);
+        readModel.getGraph().addNode(readModel.factory().newNode("1"));
+        GraphModel.Serialization.replayWriteAheadLog(new DataInputOutput(log.toByteArray()), readModel);
+
+        Node readNode = readModel.getGraph().getNode("1");
+        Assert.assertEquals(readNode.getTimestamps(), new double[] { 2.0 });
+        Assert.assertNull(readNode.getAttribute("price", 1.0));
+        Assert.assertEquals(readNode.getAttribute("price", 2.0), 6.0);
+    }
+
+    @Test
+    public void testGroupCommit() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        GraphModel.Serialization.startWriteAheadLog(log, graphModel);
+
+        graphModel.getGraph().addNode(graphModel.factory().newNode("1"));
+        Assert.assertEquals(log.size(), 0);
+
+        GraphModel.Serialization.commitWriteAheadLog(graphModel);
+        int size = log.size();
+        Assert.assertTrue(size > 0);
+
+        GraphModel.Serialization.commitWriteAheadLog(graphModel);
+        Assert.assertEquals(log.size(), size);
+    }
+
+    @Test
+    public void testGroupCommitSize() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        GraphModel.Serialization.startWriteAheadLog(log, graphModel, 1);
+
+        graphModel.getGraph().addNode(graphModel.factory().newNode("1"));
+        // Written by the background thread
+        long timeout = System.currentTimeMillis() + 10000;
+        while (log.size() == 0 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(log.size() > 0);
+        GraphModel.Serialization.stopWriteAheadLog(graphModel);
+    }
+
+    @Test
+    public void testWriteFailure() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        final ByteArrayOutputStream log = new ByteArrayOutputStream();
+        final boolean[] broken = new boolean[1];
+        OutputStream output = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                if (broken[0]) {
+                    throw new IOException("Disk full");
+                }
+                log.write(b);
+            }
+        };
+        GraphModel.Serialization.startWriteAheadLog(output, graphModel);
+        Graph graph = graphModel.getGraph();
+        graph.addNode(graphModel.factory().newNode("1"));
+        GraphModel.Serialization.commitWriteAheadLog(graphModel);
+        int size = log.size();
+
+        broken[0] = true;
+        graph.addNode(graphModel.factory().newNode("2"));
+        try {
+            GraphModel.Serialization.commitWriteAheadLog(graphModel);
+            Assert.fail("Expected the commit to fail");
+        } catch (IOException e) {
+            // Expected
+        }
+        Assert.assertNotNull(graphModel.store.writeAheadLog.getFailure());
+
+        // Mutations still succeed but aren't logged anymore
+        broken[0] = false;
+        graph.addNode(graphModel.factory().newNode("3"));
+        Assert.assertEquals(graph.getNodeCount(), 3);
+        try {
+            GraphModel.Serialization.stopWriteAheadLog(graphModel);
+            Assert.fail("Expected the stop to fail");
+        } catch (IOException e) {
+            // Expected
+        }
+        Assert.assertEquals(log.size(), size);
+
+        GraphModelImpl readModel = new GraphModelImpl();
+        GraphModel.Serialization.replayWriteAheadLog(new DataInputOutput(log.toByteArray()), readModel);
+        Assert.assertEquals(readModel.getGraph().getNodeCount(), 1);
+    }
+
+    @Test
+    public void testReplayTruncated() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        GraphModel.Serialization.startWriteAheadLog(log, graphModel);
+
+        graphModel.getGraph().addNode(graphModel.factory().newNode("1"));
+        GraphModel.Serialization.commitWriteAheadLog(graphModel);
+        graphModel.getGraph().addNode(graphModel.factory().newNode("2"));
+        GraphModel.Serialization.stopWriteAheadLog(graphModel);
+
+        byte[] bytes = log.toByteArray();
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+
+        GraphModelImpl readModel = new GraphModelImpl();
+        Assert.assertEquals(GraphModel.Serialization.replayWriteAheadLog(new DataInputOutput(truncated), readModel), 1);
+        Assert.assertEquals(readModel.getGraph().getNodeCount(), 1);
+    }
+
+    @Test
+    public void testReplayCorrupted() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        GraphModel.Serialization.startWriteAheadLog(log, graphModel);
+        graphModel.getGraph().addNode(graphModel.factory().newNode("1"));
+        GraphModel.Serialization.stopWriteAheadLog(graphModel);
+
+        byte[] bytes = log.toByteArray();
+        bytes[bytes.length - 1] ^= 0xff;
+
+        GraphModelImpl readModel = new GraphModelImpl();
+        Assert.assertEquals(GraphModel.Serialization.replayWriteAheadLog(new DataInputOutput(bytes), readModel), 0);
+        Assert.assertEquals(readModel.getGraph().getNodeCount(), 0);
+    }
+
+    @Test
+    public void testStopWriteAheadLog() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        GraphModel.Serialization.startWriteAheadLog(log, graphModel);
+        GraphModel.Serialization.stopWriteAheadLog(graphModel);
+
+        graphModel.getGraph().addNode(graphModel.factory().newNode("1"));
+        Assert.assertNull(graphModel.store.writeAheadLog);
+        Assert.assertEquals(log.size(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testStartTwice() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphModel.Serialization.startWriteAheadLog(new ByteArrayOutputStream(), graphModel);
+        GraphModel.Serialization.startWriteAheadLog(new ByteArrayOutputStream(), graphModel);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCommitNotStarted() throws IOException {
+        GraphModel.Serialization.commitWriteAheadLog(new GraphModelImpl());
+    }
+}